@@ -11,19 +11,16 @@
  *******************************************************************************/
 package sync.pds.solver;
 
-import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Predicates;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
@@ -32,10 +29,12 @@ import sync.pds.solver.nodes.ExclusionNode;
 import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
+import sync.pds.solver.nodes.NodeArena;
 import sync.pds.solver.nodes.NodeWithLocation;
 import sync.pds.solver.nodes.PopNode;
 import sync.pds.solver.nodes.PushNode;
-import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.ListenerMultimap;
+import wpds.impl.ListenerSet;
 import wpds.impl.NestedAutomatonListener;
 import wpds.impl.NestedWeightedPAutomatons;
 import wpds.impl.NormalRule;
@@ -43,6 +42,7 @@ import wpds.impl.PopRule;
 import wpds.impl.PushRule;
 import wpds.impl.Rule;
 import wpds.impl.Transition;
+import wpds.impl.TransitionWorklist;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
 import wpds.impl.WeightedPushdownSystem;
@@ -70,14 +70,25 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             return "Field " + SyncPDSSolver.this.toString();
         };
     };
-    private final Set<Node<Stmt, Fact>> reachedStates = Sets.newHashSet();
+    private final Set<Node<Stmt, Fact>> reachedStates = Sets.newConcurrentHashSet();
     private final Set<Node<Stmt, Fact>> callingContextReachable = Sets.newHashSet();
     private final Set<Node<Stmt, Fact>> fieldContextReachable = Sets.newHashSet();
-    private final Set<SyncPDSUpdateListener<Stmt, Fact>> updateListeners = Sets.newHashSet();
-    private final Multimap<Node<Stmt, Fact>, SyncStatePDSUpdateListener<Stmt, Fact>> reachedStateUpdateListeners = HashMultimap
-            .create();
+    private final ListenerSet<SyncPDSUpdateListener<Stmt, Fact>> updateListeners = new ListenerSet<>();
+    private final ListenerMultimap<Node<Stmt, Fact>, SyncStatePDSUpdateListener<Stmt, Fact>> reachedStateUpdateListeners =
+            new ListenerMultimap<>();
     protected final WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> fieldAutomaton;
     protected final WeightedPAutomaton<Stmt, INode<Fact>, W> callAutomaton;
+    private final NodeArena<Stmt, Fact, Field> arena;
+    private final NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries;
+    /**
+     * Nodes reached in the calling context of a saturated summary, see {@link NestedWeightedPAutomatons#isSaturated},
+     * and nodes reached in any other context. The normal and pop call rules of a node that is only reached within
+     * saturated summaries would add transitions the summaries already contain, so they are deferred until the node is
+     * reached in another context. Push rules are added, they lead to the summaries of further callees.
+     */
+    private final Set<Node<Stmt, Fact>> summarizedNodes = Sets.newHashSet();
+    private final Set<Node<Stmt, Fact>> unsummarizedNodes = Sets.newHashSet();
+    private final Multimap<Node<Stmt, Fact>, Rule<Stmt, INode<Fact>, W>> deferredCallRules = HashMultimap.create();
 
     protected boolean preventFieldTransitionAdd(Transition<Field, INode<Node<Stmt, Fact>>> trans, W weight) {
         return false;
@@ -91,6 +102,36 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
             final boolean useFieldSummaries,
             NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries) {
+        this(initialCallNode, initialFieldNode, useCallSummaries, callSummaries, useFieldSummaries, fieldSummaries,
+                null, null);
+    }
+
+    /**
+     * Creates a solver whose call and field automata are saturated by the worklist-driven post* (see
+     * {@link TransitionWorklist}). A null worklist selects the default, listener-driven post* for that automaton.
+     */
+    public SyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt, Fact>> initialFieldNode,
+            final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
+            final boolean useFieldSummaries,
+            NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries,
+            TransitionWorklist<Stmt, INode<Fact>, W> callWorklist,
+            TransitionWorklist<Field, INode<Node<Stmt, Fact>>, W> fieldWorklist) {
+        this(initialCallNode, initialFieldNode, useCallSummaries, callSummaries, useFieldSummaries, fieldSummaries,
+                callWorklist, fieldWorklist, new NodeArena<Stmt, Fact, Field>());
+    }
+
+    /**
+     * Creates a solver that takes its nodes and generated states from the arena, which may be shared with other
+     * solvers of the same analysis.
+     */
+    public SyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt, Fact>> initialFieldNode,
+            final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
+            final boolean useFieldSummaries,
+            NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries,
+            TransitionWorklist<Stmt, INode<Fact>, W> callWorklist,
+            TransitionWorklist<Field, INode<Node<Stmt, Fact>>, W> fieldWorklist, NodeArena<Stmt, Fact, Field> arena) {
+        this.arena = arena;
+        this.callSummaries = useCallSummaries ? callSummaries : null;
         fieldAutomaton = new WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W>(initialFieldNode) {
             @Override
             public INode<Node<Stmt, Fact>> createState(INode<Node<Stmt, Fact>> d, Field loc) {
@@ -131,6 +172,11 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
                 return d instanceof GeneratedState;
             }
 
+            @Override
+            public void onStateListenerRegister() {
+                SyncPDSSolver.this.onStateListenerRegister();
+            }
+
             @Override
             public void onManyStateListenerRegister() {
                 SyncPDSSolver.this.onManyStateListenerRegister();
@@ -174,6 +220,11 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             public boolean isGeneratedState(INode<Fact> d) {
                 return d instanceof GeneratedState;
             }
+
+            @Override
+            public void onStateListenerRegister() {
+                SyncPDSSolver.this.onStateListenerRegister();
+            }
         };
 
         callAutomaton.registerListener(new CallAutomatonListener());
@@ -182,8 +233,23 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             callAutomaton.registerNestedAutomatonListener(new CallSummaryListener());
         // if(fieldAutomaton.nested())
         // fieldAutomaton.registerNestedAutomatonListener(new FieldSummaryListener());
-        callingPDS.poststar(callAutomaton, callSummaries);
-        fieldPDS.poststar(fieldAutomaton, fieldSummaries);
+        if (callWorklist == null) {
+            callingPDS.poststar(callAutomaton, callSummaries);
+        } else {
+            callingPDS.poststar(callAutomaton, callSummaries, callWorklist);
+        }
+        if (fieldWorklist == null) {
+            fieldPDS.poststar(fieldAutomaton, fieldSummaries);
+        } else {
+            fieldPDS.poststar(fieldAutomaton, fieldSummaries, fieldWorklist);
+        }
+
+    }
+
+    /**
+     * Called for every state listener registration of the call and field automaton.
+     */
+    protected void onStateListenerRegister() {
 
     }
 
@@ -382,7 +448,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         @Override
         public void onOutTransitionAdded(Transition<Stmt, INode<Fact>> t, W w,
                 WeightedPAutomaton<Stmt, INode<Fact>, W> weightedPAutomaton) {
-            Node<Stmt, Fact> returningNode = new Node<Stmt, Fact>(t.getLabel(), nestedT.getStart().fact());
+            Node<Stmt, Fact> returningNode = arena.node(t.getLabel(), nestedT.getStart().fact());
             setCallingContextReachable(returningNode);
         }
 
@@ -429,7 +495,15 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         @Override
         public void onWeightAdded(Transition<Stmt, INode<Fact>> t, W w, WeightedPAutomaton<Stmt, INode<Fact>, W> aut) {
             if (!(t.getStart() instanceof GeneratedState) && !t.getLabel().equals(callAutomaton.epsilon())) {
-                Node<Stmt, Fact> node = new Node<Stmt, Fact>(t.getString(), t.getStart().fact());
+                Node<Stmt, Fact> node = arena.node(t.getString(), t.getStart().fact());
+                if (aut != callAutomaton && callSummaries != null
+                        && callSummaries.isSaturated(aut.getInitialState())) {
+                    summarizedNodes.add(node);
+                } else if (unsummarizedNodes.add(node)) {
+                    for (Rule<Stmt, INode<Fact>, W> rule : deferredCallRules.removeAll(node)) {
+                        callingPDS.addRule(rule);
+                    }
+                }
                 setCallingContextReachable(node);
             }
         }
@@ -450,6 +524,23 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         solve(curr, getCallWeights().getOne());
     }
 
+    /**
+     * Adds a further start node to a solver that already solves for its initial node. The transitions of the node do
+     * not lead to the initial states but to unbalanced states of its own, so that the flows of the node are checked,
+     * for example against its type, and accepted independently of the initial node.
+     */
+    public void solveFrom(Node<Stmt, Fact> curr) {
+        INode<Node<Stmt, Fact>> fieldState = asFieldFact(curr);
+        fieldAutomaton.addUnbalancedState(fieldState);
+        fieldAutomaton.addTransition(
+                new Transition<Field, INode<Node<Stmt, Fact>>>(fieldState, emptyField(), fieldState));
+        INode<Fact> callState = wrap(curr.fact());
+        callAutomaton.addUnbalancedState(callState);
+        callAutomaton.addWeightForTransition(new Transition<Stmt, INode<Fact>>(callState, curr.stmt(), callState),
+                getCallWeights().getOne());
+        processNode(curr);
+    }
+
     private Transition<Stmt, INode<Fact>> createInitialCallTransition(Node<Stmt, Fact> curr) {
         return new Transition<Stmt, INode<Fact>>(wrap(curr.fact()), curr.stmt(), callAutomaton.getInitialState());
     }
@@ -457,7 +548,29 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
     protected void processNode(Node<Stmt, Fact> curr) {
         if (!addReachableState(curr))
             return;
-        computeSuccessor(curr);
+        if (isCancelled())
+            return;
+        // The rules of all successors are installed together, grouped by their start state and label
+        callingPDS.beginTransaction();
+        fieldPDS.beginTransaction();
+        try {
+            computeSuccessor(curr);
+        } finally {
+            try {
+                fieldPDS.commitTransaction();
+            } finally {
+                callingPDS.commitTransaction();
+            }
+        }
+    }
+
+    /**
+     * Polled before the successors of a reached node are computed. Once it returns true, the solver stops propagating
+     * at this safe point: nodes reached afterwards are recorded but their successors are not computed, which leaves the
+     * automata consistent but not saturated.
+     */
+    protected boolean isCancelled() {
+        return false;
     }
 
     protected void propagate(Node<Stmt, Fact> curr, State s) {
@@ -481,10 +594,10 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         if (reachedStates.contains(curr))
             return false;
         reachedStates.add(curr);
-        for (SyncPDSUpdateListener<Stmt, Fact> l : Lists.newLinkedList(updateListeners)) {
+        for (SyncPDSUpdateListener<Stmt, Fact> l : updateListeners) {
             l.onReachableNodeAdded(curr);
         }
-        for (SyncStatePDSUpdateListener<Stmt, Fact> l : Lists.newLinkedList(reachedStateUpdateListeners.get(curr))) {
+        for (SyncStatePDSUpdateListener<Stmt, Fact> l : reachedStateUpdateListeners.get(curr)) {
             l.reachable();
         }
         return true;
@@ -583,7 +696,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
     }
 
     public INode<Node<Stmt, Fact>> asFieldFact(Node<Stmt, Fact> node) {
-        return new SingleNode<Node<Stmt, Fact>>(new Node<Stmt, Fact>(node.stmt(), node.fact()));
+        return arena.fieldNode(node);
     }
 
     public void processPop(Node<Stmt, Fact> curr, PopNode popNode) {
@@ -602,12 +715,12 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             // TODO we have an unchecked cast here, branch directly based on PopNode type?
             CallPopNode<Fact, Stmt> callPopNode = (CallPopNode) popNode;
             Stmt returnSite = callPopNode.getReturnSite();
-            addNormalFieldFlow(curr, new Node<Stmt, Fact>(returnSite, (Fact) location));
+            addNormalFieldFlow(curr, arena.node(returnSite, (Fact) location));
             if (ContextSensitive) {
                 addCallRule(new PopRule<Stmt, INode<Fact>, W>(wrap(curr.fact()), curr.stmt(), wrap((Fact) location),
                         getCallWeights().pop(curr, returnSite)));
             } else {
-                addNormalCallFlow(curr, new Node<Stmt, Fact>(returnSite, (Fact) location));
+                addNormalCallFlow(curr, arena.node(returnSite, (Fact) location));
             }
         }
     }
@@ -639,6 +752,13 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
     }
 
     public void addCallRule(Rule<Stmt, INode<Fact>, W> rule) {
+        if (!(rule instanceof PushRule) && !(rule.getS1() instanceof GeneratedState)) {
+            Node<Stmt, Fact> node = arena.node(rule.getL1(), rule.getS1().fact());
+            if (summarizedNodes.contains(node) && !unsummarizedNodes.contains(node)) {
+                deferredCallRules.put(node, rule);
+                return;
+            }
+        }
         callingPDS.addRule(rule);
     }
 
@@ -658,7 +778,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             INode<Node<Stmt, Fact>> n = t.getStart();
             if (!(n instanceof GeneratedState) && !t.getLabel().equals(fieldAutomaton.epsilon())) {
                 Node<Stmt, Fact> fact = n.fact();
-                Node<Stmt, Fact> node = new Node<Stmt, Fact>(fact.stmt(), fact.fact());
+                Node<Stmt, Fact> node = arena.node(fact.stmt(), fact.fact());
                 setFieldContextReachable(node);
             }
         }
@@ -690,6 +810,13 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         }
     }
 
+    /**
+     * Removes the listener, which is not notified of nodes reached later.
+     */
+    public void unregisterListener(SyncPDSUpdateListener<Stmt, Fact> listener) {
+        updateListeners.removeIf(Predicates.equalTo(listener));
+    }
+
     public void registerListener(SyncStatePDSUpdateListener<Stmt, Fact> listener) {
         if (!reachedStateUpdateListeners.put(listener.getNode(), listener)) {
             return;
@@ -700,32 +827,23 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
     }
 
     protected INode<Fact> wrap(Fact variable) {
-        return new SingleNode<Fact>(variable);
+        return arena.singleNode(variable);
     }
 
-    protected Map<Entry<INode<Fact>, Stmt>, INode<Fact>> generatedCallState = Maps.newHashMap();
-
     public INode<Fact> generateCallState(final INode<Fact> d, final Stmt loc) {
-        Entry<INode<Fact>, Stmt> e = new AbstractMap.SimpleEntry<>(d, loc);
-        if (!generatedCallState.containsKey(e)) {
-            generatedCallState.put(e, new GeneratedState<Fact, Stmt>(d, loc));
-        }
-        return generatedCallState.get(e);
+        return arena.callState(d, loc);
     }
 
-    Map<Entry<INode<Node<Stmt, Fact>>, Field>, INode<Node<Stmt, Fact>>> generatedFieldState = Maps.newHashMap();
-
     public INode<Node<Stmt, Fact>> generateFieldState(final INode<Node<Stmt, Fact>> d, final Field loc) {
-        Entry<INode<Node<Stmt, Fact>>, Field> e = new AbstractMap.SimpleEntry<>(d, loc);
-        if (!generatedFieldState.containsKey(e)) {
-            generatedFieldState.put(e, new GeneratedState<Node<Stmt, Fact>, Field>(d, loc));
-        }
-        return generatedFieldState.get(e);
+        return arena.fieldState(d, loc);
     }
 
     public void addGeneratedFieldState(GeneratedState<Node<Stmt, Fact>, Field> state) {
-        Entry<INode<Node<Stmt, Fact>>, Field> e = new AbstractMap.SimpleEntry<>(state.node(), state.location());
-        generatedFieldState.put(e, state);
+        arena.addFieldState(state);
+    }
+
+    public NodeArena<Stmt, Fact, Field> getArena() {
+        return arena;
     }
 
     public abstract void computeSuccessor(Node<Stmt, Fact> node);
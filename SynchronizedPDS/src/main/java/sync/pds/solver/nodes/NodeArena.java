@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package sync.pds.solver.nodes;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+/**
+ * Canonical instances of the nodes and generated states created by the solvers of one analysis. Solvers sharing an
+ * arena create each of them once, so most equality checks between them succeed on identity. The arena is a plain
+ * deduplication by value: every table maps an instance to the canonical one equal to it. It holds its instances until
+ * the owner {@link #prune(Predicate) prunes} the statements no live solver refers to any more.
+ *
+ * Facts that are equal but of different classes are not merged, as solvers read the class of the facts of nodes.
+ */
+public class NodeArena<Stmt, Fact, Field> {
+
+    private final ConcurrentMap<Node<Stmt, Fact>, Node<Stmt, Fact>> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SingleNode<Fact>, SingleNode<Fact>> singleNodes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SingleNode<Node<Stmt, Fact>>, SingleNode<Node<Stmt, Fact>>> fieldNodes = Maps
+            .newConcurrentMap();
+    private final ConcurrentMap<GeneratedState<Fact, Stmt>, GeneratedState<Fact, Stmt>> callStates = Maps
+            .newConcurrentMap();
+    private final ConcurrentMap<GeneratedState<Node<Stmt, Fact>, Field>, GeneratedState<Node<Stmt, Fact>, Field>> fieldStates = Maps
+            .newConcurrentMap();
+
+    private static <T> T intern(ConcurrentMap<T, T> table, T value) {
+        T canonical = table.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        canonical = table.putIfAbsent(value, value);
+        return canonical == null ? value : canonical;
+    }
+
+    public Node<Stmt, Fact> node(Stmt stmt, Fact fact) {
+        Node<Stmt, Fact> node = new Node<Stmt, Fact>(stmt, fact);
+        if (stmt == null || fact == null) {
+            return node;
+        }
+        Node<Stmt, Fact> canonical = intern(nodes, node);
+        if (canonical.fact().getClass() != fact.getClass()) {
+            return node;
+        }
+        return canonical;
+    }
+
+    public SingleNode<Fact> singleNode(Fact fact) {
+        SingleNode<Fact> node = new SingleNode<Fact>(fact);
+        if (fact == null) {
+            return node;
+        }
+        SingleNode<Fact> canonical = intern(singleNodes, node);
+        if (canonical.fact().getClass() != fact.getClass()) {
+            return node;
+        }
+        return canonical;
+    }
+
+    /**
+     * @return The state of the field automaton for the node. It wraps the canonical plain {@link Node} equal to the
+     *         node, which may also be an instance of one of its subclasses.
+     */
+    public SingleNode<Node<Stmt, Fact>> fieldNode(Node<Stmt, Fact> node) {
+        Node<Stmt, Fact> plain = node(node.stmt(), node.fact());
+        SingleNode<Node<Stmt, Fact>> res = intern(fieldNodes, new SingleNode<Node<Stmt, Fact>>(plain));
+        if (res.fact() != plain) {
+            return new SingleNode<Node<Stmt, Fact>>(plain);
+        }
+        return res;
+    }
+
+    public INode<Fact> callState(INode<Fact> node, Stmt loc) {
+        return intern(callStates, new GeneratedState<Fact, Stmt>(node, loc));
+    }
+
+    /**
+     * @return The generated state of the field automaton over the parent and field.
+     */
+    public INode<Node<Stmt, Fact>> fieldState(INode<Node<Stmt, Fact>> parent, Field loc) {
+        return intern(fieldStates, new GeneratedState<Node<Stmt, Fact>, Field>(parent, loc));
+    }
+
+    public void addFieldState(GeneratedState<Node<Stmt, Fact>, Field> state) {
+        intern(fieldStates, state);
+    }
+
+    /**
+     * Drops the nodes and generated states of the statements matching the predicate. Solvers still holding one of them
+     * keep working, as nodes and states compare by value, but an instance handed out later is a different one.
+     */
+    public void prune(final Predicate<? super Stmt> stale) {
+        Iterables.removeIf(nodes.keySet(), new Predicate<Node<Stmt, Fact>>() {
+            @Override
+            public boolean apply(Node<Stmt, Fact> node) {
+                return stale.apply(node.stmt());
+            }
+        });
+        Iterables.removeIf(fieldNodes.keySet(), new Predicate<SingleNode<Node<Stmt, Fact>>>() {
+            @Override
+            public boolean apply(SingleNode<Node<Stmt, Fact>> node) {
+                return node.fact().stmt() != null && stale.apply(node.fact().stmt());
+            }
+        });
+        Iterables.removeIf(callStates.keySet(), new Predicate<GeneratedState<Fact, Stmt>>() {
+            @Override
+            public boolean apply(GeneratedState<Fact, Stmt> state) {
+                return state.location() != null && stale.apply(state.location());
+            }
+        });
+        Iterables.removeIf(fieldStates.keySet(), new Predicate<GeneratedState<Node<Stmt, Fact>, Field>>() {
+            @Override
+            public boolean apply(GeneratedState<Node<Stmt, Fact>, Field> state) {
+                return state.fact() != null && state.fact().stmt() != null && stale.apply(state.fact().stmt());
+            }
+        });
+    }
+}
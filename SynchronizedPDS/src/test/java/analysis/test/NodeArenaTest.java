@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package analysis.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.google.common.base.Predicates;
+
+import sync.pds.solver.SyncPDSSolver.PDSSystem;
+import sync.pds.solver.nodes.GeneratedState;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import sync.pds.solver.nodes.NodeArena;
+import sync.pds.solver.nodes.PushNode;
+
+public class NodeArenaTest {
+
+    private final NodeArena<String, Fact, String> arena = new NodeArena<>();
+
+    @Test
+    public void nodesAreCanonical() {
+        Node<String, Fact> node = arena.node("s1", new Fact("a"));
+        assertSame(node, arena.node("s1", new Fact("a")));
+        assertNotSame(node, arena.node("s2", new Fact("a")));
+        assertSame(arena.singleNode(new Fact("a")), arena.singleNode(new Fact("a")));
+        assertSame(arena.callState(arena.singleNode(new Fact("a")), "s1"),
+                arena.callState(arena.singleNode(new Fact("a")), "s1"));
+    }
+
+    @Test
+    public void pruneDropsStatements() {
+        Node<String, Fact> a = arena.node("s1", new Fact("a"));
+        Node<String, Fact> b = arena.node("s2", new Fact("b"));
+        INode<Fact> state = arena.callState(arena.singleNode(new Fact("a")), "s1");
+        arena.prune(Predicates.equalTo("s1"));
+        Node<String, Fact> recreated = arena.node("s1", new Fact("a"));
+        assertNotSame(a, recreated);
+        assertEquals(a, recreated);
+        assertSame(b, arena.node("s2", new Fact("b")));
+        assertNotSame(state, arena.callState(arena.singleNode(new Fact("a")), "s1"));
+        assertEquals(state, arena.callState(arena.singleNode(new Fact("a")), "s1"));
+    }
+
+    @Test
+    public void fieldStatesAreDeduplicatedByValue() {
+        INode<Node<String, Fact>> parent = arena.fieldNode(arena.node("s1", new Fact("a")));
+        INode<Node<String, Fact>> state = arena.fieldState(parent, "f");
+        assertSame(state, arena.fieldState(arena.fieldNode(arena.node("s1", new Fact("a"))), "f"));
+        arena.addFieldState(new GeneratedState<Node<String, Fact>, String>(parent, "f"));
+        assertSame(state, arena.fieldState(parent, "f"));
+        arena.prune(Predicates.equalTo("s1"));
+        assertNotSame(state, arena.fieldState(parent, "f"));
+        assertEquals(state, arena.fieldState(parent, "f"));
+    }
+
+    @Test
+    public void fieldNodeWrapsPlainNode() {
+        PushNode<String, Fact, String> push = new PushNode<>("s1", new Fact("a"), "f", PDSSystem.FIELDS);
+        Node<String, Fact> plain = arena.node("s1", new Fact("a"));
+        assertSame(plain, arena.fieldNode(push).fact());
+        assertSame(arena.fieldNode(plain), arena.fieldNode(push));
+    }
+
+    @Test
+    public void equalFactsOfOtherClassesAreNotMerged() {
+        arena.node("s1", new Fact("a"));
+        Node<String, Fact> sub = arena.node("s1", new SubFact("a"));
+        assertEquals(SubFact.class, sub.fact().getClass());
+        assertEquals(SubFact.class, arena.singleNode(new SubFact("b")).fact().getClass());
+        assertEquals(Fact.class, arena.singleNode(new Fact("b")).fact().getClass());
+    }
+
+    private static class Fact {
+        private final String name;
+
+        Fact(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Fact && ((Fact) obj).name.equals(name);
+        }
+    }
+
+    private static class SubFact extends Fact {
+        SubFact(String name) {
+            super(name);
+        }
+    }
+}
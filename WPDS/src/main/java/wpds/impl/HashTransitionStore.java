@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Default {@link TransitionStore}. Transitions are kept in insertion order and in per-state lists, none of them is
+ * ever removed. The getters return views of the first transitions of these lists, bounded by their size when the
+ * getter was called, so they are neither copied nor invalidated when transitions are added during the iteration.
+ */
+public class HashTransitionStore<N extends Location, D extends State, W extends Weight>
+        implements TransitionStore<N, D, W> {
+    /**
+     * Holds every transition, mapped to null until a weight is set.
+     */
+    private final Map<Transition<N, D>, W> transitionToWeights = Maps.newHashMap();
+    private final List<Transition<N, D>> transitions = Lists.newArrayList();
+    private final Set<D> states = Sets.newHashSet();
+    private final Map<D, List<Transition<N, D>>> transitionsOutOf = Maps.newHashMap();
+    private final Map<D, List<Transition<N, D>>> transitionsInto = Maps.newHashMap();
+
+    @Override
+    public boolean add(Transition<N, D> trans) {
+        if (transitionToWeights.containsKey(trans)) {
+            return false;
+        }
+        transitionToWeights.put(trans, null);
+        transitions.add(trans);
+        append(transitionsOutOf, trans.getStart(), trans);
+        append(transitionsInto, trans.getTarget(), trans);
+        states.add(trans.getTarget());
+        states.add(trans.getStart());
+        return true;
+    }
+
+    @Override
+    public W getWeight(Transition<N, D> trans) {
+        return transitionToWeights.get(trans);
+    }
+
+    @Override
+    public void setWeight(Transition<N, D> trans, W weight) {
+        add(trans);
+        transitionToWeights.put(trans, weight);
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitions() {
+        return prefix(transitions);
+    }
+
+    @Override
+    public Map<Transition<N, D>, W> getTransitionsToWeights() {
+        return Collections.unmodifiableMap(Maps.filterValues(transitionToWeights, Predicates.notNull()));
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsOutOf(D state) {
+        return prefix(transitionsOutOf.get(state));
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsInto(D state) {
+        return prefix(transitionsInto.get(state));
+    }
+
+    @Override
+    public Set<D> getStates() {
+        return states;
+    }
+
+    @Override
+    public int size() {
+        return transitions.size();
+    }
+
+    @Override
+    public TransitionStore<N, D, W> createEmpty() {
+        return new HashTransitionStore<>();
+    }
+
+    private static <K, T> void append(Map<K, List<T>> lists, K key, T value) {
+        List<T> list = lists.get(key);
+        if (list == null) {
+            list = Lists.newArrayListWithCapacity(2);
+            lists.put(key, list);
+        }
+        list.add(value);
+    }
+
+    /**
+     * An unmodifiable view of the elements the append-only list holds now.
+     */
+    private static <T> List<T> prefix(final List<T> list) {
+        if (list == null || list.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return new PrefixView<T>(list, list.size());
+    }
+
+    private static class PrefixView<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> list;
+        private final int size;
+
+        PrefixView(List<T> list, int size) {
+            this.list = list;
+            this.size = size;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return list.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
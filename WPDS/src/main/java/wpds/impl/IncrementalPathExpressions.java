@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import pathexpression.IRegEx;
+import pathexpression.RegEx;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Path expressions between pairs of states of an automaton, kept up to date as transitions are added. Answers are
+ * cached per pair. For each state asked for as start (end) of a path, the states reachable from it (reaching it) are
+ * maintained incrementally: a new transition only extends these sets by the states it newly connects and only drops the
+ * cached answers of the pairs it lies between. A dropped answer is recomputed by state elimination over the states on
+ * paths between its pair.
+ */
+class IncrementalPathExpressions<N extends Location, D extends State> {
+
+    private final Table<D, D, IRegEx<N>> edges = HashBasedTable.create();
+    private final Table<D, D, IRegEx<N>> answers = HashBasedTable.create();
+    private final Closure reachable = new Closure(true);
+    private final Closure reaching = new Closure(false);
+
+    void addTransition(Transition<N, D> t) {
+        D from = t.getStart();
+        D to = t.getTarget();
+        IRegEx<N> label = new RegEx.Plain<N>(t.getLabel());
+        IRegEx<N> old = edges.get(from, to);
+        edges.put(from, to, old == null ? label : RegEx.<N> union(old, label));
+        reachable.addEdge(from, to);
+        reaching.addEdge(from, to);
+        for (D start : reachable.rootsContaining(from)) {
+            for (D end : Lists.newArrayList(answers.row(start).keySet())) {
+                if (reaching.get(end).contains(to)) {
+                    answers.remove(start, end);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The regular expression of the labels of all paths from start to end.
+     */
+    IRegEx<N> get(D start, D end) {
+        IRegEx<N> answer = answers.get(start, end);
+        if (answer == null) {
+            answer = compute(start, end);
+            answers.put(start, end, answer);
+        }
+        return answer;
+    }
+
+    private IRegEx<N> compute(D start, D end) {
+        Set<D> from = reachable.get(start);
+        Set<D> to = reaching.get(end);
+        if (!from.contains(end)) {
+            return new RegEx.EmptySet<N>();
+        }
+        Table<D, D, IRegEx<N>> paths = HashBasedTable.create();
+        for (D state : from) {
+            if (!to.contains(state)) {
+                continue;
+            }
+            for (Entry<D, IRegEx<N>> e : edges.row(state).entrySet()) {
+                if (to.contains(e.getKey())) {
+                    paths.put(state, e.getKey(), e.getValue());
+                }
+            }
+        }
+        for (D state : Lists.newArrayList(paths.rowKeySet())) {
+            if (!state.equals(start) && !state.equals(end)) {
+                eliminate(paths, state);
+            }
+        }
+        IRegEx<N> loops = RegEx.<N> star(path(paths, start, start));
+        if (start.equals(end)) {
+            return loops;
+        }
+        IRegEx<N> startToEnd = RegEx.<N> concatenate(loops, path(paths, start, end));
+        IRegEx<N> endToEnd = RegEx.<N> union(path(paths, end, end),
+                RegEx.<N> concatenate(path(paths, end, start), startToEnd));
+        return RegEx.<N> concatenate(startToEnd, RegEx.<N> star(endToEnd));
+    }
+
+    /**
+     * Replaces the paths through the state by direct edges between its predecessors and successors.
+     */
+    private void eliminate(Table<D, D, IRegEx<N>> paths, D state) {
+        IRegEx<N> loops = RegEx.<N> star(path(paths, state, state));
+        paths.remove(state, state);
+        Map<D, IRegEx<N>> in = Maps.newHashMap(paths.column(state));
+        Map<D, IRegEx<N>> out = Maps.newHashMap(paths.row(state));
+        paths.column(state).clear();
+        paths.row(state).clear();
+        for (Entry<D, IRegEx<N>> pred : in.entrySet()) {
+            IRegEx<N> prefix = RegEx.<N> concatenate(pred.getValue(), loops);
+            for (Entry<D, IRegEx<N>> succ : out.entrySet()) {
+                IRegEx<N> via = RegEx.<N> concatenate(prefix, succ.getValue());
+                IRegEx<N> old = paths.get(pred.getKey(), succ.getKey());
+                paths.put(pred.getKey(), succ.getKey(), old == null ? via : RegEx.<N> union(old, via));
+            }
+        }
+    }
+
+    private IRegEx<N> path(Table<D, D, IRegEx<N>> paths, D from, D to) {
+        IRegEx<N> path = paths.get(from, to);
+        return path == null ? new RegEx.EmptySet<N>() : path;
+    }
+
+    /**
+     * The states reachable from (or reaching, if not forward) each of a set of root states.
+     */
+    private class Closure {
+        private final boolean forward;
+        private final Map<D, Set<D>> members = Maps.newHashMap();
+        private final Map<D, Set<D>> roots = Maps.newHashMap();
+
+        Closure(boolean forward) {
+            this.forward = forward;
+        }
+
+        Set<D> get(D root) {
+            if (!members.containsKey(root)) {
+                members.put(root, Sets.<D> newHashSet());
+                visit(root, root);
+            }
+            return members.get(root);
+        }
+
+        Set<D> rootsContaining(D state) {
+            Set<D> res = roots.get(state);
+            return res == null ? Collections.<D> emptySet() : res;
+        }
+
+        void addEdge(D from, D to) {
+            D inside = forward ? from : to;
+            D outside = forward ? to : from;
+            for (D root : Lists.newArrayList(rootsContaining(inside))) {
+                if (!members.get(root).contains(outside)) {
+                    visit(root, outside);
+                }
+            }
+        }
+
+        private void visit(D root, D state) {
+            LinkedList<D> worklist = Lists.newLinkedList();
+            if (add(root, state)) {
+                worklist.add(state);
+            }
+            while (!worklist.isEmpty()) {
+                D curr = worklist.pop();
+                for (D next : forward ? edges.row(curr).keySet() : edges.column(curr).keySet()) {
+                    if (add(root, next)) {
+                        worklist.add(next);
+                    }
+                }
+            }
+        }
+
+        private boolean add(D root, D state) {
+            if (!members.get(root).add(state)) {
+                return false;
+            }
+            Set<D> res = roots.get(state);
+            if (res == null) {
+                res = Sets.newHashSet();
+                roots.put(state, res);
+            }
+            res.add(root);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Compact {@link TransitionStore}. States and labels are interned to dense ints, a transition is packed into a single
+ * long (21 bits per component) and mapped to its index by a primitive open-addressing table. Weights and the
+ * adjacency lists of the states are kept in arrays indexed by transition and state ids. {@link Transition} objects
+ * are only materialized when a client asks for them.
+ */
+public class IntTransitionStore<N extends Location, D extends State, W extends Weight>
+        implements TransitionStore<N, D, W> {
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final long EMPTY = -1L;
+    private static final int[] NO_TRANSITIONS = new int[0];
+
+    private final Map<D, Integer> stateToId = Maps.newHashMap();
+    private final List<D> idToState = Lists.newArrayList();
+    private final Map<N, Integer> labelToId = Maps.newHashMap();
+    private final List<N> idToLabel = Lists.newArrayList();
+
+    private long[] table = newTable(16);
+    private int[] tableIndex = new int[16];
+
+    private long[] packed = new long[16];
+    private Object[] weights = new Object[16];
+    private int size;
+
+    private int[][] outOf = new int[16][];
+    private int[] outOfSize = new int[16];
+    private int[][] into = new int[16][];
+    private int[] intoSize = new int[16];
+
+    @Override
+    public boolean add(Transition<N, D> trans) {
+        int start = internState(trans.getStart());
+        int label = internLabel(trans.getLabel());
+        int target = internState(trans.getTarget());
+        long key = pack(start, label, target);
+        if (indexOf(key) >= 0) {
+            return false;
+        }
+        int index = size++;
+        if (index == packed.length) {
+            packed = Arrays.copyOf(packed, index * 2);
+            weights = Arrays.copyOf(weights, index * 2);
+        }
+        packed[index] = key;
+        insert(key, index);
+        outOf[start] = append(outOf[start], outOfSize[start]++, index);
+        into[target] = append(into[target], intoSize[target]++, index);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public W getWeight(Transition<N, D> trans) {
+        int index = indexOf(trans);
+        return index < 0 ? null : (W) weights[index];
+    }
+
+    @Override
+    public void setWeight(Transition<N, D> trans, W weight) {
+        int index = indexOf(trans);
+        if (index < 0) {
+            add(trans);
+            index = size - 1;
+        }
+        weights[index] = weight;
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitions() {
+        final long[] keys = packed;
+        final int length = size;
+        return new TransitionView(length) {
+            @Override
+            long key(int index) {
+                return keys[index];
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Map<Transition<N, D>, W> getTransitionsToWeights() {
+        Map<Transition<N, D>, W> res = Maps.newLinkedHashMapWithExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            res.put(toTransition(packed[i]), (W) weights[i]);
+        }
+        return res;
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsOutOf(D state) {
+        Integer id = stateToId.get(state);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        return toTransitions(outOf[id], outOfSize[id]);
+    }
+
+    @Override
+    public Collection<Transition<N, D>> getTransitionsInto(D state) {
+        Integer id = stateToId.get(state);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        return toTransitions(into[id], intoSize[id]);
+    }
+
+    @Override
+    public Set<D> getStates() {
+        return Collections.unmodifiableSet(stateToId.keySet());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TransitionStore<N, D, W> createEmpty() {
+        return new IntTransitionStore<>();
+    }
+
+    /**
+     * A view of the transitions at the indices, bounded by the current length. Arrays are only appended to or replaced
+     * by larger copies, so the view stays valid while transitions are added.
+     */
+    private List<Transition<N, D>> toTransitions(final int[] indices, int length) {
+        if (length == 0) {
+            return Collections.emptyList();
+        }
+        final long[] keys = packed;
+        return new TransitionView(length) {
+            @Override
+            long key(int index) {
+                return keys[indices[index]];
+            }
+        };
+    }
+
+    /**
+     * Unmodifiable list that materializes a {@link Transition} from its packed key on access.
+     */
+    private abstract class TransitionView extends AbstractList<Transition<N, D>> implements RandomAccess {
+        private final int length;
+
+        TransitionView(int length) {
+            this.length = length;
+        }
+
+        abstract long key(int index);
+
+        @Override
+        public Transition<N, D> get(int index) {
+            if (index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            }
+            return toTransition(key(index));
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+
+    private Transition<N, D> toTransition(long key) {
+        D start = idToState.get((int) (key >>> (2 * BITS)));
+        N label = idToLabel.get((int) ((key >>> BITS) & MASK));
+        D target = idToState.get((int) (key & MASK));
+        return new Transition<N, D>(start, label, target);
+    }
+
+    private int indexOf(Transition<N, D> trans) {
+        Integer start = stateToId.get(trans.getStart());
+        if (start == null)
+            return -1;
+        Integer target = stateToId.get(trans.getTarget());
+        if (target == null)
+            return -1;
+        Integer label = labelToId.get(trans.getLabel());
+        if (label == null)
+            return -1;
+        return indexOf(pack(start, label, target));
+    }
+
+    private int internState(D state) {
+        Integer id = stateToId.get(state);
+        if (id != null) {
+            return id;
+        }
+        int newId = idToState.size();
+        checkCapacity(newId, "states");
+        stateToId.put(state, newId);
+        idToState.add(state);
+        if (newId == outOf.length) {
+            outOf = Arrays.copyOf(outOf, newId * 2);
+            outOfSize = Arrays.copyOf(outOfSize, newId * 2);
+            into = Arrays.copyOf(into, newId * 2);
+            intoSize = Arrays.copyOf(intoSize, newId * 2);
+        }
+        outOf[newId] = NO_TRANSITIONS;
+        into[newId] = NO_TRANSITIONS;
+        return newId;
+    }
+
+    private int internLabel(N label) {
+        Integer id = labelToId.get(label);
+        if (id != null) {
+            return id;
+        }
+        int newId = idToLabel.size();
+        checkCapacity(newId, "labels");
+        labelToId.put(label, newId);
+        idToLabel.add(label);
+        return newId;
+    }
+
+    private static void checkCapacity(int id, String kind) {
+        if (id > MASK) {
+            throw new IllegalStateException("IntTransitionStore supports at most " + (MASK + 1) + " " + kind);
+        }
+    }
+
+    private static long pack(int start, int label, int target) {
+        return ((long) start << (2 * BITS)) | ((long) label << BITS) | target;
+    }
+
+    private static int[] append(int[] array, int length, int value) {
+        if (length == array.length) {
+            array = Arrays.copyOf(array, Math.max(2, length * 2));
+        }
+        array[length] = value;
+        return array;
+    }
+
+    private int indexOf(long key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == key) {
+                return tableIndex[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long key, int index) {
+        if (size * 4 > table.length * 3) {
+            rehash(table.length * 2);
+        }
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = key;
+        tableIndex[slot] = index;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldTable = table;
+        int[] oldIndex = tableIndex;
+        table = newTable(capacity);
+        tableIndex = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldTable.length; i++) {
+            long key = oldTable[i];
+            if (key == EMPTY)
+                continue;
+            int slot = hash(key) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = key;
+            tableIndex[slot] = oldIndex[i];
+        }
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] res = new long[capacity];
+        Arrays.fill(res, EMPTY);
+        return res;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
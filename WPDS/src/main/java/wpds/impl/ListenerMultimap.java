@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+/**
+ * {@link ListenerSet}s by key, e.g. the listeners of each state of an automaton.
+ */
+public class ListenerMultimap<K, L> {
+
+    private final ConcurrentMap<K, ListenerSet<L>> listeners = Maps.newConcurrentMap();
+
+    /**
+     * @return true if the listener was not registered for the key before.
+     */
+    public boolean put(K key, L listener) {
+        ListenerSet<L> set = listeners.get(key);
+        if (set == null) {
+            ListenerSet<L> created = new ListenerSet<>();
+            set = listeners.putIfAbsent(key, created);
+            if (set == null)
+                set = created;
+        }
+        return set.add(listener);
+    }
+
+    /**
+     * @return The listeners of the key. The returned set is live and must not be modified.
+     */
+    public Iterable<L> get(K key) {
+        ListenerSet<L> set = listeners.get(key);
+        return set == null ? Collections.<L> emptyList() : set;
+    }
+
+    public Iterable<L> values() {
+        Collection<ListenerSet<L>> sets = listeners.values();
+        return Iterables.concat(sets);
+    }
+
+    /**
+     * Removes the listeners matching the filter from the sets of all keys.
+     *
+     * @return the number of removed listeners.
+     */
+    public int removeIf(Predicate<? super L> filter) {
+        int removed = 0;
+        for (ListenerSet<L> set : listeners.values()) {
+            removed += set.removeIf(filter);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the keys matching the filter together with their listeners.
+     */
+    public void removeKeys(Predicate<? super K> filter) {
+        Iterables.removeIf(listeners.keySet(), filter);
+    }
+
+    public void clear() {
+        listeners.clear();
+    }
+}
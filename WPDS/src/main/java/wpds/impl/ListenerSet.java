@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Sets;
+
+/**
+ * An append-only set of listeners that can be iterated while listeners are added, without copying. An iteration
+ * visits the listeners that were registered when it started: the backing array only grows and is replaced before the
+ * size is published, so an iterator captures the array and then the size and never sees a partially written slot. The
+ * size may belong to a later array, after a concurrent addition or {@link #clear()}, so it is bounded by the length of
+ * the captured one.
+ * Listeners added by the listeners being notified are not part of the running iteration, the same semantics as
+ * iterating over a copy. Additions are synchronized, iteration is lock-free. Removal replaces the array by a compacted
+ * one of the same length, so that iterations that captured the previous size skip the cleared slots.
+ */
+public class ListenerSet<L> implements Iterable<L> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Set<L> contained = Sets.newHashSet();
+    private volatile Object[] elements = EMPTY;
+    private volatile int size;
+
+    /**
+     * @return true if the listener was not contained before.
+     */
+    public synchronized boolean add(L listener) {
+        if (!contained.add(listener))
+            return false;
+        Object[] current = elements;
+        int n = size;
+        if (n == current.length) {
+            current = Arrays.copyOf(current, Math.max(4, n * 2));
+            elements = current;
+        }
+        current[n] = listener;
+        size = n + 1;
+        return true;
+    }
+
+    public synchronized boolean contains(L listener) {
+        return contained.contains(listener);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes the listeners matching the filter. Iterations that are running may or may not visit them.
+     *
+     * @return the number of removed listeners.
+     */
+    public synchronized int removeIf(Predicate<? super L> filter) {
+        Object[] current = elements;
+        int n = size;
+        Object[] kept = new Object[current.length];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            L listener = (L) current[i];
+            if (filter.apply(listener)) {
+                contained.remove(listener);
+            } else {
+                kept[k++] = listener;
+            }
+        }
+        if (k < n) {
+            elements = kept;
+            size = k;
+        }
+        return n - k;
+    }
+
+    /**
+     * Removes all listeners. Iterations that are running continue over the listeners they captured.
+     */
+    public synchronized void clear() {
+        contained.clear();
+        elements = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<L> iterator() {
+        final Object[] captured = elements;
+        final int n = Math.min(size, captured.length);
+        return new Iterator<L>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                while (next < n && captured[next] == null) {
+                    next++;
+                }
+                return next < n;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public L next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return (L) captured[next++];
+            }
+        };
+    }
+}
@@ -20,4 +20,11 @@ public interface NestedWeightedPAutomatons<N extends Location, D extends State,
 
     WeightedPAutomaton<N, D, W> getSummaryAutomaton(D target);
 
+    /**
+     * @return Whether the summary automaton for the target was complete when it was put, e.g. because it was imported
+     *         from an earlier run. Rules that only add transitions within it need not be applied.
+     */
+    default boolean isSaturated(D target) {
+        return false;
+    }
 }
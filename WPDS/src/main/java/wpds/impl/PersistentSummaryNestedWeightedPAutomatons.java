@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Summary automata backed by a {@link PersistentSummaryStore}. A summary automaton that is created during the
+ * saturation is seeded with the stored summary for its target, if there is one, and is then saturated, see
+ * {@link #isSaturated(State)}. {@link #persist()} writes all summaries of this run back to the store.
+ */
+public class PersistentSummaryNestedWeightedPAutomatons<N extends Location, D extends State, W extends Weight>
+        implements NestedWeightedPAutomatons<N, D, W> {
+
+    private final Map<D, WeightedPAutomaton<N, D, W>> summaries = Maps.newHashMap();
+    private final Set<D> saturated = Sets.newHashSet();
+    private final PersistentSummaryStore<N, D, W> store;
+
+    public PersistentSummaryNestedWeightedPAutomatons(PersistentSummaryStore<N, D, W> store) {
+        this.store = store;
+    }
+
+    @Override
+    public void putSummaryAutomaton(D target, WeightedPAutomaton<N, D, W> aut) {
+        summaries.put(target, aut);
+        // Marked before the import, as the imported transitions are dispatched while they are added
+        saturated.add(target);
+        if (!store.importSummary(target, aut)) {
+            saturated.remove(target);
+        }
+    }
+
+    @Override
+    public boolean isSaturated(D target) {
+        return saturated.contains(target);
+    }
+
+    @Override
+    public WeightedPAutomaton<N, D, W> getSummaryAutomaton(D target) {
+        return summaries.get(target);
+    }
+
+    public void persist() throws IOException {
+        for (Map.Entry<D, WeightedPAutomaton<N, D, W>> e : summaries.entrySet()) {
+            store.exportSummary(e.getKey(), e.getValue());
+        }
+        store.save();
+    }
+
+    public PersistentSummaryStore<N, D, W> getStore() {
+        return store;
+    }
+}
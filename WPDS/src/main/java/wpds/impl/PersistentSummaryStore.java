@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+import wpds.interfaces.SummaryCodec;
+
+/**
+ * Stores summary automata (see {@link NestedWeightedPAutomatons}) in a binary file, so a later analysis run can import
+ * the summary of a callee instead of saturating it again. The file is memory-mapped on load and only the index is
+ * read eagerly; a summary is decoded when it is imported. A stored summary records the fingerprints of all units its
+ * transitions and the transitions of the summaries nested in it depend on (see
+ * {@link SummaryCodec#dependencies(Transition)}) and is discarded as soon as one of them changed. A file that is truncated or otherwise corrupt is treated like a missing one.
+ * 
+ * Within a summary, states and locations are written once into a table and transitions refer to them by index.
+ */
+public class PersistentSummaryStore<N extends Location, D extends State, W extends Weight> {
+
+    private static final int MAGIC = 0x53504453;
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final SummaryCodec<N, D, W> codec;
+    private final Map<String, Entry> entries = Maps.newHashMap();
+    private MappedByteBuffer mapped;
+    private int imported;
+    private int invalidated;
+
+    public PersistentSummaryStore(File file, SummaryCodec<N, D, W> codec) throws IOException {
+        this.file = file;
+        this.codec = codec;
+        codec.clearFingerprints();
+        if (file.exists()) {
+            load();
+        }
+    }
+
+    private void load() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            readIndex();
+        } catch (EOFException | UTFDataFormatException | IllegalArgumentException e) {
+            // Truncated or corrupt, start from scratch.
+            entries.clear();
+            mapped = null;
+        }
+    }
+
+    private void readIndex() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferInputStream(mapped.duplicate()));
+        if (mapped.remaining() < 12 || in.readInt() != MAGIC || in.readInt() != VERSION) {
+            // Written by an incompatible version, start from scratch.
+            mapped = null;
+            return;
+        }
+        int count = in.readInt();
+        int position = 12;
+        for (int i = 0; i < count; i++) {
+            ByteBuffer header = mapped.duplicate();
+            header.position(position);
+            in = new DataInputStream(new BufferInputStream(header));
+            String key = in.readUTF();
+            int dependencyCount = in.readInt();
+            Map<String, String> dependencies = Maps.newHashMap();
+            for (int j = 0; j < dependencyCount; j++) {
+                dependencies.put(in.readUTF(), in.readUTF());
+            }
+            int length = in.readInt();
+            int offset = header.position();
+            ByteBuffer payload = mapped.duplicate();
+            payload.position(offset);
+            payload.limit(offset + length);
+            entries.put(key, new Entry(dependencies, payload.slice()));
+            position = offset + length;
+        }
+    }
+
+    /**
+     * Adds the transitions of the stored summary for the target to the automaton.
+     * 
+     * @return false if there is no stored summary for the target or if it is outdated.
+     */
+    public boolean importSummary(D target, WeightedPAutomaton<N, D, W> aut) {
+        Map<Transition<N, D>, W> transitions = read(target);
+        if (transitions == null)
+            return false;
+        imported++;
+        for (Map.Entry<Transition<N, D>, W> e : transitions.entrySet()) {
+            aut.addWeightForTransition(e.getKey(), e.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the stored summary for the target. An outdated summary, or one the codec cannot decode in the current
+     * program, is discarded.
+     */
+    private Map<Transition<N, D>, W> read(D target) {
+        String key = codec.key(target);
+        if (key == null)
+            return null;
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return null;
+        if (!entry.isValid()) {
+            entries.remove(key);
+            invalidated++;
+            return null;
+        }
+        Map<Transition<N, D>, W> transitions = Maps.newLinkedHashMap();
+        try {
+            DataInputStream in = new DataInputStream(new BufferInputStream(entry.payload.duplicate()));
+            List<D> states = Lists.newArrayList();
+            for (int i = in.readInt(); i > 0; i--) {
+                states.add(codec.readState(in));
+            }
+            List<N> locations = Lists.newArrayList();
+            for (int i = in.readInt(); i > 0; i--) {
+                locations.add(codec.readLocation(in));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                Transition<N, D> t = new Transition<N, D>(states.get(in.readInt()), locations.get(in.readInt()),
+                        states.get(in.readInt()));
+                transitions.put(t, codec.readWeight(in));
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            entries.remove(key);
+            invalidated++;
+            return null;
+        }
+        return transitions;
+    }
+
+    /**
+     * Remembers the current transitions of the summary automaton for the target, replacing an older summary. The
+     * summary is written by the next call to {@link #save()}. If the summary depends on a unit without fingerprint or
+     * contains a state or location the codec cannot encode, it is not stored and an older summary for the target is
+     * dropped.
+     */
+    public void exportSummary(D target, WeightedPAutomaton<N, D, W> aut) {
+        String key = codec.key(target);
+        if (key == null)
+            return;
+        Map<String, String> dependencies = Maps.newHashMap();
+        for (WeightedPAutomaton<N, D, W> reached : nestedClosure(aut)) {
+            for (Transition<N, D> t : reached.getTransitions()) {
+                for (String dependency : codec.dependencies(t)) {
+                    if (dependencies.containsKey(dependency))
+                        continue;
+                    String fingerprint = codec.fingerprint(dependency);
+                    if (fingerprint == null) {
+                        entries.remove(key);
+                        return;
+                    }
+                    dependencies.put(dependency, fingerprint);
+                }
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Map<D, Integer> states = Maps.newLinkedHashMap();
+            Map<N, Integer> locations = Maps.newLinkedHashMap();
+            for (Transition<N, D> t : aut.getTransitions()) {
+                index(states, t.getStart());
+                index(states, t.getTarget());
+                index(locations, t.getLabel());
+            }
+            out.writeInt(states.size());
+            for (D s : states.keySet()) {
+                codec.writeState(s, out);
+            }
+            out.writeInt(locations.size());
+            for (N l : locations.keySet()) {
+                codec.writeLocation(l, out);
+            }
+            out.writeInt(aut.getTransitions().size());
+            for (Transition<N, D> t : aut.getTransitions()) {
+                out.writeInt(states.get(t.getStart()));
+                out.writeInt(locations.get(t.getLabel()));
+                out.writeInt(states.get(t.getTarget()));
+                codec.writeWeight(aut.getWeightFor(t), out);
+            }
+        } catch (IOException e) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry(dependencies, ByteBuffer.wrap(bytes.toByteArray())));
+    }
+
+    /**
+     * @return The automaton and all automata transitively nested in it. The summaries of the callees are nested in the
+     *         summary of their caller, so a summary also depends on the units of its callees.
+     */
+    private Set<WeightedPAutomaton<N, D, W>> nestedClosure(WeightedPAutomaton<N, D, W> aut) {
+        Set<WeightedPAutomaton<N, D, W>> closure = Sets.newIdentityHashSet();
+        Deque<WeightedPAutomaton<N, D, W>> worklist = new ArrayDeque<>();
+        closure.add(aut);
+        worklist.add(aut);
+        while (!worklist.isEmpty()) {
+            for (WeightedPAutomaton<N, D, W> nested : worklist.poll().getNestedAutomata()) {
+                if (closure.add(nested))
+                    worklist.add(nested);
+            }
+        }
+        return closure;
+    }
+
+    private static <T> void index(Map<T, Integer> table, T element) {
+        if (!table.containsKey(element))
+            table.put(element, table.size());
+    }
+
+    /**
+     * Writes all summaries that are still valid to the file. The file is replaced atomically.
+     */
+    public void save() throws IOException {
+        Map<String, Entry> valid = Maps.newLinkedHashMap();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().isValid()) {
+                valid.put(e.getKey(), e.getValue());
+            } else {
+                invalidated++;
+            }
+        }
+        entries.keySet().retainAll(valid.keySet());
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp.toPath()))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(valid.size());
+            for (Map.Entry<String, Entry> e : valid.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue().dependencies.size());
+                for (Map.Entry<String, String> d : e.getValue().dependencies.entrySet()) {
+                    out.writeUTF(d.getKey());
+                    out.writeUTF(d.getValue());
+                }
+                ByteBuffer payload = e.getValue().payload.duplicate();
+                out.writeInt(payload.remaining());
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                out.write(bytes);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public boolean contains(D target) {
+        String key = codec.key(target);
+        return key != null && entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The number of summaries imported into an automaton.
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * @return The number of stored summaries that were discarded because a unit they depend on changed or because
+     *         they could not be decoded.
+     */
+    public int getInvalidated() {
+        return invalidated;
+    }
+
+    private class Entry {
+        private final Map<String, String> dependencies;
+        private final ByteBuffer payload;
+
+        private Entry(Map<String, String> dependencies, ByteBuffer payload) {
+            this.dependencies = dependencies;
+            this.payload = payload;
+        }
+
+        private boolean isValid() {
+            for (Map.Entry<String, String> d : dependencies.entrySet()) {
+                if (!Objects.equals(codec.fingerprint(d.getKey()), d.getValue()))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining())
+                return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -11,19 +11,40 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
 import wpds.interfaces.Empty;
 import wpds.interfaces.IPushdownSystem;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
-import wpds.interfaces.WPAStateListener;
+import wpds.interfaces.WPAStateHandler;
 import wpds.interfaces.WPAUpdateListener;
-import wpds.interfaces.WPDSUpdateListener;
+import wpds.interfaces.WPDSBatchUpdateListener;
 import wpds.wildcard.ExclusionWildcard;
 import wpds.wildcard.Wildcard;
 
 public abstract class PostStar<N extends Location, D extends State, W extends Weight> {
     private IPushdownSystem<N, D, W> pds;
     private WeightedPAutomaton<N, D, W> fa;
+    private final HandleNormal handleNormal = new HandleNormal();
+    private final HandlePush handlePush = new HandlePush();
+    private final HandlePop handlePop = new HandlePop();
+    private final UpdateTransitivePop updateTransitivePop = new UpdateTransitivePop();
+    private final Table<D, N, RuleGroup<NormalRule<N, D, W>>> normalGroups = HashBasedTable.create();
+    private final Table<D, N, RuleGroup<PushRule<N, D, W>>> pushGroups = HashBasedTable.create();
+    private final Table<D, N, RuleGroup<PopRule<N, D, W>>> popGroups = HashBasedTable.create();
+    private final UpdateEpsilonOnPush updateEpsilonOnPush = new UpdateEpsilonOnPush();
 
     public void poststar(IPushdownSystem<N, D, W> pds, WeightedPAutomaton<N, D, W> initialAutomaton) {
         this.pds = pds;
@@ -32,7 +53,17 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
         this.pds.registerUpdateListener(new PostStarUpdateListener(fa));
     }
 
-    private class PostStarUpdateListener implements WPDSUpdateListener<N, D, W> {
+    /**
+     * Saturates like {@link #poststar(IPushdownSystem, WeightedPAutomaton)}, but transitions added to the automaton (and
+     * to its nested automata) are queued on the worklist and processed iteratively in the worklist's order.
+     */
+    public void poststar(IPushdownSystem<N, D, W> pds, WeightedPAutomaton<N, D, W> initialAutomaton,
+            TransitionWorklist<N, D, W> worklist) {
+        initialAutomaton.setWorklist(worklist);
+        poststar(pds, initialAutomaton);
+    }
+
+    private class PostStarUpdateListener implements WPDSBatchUpdateListener<N, D, W> {
 
         private WeightedPAutomaton<N, D, W> aut;
 
@@ -42,12 +73,62 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
         @Override
         public void onRuleAdded(final Rule<N, D, W> rule) {
-            if (rule instanceof NormalRule) {
-                fa.registerListener(new HandleNormalListener((NormalRule) rule));
-            } else if (rule instanceof PushRule) {
-                fa.registerListener(new HandlePushListener((PushRule) rule));
-            } else if (rule instanceof PopRule) {
-                fa.registerListener(new HandlePopListener(rule.getS1(), rule.getL1(), rule.getS2(), rule.getWeight()));
+            onRulesAdded(Collections.singleton(rule));
+        }
+
+        /**
+         * Adds the rules to the groups of their kind, start state and label. A new group is registered for its state, a
+         * group that already listens gets the new rules replayed to the transitions it has seen.
+         */
+        @Override
+        public void onRulesAdded(Collection<Rule<N, D, W>> rules) {
+            Map<RuleGroup<NormalRule<N, D, W>>, List<NormalRule<N, D, W>>> normalRules = Maps.newLinkedHashMap();
+            Map<RuleGroup<PushRule<N, D, W>>, List<PushRule<N, D, W>>> pushRules = Maps.newLinkedHashMap();
+            Map<RuleGroup<PopRule<N, D, W>>, List<PopRule<N, D, W>>> popRules = Maps.newLinkedHashMap();
+            for (Rule<N, D, W> rule : rules) {
+                if (rule instanceof NormalRule) {
+                    group((NormalRule<N, D, W>) rule, normalGroups, normalRules);
+                } else if (rule instanceof PushRule) {
+                    group((PushRule<N, D, W>) rule, pushGroups, pushRules);
+                } else if (rule instanceof PopRule) {
+                    group((PopRule<N, D, W>) rule, popGroups, popRules);
+                }
+            }
+            register(normalRules, handleNormal);
+            register(pushRules, handlePush);
+            register(popRules, handlePop);
+        }
+
+        private <R extends Rule<N, D, W>> void group(R rule, Table<D, N, RuleGroup<R>> groups,
+                Map<RuleGroup<R>, List<R>> added) {
+            RuleGroup<R> group = groups.get(rule.getS1(), rule.getL1());
+            if (group == null) {
+                group = new RuleGroup<R>(rule.getS1(), rule.getL1());
+                groups.put(rule.getS1(), rule.getL1(), group);
+            }
+            if (group.rules.contains(rule))
+                return;
+            List<R> newRules = added.get(group);
+            if (newRules == null) {
+                newRules = Lists.newArrayList();
+                added.put(group, newRules);
+            }
+            if (!newRules.contains(rule))
+                newRules.add(rule);
+        }
+
+        private <R extends Rule<N, D, W>> void register(Map<RuleGroup<R>, List<R>> added,
+                WPAStateHandler<N, D, W, RuleGroup<R>, Void> handler) {
+            for (Entry<RuleGroup<R>, List<R>> e : added.entrySet()) {
+                RuleGroup<R> group = e.getKey();
+                boolean listening = !group.rules.isEmpty();
+                group.add(e.getValue());
+                if (!listening) {
+                    fa.registerListener(group.state, handler, group, null);
+                } else {
+                    RuleGroup<R> delta = group.delta(e.getValue());
+                    fa.replayListener(group.state, handler, delta, null);
+                }
             }
         }
 
@@ -78,332 +159,233 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
 
     }
 
-    private class UpdateTransitivePopListener extends WPAStateListener<N, D, W> {
+    /**
+     * The rules of one kind with the same start state and label, the key of their handler registrations. Groups are
+     * compared by identity and their rule list is replaced, never modified, when rules are added, so a callback iterates
+     * a stable list. A delta carries only the rules added to a group after it was registered; it is replayed to the
+     * states the group listens to, but never registered itself.
+     */
+    private class RuleGroup<R extends Rule<N, D, W>> {
+        private final D state;
+        private final N label;
+        private List<R> rules = Collections.emptyList();
+        private final RuleGroup<R> group;
+        private final Set<D> replayedStates;
 
-        private Transition<N, D> transition;
-        private W newWeight;
+        private RuleGroup(D state, N label) {
+            this.state = state;
+            this.label = label;
+            this.group = this;
+            this.replayedStates = null;
+        }
 
-        public UpdateTransitivePopListener(Transition<N, D> transition, W newWeight) {
-            super(transition.getTarget());
-            this.transition = transition;
-            this.newWeight = newWeight;
+        private RuleGroup(RuleGroup<R> group, List<R> rules) {
+            this.state = group.state;
+            this.label = group.label;
+            this.rules = rules;
+            this.group = group;
+            this.replayedStates = Sets.newHashSet(group.state);
         }
 
-        @Override
-        public void onOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
-            if (!t.getLabel().equals(fa.epsilon()))
-                update(new Transition<N, D>(transition.getStart(), t.getLabel(), t.getTarget()),
-                        (W) w.extendWith(newWeight));
+        private void add(List<R> newRules) {
+            List<R> all = Lists.newArrayListWithCapacity(rules.size() + newRules.size());
+            all.addAll(rules);
+            all.addAll(newRules);
+            rules = all;
         }
 
-        @Override
-        public void onInTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+        private RuleGroup<R> delta(List<R> newRules) {
+            return new RuleGroup<R>(this, newRules);
         }
 
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + ((transition == null) ? 0 : transition.hashCode());
-            result = prime * result + ((newWeight == null) ? 0 : newWeight.hashCode());
-            return result;
+        private boolean isDelta() {
+            return group != this;
         }
+    }
+
+    /**
+     * Keyed by the epsilon transition (s,eps,q) of a pop and its weight, registered for q: continues the pop with the
+     * transitions leaving q.
+     */
+    private class UpdateTransitivePop implements WPAStateHandler<N, D, W, Transition<N, D>, W> {
 
         @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            UpdateTransitivePopListener other = (UpdateTransitivePopListener) obj;
-            if (transition == null) {
-                if (other.transition != null)
-                    return false;
-            } else if (!transition.equals(other.transition))
-                return false;
-            if (newWeight == null) {
-                if (other.newWeight != null)
-                    return false;
-            } else if (!newWeight.equals(other.newWeight))
-                return false;
-            return true;
+        public void onOutTransitionAdded(Transition<N, D> transition, W newWeight, Transition<N, D> t, W w,
+                WeightedPAutomaton<N, D, W> aut) {
+            if (!t.getLabel().equals(fa.epsilon()))
+                update(new Transition<N, D>(transition.getStart(), t.getLabel(), t.getTarget()),
+                        (W) w.extendWith(newWeight));
         }
 
+        @Override
+        public void onInTransitionAdded(Transition<N, D> transition, W newWeight, Transition<N, D> t, W w,
+                WeightedPAutomaton<N, D, W> aut) {
+        }
     }
 
-    private class HandlePopListener extends WPAStateListener<N, D, W> {
-        private N popLabel;
-        private D targetState;
-        private W ruleWeight;
-
-        public HandlePopListener(D state, N popLabel, D targetState, W ruleWeight) {
-            super(state);
-            this.targetState = targetState;
-            this.popLabel = popLabel;
-            this.ruleWeight = ruleWeight;
-        }
+    /**
+     * Keyed by the group of pop rules of a start state and label, registered for that state and the states reachable
+     * over empty transitions.
+     */
+    private class HandlePop implements WPAStateHandler<N, D, W, RuleGroup<PopRule<N, D, W>>, Void> {
 
         @Override
-        public void onOutTransitionAdded(final Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
+        public void onOutTransitionAdded(RuleGroup<PopRule<N, D, W>> group, Void unused, final Transition<N, D> t,
+                W weight, WeightedPAutomaton<N, D, W> aut) {
+            N popLabel = group.label;
             if (t.getLabel().equals(popLabel)) {
-                if (fa.isGeneratedState(t.getTarget()) || fa.isUnbalancedState(t.getTarget())) {
-                    if (popLabel instanceof Empty) {
-                        throw new RuntimeException("IllegalState");
+                for (PopRule<N, D, W> rule : group.rules) {
+                    D targetState = rule.getS2();
+                    if (fa.isGeneratedState(t.getTarget()) || fa.isUnbalancedState(t.getTarget())) {
+                        if (popLabel instanceof Empty) {
+                            throw new RuntimeException("IllegalState");
+                        }
+                        final W newWeight = (W) weight.extendWith(rule.getWeight());
+                        Transition<N, D> epsilon = new Transition<N, D>(targetState, fa.epsilon(), t.getTarget());
+                        update(epsilon, newWeight);
+                        fa.registerListener(t.getTarget(), updateTransitivePop, epsilon, newWeight);
+                    }
+                    if (fa.isUnbalancedState(t.getTarget())) {
+                        fa.unbalancedPop(targetState, t, weight);
                     }
-                    final W newWeight = (W) weight.extendWith(ruleWeight);
-                    update(new Transition<N, D>(targetState, fa.epsilon(), t.getTarget()), newWeight);
-                    fa.registerListener(new UpdateTransitivePopListener(
-                            new Transition<N, D>(targetState, fa.epsilon(), t.getTarget()), newWeight));
-                }
-                if (fa.isUnbalancedState(t.getTarget())) {
-                    fa.unbalancedPop(targetState, t, weight);
                 }
             }
             if (t.getLabel() instanceof Empty) {
-                fa.registerListener(new HandlePopListener(t.getTarget(), popLabel, targetState, ruleWeight));
+                if (!group.isDelta()) {
+                    fa.registerListener(t.getTarget(), handlePop, group, null);
+                } else if (group.replayedStates.add(t.getTarget())) {
+                    fa.replayListener(t.getTarget(), handlePop, group, null);
+                }
             }
         }
 
         @Override
-        public void onInTransitionAdded(Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
+        public void onInTransitionAdded(RuleGroup<PopRule<N, D, W>> group, Void unused, Transition<N, D> t, W weight,
+                WeightedPAutomaton<N, D, W> aut) {
         }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + ((popLabel == null) ? 0 : popLabel.hashCode());
-            result = prime * result + ((ruleWeight == null) ? 0 : ruleWeight.hashCode());
-            result = prime * result + ((targetState == null) ? 0 : targetState.hashCode());
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            HandlePopListener other = (HandlePopListener) obj;
-            if (popLabel == null) {
-                if (other.popLabel != null)
-                    return false;
-            } else if (!popLabel.equals(other.popLabel))
-                return false;
-            if (ruleWeight == null) {
-                if (other.ruleWeight != null)
-                    return false;
-            } else if (!ruleWeight.equals(other.ruleWeight))
-                return false;
-            if (targetState == null) {
-                if (other.targetState != null)
-                    return false;
-            } else if (!targetState.equals(other.targetState))
-                return false;
-            return true;
-        }
-
     }
 
-    private class HandleNormalListener extends WPAStateListener<N, D, W> {
-        private NormalRule<N, D, W> rule;
-
-        public HandleNormalListener(NormalRule<N, D, W> rule) {
-            super(rule.getS1());
-            this.rule = rule;
-        }
+    /**
+     * Keyed by the group of normal rules of a start state and label, registered for that state.
+     */
+    private class HandleNormal implements WPAStateHandler<N, D, W, RuleGroup<NormalRule<N, D, W>>, Void> {
 
         @Override
-        public void onOutTransitionAdded(final Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
-            if (t.getLabel().equals(rule.getL1()) || rule.getL1() instanceof Wildcard) {
-                W newWeight = (W) weight.extendWith(rule.getWeight());
-                D p = rule.getS2();
-                N l2 = rule.getL2();
-                if (l2 instanceof ExclusionWildcard) {
-                    ExclusionWildcard<N> ex = (ExclusionWildcard<N>) l2;
-                    if (t.getString().equals(ex.excludes()))
-                        return;
-                }
-                if (l2 instanceof Wildcard) {
-                    l2 = t.getString();
-                    if (l2.equals(fa.epsilon()))
-                        return;
-                }
-                if (!rule.canBeApplied(t, weight)) {
-                    return;
-                }
-                update(new Transition<N, D>(p, l2, t.getTarget()), newWeight);
+        public void onOutTransitionAdded(RuleGroup<NormalRule<N, D, W>> group, Void unused, final Transition<N, D> t,
+                W weight, WeightedPAutomaton<N, D, W> aut) {
+            N l1 = group.label;
+            if (!t.getLabel().equals(l1) && !(l1 instanceof Wildcard)) {
+                return;
+            }
+            for (NormalRule<N, D, W> rule : group.rules) {
+                applyNormal(rule, t, weight);
             }
         }
 
         @Override
-        public void onInTransitionAdded(Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
+        public void onInTransitionAdded(RuleGroup<NormalRule<N, D, W>> group, Void unused, Transition<N, D> t, W weight,
+                WeightedPAutomaton<N, D, W> aut) {
         }
+    }
 
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + ((rule == null) ? 0 : rule.hashCode());
-            return result;
+    private void applyNormal(NormalRule<N, D, W> rule, Transition<N, D> t, W weight) {
+        W newWeight = (W) weight.extendWith(rule.getWeight());
+        D p = rule.getS2();
+        N l2 = rule.getL2();
+        if (l2 instanceof ExclusionWildcard) {
+            ExclusionWildcard<N> ex = (ExclusionWildcard<N>) l2;
+            if (t.getString().equals(ex.excludes()))
+                return;
         }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            HandleNormalListener other = (HandleNormalListener) obj;
-            if (rule == null) {
-                if (other.rule != null)
-                    return false;
-            } else if (!rule.equals(other.rule))
-                return false;
-            return true;
+        if (l2 instanceof Wildcard) {
+            l2 = t.getString();
+            if (l2.equals(fa.epsilon()))
+                return;
         }
-
+        if (!rule.canBeApplied(t, weight)) {
+            return;
+        }
+        update(new Transition<N, D>(p, l2, t.getTarget()), newWeight);
     }
 
-    private class HandlePushListener extends WPAStateListener<N, D, W> {
-        private PushRule<N, D, W> rule;
-
-        public HandlePushListener(PushRule<N, D, W> rule) {
-            super(rule.getS1());
-            this.rule = rule;
-        }
+    /**
+     * Keyed by the group of push rules of a start state and label, registered for that state.
+     */
+    private class HandlePush implements WPAStateHandler<N, D, W, RuleGroup<PushRule<N, D, W>>, Void> {
 
         @Override
-        public void onOutTransitionAdded(final Transition<N, D> t, W weight, final WeightedPAutomaton<N, D, W> aut) {
-            if (t.getLabel().equals(rule.getL1()) || rule.getL1() instanceof Wildcard) {
-                if (rule.getCallSite() instanceof Wildcard) {
-                    if (t.getLabel().equals(fa.epsilon()))
-                        return;
-                }
-                final D p = rule.getS2();
-                final N gammaPrime = rule.getL2();
-                final D irState = fa.createState(p, gammaPrime);
-                final N transitionLabel = (rule.getCallSite() instanceof Wildcard ? t.getLabel() : rule.getCallSite());
-                final Transition<N, D> transition = new Transition<N, D>(irState, transitionLabel, t.getTarget());
-
-                update(transition, (W) weight.extendWith(rule.getWeight()));
-
-                if (!fa.nested()) {
-                    update(new Transition<N, D>(p, gammaPrime, irState), fa.getOne());
-                } else {
-                    if (!fa.isGeneratedState(irState))
-                        throw new RuntimeException("State must be generated");
-                    final WeightedPAutomaton<N, D, W> summary = getOrCreateSummaryAutomaton(irState,
-                            new Transition<N, D>(p, gammaPrime, irState), fa.getOne(), aut);
-                    summary.registerListener(new WPAUpdateListener<N, D, W>() {
-
-                        @Override
-                        public void onWeightAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> innerAut) {
-                            if ((t.getLabel().equals(fa.epsilon()) && t.getTarget().equals(irState))) {
-                                update(t, (W) w);
-
-                                W newWeight = getWeightFor(transition);
-                                update(new Transition<N, D>(t.getStart(), transition.getLabel(),
-                                        transition.getTarget()), (W) newWeight.extendWith(w));
-                            }
-                        }
-                    });
-                }
-
-                fa.registerListener(new UpdateEpsilonOnPushListener(transition, rule.getL1()));
+        public void onOutTransitionAdded(RuleGroup<PushRule<N, D, W>> group, Void unused, final Transition<N, D> t,
+                W weight, final WeightedPAutomaton<N, D, W> aut) {
+            N l1 = group.label;
+            if (!t.getLabel().equals(l1) && !(l1 instanceof Wildcard)) {
+                return;
+            }
+            for (PushRule<N, D, W> rule : group.rules) {
+                applyPush(rule, t, weight, aut);
             }
         }
 
         @Override
-        public void onInTransitionAdded(Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
-
+        public void onInTransitionAdded(RuleGroup<PushRule<N, D, W>> group, Void unused, Transition<N, D> t, W weight,
+                WeightedPAutomaton<N, D, W> aut) {
         }
+    }
 
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + ((rule == null) ? 0 : rule.hashCode());
-            return result;
+    private void applyPush(PushRule<N, D, W> rule, Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
+        if (rule.getCallSite() instanceof Wildcard) {
+            if (t.getLabel().equals(fa.epsilon()))
+                return;
         }
+        final D p = rule.getS2();
+        final N gammaPrime = rule.getL2();
+        final D irState = fa.createState(p, gammaPrime);
+        final N transitionLabel = (rule.getCallSite() instanceof Wildcard ? t.getLabel() : rule.getCallSite());
+        final Transition<N, D> transition = new Transition<N, D>(irState, transitionLabel, t.getTarget());
 
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            HandlePushListener other = (HandlePushListener) obj;
-            if (rule == null) {
-                if (other.rule != null)
-                    return false;
-            } else if (!rule.equals(other.rule))
-                return false;
-            return true;
+        update(transition, (W) weight.extendWith(rule.getWeight()));
+
+        if (!fa.nested()) {
+            update(new Transition<N, D>(p, gammaPrime, irState), fa.getOne());
+        } else {
+            if (!fa.isGeneratedState(irState))
+                throw new RuntimeException("State must be generated");
+            final WeightedPAutomaton<N, D, W> summary = getOrCreateSummaryAutomaton(irState,
+                    new Transition<N, D>(p, gammaPrime, irState), fa.getOne(), aut);
+            summary.registerListener(new WPAUpdateListener<N, D, W>() {
+
+                @Override
+                public void onWeightAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> innerAut) {
+                    if ((t.getLabel().equals(fa.epsilon()) && t.getTarget().equals(irState))) {
+                        update(t, (W) w);
+
+                        W newWeight = getWeightFor(transition);
+                        update(new Transition<N, D>(t.getStart(), transition.getLabel(), transition.getTarget()),
+                                (W) newWeight.extendWith(w));
+                    }
+                }
+            });
         }
 
+        fa.registerListener(transition.getStart(), updateEpsilonOnPush, rule.getL1(), transition.getLabel());
     }
 
-    private class UpdateEpsilonOnPushListener extends WPAStateListener<N, D, W> {
-        private N callSite;
-        private N succOfCallSite;
-
-        public UpdateEpsilonOnPushListener(Transition<N, D> transition, N callSite) {
-            super(transition.getStart());
-            this.succOfCallSite = transition.getLabel();
-            this.callSite = callSite;
-        }
+    /**
+     * Keyed by the call site and its successor, registered for the generated state of the push.
+     */
+    private class UpdateEpsilonOnPush implements WPAStateHandler<N, D, W, N, N> {
 
         @Override
-        public void onOutTransitionAdded(Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
+        public void onOutTransitionAdded(N callSite, N succOfCallSite, Transition<N, D> t, W weight,
+                WeightedPAutomaton<N, D, W> aut) {
         }
 
         @Override
-        public void onInTransitionAdded(Transition<N, D> t, W weight, WeightedPAutomaton<N, D, W> aut) {
+        public void onInTransitionAdded(N callSite, N succOfCallSite, Transition<N, D> t, W weight,
+                WeightedPAutomaton<N, D, W> aut) {
             if (t.getString().equals(fa.epsilon())) {
                 fa.reconnectPush(callSite, succOfCallSite, t.getStart(), weight);
             }
         }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + ((callSite == null) ? 0 : callSite.hashCode());
-            result = prime * result + ((succOfCallSite == null) ? 0 : succOfCallSite.hashCode());
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            UpdateEpsilonOnPushListener other = (UpdateEpsilonOnPushListener) obj;
-            if (callSite == null) {
-                if (other.callSite != null)
-                    return false;
-            } else if (!callSite.equals(other.callSite))
-                return false;
-            if (succOfCallSite == null) {
-                if (other.succOfCallSite != null)
-                    return false;
-            } else if (!succOfCallSite.equals(other.succOfCallSite))
-                return false;
-            return true;
-        }
-
     }
 
     private void update(Transition<N, D> trans, W weight) {
@@ -11,11 +11,16 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 
 import wpds.interfaces.IPushdownSystem;
 import wpds.interfaces.Location;
@@ -26,6 +31,11 @@ public class PreStar<N extends Location, D extends State, W extends Weight> {
     private LinkedList<Transition<N, D>> worklist = Lists.newLinkedList();
     private IPushdownSystem<N, D, W> pds;
     private WeightedPAutomaton<N, D, W> fa;
+    /**
+     * The transitions of the automaton by start state and label, to find the transitions that continue the stack
+     * below a push without scanning all transitions leaving the state.
+     */
+    private final Table<D, N, Set<Transition<N, D>>> transitionsByStartAndLabel = HashBasedTable.create();
 
     public WeightedPAutomaton<N, D, W> prestar(IPushdownSystem<N, D, W> pds,
             WeightedPAutomaton<N, D, W> initialAutomaton) {
@@ -36,6 +46,7 @@ public class PreStar<N extends Location, D extends State, W extends Weight> {
         for (Transition<N, D> trans : Sets.newHashSet(fa.getTransitions())) {
             W one = fa.getOne();
             fa.addWeightForTransition(trans, one);
+            index(trans);
         }
         for (PopRule<N, D, W> r : pds.getPopRules()) {
             update(new Transition<N, D>(r.getS1(), r.getL1(), r.getS2()), r.getWeight(),
@@ -51,31 +62,24 @@ public class PreStar<N extends Location, D extends State, W extends Weight> {
                 previous.add(t);
                 update(new Transition<N, D>(r.getS1(), r.getL1(), t.getTarget()), r.getWeight(), previous);
             }
+            // Push rules <s1,l1> -> <s2,l2 callSite>, t is the transition (s2,l2,q)
             for (PushRule<N, D, W> r : pds.getPushRulesEnding(t.getStart(), t.getLabel())) {
-                // Push rules
-                for (Transition<N, D> tdash : Sets.newHashSet(fa.getTransitions())) {
-                    if (tdash.getLabel().equals(r.getCallSite())) {
-                        LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>> newLinkedList();
-                        previous.add(t);
-                        previous.add(tdash);
-                        update(new Transition<N, D>(r.getS1(), r.getL1(), tdash.getTarget()), r.getWeight(), previous);
-                    } else if (r.getCallSite() instanceof Wildcard) {
-                        LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>> newLinkedList();
-                        previous.add(t);
-                        previous.add(tdash);
-                        update(new Transition<N, D>(r.getS1(), tdash.getLabel(), tdash.getTarget()), r.getWeight(),
-                                previous);
-                    }
-
+                boolean wildcard = r.getCallSite() instanceof Wildcard;
+                Collection<Transition<N, D>> continuations = wildcard
+                        ? fa.getTransitionStore().getTransitionsOutOf(t.getTarget())
+                        : transitionsWith(t.getTarget(), r.getCallSite());
+                for (Transition<N, D> tdash : continuations) {
+                    LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>> newLinkedList();
+                    previous.add(t);
+                    previous.add(tdash);
+                    N label = wildcard ? tdash.getLabel() : r.getL1();
+                    update(new Transition<N, D>(r.getS1(), label, tdash.getTarget()), r.getWeight(), previous);
                 }
             }
-
-            for (PushRule<N, D, W> r : pds.getPushRules()) {
-                if (!(r.getCallSite() instanceof Wildcard) && !r.getCallSite().equals(t.getString())) {
-                    continue;
-                }
-                Transition<N, D> tdash = new Transition<N, D>(r.getS2(), r.getL2(), t.getTarget());
-                if (!fa.getTransitions().contains(tdash)) {
+            // Push rules <s1,l1> -> <s2,l2 callSite>, t is the transition (q,callSite,q')
+            for (PushRule<N, D, W> r : pds.getPushRulesWithCallSite(t.getLabel())) {
+                Transition<N, D> tdash = new Transition<N, D>(r.getS2(), r.getL2(), t.getStart());
+                if (fa.getWeightFor(tdash) == null) {
                     continue;
                 }
                 LinkedList<Transition<N, D>> previous = Lists.<Transition<N, D>> newLinkedList();
@@ -92,7 +96,10 @@ public class PreStar<N extends Location, D extends State, W extends Weight> {
     private void update(Transition<N, D> trans, W weight, List<Transition<N, D>> previous) {
         if (trans.getLabel() instanceof Wildcard)
             throw new RuntimeException("INVALID TRANSITION");
+        boolean added = fa.getWeightFor(trans) == null;
         fa.addTransition(trans);
+        if (added)
+            index(trans);
         W lt = getOrCreateWeight(trans);
         W fr = weight;
         for (Transition<N, D> prev : previous) {
@@ -100,11 +107,25 @@ public class PreStar<N extends Location, D extends State, W extends Weight> {
         }
         W newLt = (W) lt.combineWith(fr);
         fa.addWeightForTransition(trans, newLt);
-        if (!lt.equals(newLt)) {
+        if (added || !lt.equals(newLt)) {
             worklist.add(trans);
         }
     }
 
+    private void index(Transition<N, D> trans) {
+        Set<Transition<N, D>> transitions = transitionsByStartAndLabel.get(trans.getStart(), trans.getLabel());
+        if (transitions == null) {
+            transitions = Sets.newLinkedHashSet();
+            transitionsByStartAndLabel.put(trans.getStart(), trans.getLabel(), transitions);
+        }
+        transitions.add(trans);
+    }
+
+    private Collection<Transition<N, D>> transitionsWith(D start, N label) {
+        Set<Transition<N, D>> transitions = transitionsByStartAndLabel.get(start, label);
+        return transitions == null ? Collections.<Transition<N, D>> emptyList() : Lists.newArrayList(transitions);
+    }
+
     private W getOrCreateWeight(Transition<N, D> trans) {
         W w = fa.getWeightFor(trans);
         if (w != null)
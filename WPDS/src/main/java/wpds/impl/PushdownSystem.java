@@ -11,6 +11,8 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.Collection;
+
 import wpds.impl.Weight.NoWeight;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
@@ -24,4 +26,13 @@ public class PushdownSystem<N extends Location, D extends State> extends Weighte
         return super.addRule(rule);
     }
 
+    @Override
+    public boolean addRules(Collection<? extends Rule<N, D, NoWeight>> rules) {
+        for (Rule<N, D, NoWeight> rule : rules) {
+            if (!(rule instanceof UNormalRule) && !(rule instanceof UPopRule) && !(rule instanceof UPushRule))
+                throw new RuntimeException("Trying to add a weighted rule to an unweighted PDS!");
+        }
+        return super.addRules(rules);
+    }
+
 }
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+import wpds.wildcard.Wildcard;
+
+/**
+ * Rules of a pushdown system keyed by one of their configurations (state and stack symbol). Rules whose symbol is a
+ * {@link Wildcard} are kept in a separate bucket per state, as they match any symbol.
+ */
+class RuleIndex<N extends Location, D extends State, R> {
+
+    private final Table<D, N, Set<R>> exact = HashBasedTable.create();
+    private final Map<D, Set<R>> wildcards = Maps.newHashMap();
+    private final Map<D, Set<R>> byState = Maps.newHashMap();
+
+    void add(D state, N symbol, R rule) {
+        if (symbol instanceof Wildcard) {
+            bucket(wildcards, state).add(rule);
+        } else {
+            Set<R> rules = exact.get(state, symbol);
+            if (rules == null) {
+                rules = Sets.newHashSet();
+                exact.put(state, symbol, rules);
+            }
+            rules.add(rule);
+        }
+        bucket(byState, state).add(rule);
+    }
+
+    /**
+     * @return The rules with exactly the given configuration.
+     */
+    Set<R> getExact(D state, N symbol) {
+        Set<R> rules = exact.get(state, symbol);
+        return rules == null ? Collections.<R> emptySet() : rules;
+    }
+
+    /**
+     * @return The rules whose configuration matches the given one. A wildcard symbol matches all rules of the state.
+     */
+    Set<R> getMatching(D state, N symbol) {
+        if (symbol instanceof Wildcard) {
+            return getState(byState, state);
+        }
+        Set<R> wildcardRules = getState(wildcards, state);
+        if (wildcardRules.isEmpty()) {
+            return getExact(state, symbol);
+        }
+        return Sets.union(getExact(state, symbol), wildcardRules);
+    }
+
+    private Set<R> getState(Map<D, Set<R>> map, D state) {
+        Set<R> rules = map.get(state);
+        return rules == null ? Collections.<R> emptySet() : rules;
+    }
+
+    private Set<R> bucket(Map<D, Set<R>> map, D state) {
+        Set<R> rules = map.get(state);
+        if (rules == null) {
+            rules = Sets.newHashSet();
+            map.put(state, rules);
+        }
+        return rules;
+    }
+}
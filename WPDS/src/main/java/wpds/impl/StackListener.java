@@ -6,6 +6,7 @@ import com.google.common.collect.Sets;
 
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
+import wpds.interfaces.WPAStateHandler;
 import wpds.interfaces.WPAStateListener;
 
 public abstract class StackListener<N extends Location, D extends State, W extends Weight>
@@ -28,7 +29,7 @@ public abstract class StackListener<N extends Location, D extends State, W exten
         if (t.getLabel().equals(aut.epsilon()))
             return;
         if (this.aut.isGeneratedState(t.getTarget())) {
-            aut.registerListener(new SubStackListener(t.getTarget(), this));
+            registerSubStackListener(t.getTarget());
         }
         if (this.aut.initialState.equals(t.getTarget()) && t.getLabel().equals(source)) {
             anyContext(source);
@@ -68,57 +69,39 @@ public abstract class StackListener<N extends Location, D extends State, W exten
         return true;
     }
 
-    private class SubStackListener extends WPAStateListener<N, D, W> {
-        private StackListener parent;
-
-        public SubStackListener(D state, StackListener parent) {
-            super(state);
-            this.parent = parent;
-        }
+    /**
+     * Keyed by the stack listener, registered for the generated states below its state: reports their labels as stack
+     * elements.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final WPAStateHandler SUB_STACK = new WPAStateHandler<Location, State, Weight, StackListener,
+            Void>() {
 
         @Override
-        public void onOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> weightedPAutomaton) {
-            if (t.getLabel().equals(aut.epsilon()))
-                return;
-            stackElement(t.getLabel());
-            if (aut.isGeneratedState(t.getTarget()) && !t.getTarget().equals(t.getStart())) {
-                aut.registerListener(new SubStackListener(t.getTarget(), parent));
-            }
+        public void onOutTransitionAdded(StackListener parent, Void unused, Transition<Location, State> t, Weight w,
+                WeightedPAutomaton<Location, State, Weight> weightedPAutomaton) {
+            parent.onSubStackTransitionAdded(t);
         }
 
         @Override
-        public void onInTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> weightedPAutomaton) {
+        public void onInTransitionAdded(StackListener parent, Void unused, Transition<Location, State> t, Weight w,
+                WeightedPAutomaton<Location, State, Weight> weightedPAutomaton) {
         }
+    };
 
-        public void stackElement(N parent) {
-            if (notifiedStacks.add(parent)) {
-                StackListener.this.stackElement(parent);
-            }
-        }
+    @SuppressWarnings("unchecked")
+    private void registerSubStackListener(D state) {
+        aut.registerListener(state, SUB_STACK, this, null);
+    }
 
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + ((parent == null) ? 0 : parent.hashCode());
-            return result;
+    private void onSubStackTransitionAdded(Transition<N, D> t) {
+        if (t.getLabel().equals(aut.epsilon()))
+            return;
+        if (notifiedStacks.add(t.getLabel())) {
+            stackElement(t.getLabel());
         }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            SubStackListener other = (SubStackListener) obj;
-            if (parent == null) {
-                if (other.parent != null)
-                    return false;
-            } else if (!parent.equals(other.parent))
-                return false;
-            return true;
+        if (aut.isGeneratedState(t.getTarget()) && !t.getTarget().equals(t.getStart())) {
+            registerSubStackListener(t.getTarget());
         }
     }
 }
\ No newline at end of file
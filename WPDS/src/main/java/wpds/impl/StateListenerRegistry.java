@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+import wpds.interfaces.WPAStateHandler;
+import wpds.interfaces.WPAStateListener;
+
+/**
+ * The state listener registrations of an automaton. A registration is a record of a {@link WPAStateHandler} and its
+ * two keys in a flat array per state, deduplicated through the hashes of the records and, for states with many
+ * registrations, an open addressing index, so no listener object is created and no deep equals is run unless two
+ * records hash alike. A {@link WPAStateListener} is registered as the record of {@link #LISTENER} keyed by the listener.
+ * Like a {@link ListenerSet}, the records of a state only grow and a dispatch visits the records registered when it
+ * started.
+ */
+class StateListenerRegistry<N extends Location, D extends State, W extends Weight> {
+
+    @SuppressWarnings("rawtypes")
+    private static final WPAStateHandler LISTENER = new WPAStateHandler<Location, State, Weight, WPAStateListener,
+            Void>() {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onOutTransitionAdded(WPAStateListener l, Void b, Transition<Location, State> t, Weight w,
+                WeightedPAutomaton<Location, State, Weight> aut) {
+            l.onOutTransitionAdded(t, w, aut);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onInTransitionAdded(WPAStateListener l, Void b, Transition<Location, State> t, Weight w,
+                WeightedPAutomaton<Location, State, Weight> aut) {
+            l.onInTransitionAdded(t, w, aut);
+        }
+    };
+
+    private final ConcurrentMap<D, Records> records = Maps.newConcurrentMap();
+
+    @SuppressWarnings("unchecked")
+    static <N extends Location, D extends State, W extends Weight> WPAStateHandler<N, D, W, WPAStateListener<N, D, W>,
+            Void> listenerHandler() {
+        return LISTENER;
+    }
+
+    /**
+     * @return true if the state had no equal registration before.
+     */
+    boolean register(D state, WPAStateHandler<N, D, W, ?, ?> handler, Object a, Object b) {
+        Records r = records.get(state);
+        if (r == null) {
+            Records created = new Records();
+            r = records.putIfAbsent(state, created);
+            if (r == null)
+                r = created;
+        }
+        return r.add(handler, a, b);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void onOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+        Records r = records.get(t.getStart());
+        if (r == null)
+            return;
+        int n = r.size;
+        Object[] e = r.entries;
+        for (int i = 0; i < n; i++) {
+            ((WPAStateHandler) e[3 * i]).onOutTransitionAdded(e[3 * i + 1], e[3 * i + 2], t, w, aut);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void onInTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+        Records r = records.get(t.getTarget());
+        if (r == null)
+            return;
+        int n = r.size;
+        Object[] e = r.entries;
+        for (int i = 0; i < n; i++) {
+            ((WPAStateHandler) e[3 * i]).onInTransitionAdded(e[3 * i + 1], e[3 * i + 2], t, w, aut);
+        }
+    }
+
+    /**
+     * Registers all records at the other automaton, e.g. a nested automaton.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void registerAllAt(WeightedPAutomaton<N, D, W> other) {
+        for (Entry<D, Records> entry : records.entrySet()) {
+            Records r = entry.getValue();
+            int n = r.size;
+            Object[] e = r.entries;
+            for (int i = 0; i < n; i++) {
+                other.registerListener(entry.getKey(), (WPAStateHandler) e[3 * i], e[3 * i + 1], e[3 * i + 2]);
+            }
+        }
+    }
+
+    /**
+     * @return The number of registrations of the state.
+     */
+    int size(D state) {
+        Records r = records.get(state);
+        return r == null ? 0 : r.size;
+    }
+
+    void clear() {
+        records.clear();
+    }
+
+    /**
+     * The records of one state: handler and keys in triples of {@link #entries}, their hashes in {@link #hashes}.
+     */
+    private static final class Records {
+        private static final int LINEAR_SCAN = 8;
+
+        private volatile Object[] entries = new Object[3 * 2];
+        private int[] hashes = new int[2];
+        private volatile int size;
+        /**
+         * Slots hold the record number plus one, 0 marks an empty slot. Created once a linear scan gets too long.
+         */
+        private int[] index;
+
+        synchronized boolean add(Object handler, Object a, Object b) {
+            int hash = hash(handler, a, b);
+            int n = size;
+            Object[] e = entries;
+            if (index == null) {
+                for (int i = 0; i < n; i++) {
+                    if (matches(e, i, hash, handler, a, b))
+                        return false;
+                }
+            } else {
+                int mask = index.length - 1;
+                for (int slot = hash & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+                    if (matches(e, index[slot] - 1, hash, handler, a, b))
+                        return false;
+                }
+            }
+            if (3 * n + 3 > e.length) {
+                e = Arrays.copyOf(e, 2 * e.length);
+                hashes = Arrays.copyOf(hashes, 2 * hashes.length);
+            }
+            e[3 * n] = handler;
+            e[3 * n + 1] = a;
+            e[3 * n + 2] = b;
+            hashes[n] = hash;
+            entries = e;
+            size = n + 1;
+            if (index != null && 2 * (n + 1) <= index.length) {
+                insert(index, hash, n);
+            } else if (n + 1 > LINEAR_SCAN) {
+                rebuildIndex(n + 1);
+            }
+            return true;
+        }
+
+        private boolean matches(Object[] e, int i, int hash, Object handler, Object a, Object b) {
+            return hashes[i] == hash && e[3 * i] == handler && Objects.equal(e[3 * i + 1], a)
+                    && Objects.equal(e[3 * i + 2], b);
+        }
+
+        private void rebuildIndex(int n) {
+            int[] rebuilt = new int[Integer.highestOneBit(4 * n - 1)];
+            for (int i = 0; i < n; i++) {
+                insert(rebuilt, hashes[i], i);
+            }
+            index = rebuilt;
+        }
+
+        private static void insert(int[] index, int hash, int record) {
+            int mask = index.length - 1;
+            int slot = hash & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = record + 1;
+        }
+
+        private static int hash(Object handler, Object a, Object b) {
+            int h = System.identityHashCode(handler);
+            h = 31 * h + (a == null ? 0 : a.hashCode());
+            h = 31 * h + (b == null ? 0 : b.hashCode());
+            return h ^ (h >>> 16);
+        }
+    }
+}
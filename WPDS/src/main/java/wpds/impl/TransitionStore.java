@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Storage back end of a {@link WeightedPAutomaton}. Holds the transitions, their weights, the states and the
+ * adjacency of each state. Transitions are never removed. The collections of transitions are unmodifiable and hold the
+ * transitions present when they were requested, transitions may be added while iterating them.
+ * {@link #getTransitionsToWeights()} and {@link #getStates()} may be live views and must not be iterated while adding.
+ */
+public interface TransitionStore<N extends Location, D extends State, W extends Weight> {
+
+    /**
+     * Adds the transition and its start and target state.
+     *
+     * @return true if the transition was not contained before.
+     */
+    boolean add(Transition<N, D> trans);
+
+    W getWeight(Transition<N, D> trans);
+
+    void setWeight(Transition<N, D> trans, W weight);
+
+    Collection<Transition<N, D>> getTransitions();
+
+    Map<Transition<N, D>, W> getTransitionsToWeights();
+
+    Collection<Transition<N, D>> getTransitionsOutOf(D state);
+
+    Collection<Transition<N, D>> getTransitionsInto(D state);
+
+    Set<D> getStates();
+
+    int size();
+
+    /**
+     * Creates an empty store of the same kind, used for nested automata.
+     */
+    TransitionStore<N, D, W> createEmpty();
+}
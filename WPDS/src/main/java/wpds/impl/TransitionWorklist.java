@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.impl;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Explicit worklist for the saturation of a {@link WeightedPAutomaton}. When an automaton has a worklist, a weight
+ * change of a transition does not call the automaton's listeners synchronously. Instead, the transition is queued
+ * and the queue is drained iteratively by the outermost addition, so listener cascades (e.g. the ones of
+ * {@link PostStar}) do not turn into deep recursion. A transition that is queued again before it was dispatched is
+ * dispatched only once, with its combined weight.
+ */
+public class TransitionWorklist<N extends Location, D extends State, W extends Weight> {
+
+    public enum Order {
+        FIFO, LIFO, PRIORITY
+    }
+
+    private final Order order;
+    private final Queue<Item> queue;
+    private final Set<Item> pending = Sets.newHashSet();
+    private boolean draining;
+    private long dispatched;
+
+    private TransitionWorklist(Order order, Queue<Item> queue) {
+        this.order = order;
+        this.queue = queue;
+    }
+
+    public static <N extends Location, D extends State, W extends Weight> TransitionWorklist<N, D, W> fifo() {
+        return new TransitionWorklist<N, D, W>(Order.FIFO, new ArrayDeque<TransitionWorklist<N, D, W>.Item>());
+    }
+
+    public static <N extends Location, D extends State, W extends Weight> TransitionWorklist<N, D, W> lifo() {
+        return new TransitionWorklist<N, D, W>(Order.LIFO, new ArrayDeque<TransitionWorklist<N, D, W>.Item>());
+    }
+
+    /**
+     * Creates a worklist that dispatches the smallest transition according to the comparator first, e.g. to keep the
+     * transitions of one method together.
+     */
+    public static <N extends Location, D extends State, W extends Weight> TransitionWorklist<N, D, W> priority(
+            final Comparator<Transition<N, D>> comparator) {
+        return new TransitionWorklist<N, D, W>(Order.PRIORITY,
+                new PriorityQueue<TransitionWorklist<N, D, W>.Item>(11,
+                        new Comparator<TransitionWorklist<N, D, W>.Item>() {
+                            @Override
+                            public int compare(TransitionWorklist<N, D, W>.Item o1,
+                                    TransitionWorklist<N, D, W>.Item o2) {
+                                return comparator.compare(o1.trans, o2.trans);
+                            }
+                        }));
+    }
+
+    public static <N extends Location, D extends State, W extends Weight> TransitionWorklist<N, D, W> create(
+            Order order, Comparator<Transition<N, D>> priority) {
+        switch (order) {
+        case FIFO:
+            return fifo();
+        case LIFO:
+            return lifo();
+        case PRIORITY:
+            return priority(priority);
+        }
+        throw new IllegalArgumentException("Unknown worklist order " + order);
+    }
+
+    void add(WeightedPAutomaton<N, D, W> aut, Transition<N, D> trans) {
+        Item item = new Item(aut, trans);
+        if (pending.add(item)) {
+            if (order == Order.LIFO) {
+                ((Deque<Item>) queue).addFirst(item);
+            } else {
+                queue.add(item);
+            }
+        }
+    }
+
+    void drain() {
+        if (draining)
+            return;
+        draining = true;
+        try {
+            while (!queue.isEmpty()) {
+                Item item = queue.poll();
+                pending.remove(item);
+                dispatched++;
+                item.aut.dispatchWeightAdded(item.trans);
+            }
+        } finally {
+            draining = false;
+        }
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    private class Item {
+        private final WeightedPAutomaton<N, D, W> aut;
+        private final Transition<N, D> trans;
+
+        private Item(WeightedPAutomaton<N, D, W> aut, Transition<N, D> trans) {
+            this.aut = aut;
+            this.trans = trans;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + System.identityHashCode(aut);
+            result = prime * result + trans.hashCode();
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Item other = (Item) obj;
+            return aut == other.aut && trans.equals(other.trans);
+        }
+    }
+}
@@ -13,7 +13,6 @@ package wpds.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -24,76 +23,91 @@ import org.apache.logging.log4j.LogManager;
 
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Predicates;
 import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
 import pathexpression.Edge;
 import pathexpression.IRegEx;
 import pathexpression.LabeledGraph;
-import pathexpression.PathExpressionComputer;
 import pathexpression.RegEx;
 import wpds.interfaces.Empty;
-import wpds.interfaces.ForwardDFSEpsilonVisitor;
 import wpds.interfaces.ForwardDFSVisitor;
+import wpds.interfaces.IncrementalEpsilonReachabilityVisitor;
+import wpds.interfaces.IncrementalReachabilityVisitor;
 import wpds.interfaces.Location;
 import wpds.interfaces.ReachabilityListener;
 import wpds.interfaces.State;
+import wpds.interfaces.WPAStateHandler;
 import wpds.interfaces.WPAStateListener;
 import wpds.interfaces.WPAUpdateListener;
 
 public abstract class WeightedPAutomaton<N extends Location, D extends State, W extends Weight>
         implements LabeledGraph<D, N> {
-    private Map<Transition<N, D>, W> transitionToWeights = new HashMap<>();
+    /**
+     * System property selecting the {@link TransitionStore} of automata created without an explicit store. Supported
+     * values are "hash" (default) and "int".
+     */
+    public static final String TRANSITION_STORE_PROPERTY = "wpds.transitionStore";
     // Set Q is implicit
     // Weighted Pushdown Systems and their Application to Interprocedural
     // Dataflow Analysis
-    protected Set<Transition<N, D>> transitions = Sets.newHashSet();
+    // Transitions, their weights and set P in paper [Reps2003]
+    private final TransitionStore<N, D, W> transitionStore;
     // set F in paper [Reps2003]
     protected Set<D> finalState = Sets.newHashSet();
-    // set P in paper [Reps2003]
     protected final D initialState;
-    protected Set<D> states = Sets.newHashSet();
-    private final Multimap<D, Transition<N, D>> transitionsOutOf = HashMultimap.create();
-    private final Multimap<D, Transition<N, D>> transitionsInto = HashMultimap.create();
-    private Set<WPAUpdateListener<N, D, W>> listeners = Sets.newHashSet();
-    private Multimap<D, WPAStateListener<N, D, W>> stateListeners = HashMultimap.create();
+    private ListenerSet<WPAUpdateListener<N, D, W>> listeners = new ListenerSet<>();
+    private final StateListenerRegistry<N, D, W> stateListeners = new StateListenerRegistry<>();
     private Map<D, ForwardDFSVisitor<N, D, W>> stateToDFS = Maps.newHashMap();
     private Map<D, ForwardDFSVisitor<N, D, W>> stateToEpsilonDFS = Maps.newHashMap();
-    private Set<WeightedPAutomaton<N, D, W>> nestedAutomatons = Sets.newHashSet();
-    private Set<NestedAutomatonListener<N, D, W>> nestedAutomataListeners = Sets.newHashSet();
+    private ListenerSet<WeightedPAutomaton<N, D, W>> nestedAutomatons = new ListenerSet<>();
+    private ListenerSet<NestedAutomatonListener<N, D, W>> nestedAutomataListeners = new ListenerSet<>();
     private Map<D, ReachabilityListener<N, D>> stateToEpsilonReachabilityListener = Maps.newHashMap();
     private Map<D, ReachabilityListener<N, D>> stateToReachabilityListener = Maps.newHashMap();
     private Set<ReturnSiteWithWeights> connectedPushes = Sets.newHashSet();
-    private Set<ConnectPushListener<N, D, W>> conntectedPushListeners = Sets.newHashSet();
-    private Set<UnbalancedPopListener<N, D, W>> unbalancedPopListeners = Sets.newHashSet();
+    private ListenerSet<ConnectPushListener<N, D, W>> conntectedPushListeners = new ListenerSet<>();
+    private ListenerSet<UnbalancedPopListener<N, D, W>> unbalancedPopListeners = new ListenerSet<>();
     private Map<UnbalancedPopEntry, W> unbalancedPops = Maps.newHashMap();
     private Map<Transition<N, D>, W> transitionsToFinalWeights = Maps.newHashMap();
-    private ForwardDFSVisitor<N, D, W> dfsVisitor;
-    private ForwardDFSVisitor<N, D, W> dfsEpsVisitor;
+    private IncrementalReachabilityVisitor<N, D, W> dfsVisitor;
+    private IncrementalReachabilityVisitor<N, D, W> dfsEpsVisitor;
     public int failedAdditions;
     public int failedDirectAdditions;
     private WeightedPAutomaton<N, D, W> initialAutomaton;
-    private PathExpressionComputer<D, N> pathExpressionComputer;
+    private IncrementalPathExpressions<N, D> pathExpressions;
     protected Set<D> unbalancedStates = Sets.newHashSet();
-    private int lastStates = 0;
+    private TransitionWorklist<N, D, W> worklist;
 
     public WeightedPAutomaton(D initialState) {
+        this(initialState, WeightedPAutomaton.<N, D, W> createDefaultTransitionStore());
+    }
+
+    public WeightedPAutomaton(D initialState, TransitionStore<N, D, W> transitionStore) {
         this.initialState = initialState;
+        this.transitionStore = transitionStore;
         this.unbalancedStates.add(initialState);
     }
 
+    public static <N extends Location, D extends State, W extends Weight>
+            TransitionStore<N, D, W> createDefaultTransitionStore() {
+        if ("int".equals(System.getProperty(TRANSITION_STORE_PROPERTY))) {
+            return new IntTransitionStore<>();
+        }
+        return new HashTransitionStore<>();
+    }
+
     public abstract D createState(D d, N loc);
 
     public abstract boolean isGeneratedState(D d);
 
     public Collection<Transition<N, D>> getTransitions() {
-        return Lists.newArrayList(transitions);
+        return Lists.newArrayList(transitionStore.getTransitions());
     }
 
     public boolean addTransition(Transition<N, D> trans) {
@@ -117,7 +131,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         s += "\tInitialStates:" + initialState + "\n";
         s += "\tFinalStates:" + finalState + "\n";
         s += "\tWeightToTransitions:\n\t\t";
-        s += Joiner.on("\n\t\t").join(transitionToWeights.entrySet());
+        s += Joiner.on("\n\t\t").join(transitionStore.getTransitionsToWeights().entrySet());
 
         for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             s += "\n";
@@ -144,14 +158,14 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         }
         String s = "digraph {\n";
         TreeSet<String> trans = new TreeSet<String>();
-        for (D source : states) {
-            Collection<Transition<N, D>> collection = transitionsOutOf.get(source);
+        for (D source : getStates()) {
+            Collection<Transition<N, D>> collection = transitionStore.getTransitionsOutOf(source);
 
-            for (D target : states) {
+            for (D target : getStates()) {
                 List<String> labels = Lists.newLinkedList();
                 for (Transition<N, D> t : collection) {
                     if (t.getTarget().equals(target)) {
-                        labels.add(escapeQuotes(t.getString().toString()) + " W: " + transitionToWeights.get(t));
+                        labels.add(escapeQuotes(t.getString().toString()) + " W: " + transitionStore.getWeight(t));
                     }
                 }
                 if (!labels.isEmpty()) {
@@ -165,7 +179,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         }
         s += Joiner.on("").join(trans);
         s += "}\n";
-        s += "Transitions: " + transitions.size() + " Nested: " + nestedAutomatons.size() + "\n";
+        s += "Transitions: " + transitionStore.size() + " Nested: " + nestedAutomatons.size() + "\n";
         for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             s += "NESTED -> \n";
             s += nested.toDotString(visited);
@@ -180,7 +194,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
     public String toLabelGroupedDotString() {
         HashBasedTable<D, N, Collection<D>> groupedByTargetAndLabel = HashBasedTable.create();
-        for (Transition<N, D> t : transitions) {
+        for (Transition<N, D> t : transitionStore.getTransitions()) {
             Collection<D> collection = groupedByTargetAndLabel.get(t.getTarget(), t.getLabel());
             if (collection == null)
                 collection = Sets.newHashSet();
@@ -199,7 +213,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             }
         }
         s += "}\n";
-        s += "Transitions: " + transitions.size() + "\n";
+        s += "Transitions: " + transitionStore.size() + "\n";
         for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             s += "NESTED -> \n";
             s += nested.toDotString();
@@ -210,10 +224,9 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public abstract N epsilon();
 
     public IRegEx<N> extractLanguage(D from) {
-        PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
         IRegEx<N> res = null;
         for (D finalState : getFinalState()) {
-            IRegEx<N> regEx = expr.getExpressionBetween(from, finalState);
+            IRegEx<N> regEx = extractLanguage(from, finalState);
             if (res == null) {
                 res = regEx;
             } else {
@@ -226,20 +239,17 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     }
 
     public IRegEx<N> extractLanguage(D from, D to) {
-        PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
-        IRegEx<N> res = expr.getExpressionBetween(from, to);
-        if (res == null)
-            return new RegEx.EmptySet<N>();
-        return res;
+        // Labels of the paths in the reversed automaton, see getEdges()
+        return RegEx.reverse(pathExpressions().get(to, from));
     }
 
     public Set<D> getStates() {
-        return states;
+        return transitionStore.getStates();
     }
 
     public Set<Edge<D, N>> getEdges() {
         Set<Edge<D, N>> trans = Sets.newHashSet();
-        for (Edge<D, N> tran : transitions) {
+        for (Edge<D, N> tran : transitionStore.getTransitions()) {
             if (!tran.getLabel().equals(epsilon())) {
                 trans.add(new Transition<N, D>(tran.getTarget(), tran.getLabel(), tran.getStart()));
             }
@@ -258,23 +268,19 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             failedAdditions++;
             return false;
         }
-        transitionsOutOf.get(trans.getStart()).add(trans);
-        transitionsInto.get(trans.getTarget()).add(trans);
-        states.add(trans.getTarget());
-        states.add(trans.getStart());
-        boolean added = transitions.add(trans);
-        W oldWeight = transitionToWeights.get(trans);
+        boolean added = transitionStore.add(trans);
+        if (added && pathExpressions != null && !trans.getLabel().equals(epsilon())) {
+            pathExpressions.addTransition(trans);
+        }
+        W oldWeight = transitionStore.getWeight(trans);
         W newWeight = (W) (oldWeight == null ? weight : oldWeight.combineWith(weight));
         if (!newWeight.equals(oldWeight)) {
-            transitionToWeights.put(trans, newWeight);
-            for (WPAUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
-                l.onWeightAdded(trans, newWeight, this);
-            }
-            for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getStart()))) {
-                l.onOutTransitionAdded(trans, newWeight, this);
-            }
-            for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getTarget()))) {
-                l.onInTransitionAdded(trans, newWeight, this);
+            transitionStore.setWeight(trans, newWeight);
+            if (worklist != null) {
+                worklist.add(this, trans);
+                worklist.drain();
+            } else {
+                notifyWeightAdded(trans, newWeight);
             }
             return true;
         }
@@ -283,49 +289,128 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         return added;
     }
 
+    void dispatchWeightAdded(Transition<N, D> trans) {
+        notifyWeightAdded(trans, transitionStore.getWeight(trans));
+    }
+
+    private void notifyWeightAdded(Transition<N, D> trans, W newWeight) {
+        for (WPAUpdateListener<N, D, W> l : listeners) {
+            l.onWeightAdded(trans, newWeight, this);
+        }
+        stateListeners.onOutTransitionAdded(trans, newWeight, this);
+        stateListeners.onInTransitionAdded(trans, newWeight, this);
+    }
+
+    /**
+     * Lets this automaton and all nested automata created afterwards dispatch weight changes through the worklist
+     * instead of calling the listeners recursively.
+     */
+    public void setWorklist(TransitionWorklist<N, D, W> worklist) {
+        this.worklist = worklist;
+    }
+
+    public TransitionWorklist<N, D, W> getWorklist() {
+        return worklist;
+    }
+
     public W getWeightFor(Transition<N, D> trans) {
-        return transitionToWeights.get(trans);
+        return transitionStore.getWeight(trans);
+    }
+
+    public TransitionStore<N, D, W> getTransitionStore() {
+        return transitionStore;
     }
 
     public void registerListener(WPAUpdateListener<N, D, W> listener) {
         if (!listeners.add(listener))
             return;
-        for (Entry<Transition<N, D>, W> transAndWeight : Lists.newArrayList(transitionToWeights.entrySet())) {
-            listener.onWeightAdded(transAndWeight.getKey(), transAndWeight.getValue(), this);
+        for (Transition<N, D> t : transitionStore.getTransitions()) {
+            listener.onWeightAdded(t, transitionStore.getWeight(t), this);
         }
-        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+        for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             nested.registerListener(listener);
         }
     }
 
-    private static int count = 0;
+    /**
+     * Removes the listener from this automaton and its nested automata. It is not notified of later transitions.
+     */
+    public void unregisterListener(WPAUpdateListener<N, D, W> listener) {
+        listeners.removeIf(Predicates.equalTo(listener));
+        for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
+            nested.unregisterListener(listener);
+        }
+    }
+
+    /**
+     * The number of state listener registrations, over all automata, between two calls of
+     * {@link #onManyStateListenerRegister()}.
+     */
+    public static final int MANY_STATE_LISTENERS = 100000;
+    private static final AtomicInteger count = new AtomicInteger();
 
-    private void increaseListenerCount(WPAStateListener<N, D, W> l) {
-        count++;
-        if (count % 100000 == 0) {
+    private void increaseListenerCount() {
+        onStateListenerRegister();
+        if (count.incrementAndGet() % MANY_STATE_LISTENERS == 0) {
             onManyStateListenerRegister();
         }
     }
 
+    /**
+     * Called for every state listener registration of this automaton.
+     */
+    public void onStateListenerRegister() {
+    }
+
     public void onManyStateListenerRegister() {
     }
 
     public void registerListener(WPAStateListener<N, D, W> l) {
-        if (!stateListeners.put(l.getState(), l)) {
+        registerListener(l.getState(), StateListenerRegistry.<N, D, W> listenerHandler(), l, null);
+    }
+
+    /**
+     * Registers the handler with the keys for the state, unless an equal registration exists, and replays the
+     * transitions of the state to it. See {@link WPAStateHandler}.
+     */
+    public <A, B> void registerListener(D state, WPAStateHandler<N, D, W, A, B> handler, A a, B b) {
+        if (!stateListeners.register(state, handler, a, b)) {
             return;
         }
-        increaseListenerCount(l);
-        for (Transition<N, D> t : Lists.newArrayList(transitionsOutOf.get(l.getState()))) {
-            l.onOutTransitionAdded(t, transitionToWeights.get(t), this);
+        increaseListenerCount();
+        for (Transition<N, D> t : transitionStore.getTransitionsOutOf(state)) {
+            handler.onOutTransitionAdded(a, b, t, transitionStore.getWeight(t), this);
         }
-        for (Transition<N, D> t : Lists.newArrayList(transitionsInto.get(l.getState()))) {
-            l.onInTransitionAdded(t, transitionToWeights.get(t), this);
+        for (Transition<N, D> t : transitionStore.getTransitionsInto(state)) {
+            handler.onInTransitionAdded(a, b, t, transitionStore.getWeight(t), this);
         }
 
-        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
-            nested.registerListener(l);
+        for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
+            nested.registerListener(state, handler, a, b);
         }
+    }
+
+    /**
+     * Replays the transitions of the state, here and in the nested automata, to the handler with the keys as if it was
+     * registered, without registering it. Nested automata may nest each other, each one is replayed once.
+     */
+    <A, B> void replayListener(D state, WPAStateHandler<N, D, W, A, B> handler, A a, B b) {
+        replayListener(state, handler, a, b, Sets.<WeightedPAutomaton<N, D, W>> newIdentityHashSet());
+    }
 
+    private <A, B> void replayListener(D state, WPAStateHandler<N, D, W, A, B> handler, A a, B b,
+            Set<WeightedPAutomaton<N, D, W>> replayed) {
+        if (!replayed.add(this))
+            return;
+        for (Transition<N, D> t : transitionStore.getTransitionsOutOf(state)) {
+            handler.onOutTransitionAdded(a, b, t, transitionStore.getWeight(t), this);
+        }
+        for (Transition<N, D> t : transitionStore.getTransitionsInto(state)) {
+            handler.onInTransitionAdded(a, b, t, transitionStore.getWeight(t), this);
+        }
+        for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
+            nested.replayListener(state, handler, a, b, replayed);
+        }
     }
 
     public void addFinalState(D state) {
@@ -335,7 +420,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public void registerDFSListener(D state, ReachabilityListener<N, D> l) {
         stateToReachabilityListener.put(state, l);
         if (dfsVisitor == null) {
-            dfsVisitor = new ForwardDFSVisitor<N, D, W>(this);
+            dfsVisitor = new IncrementalReachabilityVisitor<N, D, W>(this);
             this.registerListener(dfsVisitor);
         }
         dfsVisitor.registerListener(state, l);
@@ -348,10 +433,10 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public void registerDFSEpsilonListener(D state, ReachabilityListener<N, D> l) {
         stateToEpsilonReachabilityListener.put(state, l);
         if (dfsEpsVisitor == null) {
-            dfsEpsVisitor = new ForwardDFSEpsilonVisitor<N, D, W>(this);
+            dfsEpsVisitor = new IncrementalEpsilonReachabilityVisitor<N, D, W>(this);
             this.registerListener(dfsEpsVisitor);
         }
-        for (WeightedPAutomaton<N, D, W> nested : Lists.newLinkedList(nestedAutomatons)) {
+        for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             nested.registerDFSEpsilonListener(state, l);
         }
         dfsEpsVisitor.registerListener(state, l);
@@ -366,7 +451,8 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public abstract W getOne();
 
     public WeightedPAutomaton<N, D, W> createNestedAutomaton(D initialState) {
-        WeightedPAutomaton<N, D, W> nested = new WeightedPAutomaton<N, D, W>(initialState) {
+        WeightedPAutomaton<N, D, W> nested = new WeightedPAutomaton<N, D, W>(initialState,
+                transitionStore.createEmpty()) {
 
             @Override
             public D createState(D d, N loc) {
@@ -413,6 +499,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
                 return "NESTED: \n" + super.toString();
             }
         };
+        nested.setWorklist(worklist);
         addNestedAutomaton(nested);
         return nested;
     }
@@ -421,7 +508,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         WeightedPAutomaton<N, D, W>.ReturnSiteWithWeights returnSiteWithWeights = new ReturnSiteWithWeights(callSite,
                 returnSite, returnedFact, returnedWeight);
         if (connectedPushes.add(returnSiteWithWeights)) {
-            for (ConnectPushListener<N, D, W> l : Lists.newArrayList(conntectedPushListeners)) {
+            for (ConnectPushListener<N, D, W> l : conntectedPushListeners) {
                 l.connect(returnSiteWithWeights.callSite, returnSiteWithWeights.returnSite,
                         returnSiteWithWeights.returnedFact, returnSiteWithWeights.returnedWeight);
             }
@@ -451,7 +538,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         W newVal = (oldVal == null ? weight : (W) oldVal.combineWith(weight));
         if (!newVal.equals(oldVal)) {
             unbalancedPops.put(t, newVal);
-            for (UnbalancedPopListener<N, D, W> l : Lists.newArrayList(unbalancedPopListeners)) {
+            for (UnbalancedPopListener<N, D, W> l : unbalancedPopListeners) {
                 l.unbalancedPop(targetState, trans, newVal);
             }
         }
@@ -643,17 +730,15 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public void addNestedAutomaton(WeightedPAutomaton<N, D, W> nested) {
         if (!nestedAutomatons.add(nested))
             return;
-        for (WPAStateListener<N, D, W> e : Lists.newArrayList(stateListeners.values())) {
+        stateListeners.registerAllAt(nested);
+        for (WPAUpdateListener<N, D, W> e : listeners) {
             nested.registerListener(e);
         }
-        for (WPAUpdateListener<N, D, W> e : Lists.newArrayList(listeners)) {
-            nested.registerListener(e);
-        }
-        for (ConnectPushListener<N, D, W> e : Lists.newArrayList(conntectedPushListeners)) {
+        for (ConnectPushListener<N, D, W> e : conntectedPushListeners) {
             nested.registerConnectPushListener(e);
         }
 
-        for (UnbalancedPopListener<N, D, W> e : Lists.newArrayList(unbalancedPopListeners)) {
+        for (UnbalancedPopListener<N, D, W> e : unbalancedPopListeners) {
             nested.registerUnbalancedPopListener(e);
         }
 
@@ -668,17 +753,24 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             nested.registerDFSListener(e.getKey(), e.getValue());
         }
 
-        for (NestedAutomatonListener<N, D, W> e : Lists.newArrayList(nestedAutomataListeners)) {
+        for (NestedAutomatonListener<N, D, W> e : nestedAutomataListeners) {
             e.nestedAutomaton(this, nested);
             nested.registerNestedAutomatonListener(e);
         }
     }
 
+    /**
+     * @return The automata nested in this one, e.g. the summaries of the callees it reaches.
+     */
+    public Iterable<WeightedPAutomaton<N, D, W>> getNestedAutomata() {
+        return nestedAutomatons;
+    }
+
     public void registerNestedAutomatonListener(NestedAutomatonListener<N, D, W> l) {
         if (!nestedAutomataListeners.add(l)) {
             return;
         }
-        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+        for (WeightedPAutomaton<N, D, W> nested : nestedAutomatons) {
             l.nestedAutomaton(this, nested);
         }
     }
@@ -691,13 +783,24 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         return initialAutomaton.equals(aut);
     }
 
+    /**
+     * The labels of all paths from start to end. Answers are cached and updated as transitions are added, see
+     * {@link IncrementalPathExpressions}.
+     */
     public IRegEx<N> toRegEx(D start, D end) {
-        if (lastStates < states.size()) {
-            pathExpressionComputer = new PathExpressionComputer<D, N>(this);
-            lastStates = states.size();
-        }
+        return pathExpressions().get(start, end);
+    }
 
-        return RegEx.reverse(pathExpressionComputer.getExpressionBetween(end, start));
+    private IncrementalPathExpressions<N, D> pathExpressions() {
+        if (pathExpressions == null) {
+            pathExpressions = new IncrementalPathExpressions<>();
+            for (Transition<N, D> t : transitionStore.getTransitions()) {
+                if (!t.getLabel().equals(epsilon())) {
+                    pathExpressions.addTransition(t);
+                }
+            }
+        }
+        return pathExpressions;
     }
 
     public boolean containsLoop() {
@@ -708,7 +811,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         while (!worklist.isEmpty()) {
             D pop = worklist.pop();
             visited.add(pop);
-            Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+            Collection<Transition<N, D>> inTrans = transitionStore.getTransitionsInto(pop);
             for (Transition<N, D> t : inTrans) {
                 if (t.getLabel().equals(this.epsilon()))
                     continue;
@@ -731,7 +834,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         while (!worklist.isEmpty()) {
             D pop = worklist.pop();
             Set<N> atCurr = getOrCreate(pathReachingD, pop);
-            Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+            Collection<Transition<N, D>> inTrans = transitionStore.getTransitionsInto(pop);
             for (Transition<N, D> t : inTrans) {
                 if (t.getLabel().equals(this.epsilon()))
                     continue;
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package wpds.impl;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -18,11 +19,13 @@ import java.util.Set;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import wpds.interfaces.IPushdownSystem;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
+import wpds.interfaces.WPDSBatchUpdateListener;
 import wpds.interfaces.WPDSUpdateListener;
 import wpds.wildcard.Wildcard;
 
@@ -31,12 +34,23 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
     protected final Set<PushRule<N, D, W>> pushRules = Sets.newHashSet();
     protected final Set<PopRule<N, D, W>> popRules = Sets.newHashSet();
     protected final Set<NormalRule<N, D, W>> normalRules = Sets.newHashSet();
-    protected final Set<WPDSUpdateListener<N, D, W>> listeners = Sets.newHashSet();
+    protected final ListenerSet<WPDSUpdateListener<N, D, W>> listeners = new ListenerSet<>();
+    private final RuleIndex<N, D, Rule<N, D, W>> rulesStarting = new RuleIndex<>();
+    private final RuleIndex<N, D, NormalRule<N, D, W>> normalRulesEnding = new RuleIndex<>();
+    private final RuleIndex<N, D, PushRule<N, D, W>> pushRulesEnding = new RuleIndex<>();
+    private final Map<N, Set<PushRule<N, D, W>>> pushRulesByCallSite = Maps.newHashMap();
+    private final Set<PushRule<N, D, W>> wildcardCallSitePushRules = Sets.newHashSet();
+    private int transactionDepth;
+    private List<Rule<N, D, W>> uncommittedRules = Lists.newArrayList();
 
     @Override
     public boolean addRule(Rule<N, D, W> rule) {
         if (addRuleInternal(rule)) {
-            for (WPDSUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
+            if (transactionDepth > 0) {
+                uncommittedRules.add(rule);
+                return true;
+            }
+            for (WPDSUpdateListener<N, D, W> l : listeners) {
                 l.onRuleAdded(rule);
             }
             return true;
@@ -44,21 +58,102 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
         return false;
     }
 
+    @Override
+    public boolean addRules(Collection<? extends Rule<N, D, W>> rules) {
+        List<Rule<N, D, W>> added = Lists.newArrayList();
+        for (Rule<N, D, W> rule : rules) {
+            if (addRuleInternal(rule)) {
+                added.add(rule);
+            }
+        }
+        if (added.isEmpty()) {
+            return false;
+        }
+        if (transactionDepth > 0) {
+            uncommittedRules.addAll(added);
+        } else {
+            notifyRulesAdded(added);
+        }
+        return true;
+    }
+
+    @Override
+    public void beginTransaction() {
+        transactionDepth++;
+    }
+
+    @Override
+    public void commitTransaction() {
+        if (transactionDepth == 0) {
+            throw new IllegalStateException("No transaction to commit");
+        }
+        if (--transactionDepth > 0) {
+            return;
+        }
+        while (!uncommittedRules.isEmpty()) {
+            List<Rule<N, D, W>> batch = uncommittedRules;
+            uncommittedRules = Lists.newArrayList();
+            notifyRulesAdded(batch);
+        }
+    }
+
+    private void notifyRulesAdded(Collection<Rule<N, D, W>> rules) {
+        for (WPDSUpdateListener<N, D, W> l : listeners) {
+            if (l instanceof WPDSBatchUpdateListener) {
+                ((WPDSBatchUpdateListener<N, D, W>) l).onRulesAdded(rules);
+            } else {
+                for (Rule<N, D, W> rule : rules) {
+                    l.onRuleAdded(rule);
+                }
+            }
+        }
+    }
+
     private boolean addRuleInternal(Rule<N, D, W> rule) {
-        if (rule instanceof PushRule)
-            return pushRules.add((PushRule) rule);
-        else if (rule instanceof PopRule)
-            return popRules.add((PopRule) rule);
-        else if (rule instanceof NormalRule)
-            return normalRules.add((NormalRule) rule);
-        throw new RuntimeException("Try to add a rule of wrong type");
+        if (rule instanceof PushRule) {
+            PushRule<N, D, W> push = (PushRule<N, D, W>) rule;
+            if (!pushRules.add(push))
+                return false;
+            pushRulesEnding.add(push.getS2(), push.getL2(), push);
+            if (push.getCallSite() instanceof Wildcard) {
+                wildcardCallSitePushRules.add(push);
+            } else {
+                Set<PushRule<N, D, W>> rules = pushRulesByCallSite.get(push.getCallSite());
+                if (rules == null) {
+                    rules = Sets.newHashSet();
+                    pushRulesByCallSite.put(push.getCallSite(), rules);
+                }
+                rules.add(push);
+            }
+        } else if (rule instanceof PopRule) {
+            if (!popRules.add((PopRule<N, D, W>) rule))
+                return false;
+        } else if (rule instanceof NormalRule) {
+            NormalRule<N, D, W> normal = (NormalRule<N, D, W>) rule;
+            if (!normalRules.add(normal))
+                return false;
+            normalRulesEnding.add(normal.getS2(), normal.getL2(), normal);
+        } else {
+            throw new RuntimeException("Try to add a rule of wrong type");
+        }
+        rulesStarting.add(rule.getS1(), rule.getL1(), rule);
+        return true;
     }
 
     public void registerUpdateListener(WPDSUpdateListener<N, D, W> listener) {
         if (!listeners.add(listener)) {
             return;
         }
-        for (Rule<N, D, W> r : getAllRules()) {
+        Set<Rule<N, D, W>> rules = getAllRules();
+        // The rules of an open transaction are passed on its commit
+        rules.removeAll(uncommittedRules);
+        if (listener instanceof WPDSBatchUpdateListener) {
+            if (!rules.isEmpty()) {
+                ((WPDSBatchUpdateListener<N, D, W>) listener).onRulesAdded(rules);
+            }
+            return;
+        }
+        for (Rule<N, D, W> r : rules) {
             listener.onRuleAdded(r);
         }
     }
@@ -89,43 +184,25 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
 
     @Override
     public Set<Rule<N, D, W>> getRulesStarting(D start, N string) {
-        Set<Rule<N, D, W>> result = new HashSet<>();
-        getRulesStartingWithinSet(start, string, popRules, result);
-        getRulesStartingWithinSet(start, string, normalRules, result);
-        getRulesStartingWithinSet(start, string, pushRules, result);
-        return result;
-    }
-
-    private void getRulesStartingWithinSet(D start, N string, Set<? extends Rule<N, D, W>> rules,
-            Set<Rule<N, D, W>> res) {
-        for (Rule<N, D, W> r : rules) {
-            if (r.getS1().equals(start) && (r.getL1().equals(string) || r.getL1() instanceof Wildcard))
-                res.add(r);
-            if (string instanceof Wildcard && r.getS1().equals(start)) {
-                res.add(r);
-            }
-        }
+        return new HashSet<>(rulesStarting.getMatching(start, string));
     }
 
     @Override
     public Set<NormalRule<N, D, W>> getNormalRulesEnding(D start, N string) {
-        Set<NormalRule<N, D, W>> allRules = getNormalRules();
-        Set<NormalRule<N, D, W>> result = new HashSet<>();
-        for (NormalRule<N, D, W> r : allRules) {
-            if (r.getS2().equals(start) && r.getL2().equals(string))
-                result.add(r);
-        }
-        return result;
+        return new HashSet<>(normalRulesEnding.getExact(start, string));
     }
 
     @Override
     public Set<PushRule<N, D, W>> getPushRulesEnding(D start, N string) {
-        Set<PushRule<N, D, W>> allRules = getPushRules();
-        Set<PushRule<N, D, W>> result = new HashSet<>();
-        for (PushRule<N, D, W> r : allRules) {
-            if (r.getS2().equals(start) && r.getL2().equals(string))
-                result.add(r);
-        }
+        return new HashSet<>(pushRulesEnding.getExact(start, string));
+    }
+
+    @Override
+    public Set<PushRule<N, D, W>> getPushRulesWithCallSite(N callSite) {
+        Set<PushRule<N, D, W>> result = new HashSet<>(wildcardCallSitePushRules);
+        Set<PushRule<N, D, W>> rules = pushRulesByCallSite.get(callSite);
+        if (rules != null)
+            result.addAll(rules);
         return result;
     }
 
@@ -156,6 +233,22 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
         }.poststar(this, initialAutomaton);
     }
 
+    public void poststar(WeightedPAutomaton<N, D, W> initialAutomaton,
+            final NestedWeightedPAutomatons<N, D, W> summaries, TransitionWorklist<N, D, W> worklist) {
+        new PostStar<N, D, W>() {
+
+            @Override
+            public void putSummaryAutomaton(D target, WeightedPAutomaton<N, D, W> aut) {
+                summaries.putSummaryAutomaton(target, aut);
+            }
+
+            @Override
+            public WeightedPAutomaton<N, D, W> getSummaryAutomaton(D target) {
+                return summaries.getSummaryAutomaton(target);
+            };
+        }.poststar(this, initialAutomaton, worklist);
+    }
+
     @Override
     public void poststar(final WeightedPAutomaton<N, D, W> initialAutomaton) {
         new PostStar<N, D, W>() {
@@ -172,6 +265,21 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
         }.poststar(this, initialAutomaton);
     }
 
+    public void poststar(final WeightedPAutomaton<N, D, W> initialAutomaton, TransitionWorklist<N, D, W> worklist) {
+        new PostStar<N, D, W>() {
+
+            @Override
+            public void putSummaryAutomaton(D target, WeightedPAutomaton<N, D, W> aut) {
+
+            }
+
+            @Override
+            public WeightedPAutomaton<N, D, W> getSummaryAutomaton(D target) {
+                return initialAutomaton;
+            }
+        }.poststar(this, initialAutomaton, worklist);
+    }
+
     @Override
     public void prestar(WeightedPAutomaton<N, D, W> initialAutomaton) {
         new PreStar<N, D, W>().prestar(this, initialAutomaton);
@@ -33,6 +33,7 @@ public class ForwardDFSVisitor<N extends Location, D extends State, W extends We
     private Multimap<D, D> reaches = HashMultimap.create();
     private Multimap<D, D> inverseReaches = HashMultimap.create();
     private Table<D, D, Integer> refCount = HashBasedTable.create();
+    private final TransitiveClosure transitiveClosure = new TransitiveClosure();
 
     public ForwardDFSVisitor(WeightedPAutomaton<N, D, W> aut) {
         this.aut = aut;
@@ -41,69 +42,27 @@ public class ForwardDFSVisitor<N extends Location, D extends State, W extends We
     public void registerListener(D state, final ReachabilityListener<N, D> l) {
         if (listeners.put(state, l)) {
             for (D d : Lists.newArrayList(inverseReaches.get(state))) {
-                aut.registerListener(new TransitiveClosure(d, state, l));
+                aut.registerListener(d, transitiveClosure, l, state);
             }
         }
     }
 
-    private class TransitiveClosure extends WPAStateListener<N, D, W> {
-
-        private ReachabilityListener<N, D> listener;
-        private D s;
-
-        public TransitiveClosure(D state, D s, ReachabilityListener<N, D> l) {
-            super(state);
-            this.s = s;
-            this.listener = l;
-        }
+    /**
+     * Keyed by the reachability listener and the state it was registered for: reports the transitions leaving the
+     * states reachable from there.
+     */
+    private class TransitiveClosure implements WPAStateHandler<N, D, W, ReachabilityListener<N, D>, D> {
 
         @Override
-        public void onOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+        public void onOutTransitionAdded(ReachabilityListener<N, D> listener, D s, Transition<N, D> t, W w,
+                WeightedPAutomaton<N, D, W> aut) {
             listener.reachable(t);
         }
 
         @Override
-        public void onInTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
-        }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + getOuterType().hashCode();
-            result = prime * result + ((listener == null) ? 0 : listener.hashCode());
-            result = prime * result + ((s == null) ? 0 : s.hashCode());
-            return result;
+        public void onInTransitionAdded(ReachabilityListener<N, D> listener, D s, Transition<N, D> t, W w,
+                WeightedPAutomaton<N, D, W> aut) {
         }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            TransitiveClosure other = (TransitiveClosure) obj;
-            if (!getOuterType().equals(other.getOuterType()))
-                return false;
-            if (s == null) {
-                if (other.s != null)
-                    return false;
-            } else if (!s.equals(other.s))
-                return false;
-            if (listener == null) {
-                if (other.listener != null)
-                    return false;
-            } else if (!listener.equals(other.listener))
-                return false;
-            return true;
-        }
-
-        private ForwardDFSVisitor getOuterType() {
-            return ForwardDFSVisitor.this;
-        }
-
     }
 
     protected boolean continueWith(Transition<N, D> t) {
@@ -160,7 +119,7 @@ public class ForwardDFSVisitor<N extends Location, D extends State, W extends We
     private void inverseReaches(D from, D to) {
         if (inverseReaches.put(from, to)) {
             for (ReachabilityListener<N, D> l : Lists.newArrayList(listeners.get(from))) {
-                aut.registerListener(new TransitiveClosure(to, from, l));
+                aut.registerListener(to, transitiveClosure, l, from);
             }
         }
 
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package wpds.interfaces;
 
+import java.util.Collection;
 import java.util.Set;
 
 import wpds.impl.NestedWeightedPAutomatons;
@@ -25,6 +26,23 @@ public interface IPushdownSystem<N extends Location, D extends State, W extends
 
     public boolean addRule(Rule<N, D, W> rule);
 
+    /**
+     * Adds the rules as one batch: the listeners are notified once about all rules that were new, a
+     * {@link WPDSBatchUpdateListener} with a single call.
+     *
+     * @return true if any of the rules was new
+     */
+    public boolean addRules(Collection<? extends Rule<N, D, W>> rules);
+
+    /**
+     * Starts a transaction. Until the matching {@link #commitTransaction()}, rules added to the system are stored right
+     * away, but the listeners are only notified about them when the transaction is committed, as one batch.
+     * Transactions may be nested, the outermost commit notifies the listeners.
+     */
+    public void beginTransaction();
+
+    public void commitTransaction();
+
     public Set<D> getStates();
 
     public Set<NormalRule<N, D, W>> getNormalRules();
@@ -41,6 +59,12 @@ public interface IPushdownSystem<N extends Location, D extends State, W extends
 
     public Set<PushRule<N, D, W>> getPushRulesEnding(D start, N string);
 
+    /**
+     * @return The push rules that push the given symbol below the new top of stack, including rules with a wildcard
+     *         call site.
+     */
+    public Set<PushRule<N, D, W>> getPushRulesWithCallSite(N callSite);
+
     public void prestar(WeightedPAutomaton<N, D, W> initialAutomaton);
 
     public void poststar(WeightedPAutomaton<N, D, W> initialAutomaton);
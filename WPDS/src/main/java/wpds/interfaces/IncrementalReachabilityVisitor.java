@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.interfaces;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * Reports to a {@link ReachabilityListener} registered for a state every transition whose start state is reachable
+ * from that state, the same contract as {@link ForwardDFSVisitor}. Instead of the full transitive closure over all
+ * states, reachability is only kept for the states that have listeners (sources): states and sources are numbered,
+ * the edges are stored as int adjacency arrays and every state keeps a bit set of the sources that reach it. A new
+ * edge extends the sources that reach its start but not its target by a DFS from its target, which visits every state
+ * at most once per source. Each source also lists the states it reaches, so a further listener of the source visits
+ * only these. Neither a new edge nor a new listener of a source copies or scans the other sources or states.
+ */
+public class IncrementalReachabilityVisitor<N extends Location, D extends State, W extends Weight>
+        implements WPAUpdateListener<N, D, W> {
+    private static final int[] NO_SUCCESSORS = new int[0];
+
+    protected WeightedPAutomaton<N, D, W> aut;
+    private final Map<D, Integer> stateToIndex = Maps.newHashMap();
+    private final List<D> indexToState = Lists.newArrayList();
+    private int[][] successors = new int[16][];
+    private int[] successorCount = new int[16];
+    private BitSet[] reachedBy = new BitSet[16];
+    private final Map<D, Source> sources = Maps.newHashMap();
+    private final List<Source> indexToSource = Lists.newArrayList();
+    private final TransitiveClosure transitiveClosure = new TransitiveClosure();
+
+    public IncrementalReachabilityVisitor(WeightedPAutomaton<N, D, W> aut) {
+        this.aut = aut;
+    }
+
+    public void registerListener(D state, final ReachabilityListener<N, D> l) {
+        Source source = sources.get(state);
+        if (source == null) {
+            source = new Source(state, indexToSource.size());
+            sources.put(state, source);
+            indexToSource.add(source);
+            source.listeners.add(l);
+            source.visit(indexOf(state));
+            return;
+        }
+        if (!source.listeners.add(l))
+            return;
+        // States the registrations reach meanwhile are visited with the new listener already in place.
+        for (int i = 0, count = source.reached.size(); i < count; i++) {
+            aut.registerListener(source.reached.get(i), transitiveClosure, l, state);
+        }
+    }
+
+    protected boolean continueWith(Transition<N, D> t) {
+        return true;
+    }
+
+    @Override
+    public void onWeightAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+        if (!continueWith(t))
+            return;
+        int a = indexOf(t.getStart());
+        int b = indexOf(t.getTarget());
+        if (!addEdge(a, b))
+            return;
+        BitSet fromA = reachedBy[a];
+        if (fromA == null)
+            return;
+        // Visits only add bits, a source registered meanwhile has already traversed the new edge itself.
+        for (int s = fromA.nextSetBit(0); s >= 0; s = fromA.nextSetBit(s + 1)) {
+            if (!reaches(s, b)) {
+                indexToSource.get(s).visit(b);
+            }
+        }
+    }
+
+    private int indexOf(D state) {
+        Integer index = stateToIndex.get(state);
+        if (index != null)
+            return index;
+        index = indexToState.size();
+        stateToIndex.put(state, index);
+        indexToState.add(state);
+        if (index == successors.length) {
+            successors = Arrays.copyOf(successors, index * 2);
+            successorCount = Arrays.copyOf(successorCount, index * 2);
+            reachedBy = Arrays.copyOf(reachedBy, index * 2);
+        }
+        successors[index] = NO_SUCCESSORS;
+        return index;
+    }
+
+    private boolean reaches(int source, int state) {
+        BitSet by = reachedBy[state];
+        return by != null && by.get(source);
+    }
+
+    private boolean addEdge(int from, int to) {
+        int[] succs = successors[from];
+        int count = successorCount[from];
+        for (int i = 0; i < count; i++) {
+            if (succs[i] == to)
+                return false;
+        }
+        if (count == succs.length) {
+            succs = Arrays.copyOf(succs, Math.max(2, count * 2));
+            successors[from] = succs;
+        }
+        succs[count] = to;
+        successorCount[from] = count + 1;
+        return true;
+    }
+
+    /**
+     * @return The number of states with at least one edge or listener known to this visitor.
+     */
+    public int getStateCount() {
+        return indexToState.size();
+    }
+
+    private class Source {
+        private final D state;
+        private final int index;
+        private final Set<ReachabilityListener<N, D>> listeners = Sets.newLinkedHashSet();
+        /**
+         * The states reachable from this source in the order they were reached, so a new listener only visits them.
+         */
+        private final List<D> reached = Lists.newArrayList();
+
+        private Source(D state, int index) {
+            this.state = state;
+            this.index = index;
+        }
+
+        private void markReached(int state) {
+            BitSet by = reachedBy[state];
+            if (by == null) {
+                by = new BitSet();
+                reachedBy[state] = by;
+            }
+            by.set(index);
+        }
+
+        /**
+         * Marks all states reachable from the given one first and notifies afterwards, so listeners that add
+         * transitions find the bit sets up to date.
+         */
+        private void visit(int start) {
+            List<D> newlyReached = Lists.newArrayList();
+            int[] stack = new int[16];
+            int size = 0;
+            stack[size++] = start;
+            while (size > 0) {
+                int current = stack[--size];
+                if (reaches(index, current))
+                    continue;
+                markReached(current);
+                newlyReached.add(indexToState.get(current));
+                reached.add(indexToState.get(current));
+                int[] succs = successors[current];
+                int count = successorCount[current];
+                for (int i = 0; i < count; i++) {
+                    if (reaches(index, succs[i]))
+                        continue;
+                    if (size == stack.length)
+                        stack = Arrays.copyOf(stack, size * 2);
+                    stack[size++] = succs[i];
+                }
+            }
+            for (D d : newlyReached) {
+                for (ReachabilityListener<N, D> l : Lists.newArrayList(listeners)) {
+                    aut.registerListener(d, transitiveClosure, l, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keyed by the reachability listener and the state it was registered for: reports the transitions leaving the
+     * states reachable from there.
+     */
+    private class TransitiveClosure implements WPAStateHandler<N, D, W, ReachabilityListener<N, D>, D> {
+
+        @Override
+        public void onOutTransitionAdded(ReachabilityListener<N, D> listener, D s, Transition<N, D> t, W w,
+                WeightedPAutomaton<N, D, W> aut) {
+            listener.reachable(t);
+        }
+
+        @Override
+        public void onInTransitionAdded(ReachabilityListener<N, D> listener, D s, Transition<N, D> t, W w,
+                WeightedPAutomaton<N, D, W> aut) {
+        }
+    }
+}
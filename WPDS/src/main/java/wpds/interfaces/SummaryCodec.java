@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.interfaces;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+
+/**
+ * Translates the summary automata of a {@link wpds.impl.PersistentSummaryStore} from and to their binary form and
+ * decides which summaries can be stored and when a stored summary is outdated.
+ * <p>
+ * The write methods throw an {@link IOException} for states, locations or weights that cannot be stored, the summary
+ * is then skipped. The read methods throw one for data that no longer matches the program, the summary is then
+ * discarded.
+ */
+public interface SummaryCodec<N extends Location, D extends State, W extends Weight> {
+
+    /**
+     * @return The key under which the summary automaton for the target state is stored, e.g. the signature of the
+     *         method the summary describes together with a hash of its body, or null if the summary must not be
+     *         stored.
+     */
+    String key(D target);
+
+    /**
+     * @return The units (e.g. classes) the transition was derived from. A stored summary is only imported if none of
+     *         the units of its transitions, nor those of the summaries nested in it, changed since it was stored.
+     */
+    Collection<String> dependencies(Transition<N, D> trans);
+
+    /**
+     * @return The current fingerprint of the unit, e.g. a hash of the class bytes, or null if the unit is unknown.
+     */
+    String fingerprint(String dependency);
+
+    /**
+     * Called whenever a store loads its file. The codec may cache the fingerprints of the units until the next call.
+     */
+    default void clearFingerprints() {
+    }
+
+    void writeState(D state, DataOutput out) throws IOException;
+
+    D readState(DataInput in) throws IOException;
+
+    void writeLocation(N location, DataOutput out) throws IOException;
+
+    N readLocation(DataInput in) throws IOException;
+
+    void writeWeight(W weight, DataOutput out) throws IOException;
+
+    W readWeight(DataInput in) throws IOException;
+}
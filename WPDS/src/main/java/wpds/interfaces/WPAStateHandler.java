@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.interfaces;
+
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * The shared handler of one kind of state listener. Instead of a {@link WPAStateListener} object per state, a
+ * registration via {@link WeightedPAutomaton#registerListener(State, WPAStateHandler, Object, Object)} is the handler
+ * and a key of up to two objects, stored as a flat record of the state. Registrations are deduplicated by the identity
+ * of the handler and the equality of the keys, and the keys are passed back on every callback.
+ *
+ * @param <A>
+ *            The type of the first key, {@link Void} if unused.
+ * @param <B>
+ *            The type of the second key, {@link Void} if unused.
+ */
+public interface WPAStateHandler<N extends Location, D extends State, W extends Weight, A, B> {
+
+    void onOutTransitionAdded(A a, B b, Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut);
+
+    void onInTransitionAdded(A a, B b, Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut);
+}
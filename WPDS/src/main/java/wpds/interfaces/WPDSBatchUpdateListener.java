@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.interfaces;
+
+import java.util.Collection;
+
+import wpds.impl.Rule;
+import wpds.impl.Weight;
+
+/**
+ * A {@link WPDSUpdateListener} that is notified once about all the rules of a batch, see
+ * {@link IPushdownSystem#addRules(Collection)}. Rules added one at a time are still passed to
+ * {@link #onRuleAdded(Rule)}.
+ */
+public interface WPDSBatchUpdateListener<N extends Location, D extends State, W extends Weight>
+        extends WPDSUpdateListener<N, D, W> {
+
+    public void onRulesAdded(Collection<Rule<N, D, W>> rules);
+
+}
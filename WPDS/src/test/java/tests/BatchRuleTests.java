@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.NormalRule;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.WPDSBatchUpdateListener;
+
+public class BatchRuleTests {
+
+    @Test
+    public void batchReachesSameFixpoint() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> expected = waccepts(1, "a", w(0));
+        pds.poststar(expected);
+        for (Rule<StackSymbol, Abstraction, NumWeight> r : rules()) {
+            pds.addRule(r);
+        }
+
+        pds = new WeightedPushdownSystem<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> actual = waccepts(1, "a", w(0));
+        pds.poststar(actual);
+        assertTrue(pds.addRules(rules()));
+        assertFalse(pds.addRules(rules()));
+        assertEquals(expected.getTransitionStore().getTransitionsToWeights(),
+                actual.getTransitionStore().getTransitionsToWeights());
+        assertEquals(w(20), actual.getWeightFor(t(1, "g", ACC)));
+    }
+
+    @Test
+    public void transactionDefersNotification() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        pds.poststar(fa);
+        pds.beginTransaction();
+        pds.addRule(wnormal(1, "a", 2, "b", w(2)));
+        pds.beginTransaction();
+        pds.addRule(wnormal(1, "a", 3, "c", w(3)));
+        pds.commitTransaction();
+        assertEquals(2, pds.getAllRules().size());
+        assertNull(fa.getWeightFor(t(2, "b", ACC)));
+        pds.commitTransaction();
+        assertEquals(w(2), fa.getWeightFor(t(2, "b", ACC)));
+        assertEquals(w(3), fa.getWeightFor(t(3, "c", ACC)));
+    }
+
+    @Test
+    public void batchListenerNotifiedOnce() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        final List<Collection<Rule<StackSymbol, Abstraction, NumWeight>>> batches = Lists.newArrayList();
+        final List<Rule<StackSymbol, Abstraction, NumWeight>> single = Lists.newArrayList();
+        pds.registerUpdateListener(new WPDSBatchUpdateListener<StackSymbol, Abstraction, NumWeight>() {
+            @Override
+            public void onRuleAdded(Rule<StackSymbol, Abstraction, NumWeight> rule) {
+                single.add(rule);
+            }
+
+            @Override
+            public void onRulesAdded(Collection<Rule<StackSymbol, Abstraction, NumWeight>> rules) {
+                batches.add(rules);
+            }
+        });
+        pds.addRules(rules());
+        assertEquals(1, batches.size());
+        assertEquals(6, batches.get(0).size());
+        pds.addRule(wnormal(2, "a", 2, "b", w(1)));
+        assertEquals(1, single.size());
+    }
+
+    @Test
+    public void rulesJoiningAGroupAreAppliedOnce() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        pds.poststar(fa);
+        CountingRule first = new CountingRule(2, "b");
+        CountingRule second = new CountingRule(3, "c");
+        CountingRule third = new CountingRule(4, "d");
+        pds.addRules(Lists.<Rule<StackSymbol, Abstraction, NumWeight>> newArrayList(first));
+        pds.addRules(Lists.<Rule<StackSymbol, Abstraction, NumWeight>> newArrayList(first, second));
+        pds.addRule(third);
+        pds.addRule(second);
+        assertEquals(1, first.applications);
+        assertEquals(1, second.applications);
+        assertEquals(1, third.applications);
+        assertEquals(w(1), fa.getWeightFor(t(4, "d", ACC)));
+    }
+
+    @Test
+    public void rulesJoiningAGroupOverMutuallyNestedAutomata() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> nested = waccepts(5, "e", w(0));
+        fa.addNestedAutomaton(nested);
+        nested.addNestedAutomaton(fa);
+        pds.poststar(fa);
+        CountingRule first = new CountingRule(2, "b");
+        CountingRule second = new CountingRule(3, "c");
+        pds.addRule(first);
+        pds.addRule(second);
+        assertEquals(1, first.applications);
+        assertEquals(1, second.applications);
+        assertEquals(w(1), fa.getWeightFor(t(3, "c", ACC)));
+    }
+
+    /**
+     * A normal rule from (1,a) that counts how often post* applies it.
+     */
+    private static class CountingRule extends NormalRule<StackSymbol, Abstraction, NumWeight> {
+        int applications;
+
+        CountingRule(int target, String label) {
+            super(a(1), s("a"), a(target), s(label), w(1));
+        }
+
+        @Override
+        public boolean canBeApplied(Transition<StackSymbol, Abstraction> t, NumWeight weight) {
+            applications++;
+            return true;
+        }
+    }
+
+    private static List<Rule<StackSymbol, Abstraction, NumWeight>> rules() {
+        List<Rule<StackSymbol, Abstraction, NumWeight>> rules = Lists.newArrayList();
+        rules.add(wnormal(1, "a", 1, "b", w(2)));
+        rules.add(wpush(1, "b", 1, "c", "d", w(3)));
+        rules.add(wnormal(1, "c", 1, "e", w(1)));
+        rules.add(wpop(1, "e", 1, w(5)));
+        rules.add(wnormal(1, "d", 1, "f", w(1)));
+        rules.add(wpush(1, "f", 1, "c", "g", w(2)));
+        return rules;
+    }
+
+    private static NumWeight w(int i) {
+        return new NumWeight(i);
+    }
+}
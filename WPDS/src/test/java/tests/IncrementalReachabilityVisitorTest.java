@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.Transition;
+import wpds.impl.Weight.NoWeight;
+import wpds.interfaces.ForwardDFSEpsilonVisitor;
+import wpds.interfaces.ForwardDFSVisitor;
+import wpds.interfaces.IncrementalEpsilonReachabilityVisitor;
+import wpds.interfaces.IncrementalReachabilityVisitor;
+import wpds.interfaces.ReachabilityListener;
+
+/**
+ * Checks that {@link IncrementalReachabilityVisitor} reports the same transitions as {@link ForwardDFSVisitor} on
+ * random graphs, with listeners registered before, during and after the construction of the graph.
+ */
+public class IncrementalReachabilityVisitorTest {
+
+    private static final int STATES = 60;
+    private static final int EDGES = 150;
+
+    private static PAutomaton<StackSymbol, Abstraction> automaton() {
+        return new PAutomaton<StackSymbol, Abstraction>(a(0)) {
+            @Override
+            public Abstraction createState(Abstraction d, StackSymbol loc) {
+                return new Abstraction(d, loc);
+            }
+
+            @Override
+            public StackSymbol epsilon() {
+                return s("EPS");
+            }
+
+            @Override
+            public boolean isGeneratedState(Abstraction d) {
+                return d.s != null;
+            }
+        };
+    }
+
+    @Test
+    public void sameReachabilityAsDFSVisitor() {
+        for (int seed = 0; seed < 10; seed++) {
+            PAutomaton<StackSymbol, Abstraction> dfsAut = automaton();
+            PAutomaton<StackSymbol, Abstraction> incAut = automaton();
+            compare(seed, dfsAut, new ForwardDFSVisitor<StackSymbol, Abstraction, NoWeight>(dfsAut), incAut,
+                    new IncrementalReachabilityVisitor<StackSymbol, Abstraction, NoWeight>(incAut));
+        }
+    }
+
+    @Test
+    public void sameEpsilonReachabilityAsDFSVisitor() {
+        for (int seed = 0; seed < 10; seed++) {
+            PAutomaton<StackSymbol, Abstraction> dfsAut = automaton();
+            PAutomaton<StackSymbol, Abstraction> incAut = automaton();
+            compare(seed, dfsAut, new ForwardDFSEpsilonVisitor<StackSymbol, Abstraction, NoWeight>(dfsAut), incAut,
+                    new IncrementalEpsilonReachabilityVisitor<StackSymbol, Abstraction, NoWeight>(incAut));
+        }
+    }
+
+    private void compare(int seed, PAutomaton<StackSymbol, Abstraction> dfsAut,
+            ForwardDFSVisitor<StackSymbol, Abstraction, NoWeight> dfs, PAutomaton<StackSymbol, Abstraction> incAut,
+            IncrementalReachabilityVisitor<StackSymbol, Abstraction, NoWeight> inc) {
+        dfsAut.registerListener(dfs);
+        incAut.registerListener(inc);
+        Map<Integer, Set<Transition<StackSymbol, Abstraction>>> dfsReached = Maps.newHashMap();
+        Map<Integer, Set<Transition<StackSymbol, Abstraction>>> incReached = Maps.newHashMap();
+        Random random = new Random(seed);
+        for (int i = 0; i < EDGES; i++) {
+            if (i % 30 == 0) {
+                int state = random.nextInt(STATES);
+                dfs.registerListener(a(state), collect(dfsReached, state));
+                inc.registerListener(a(state), collect(incReached, state));
+            }
+            Transition<StackSymbol, Abstraction> t = t(random.nextInt(STATES), random.nextBoolean() ? "EPS" : "n1",
+                    random.nextInt(STATES));
+            dfsAut.addTransition(t);
+            incAut.addTransition(t);
+        }
+        for (int state = 0; state < STATES; state += 7) {
+            dfs.registerListener(a(state), collect(dfsReached, state));
+            inc.registerListener(a(state), collect(incReached, state));
+        }
+        assertFalse(dfsReached.isEmpty());
+        assertEquals(dfsReached, incReached);
+
+        // A further listener of a known source only sees what the source reaches.
+        Map<Integer, Set<Transition<StackSymbol, Abstraction>>> dfsAgain = Maps.newHashMap();
+        Map<Integer, Set<Transition<StackSymbol, Abstraction>>> incAgain = Maps.newHashMap();
+        for (int state = 0; state < STATES; state += 7) {
+            dfs.registerListener(a(state), collect(dfsAgain, state));
+            inc.registerListener(a(state), collect(incAgain, state));
+        }
+        assertEquals(dfsAgain, incAgain);
+        for (Integer state : incAgain.keySet()) {
+            assertEquals(incReached.get(state), incAgain.get(state));
+        }
+    }
+
+    private ReachabilityListener<StackSymbol, Abstraction> collect(
+            Map<Integer, Set<Transition<StackSymbol, Abstraction>>> reached, final int state) {
+        if (!reached.containsKey(state))
+            reached.put(state, Sets.<Transition<StackSymbol, Abstraction>> newHashSet());
+        final Set<Transition<StackSymbol, Abstraction>> res = reached.get(state);
+        return new ReachabilityListener<StackSymbol, Abstraction>() {
+            @Override
+            public void reachable(Transition<StackSymbol, Abstraction> t) {
+                res.add(t);
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+
+import wpds.impl.ListenerSet;
+
+public class ListenerSetTest {
+
+    @Test
+    public void deduplicatesAndKeepsInsertionOrder() {
+        ListenerSet<String> set = new ListenerSet<>();
+        assertTrue(set.add("a"));
+        assertTrue(set.add("b"));
+        assertFalse(set.add("a"));
+        assertEquals(Lists.newArrayList("a", "b"), Lists.newArrayList(set));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void additionsDuringIterationAreNotVisited() {
+        ListenerSet<Integer> set = new ListenerSet<>();
+        set.add(0);
+        List<Integer> visited = Lists.newArrayList();
+        for (Integer i : set) {
+            visited.add(i);
+            // Forces the backing array to grow while it is iterated.
+            for (int j = 1; j < 100; j++) {
+                set.add(j);
+            }
+        }
+        assertEquals(Lists.newArrayList(0), visited);
+        assertEquals(100, set.size());
+    }
+
+    @Test
+    public void clearDuringIteration() {
+        ListenerSet<Integer> set = new ListenerSet<>();
+        set.add(1);
+        set.add(2);
+        List<Integer> visited = Lists.newArrayList();
+        for (Integer i : set) {
+            visited.add(i);
+            set.clear();
+        }
+        assertEquals(Lists.newArrayList(1, 2), visited);
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(1));
+    }
+
+    @Test
+    public void concurrentClearDuringIteration() throws InterruptedException {
+        final ListenerSet<Integer> set = new ListenerSet<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    for (int i = 0; i < 10; i++) {
+                        set.add(i);
+                    }
+                    set.clear();
+                }
+            }
+        };
+        writer.start();
+        try {
+            for (int round = 0; round < 1000000; round++) {
+                for (Integer i : set) {
+                    assertTrue(i >= 0 && i < 10);
+                }
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void removeDuringIteration() {
+        ListenerSet<Integer> set = new ListenerSet<>();
+        for (int i = 0; i < 6; i++) {
+            set.add(i);
+        }
+        List<Integer> visited = Lists.newArrayList();
+        for (Integer i : set) {
+            visited.add(i);
+            if (i == 0) {
+                assertEquals(3, set.removeIf(new Predicate<Integer>() {
+                    @Override
+                    public boolean apply(Integer input) {
+                        return input % 2 == 1;
+                    }
+                }));
+            }
+        }
+        assertEquals(Lists.newArrayList(0, 1, 2, 3, 4, 5), visited);
+        assertEquals(Lists.newArrayList(0, 2, 4), Lists.newArrayList(set));
+        assertTrue(set.add(1));
+    }
+}
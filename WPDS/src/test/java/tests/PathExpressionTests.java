@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pathexpression.IRegEx;
+import pathexpression.RegEx;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+
+public class PathExpressionTests {
+
+    private PAutomaton<StackSymbol, Abstraction> aut;
+
+    @Before
+    public void init() {
+        aut = accepts(1, "a");
+        aut.addTransition(t(2, "b", 1));
+    }
+
+    @Test
+    public void chain() {
+        assertEquals(seq(l("b"), l("a")), aut.toRegEx(a(2), ACC));
+        assertEquals(l("a"), aut.toRegEx(a(1), ACC));
+    }
+
+    @Test
+    public void unreachable() {
+        assertEquals(new RegEx.EmptySet<StackSymbol>(), aut.toRegEx(ACC, a(2)));
+        assertEquals(new RegEx.EmptySet<StackSymbol>(), aut.extractLanguage(a(2), ACC));
+    }
+
+    @Test
+    public void extractLanguageIsReversed() {
+        assertEquals(seq(l("a"), l("b")), aut.extractLanguage(ACC, a(2)));
+    }
+
+    @Test
+    public void transitionBetweenKnownStatesUpdatesAnswer() {
+        assertEquals(seq(l("b"), l("a")), aut.toRegEx(a(2), ACC));
+        aut.addTransition(t(2, "c", 1));
+        assertEquals(seq(RegEx.<StackSymbol> union(l("b"), l("c")), l("a")), aut.toRegEx(a(2), ACC));
+    }
+
+    @Test
+    public void loop() {
+        aut.toRegEx(a(2), ACC);
+        aut.addTransition(t(1, "e", 1));
+        assertEquals(seq(seq(l("b"), RegEx.<StackSymbol> star(l("e"))), l("a")), aut.toRegEx(a(2), ACC));
+    }
+
+    @Test
+    public void unrelatedTransitionKeepsAnswer() {
+        IRegEx<StackSymbol> before = aut.toRegEx(a(2), ACC);
+        aut.addTransition(t(3, "d", 1));
+        aut.addTransition(t(ACC, "f", a(4)));
+        assertSame(before, aut.toRegEx(a(2), ACC));
+        aut.addTransition(t(a(4), "g", ACC));
+        assertNotSame(before, aut.toRegEx(a(2), ACC));
+    }
+
+    private static IRegEx<StackSymbol> l(String label) {
+        return new RegEx.Plain<StackSymbol>(s(label));
+    }
+
+    private static IRegEx<StackSymbol> seq(IRegEx<StackSymbol> first, IRegEx<StackSymbol> second) {
+        return RegEx.<StackSymbol> concatenate(first, second);
+    }
+}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.a;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.pop;
+import static tests.TestHelper.push;
+import static tests.TestHelper.t;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.PersistentSummaryNestedWeightedPAutomatons;
+import wpds.impl.PersistentSummaryStore;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Transition;
+import wpds.impl.Weight.NoWeight;
+import wpds.interfaces.SummaryCodec;
+
+public class PersistentSummaryStoreTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private Map<String, String> fingerprints = Maps.newHashMap();
+
+    @Before
+    public void init() throws IOException {
+        file = new File(folder.getRoot(), "summaries.bin");
+        fingerprints.put("caller", "1");
+        fingerprints.put("callee", "1");
+    }
+
+    private PushdownSystem<StackSymbol, Abstraction> caller() {
+        PushdownSystem<StackSymbol, Abstraction> pds = new PushdownSystem<StackSymbol, Abstraction>() {
+        };
+        pds.addRule(normal(1, "a", 2, "b"));
+        pds.addRule(push(2, "b", 3, "d", "e"));
+        pds.addRule(normal(2, "e", 3, "k"));
+        return pds;
+    }
+
+    private PushdownSystem<StackSymbol, Abstraction> callerAndCallee() {
+        PushdownSystem<StackSymbol, Abstraction> pds = caller();
+        pds.addRule(normal(3, "d", 3, "f"));
+        pds.addRule(normal(3, "f", 4, "j"));
+        pds.addRule(pop(4, "j", 2));
+        return pds;
+    }
+
+    private PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> summaries(
+            PAutomaton<StackSymbol, Abstraction> aut) throws IOException {
+        PersistentSummaryStore<StackSymbol, Abstraction, NoWeight> store = new PersistentSummaryStore<>(file,
+                new Codec());
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> summaries = new PersistentSummaryNestedWeightedPAutomatons<>(
+                store);
+        // The transitions into the accepting state belong to the automaton itself.
+        summaries.putSummaryAutomaton(TestHelper.ACC, aut);
+        return summaries;
+    }
+
+    private PAutomaton<StackSymbol, Abstraction> nestedAccepts() {
+        PAutomaton<StackSymbol, Abstraction> aut = new PAutomaton<StackSymbol, Abstraction>(a(1)) {
+
+            @Override
+            public Abstraction createState(Abstraction d, StackSymbol loc) {
+                return new Abstraction(d, loc);
+            }
+
+            @Override
+            public StackSymbol epsilon() {
+                return TestHelper.s("EPS");
+            }
+
+            @Override
+            public boolean isGeneratedState(Abstraction d) {
+                return d.s != null;
+            }
+
+            @Override
+            public boolean nested() {
+                return true;
+            }
+        };
+        aut.addFinalState(TestHelper.ACC);
+        aut.addTransition(t(1, "a", TestHelper.ACC));
+        return aut;
+    }
+
+    @Test
+    public void importReplacesSaturationOfCallee() throws IOException {
+        PAutomaton<StackSymbol, Abstraction> first = nestedAccepts();
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> firstSummaries = summaries(
+                first);
+        callerAndCallee().poststar(first, firstSummaries);
+        firstSummaries.persist();
+        assertEquals(0, firstSummaries.getStore().getImported());
+        assertEquals(1, firstSummaries.getStore().size());
+
+        // The second run does not know the rules of the callee, the return flow must come from the stored summary.
+        PAutomaton<StackSymbol, Abstraction> second = nestedAccepts();
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> secondSummaries = summaries(
+                second);
+        caller().poststar(second, secondSummaries);
+        assertEquals(1, secondSummaries.getStore().getImported());
+        assertEquals(Sets.newHashSet(first.getTransitions()), Sets.newHashSet(second.getTransitions()));
+        assertTrue(second.getTransitions().contains(t(3, "k", TestHelper.ACC)));
+        Abstraction target = a(3, "d");
+        assertEquals(Sets.newHashSet(firstSummaries.getSummaryAutomaton(target).getTransitions()),
+                Sets.newHashSet(secondSummaries.getSummaryAutomaton(target).getTransitions()));
+    }
+
+    @Test
+    public void changedDependencyInvalidatesSummary() throws IOException {
+        PAutomaton<StackSymbol, Abstraction> first = nestedAccepts();
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> firstSummaries = summaries(
+                first);
+        callerAndCallee().poststar(first, firstSummaries);
+        firstSummaries.persist();
+
+        fingerprints.put("callee", "2");
+        PAutomaton<StackSymbol, Abstraction> second = nestedAccepts();
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> secondSummaries = summaries(
+                second);
+        caller().poststar(second, secondSummaries);
+        assertEquals(0, secondSummaries.getStore().getImported());
+        assertEquals(1, secondSummaries.getStore().getInvalidated());
+        assertTrue(!second.getTransitions().contains(t(3, "k", TestHelper.ACC)));
+    }
+
+    @Test
+    public void saveDropsOutdatedSummaries() throws IOException {
+        PAutomaton<StackSymbol, Abstraction> first = nestedAccepts();
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> firstSummaries = summaries(
+                first);
+        callerAndCallee().poststar(first, firstSummaries);
+        firstSummaries.persist();
+
+        fingerprints.put("callee", "2");
+        PersistentSummaryStore<StackSymbol, Abstraction, NoWeight> store = new PersistentSummaryStore<>(file,
+                new Codec());
+        assertEquals(1, store.size());
+        store.save();
+        assertEquals(0, store.size());
+        assertEquals(0, new PersistentSummaryStore<>(file, new Codec()).size());
+    }
+
+    @Test
+    public void exportWithoutFingerprintDropsStoredSummary() throws IOException {
+        PAutomaton<StackSymbol, Abstraction> first = nestedAccepts();
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> firstSummaries = summaries(
+                first);
+        callerAndCallee().poststar(first, firstSummaries);
+        firstSummaries.persist();
+
+        fingerprints.remove("callee");
+        firstSummaries.persist();
+        assertFalse(firstSummaries.getStore().contains(a(3, "d")));
+        fingerprints.put("callee", "1");
+        assertEquals(0, new PersistentSummaryStore<>(file, new Codec()).size());
+    }
+
+    @Test
+    public void truncatedFileIsIgnored() throws IOException {
+        PAutomaton<StackSymbol, Abstraction> first = nestedAccepts();
+        PersistentSummaryNestedWeightedPAutomatons<StackSymbol, Abstraction, NoWeight> firstSummaries = summaries(
+                first);
+        callerAndCallee().poststar(first, firstSummaries);
+        firstSummaries.persist();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        for (int length : new int[] { 14, bytes.length / 2, bytes.length - 1 }) {
+            Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+            assertEquals(0, new PersistentSummaryStore<>(file, new Codec()).size());
+        }
+        // A payload length beyond the end of the file.
+        ByteArrayOutputStream corrupt = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(corrupt);
+        out.write(bytes, 0, 8);
+        out.writeInt(1);
+        out.writeUTF("key");
+        out.writeInt(0);
+        out.writeInt(Integer.MAX_VALUE);
+        Files.write(file.toPath(), corrupt.toByteArray());
+        assertEquals(0, new PersistentSummaryStore<>(file, new Codec()).size());
+    }
+
+    /**
+     * Labels starting with d, f or j belong to the callee, all others to the caller.
+     */
+    private class Codec implements SummaryCodec<StackSymbol, Abstraction, NoWeight> {
+
+        @Override
+        public String key(Abstraction target) {
+            return target.s == null ? null : target.toString();
+        }
+
+        @Override
+        public Collection<String> dependencies(Transition<StackSymbol, Abstraction> trans) {
+            return Collections.singleton("dfj".contains(trans.getLabel().s) ? "callee" : "caller");
+        }
+
+        @Override
+        public String fingerprint(String dependency) {
+            return fingerprints.get(dependency);
+        }
+
+        @Override
+        public void writeState(Abstraction state, DataOutput out) throws IOException {
+            out.writeInt(state.a);
+            out.writeBoolean(state.s != null);
+            if (state.s != null)
+                writeLocation(state.s, out);
+        }
+
+        @Override
+        public Abstraction readState(DataInput in) throws IOException {
+            int a = in.readInt();
+            return in.readBoolean() ? new Abstraction(a(a), readLocation(in)) : a(a);
+        }
+
+        @Override
+        public void writeLocation(StackSymbol location, DataOutput out) throws IOException {
+            out.writeUTF(location.s);
+        }
+
+        @Override
+        public StackSymbol readLocation(DataInput in) throws IOException {
+            return TestHelper.s(in.readUTF());
+        }
+
+        @Override
+        public void writeWeight(NoWeight weight, DataOutput out) {
+        }
+
+        @Override
+        public NoWeight readWeight(DataInput in) {
+            return NoWeight.NO_WEIGHT_ONE;
+        }
+    }
+}
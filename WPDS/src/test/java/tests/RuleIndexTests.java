@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.accepts;
+import static tests.TestHelper.normal;
+import static tests.TestHelper.pop;
+import static tests.TestHelper.push;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.UNormalRule;
+import wpds.impl.UPushRule;
+import wpds.wildcard.Wildcard;
+
+public class RuleIndexTests {
+
+    private static final StackSymbol ANY = new AnySymbol();
+    private PushdownSystem<StackSymbol, Abstraction> pds;
+
+    @Before
+    public void init() {
+        pds = new PushdownSystem<StackSymbol, Abstraction>();
+    }
+
+    @Test
+    public void rulesStartingIncludeWildcardRules() {
+        pds.addRule(normal(1, "a", 2, "b"));
+        pds.addRule(normal(1, "c", 2, "b"));
+        pds.addRule(push(2, "a", 1, "b", "c"));
+        UNormalRule<StackSymbol, Abstraction> wildcard = new UNormalRule<>(a(1), ANY, a(3), ANY);
+        pds.addRule(wildcard);
+        assertEquals(Sets.newHashSet(normal(1, "a", 2, "b"), wildcard), pds.getRulesStarting(a(1), s("a")));
+        assertEquals(Sets.newHashSet(normal(1, "a", 2, "b"), normal(1, "c", 2, "b"), wildcard),
+                pds.getRulesStarting(a(1), ANY));
+        assertEquals(Sets.newHashSet(push(2, "a", 1, "b", "c")), pds.getRulesStarting(a(2), s("a")));
+        assertTrue(pds.getRulesStarting(a(3), s("a")).isEmpty());
+    }
+
+    @Test
+    public void rulesEnding() {
+        pds.addRule(normal(1, "a", 2, "b"));
+        pds.addRule(normal(3, "a", 2, "b"));
+        pds.addRule(push(1, "a", 2, "b", "c"));
+        pds.addRule(push(1, "a", 2, "c", "b"));
+        assertEquals(Sets.newHashSet(normal(1, "a", 2, "b"), normal(3, "a", 2, "b")),
+                pds.getNormalRulesEnding(a(2), s("b")));
+        assertEquals(Sets.newHashSet(push(1, "a", 2, "b", "c")), pds.getPushRulesEnding(a(2), s("b")));
+        assertEquals(Sets.newHashSet(push(1, "a", 2, "c", "b")), pds.getPushRulesWithCallSite(s("b")));
+        assertTrue(pds.getNormalRulesEnding(a(1), s("a")).isEmpty());
+    }
+
+    @Test
+    public void wildcardCallSite() {
+        UPushRule<StackSymbol, Abstraction> wildcard = new UPushRule<>(a(1), ANY, a(2), s("b"), ANY);
+        pds.addRule(wildcard);
+        pds.addRule(push(1, "a", 2, "b", "c"));
+        assertEquals(Sets.newHashSet(push(1, "a", 2, "b", "c"), wildcard), pds.getPushRulesWithCallSite(s("c")));
+        assertEquals(Sets.newHashSet(wildcard), pds.getPushRulesWithCallSite(s("d")));
+    }
+
+    @Test
+    public void prestarOnlyReturnsToTargetOfPushedTransition() {
+        pds.addRule(push(1, "a", 2, "b", "c"));
+        pds.addRule(pop(2, "b", 3));
+        PAutomaton<StackSymbol, Abstraction> fa = accepts(3, "c");
+        fa.addTransition(t(4, "c", 5));
+        pds.prestar(fa);
+        assertTrue(fa.getTransitions().contains(t(2, "b", 3)));
+        assertTrue(fa.getTransitions().contains(t(1, "a", ACC)));
+        assertFalse(fa.getTransitions().contains(t(1, "a", 5)));
+    }
+
+    @Test
+    public void prestarCallSiteTransitionAddedLast() {
+        pds.addRule(push(1, "a", 2, "b", "c"));
+        pds.addRule(pop(2, "b", 3));
+        pds.addRule(normal(3, "c", 3, "d"));
+        PAutomaton<StackSymbol, Abstraction> fa = accepts(3, "d");
+        pds.prestar(fa);
+        assertTrue(fa.getTransitions().contains(t(3, "c", ACC)));
+        assertTrue(fa.getTransitions().contains(t(1, "a", ACC)));
+    }
+
+    private static class AnySymbol extends StackSymbol implements Wildcard {
+        AnySymbol() {
+            super("*");
+        }
+    }
+}
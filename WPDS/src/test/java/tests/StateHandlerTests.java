@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+import static tests.TestHelper.t;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.PAutomaton;
+import wpds.impl.Transition;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.WPAStateHandler;
+import wpds.interfaces.WPAStateListener;
+
+public class StateHandlerTests {
+
+    private static PAutomaton<StackSymbol, Abstraction> automaton() {
+        return new PAutomaton<StackSymbol, Abstraction>(a(0)) {
+            @Override
+            public Abstraction createState(Abstraction d, StackSymbol loc) {
+                return new Abstraction(d, loc);
+            }
+
+            @Override
+            public StackSymbol epsilon() {
+                return s("EPS");
+            }
+
+            @Override
+            public boolean isGeneratedState(Abstraction d) {
+                return d.s != null;
+            }
+        };
+    }
+
+    private static class RecordingHandler
+            implements WPAStateHandler<StackSymbol, Abstraction, NoWeight, String, Integer> {
+        private final List<String> out = Lists.newArrayList();
+        private final List<String> in = Lists.newArrayList();
+
+        @Override
+        public void onOutTransitionAdded(String a, Integer b, Transition<StackSymbol, Abstraction> t, NoWeight w,
+                WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> aut) {
+            out.add(a + b + ":" + t);
+        }
+
+        @Override
+        public void onInTransitionAdded(String a, Integer b, Transition<StackSymbol, Abstraction> t, NoWeight w,
+                WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> aut) {
+            in.add(a + b + ":" + t);
+        }
+    }
+
+    @Test
+    public void equalKeysAreRegisteredOnce() {
+        PAutomaton<StackSymbol, Abstraction> aut = automaton();
+        RecordingHandler handler = new RecordingHandler();
+        aut.addTransition(t(1, "n1", 2));
+        aut.registerListener(a(1), handler, "k", 1);
+        aut.registerListener(a(1), handler, new String("k"), 1);
+        assertEquals(1, handler.out.size());
+        aut.registerListener(a(1), handler, "k", 2);
+        aut.registerListener(a(1), handler, "k", null);
+        assertEquals(3, handler.out.size());
+        aut.registerListener(a(1), new RecordingHandler(), "k", 1);
+        assertEquals(3, handler.out.size());
+
+        aut.addTransition(t(1, "n2", 3));
+        aut.addTransition(t(3, "n3", 1));
+        assertEquals(6, handler.out.size());
+        assertEquals(3, handler.in.size());
+    }
+
+    @Test
+    public void manyRegistrationsOfOneState() {
+        PAutomaton<StackSymbol, Abstraction> aut = automaton();
+        RecordingHandler handler = new RecordingHandler();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 1000; i++) {
+                aut.registerListener(a(1), handler, "k" + (i % 100), i);
+            }
+        }
+        aut.addTransition(t(1, "n1", 2));
+        assertEquals(1000, handler.out.size());
+        assertEquals("k11:" + t(1, "n1", 2), handler.out.get(1));
+    }
+
+    @Test
+    public void listenersAndHandlersShareTheDispatchOrder() {
+        PAutomaton<StackSymbol, Abstraction> aut = automaton();
+        final List<String> calls = Lists.newArrayList();
+        class Listener extends WPAStateListener<StackSymbol, Abstraction, NoWeight> {
+            Listener() {
+                super(a(1));
+            }
+
+            @Override
+            public void onOutTransitionAdded(Transition<StackSymbol, Abstraction> t, NoWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> aut) {
+                calls.add("listener");
+            }
+
+            @Override
+            public void onInTransitionAdded(Transition<StackSymbol, Abstraction> t, NoWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> aut) {
+            }
+        }
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void onOutTransitionAdded(String a, Integer b, Transition<StackSymbol, Abstraction> t, NoWeight w,
+                    WeightedPAutomaton<StackSymbol, Abstraction, NoWeight> aut) {
+                calls.add("handler");
+            }
+        };
+        aut.registerListener(new Listener());
+        aut.registerListener(a(1), handler, "k", 1);
+        aut.registerListener(new Listener());
+        aut.addTransition(t(1, "n1", 2));
+        assertEquals(Lists.newArrayList("listener", "handler"), calls);
+    }
+}
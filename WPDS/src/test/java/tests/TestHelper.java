@@ -16,6 +16,7 @@ import wpds.impl.PAutomaton;
 import wpds.impl.PopRule;
 import wpds.impl.PushRule;
 import wpds.impl.Transition;
+import wpds.impl.TransitionStore;
 import wpds.impl.UNormalRule;
 import wpds.impl.UPopRule;
 import wpds.impl.UPushRule;
@@ -50,8 +51,14 @@ public class TestHelper {
     }
 
     static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(int a, String c, NumWeight weight) {
+        return waccepts(a, c, weight,
+                WeightedPAutomaton.<StackSymbol, Abstraction, NumWeight> createDefaultTransitionStore());
+    }
+
+    static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(int a, String c, NumWeight weight,
+            TransitionStore<StackSymbol, Abstraction, NumWeight> store) {
         WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut = new WeightedPAutomaton<StackSymbol, Abstraction, NumWeight>(
-                a(a)) {
+                a(a), store) {
 
             @Override
             public Abstraction createState(Abstraction d, StackSymbol loc) {
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.HashTransitionStore;
+import wpds.impl.IntTransitionStore;
+import wpds.impl.TransitionStore;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+public class TransitionStoreTests {
+
+    @Test
+    public void addAndLookup() {
+        TransitionStore<StackSymbol, Abstraction, NumWeight> store = new IntTransitionStore<>();
+        assertTrue(store.add(t(1, "a", 2)));
+        assertFalse(store.add(t(1, "a", 2)));
+        assertTrue(store.add(t(1, "b", 2)));
+        assertTrue(store.add(t(2, "a", 3)));
+        assertNull(store.getWeight(t(1, "a", 2)));
+        assertNull(store.getWeight(t(3, "a", 1)));
+        store.setWeight(t(1, "a", 2), w(3));
+        assertEquals(w(3), store.getWeight(t(1, "a", 2)));
+        assertEquals(3, store.size());
+        assertEquals(3, store.getStates().size());
+        assertEquals(Sets.newHashSet(t(1, "a", 2), t(1, "b", 2)),
+                Sets.newHashSet(store.getTransitionsOutOf(a(1))));
+        assertEquals(Sets.newHashSet(t(1, "a", 2), t(1, "b", 2)), Sets.newHashSet(store.getTransitionsInto(a(2))));
+        assertTrue(store.getTransitionsInto(a(4)).isEmpty());
+    }
+
+    @Test
+    public void manyTransitions() {
+        TransitionStore<StackSymbol, Abstraction, NumWeight> store = new IntTransitionStore<>();
+        for (int i = 0; i < 10000; i++) {
+            store.setWeight(t(i, "a", i + 1), w(i));
+        }
+        assertEquals(10000, store.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(w(i), store.getWeight(t(i, "a", i + 1)));
+            assertEquals(1, store.getTransitionsOutOf(a(i)).size());
+        }
+    }
+
+    @Test
+    public void poststarOnBothStores() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        pds.addRule(wnormal(1, "a", 1, "b", w(2)));
+        pds.addRule(wpush(1, "b", 1, "c", "d", w(3)));
+        pds.addRule(wnormal(1, "c", 1, "e", w(1)));
+        pds.addRule(wpop(1, "e", 1, w(5)));
+        pds.addRule(wnormal(1, "d", 1, "f", w(6)));
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> hash = waccepts(1, "a", w(0),
+                new HashTransitionStore<StackSymbol, Abstraction, NumWeight>());
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> compact = waccepts(1, "a", w(0),
+                new IntTransitionStore<StackSymbol, Abstraction, NumWeight>());
+        pds.poststar(hash);
+        pds.poststar(compact);
+        assertEquals(Sets.newHashSet(hash.getTransitions()), Sets.newHashSet(compact.getTransitions()));
+        assertEquals(hash.getTransitionStore().getTransitionsToWeights(),
+                compact.getTransitionStore().getTransitionsToWeights());
+        assertEquals(hash.getStates(), compact.getStates());
+        assertEquals(w(17), compact.getWeightFor(t(1, "f", ACC)));
+    }
+
+    private static NumWeight w(int i) {
+        return new NumWeight(i);
+    }
+}
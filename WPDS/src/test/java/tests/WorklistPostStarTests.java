@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Transition;
+import wpds.impl.TransitionWorklist;
+import wpds.impl.TransitionWorklist.Order;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+
+public class WorklistPostStarTests {
+
+    @Test
+    public void sameFixpointAsListenerDrivenPostStar() {
+        for (Order order : Order.values()) {
+            WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = createPDS();
+            WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> expected = waccepts(1, "a", w(0));
+            pds.poststar(expected);
+
+            pds = createPDS();
+            WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> actual = waccepts(1, "a", w(0));
+            pds.poststar(actual, TransitionWorklist.<StackSymbol, Abstraction, NumWeight> create(order, byLabel()));
+            assertEquals(order.toString(), expected.getTransitionStore().getTransitionsToWeights(),
+                    actual.getTransitionStore().getTransitionsToWeights());
+            assertEquals(w(20), actual.getWeightFor(t(1, "g", ACC)));
+            assertEquals(0, actual.getWorklist().size());
+        }
+    }
+
+    @Test
+    public void rulesAddedAfterPostStar() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0));
+        pds.poststar(fa, TransitionWorklist.<StackSymbol, Abstraction, NumWeight> lifo());
+        pds.addRule(wnormal(1, "a", 2, "b", w(2)));
+        assertEquals(w(2), fa.getWeightFor(t(2, "b", ACC)));
+        pds.addRule(wnormal(2, "b", 3, "c", w(3)));
+        assertEquals(w(5), fa.getWeightFor(t(3, "c", ACC)));
+        assertNull(fa.getWeightFor(t(3, "d", ACC)));
+    }
+
+    @Test
+    public void longChainWithSmallStack() throws InterruptedException {
+        final int length = 20000;
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final AtomicReference<NumWeight> result = new AtomicReference<>();
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+                    for (int i = 1; i <= length; i++) {
+                        pds.addRule(wnormal(i, "a", i + 1, "a", w(1)));
+                    }
+                    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "init", w(0));
+                    pds.poststar(fa, TransitionWorklist.<StackSymbol, Abstraction, NumWeight> fifo());
+                    fa.addTransition(t(1, "a", ACC));
+                    result.set(fa.getWeightFor(t(length + 1, "a", ACC)));
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        }, "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+        assertNull(error.get());
+        assertEquals(w(length), result.get());
+    }
+
+    private static WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> createPDS() {
+        WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds = new WeightedPushdownSystem<>();
+        pds.addRule(wnormal(1, "a", 1, "b", w(2)));
+        pds.addRule(wpush(1, "b", 1, "c", "d", w(3)));
+        pds.addRule(wnormal(1, "c", 1, "e", w(1)));
+        pds.addRule(wpop(1, "e", 1, w(5)));
+        pds.addRule(wnormal(1, "d", 1, "f", w(1)));
+        pds.addRule(wpush(1, "f", 1, "c", "g", w(2)));
+        return pds;
+    }
+
+    private static Comparator<Transition<StackSymbol, Abstraction>> byLabel() {
+        return new Comparator<Transition<StackSymbol, Abstraction>>() {
+            @Override
+            public int compare(Transition<StackSymbol, Abstraction> o1, Transition<StackSymbol, Abstraction> o2) {
+                return o1.getLabel().toString().compareTo(o2.getLabel().toString());
+            }
+        };
+    }
+
+    private static NumWeight w(int i) {
+        return new NumWeight(i);
+    }
+}
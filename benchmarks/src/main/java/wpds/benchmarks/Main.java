@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the saturation benchmarks with the GC profiler attached, so that each result carries the allocation rate next
+ * to the throughput. Results are written to <code>benchmarks.json</code>. All JMH command line options (e.g. a
+ * benchmark filter or <code>-p chainLength=1000</code>) are passed through.
+ */
+public class Main {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cmdOptions);
+        if (cmdOptions.getIncludes().isEmpty()) {
+            options.include(Main.class.getPackage().getName() + ".*");
+        }
+        options.addProfiler(GCProfiler.class);
+        if (!cmdOptions.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+            options.result("benchmarks.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
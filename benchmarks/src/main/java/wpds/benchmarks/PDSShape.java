@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The shape of the generated pushdown system. Saturation mutates the system (the automata register listeners on it),
+ * so a fresh system is generated before every invocation.
+ */
+@State(Scope.Thread)
+public abstract class PDSShape {
+
+    @Param({ "50", "200" })
+    public int chainLength;
+
+    @Param({ "2", "4" })
+    public int fanOut;
+
+    @Param({ "3" })
+    public int recursionDepth;
+
+    @Param({ "0", "500" })
+    public int extraRules;
+
+    @Param({ "true" })
+    public boolean recursive;
+
+    public SyntheticPDS pds;
+
+    protected abstract WeightDomain weights();
+
+    @Setup(Level.Invocation)
+    public void generate() {
+        pds = new SyntheticPDS(chainLength, fanOut, recursionDepth, extraRules, recursive, weights());
+    }
+
+    @State(Scope.Thread)
+    public static class AnyWeight extends PDSShape {
+
+        @Param({ "NUM_WEIGHT", "MIN_SEMIRING" })
+        public WeightDomain weights;
+
+        @Override
+        protected WeightDomain weights() {
+            return weights;
+        }
+    }
+
+    /**
+     * Restricts the weights to {@link WeightDomain#MIN_SEMIRING}. pre* has no summaries, so on recursive systems it
+     * sees infinitely many path weights, which only an idempotent semiring folds into a fixed point.
+     */
+    @State(Scope.Thread)
+    public static class Idempotent extends PDSShape {
+
+        @Override
+        protected WeightDomain weights() {
+            return WeightDomain.MIN_SEMIRING;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wpds.benchmarks.SyntheticPDS.Fact;
+import wpds.benchmarks.SyntheticPDS.Label;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * Forward saturation of the configuration (p, entry of main).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xss128m" })
+public class PostStarBenchmark {
+
+    @Benchmark
+    public WeightedPAutomaton<Label, Fact, Weight> postStar(PDSShape.AnyWeight shape) {
+        SyntheticPDS pds = shape.pds;
+        WeightedPAutomaton<Label, Fact, Weight> aut = pds.accepting(pds.entryOfMain(), new Fact("ACC"));
+        pds.getPushdownSystem().poststar(aut);
+        return aut;
+    }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wpds.benchmarks.SyntheticPDS.Fact;
+import wpds.benchmarks.SyntheticPDS.Label;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Transition;
+import wpds.impl.UNormalRule;
+import wpds.impl.UPopRule;
+import wpds.impl.UPushRule;
+
+/**
+ * pre* of the rule shapes of <code>PDSPrestarTests</code>, replicated <code>copies</code> times over disjoint stack
+ * symbols. Only the first copy leads to the accepted configuration; of the other copies just the pop rules and the
+ * rules directly above them fire. With indexed rules the cost grows linearly with the number of copies.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xss128m" })
+@State(Scope.Thread)
+public class PreStarScalingBenchmark {
+
+    public enum Shape {
+        /** <code>pushTest</code>: a call of a method that returns immediately. */
+        PUSH,
+        /** <code>recPushTest</code>: a call of a directly recursive method. */
+        RECURSIVE
+    }
+
+    @Param({ "1", "100", "10000" })
+    public int copies;
+
+    @Param({ "PUSH", "RECURSIVE" })
+    public Shape shape;
+
+    private final Fact p = new Fact("p");
+    private PushdownSystem<Label, Fact> pds;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        pds = new PushdownSystem<>();
+        for (int i = 0; i < copies; i++) {
+            normal(l("a", i), l("b", i));
+            if (shape == Shape.PUSH) {
+                pds.addRule(new UPushRule<>(p, l("b", i), p, l("c", i), l("d", i)));
+                pds.addRule(new UPopRule<>(p, l("c", i), p));
+            } else {
+                normal(l("b", i), l("c", i));
+                pds.addRule(new UPushRule<>(p, l("c", i), p, l("f", i), l("d", i)));
+                normal(l("f", i), l("g", i));
+                pds.addRule(new UPushRule<>(p, l("g", i), p, l("f", i), l("h", i)));
+                pds.addRule(new UPopRule<>(p, l("f", i), p));
+            }
+            normal(l("d", i), l("e", i));
+        }
+    }
+
+    private void normal(Label from, Label to) {
+        pds.addRule(new UNormalRule<>(p, from, p, to));
+    }
+
+    private static Label l(String name, int copy) {
+        return new Label(name + copy);
+    }
+
+    @Benchmark
+    public PAutomaton<Label, Fact> preStar() {
+        Fact acc = new Fact("ACC");
+        PAutomaton<Label, Fact> aut = new PAutomaton<Label, Fact>(p) {
+            @Override
+            public Fact createState(Fact d, Label loc) {
+                return d;
+            }
+
+            @Override
+            public boolean isGeneratedState(Fact d) {
+                return false;
+            }
+
+            @Override
+            public Label epsilon() {
+                return new Label("EPS");
+            }
+        };
+        aut.addFinalState(acc);
+        aut.addTransition(new Transition<>(p, l("e", 0), acc));
+        pds.prestar(aut);
+        return aut;
+    }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wpds.benchmarks.SyntheticPDS.Fact;
+import wpds.benchmarks.SyntheticPDS.Label;
+import wpds.impl.PrefixImport;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * Imports the post* automaton of (p, entry of main) into an automaton that only shares its first transition, as
+ * done when a summary is applied to a new calling context.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xss128m" })
+public class PrefixImportBenchmark {
+
+    @State(Scope.Thread)
+    public static class Automata {
+        WeightedPAutomaton<Label, Fact, Weight> base;
+        WeightedPAutomaton<Label, Fact, Weight> flow;
+        Transition<Label, Fact> entry;
+
+        @Setup(Level.Invocation)
+        public void saturate(PDSShape.AnyWeight shape) {
+            SyntheticPDS pds = shape.pds;
+            Fact baseTarget = new Fact("ACC");
+            base = pds.accepting(pds.entryOfMain(), baseTarget);
+            pds.getPushdownSystem().poststar(base);
+            flow = pds.accepting(pds.entryOfMain(), new Fact("FLOW"));
+            entry = new Transition<>(pds.getFact(), pds.entryOfMain(), baseTarget);
+        }
+    }
+
+    @Benchmark
+    public WeightedPAutomaton<Label, Fact, Weight> prefixImport(Automata automata) {
+        new PrefixImport<>(automata.base, automata.flow, automata.entry);
+        return automata.flow;
+    }
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wpds.benchmarks.SyntheticPDS.Fact;
+import wpds.benchmarks.SyntheticPDS.Label;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.ForwardDFSVisitor;
+import wpds.interfaces.IncrementalReachabilityVisitor;
+import wpds.interfaces.ReachabilityListener;
+
+/**
+ * Grows an automaton transition by transition while listeners ask for the transitions reachable from some of its
+ * states, comparing the {@link ForwardDFSVisitor} against the {@link IncrementalReachabilityVisitor}. The allocation
+ * rate reported by the GC profiler is the memory side of the comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xss128m" })
+@State(Scope.Thread)
+public class ReachabilityBenchmark {
+
+    public enum Visitor {
+        DFS, INCREMENTAL
+    }
+
+    public enum Graph {
+        /** Every transition extends a single path, the worst case for re-traversals of the DFS visitor. */
+        CHAIN,
+        /** Uniformly random transitions between the states. */
+        RANDOM
+    }
+
+    @Param({ "DFS", "INCREMENTAL" })
+    public Visitor visitor;
+
+    @Param({ "CHAIN", "RANDOM" })
+    public Graph graph;
+
+    @Param({ "500", "2000" })
+    public int states;
+
+    @Param({ "20" })
+    public int listeners;
+
+    @Benchmark
+    public int grow() {
+        Fact acc = new Fact("ACC");
+        Label label = new Label("l");
+        WeightedPAutomaton<Label, Fact, Weight> aut = new SyntheticPDS(2, 1, 0, 0, false, WeightDomain.NUM_WEIGHT)
+                .accepting(label, acc);
+        ForwardDFSVisitor<Label, Fact, Weight> dfs = null;
+        IncrementalReachabilityVisitor<Label, Fact, Weight> inc = null;
+        if (visitor == Visitor.DFS) {
+            dfs = new ForwardDFSVisitor<>(aut);
+            aut.registerListener(dfs);
+        } else {
+            inc = new IncrementalReachabilityVisitor<>(aut);
+            aut.registerListener(inc);
+        }
+        Counter counter = new Counter();
+        Fact[] facts = new Fact[states];
+        for (int i = 0; i < states; i++) {
+            facts[i] = new Fact("s" + i);
+        }
+        Random random = new Random(states);
+        int edges = graph == Graph.CHAIN ? states - 1 : states * 2;
+        int listenEvery = Math.max(1, edges / listeners);
+        for (int i = 0; i < edges; i++) {
+            if (i % listenEvery == 0) {
+                Fact listened = facts[graph == Graph.CHAIN ? 0 : random.nextInt(states)];
+                if (dfs != null)
+                    dfs.registerListener(listened, counter);
+                else
+                    inc.registerListener(listened, counter);
+            }
+            Transition<Label, Fact> t = graph == Graph.CHAIN ? new Transition<>(facts[i], label, facts[i + 1])
+                    : new Transition<>(facts[random.nextInt(states)], label, facts[random.nextInt(states)]);
+            aut.addWeightForTransition(t, aut.getOne());
+        }
+        return counter.reached;
+    }
+
+    private static class Counter implements ReachabilityListener<Label, Fact> {
+        int reached;
+
+        @Override
+        public void reachable(Transition<Label, Fact> t) {
+            reached++;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wpds.benchmarks.SyntheticPDS.Fact;
+import wpds.benchmarks.SyntheticPDS.Label;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.WPAStateHandler;
+import wpds.interfaces.WPAStateListener;
+
+/**
+ * Registers state listeners the way the pop handling of post* does - the same key from many paths, so most
+ * registrations are duplicates - and then adds transitions to the listened states, comparing a
+ * {@link WPAStateListener} object per registration against the records of a shared {@link WPAStateHandler}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xss128m" })
+@State(Scope.Thread)
+public class StateListenerBenchmark {
+
+    public enum Registration {
+        LISTENER, HANDLER
+    }
+
+    @Param({ "LISTENER", "HANDLER" })
+    public Registration registration;
+
+    @Param({ "1000" })
+    public int states;
+
+    /** The distinct registrations per state. */
+    @Param({ "4", "64" })
+    public int keys;
+
+    /** How often each registration is repeated. */
+    @Param({ "8" })
+    public int repetitions;
+
+    @Benchmark
+    public int register() {
+        Label label = new Label("l");
+        WeightedPAutomaton<Label, Fact, Weight> aut = new SyntheticPDS(2, 1, 0, 0, false, WeightDomain.NUM_WEIGHT)
+                .accepting(label, new Fact("ACC"));
+        Fact[] facts = new Fact[states];
+        Label[] labels = new Label[keys];
+        for (int i = 0; i < states; i++) {
+            facts[i] = new Fact("s" + i);
+        }
+        for (int k = 0; k < keys; k++) {
+            labels[k] = new Label("k" + k);
+        }
+        Handler handler = new Handler();
+        for (int r = 0; r < repetitions; r++) {
+            for (int i = 0; i < states; i++) {
+                for (int k = 0; k < keys; k++) {
+                    Fact target = facts[(i + k) % states];
+                    if (registration == Registration.LISTENER)
+                        aut.registerListener(new Listener(facts[i], labels[k], target, handler));
+                    else
+                        aut.registerListener(facts[i], handler, labels[k], target);
+                }
+            }
+        }
+        for (int i = 0; i + 1 < states; i++) {
+            aut.addWeightForTransition(new Transition<>(facts[i], label, facts[i + 1]), aut.getOne());
+        }
+        return handler.notified;
+    }
+
+    private static class Handler implements WPAStateHandler<Label, Fact, Weight, Label, Fact> {
+        int notified;
+
+        @Override
+        public void onOutTransitionAdded(Label popLabel, Fact target, Transition<Label, Fact> t, Weight w,
+                WeightedPAutomaton<Label, Fact, Weight> aut) {
+            notified++;
+        }
+
+        @Override
+        public void onInTransitionAdded(Label popLabel, Fact target, Transition<Label, Fact> t, Weight w,
+                WeightedPAutomaton<Label, Fact, Weight> aut) {
+        }
+    }
+
+    private static class Listener extends WPAStateListener<Label, Fact, Weight> {
+        private final Label popLabel;
+        private final Fact target;
+        private final Handler handler;
+
+        Listener(Fact state, Label popLabel, Fact target, Handler handler) {
+            super(state);
+            this.popLabel = popLabel;
+            this.target = target;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onOutTransitionAdded(Transition<Label, Fact> t, Weight w,
+                WeightedPAutomaton<Label, Fact, Weight> aut) {
+            handler.onOutTransitionAdded(popLabel, target, t, w, aut);
+        }
+
+        @Override
+        public void onInTransitionAdded(Transition<Label, Fact> t, Weight w,
+                WeightedPAutomaton<Label, Fact, Weight> aut) {
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = super.hashCode();
+            result = prime * result + popLabel.hashCode();
+            result = prime * result + target.hashCode();
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!super.equals(obj))
+                return false;
+            Listener other = (Listener) obj;
+            return popLabel.equals(other.popLabel) && target.equals(other.target);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import wpds.impl.NormalRule;
+import wpds.impl.PopRule;
+import wpds.impl.PushRule;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Generates a weighted pushdown system that mimics the call structure of a program. Method <i>main</i> sits at level
+ * 0, each further level up to <code>recursionDepth</code> holds <code>fanOut</code> methods. Every method is a chain of
+ * <code>chainLength</code> statements and, halfway through, calls all methods of the next level. When recursive, the
+ * methods of the last level call <i>main</i> again. <code>extraRules</code> additional normal rules jump forward
+ * within randomly chosen methods, they are derived from a fixed seed so that all runs see the same system.
+ * <p>
+ * {@link tests.NumWeight} maps two different path weights to zero and zero back to either weight, so post* only
+ * terminates on it if all paths between two configurations weigh the same. Jumps therefore weigh as much as the
+ * statements they skip under {@link WeightDomain#NUM_WEIGHT}, and less under {@link WeightDomain#MIN_SEMIRING}.
+ */
+public class SyntheticPDS {
+
+    private static final long SEED = 4711;
+
+    private final WeightDomain weights;
+    private final WeightedPushdownSystem<Label, Fact, Weight> pds = new WeightedPushdownSystem<>();
+    private final List<List<Label[]>> methodsPerLevel = Lists.newArrayList();
+    private final Fact fact = new Fact("p");
+    private int ruleCount;
+
+    public SyntheticPDS(int chainLength, int fanOut, int recursionDepth, int extraRules, boolean recursive,
+            WeightDomain weights) {
+        if (chainLength < 2) {
+            throw new IllegalArgumentException("Methods need at least an entry and an exit statement");
+        }
+        this.weights = weights;
+        for (int level = 0; level <= recursionDepth; level++) {
+            List<Label[]> methods = Lists.newArrayList();
+            int methodsOnLevel = level == 0 ? 1 : fanOut;
+            for (int m = 0; m < methodsOnLevel; m++) {
+                Label[] stmts = new Label[chainLength];
+                for (int i = 0; i < chainLength; i++) {
+                    stmts[i] = new Label("m" + level + "_" + m + "_" + i);
+                }
+                methods.add(stmts);
+            }
+            methodsPerLevel.add(methods);
+        }
+        int callSite = (chainLength - 1) / 2;
+        for (int level = 0; level <= recursionDepth; level++) {
+            for (Label[] stmts : methodsPerLevel.get(level)) {
+                for (int i = 0; i < chainLength - 1; i++) {
+                    addRule(new NormalRule<>(fact, stmts[i], fact, stmts[i + 1], weights.weight(1)));
+                }
+                addRule(new PopRule<>(fact, stmts[chainLength - 1], fact, weights.weight(1)));
+                List<Label[]> callees = level < recursionDepth ? methodsPerLevel.get(level + 1)
+                        : (recursive ? methodsPerLevel.get(0) : null);
+                if (callees == null) {
+                    continue;
+                }
+                for (Label[] callee : callees) {
+                    addRule(new PushRule<>(fact, stmts[callSite], fact, callee[0], stmts[callSite + 1],
+                            weights.weight(1)));
+                }
+            }
+        }
+        Random random = new Random(SEED);
+        List<Label[]> allMethods = Lists.newArrayList();
+        for (List<Label[]> methods : methodsPerLevel) {
+            allMethods.addAll(methods);
+        }
+        for (int r = 0; r < extraRules; r++) {
+            Label[] stmts = allMethods.get(random.nextInt(allMethods.size()));
+            int from = random.nextInt(chainLength - 1);
+            int to = from + 1 + random.nextInt(chainLength - 1 - from);
+            int shortcut = 1 + random.nextInt(to - from);
+            addRule(new NormalRule<>(fact, stmts[from], fact, stmts[to],
+                    weights.weight(weights == WeightDomain.NUM_WEIGHT ? to - from : shortcut)));
+        }
+    }
+
+    private void addRule(Rule<Label, Fact, Weight> rule) {
+        if (pds.addRule(rule)) {
+            ruleCount++;
+        }
+    }
+
+    public WeightedPushdownSystem<Label, Fact, Weight> getPushdownSystem() {
+        return pds;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    public Fact getFact() {
+        return fact;
+    }
+
+    public Label entryOfMain() {
+        return methodsPerLevel.get(0).get(0)[0];
+    }
+
+    public Label exitOfMain() {
+        Label[] main = methodsPerLevel.get(0).get(0);
+        return main[main.length - 1];
+    }
+
+    /**
+     * Creates an automaton with the single transition (p, <code>label</code>, <code>accepting</code>).
+     */
+    public WeightedPAutomaton<Label, Fact, Weight> accepting(Label label, Fact accepting) {
+        WeightedPAutomaton<Label, Fact, Weight> aut = new SyntheticAutomaton(accepting, weights);
+        aut.addWeightForTransition(new Transition<>(fact, label, accepting), weights.one());
+        return aut;
+    }
+
+    public static class Label implements Location {
+        private final String name;
+
+        public Label(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            return name.equals(((Label) obj).name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static class Fact implements State {
+        private final String name;
+        private final Label generatedAt;
+
+        public Fact(String name) {
+            this(name, null);
+        }
+
+        private Fact(String name, Label generatedAt) {
+            this.name = name;
+            this.generatedAt = generatedAt;
+        }
+
+        boolean isGenerated() {
+            return generatedAt != null;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + name.hashCode();
+            result = prime * result + ((generatedAt == null) ? 0 : generatedAt.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            Fact other = (Fact) obj;
+            if (!name.equals(other.name))
+                return false;
+            if (generatedAt == null) {
+                return other.generatedAt == null;
+            }
+            return generatedAt.equals(other.generatedAt);
+        }
+
+        @Override
+        public String toString() {
+            return generatedAt == null ? name : "<" + name + "," + generatedAt + ">";
+        }
+    }
+
+    private static class SyntheticAutomaton extends WeightedPAutomaton<Label, Fact, Weight> {
+        private static final Label EPSILON = new Label("EPS");
+        private final WeightDomain weights;
+
+        SyntheticAutomaton(Fact initialState, WeightDomain weights) {
+            super(initialState);
+            this.weights = weights;
+        }
+
+        @Override
+        public Fact createState(Fact d, Label loc) {
+            return new Fact(d.name, loc);
+        }
+
+        @Override
+        public boolean isGeneratedState(Fact d) {
+            return d.isGenerated();
+        }
+
+        @Override
+        public Label epsilon() {
+            return EPSILON;
+        }
+
+        @Override
+        public Weight getZero() {
+            return weights.zero();
+        }
+
+        @Override
+        public Weight getOne() {
+            return weights.one();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package wpds.benchmarks;
+
+import tests.MinSemiring;
+import tests.NumWeight;
+import wpds.impl.Weight;
+
+/**
+ * The semirings the synthetic pushdown systems are weighted with. Both are the weights used by the WPDS unit tests:
+ * {@link NumWeight} sums along paths and collapses differing paths to zero, {@link MinSemiring} computes shortest paths.
+ */
+public enum WeightDomain {
+    NUM_WEIGHT {
+        @Override
+        public Weight one() {
+            return NumWeight.one();
+        }
+
+        @Override
+        public Weight zero() {
+            return NumWeight.zero();
+        }
+
+        @Override
+        public Weight weight(int i) {
+            return new NumWeight(i);
+        }
+    },
+    MIN_SEMIRING {
+        @Override
+        public Weight one() {
+            return MinSemiring.one();
+        }
+
+        @Override
+        public Weight zero() {
+            return MinSemiring.zero();
+        }
+
+        @Override
+        public Weight weight(int i) {
+            return new MinSemiring(i);
+        }
+    };
+
+    public abstract Weight one();
+
+    public abstract Weight zero();
+
+    public abstract Weight weight(int i);
+}
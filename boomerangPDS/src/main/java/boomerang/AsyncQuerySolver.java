@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import com.google.common.collect.Maps;
+
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import wpds.impl.Weight;
+
+/**
+ * Solves the queries of a {@link WeightedBoomerang} on a bounded executor and returns their results as futures. Queries
+ * on different threads of the executor are solved concurrently unless their solvers are connected, see
+ * {@link boomerang.solver.SolverPool}, so a fast query is not held up by a slow one.
+ * <p>
+ * Equal queries that are in flight at the same time are solved once and all of their futures complete with the same
+ * results. Each future can be cancelled on its own. Once all futures of a query are cancelled, the query is cancelled
+ * through its {@link CancellationToken}: it is not solved if it has not started yet, and stops at the next node
+ * otherwise.
+ */
+public class AsyncQuerySolver<W extends Weight> {
+
+    private final WeightedBoomerang<W> solver;
+    private final ExecutorService executor;
+    private final Map<Query, InFlight<?>> inFlight = Maps.newHashMap();
+
+    /**
+     * Solves the queries on a pool of daemon threads that queues at most the given number of queries. Queries
+     * submitted beyond that fail with a {@link RejectedExecutionException}.
+     */
+    public AsyncQuerySolver(WeightedBoomerang<W> solver, int threads, int maxPendingQueries) {
+        this(solver, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxPendingQueries), new DaemonThreadFactory()));
+    }
+
+    /**
+     * Solves the queries on the given executor, which is shut down by {@link #shutdown()}.
+     */
+    public AsyncQuerySolver(WeightedBoomerang<W> solver, ExecutorService executor) {
+        this.solver = solver;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<ForwardBoomerangResults<W>> solveAsync(final ForwardQuery query) {
+        return join(query, new QueryRun<ForwardBoomerangResults<W>>() {
+            @Override
+            ForwardBoomerangResults<W> solve(CancellationToken token) {
+                return solver.solve(query, token);
+            }
+        });
+    }
+
+    public CompletableFuture<BackwardBoomerangResults<W>> solveAsync(final BackwardQuery query) {
+        return join(query, new QueryRun<BackwardBoomerangResults<W>>() {
+            @Override
+            BackwardBoomerangResults<W> solve(CancellationToken token) {
+                return solver.solve(query, token);
+            }
+        });
+    }
+
+    /**
+     * Cancels the queries in flight and stops the executor.
+     */
+    public synchronized void shutdown() {
+        for (InFlight<?> flight : inFlight.values()) {
+            flight.token.cancel();
+        }
+        inFlight.clear();
+        executor.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <R> CompletableFuture<R> join(Query query, QueryRun<R> run) {
+        InFlight<R> flight = (InFlight<R>) inFlight.get(query);
+        if (flight == null) {
+            flight = new InFlight<R>();
+            inFlight.put(query, flight);
+            start(query, flight, run);
+        }
+        flight.waiting++;
+        final CompletableFuture<R> future = new CompletableFuture<R>();
+        flight.result.whenComplete(new BiConsumer<R, Throwable>() {
+            @Override
+            public void accept(R results, Throwable failure) {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(results);
+                }
+            }
+        });
+        final InFlight<R> joined = flight;
+        final Query key = query;
+        future.whenComplete(new BiConsumer<R, Throwable>() {
+            @Override
+            public void accept(R results, Throwable failure) {
+                if (future.isCancelled()) {
+                    leave(key, joined);
+                }
+            }
+        });
+        return future;
+    }
+
+    private <R> void start(final Query query, final InFlight<R> flight, final QueryRun<R> run) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (flight.token.isCancelled()) {
+                        finish(query, flight);
+                        flight.result.cancel(false);
+                        return;
+                    }
+                    try {
+                        R results = run.solve(flight.token);
+                        finish(query, flight);
+                        flight.result.complete(results);
+                    } catch (Throwable e) {
+                        finish(query, flight);
+                        flight.result.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(query);
+            flight.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Called when one of the futures of the query is cancelled. Cancels the query once no future waits for it, and
+     * forgets it, so that an equal query submitted later is solved anew.
+     */
+    private synchronized void leave(Query query, InFlight<?> flight) {
+        if (--flight.waiting == 0 && !flight.result.isDone()) {
+            flight.token.cancel();
+            if (inFlight.get(query) == flight) {
+                inFlight.remove(query);
+            }
+        }
+    }
+
+    private synchronized void finish(Query query, InFlight<?> flight) {
+        if (inFlight.get(query) == flight) {
+            inFlight.remove(query);
+        }
+    }
+
+    private static class InFlight<R> {
+        private final CompletableFuture<R> result = new CompletableFuture<R>();
+        private final CancellationToken token = new CancellationToken();
+        private int waiting;
+    }
+
+    private static abstract class QueryRun<R> {
+        abstract R solve(CancellationToken token);
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "boomerang-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
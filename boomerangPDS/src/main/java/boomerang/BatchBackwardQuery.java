@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.Collection;
+
+import com.google.common.collect.ImmutableSet;
+
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+
+/**
+ * The key of the one backward solver that {@link WeightedBoomerang#solveBatch(java.util.Collection)} seeds with all
+ * query points of a batch. It is named after the first point but never equals the {@link BackwardQuery} of that
+ * point, so the solver of that query is not polluted by the other points. Batches are equal if they have the same
+ * points, so a batch never reuses a solver seeded with the points of a different batch.
+ */
+class BatchBackwardQuery extends BackwardQuery {
+
+    private final ImmutableSet<BackwardQuery> queries;
+
+    BatchBackwardQuery(Statement stmt, Val variable, Collection<BackwardQuery> queries) {
+        super(stmt, variable);
+        this.queries = ImmutableSet.copyOf(queries);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + queries.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!super.equals(obj))
+            return false;
+        BatchBackwardQuery other = (BatchBackwardQuery) obj;
+        return queries.equals(other.queries);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchBackwardQuery: " + super.toString();
+    }
+}
@@ -11,10 +11,16 @@
  *******************************************************************************/
 package boomerang;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import boomerang.debugger.Debugger;
 import boomerang.jimple.Field;
+import boomerang.jimple.JimpleSummaryCodec;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
+import boomerang.solver.BoomerangArena;
 import sync.pds.solver.OneWeightFunctions;
 import sync.pds.solver.WeightFunctions;
 import wpds.impl.Weight.NoWeight;
@@ -57,6 +63,22 @@ public abstract class Boomerang extends WeightedBoomerang<NoWeight> {
         return new Debugger<>();
     }
 
+    @Override
+    protected JimpleSummaryCodec<NoWeight> createSummaryCodec(BoomerangArena arena) {
+        return new JimpleSummaryCodec<NoWeight>(arena) {
+
+            @Override
+            public void writeWeight(NoWeight weight, DataOutput out) throws IOException {
+                out.writeBoolean(weight.equals(NoWeight.NO_WEIGHT_ONE));
+            }
+
+            @Override
+            public NoWeight readWeight(DataInput in) throws IOException {
+                return in.readBoolean() ? NoWeight.NO_WEIGHT_ONE : NoWeight.NO_WEIGHT_ZERO;
+            }
+        };
+    }
+
     private WeightFunctions<Statement, Val, Field, NoWeight> getOrCreateFieldWeights() {
         if (fieldWeights == null) {
             fieldWeights = new OneWeightFunctions<Statement, Val, Field, NoWeight>(NoWeight.NO_WEIGHT_ZERO,
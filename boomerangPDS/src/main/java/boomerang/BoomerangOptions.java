@@ -11,16 +11,20 @@
  *******************************************************************************/
 package boomerang;
 
+import java.io.File;
+
 import com.google.common.base.Optional;
 
 import boomerang.callgraph.ObservableICFG;
 import boomerang.jimple.AllocVal;
 import boomerang.jimple.Val;
 import boomerang.stats.IBoomerangStats;
+import boomerang.stats.metrics.MetricsReporter;
 import soot.SootMethod;
 import soot.Unit;
 import soot.Value;
 import soot.jimple.Stmt;
+import wpds.impl.TransitionWorklist;
 
 public interface BoomerangOptions {
 
@@ -38,6 +42,13 @@ public interface BoomerangOptions {
 
     public boolean fieldSummaries();
 
+    /**
+     * @return If present and {@link #callSummaries()} is enabled, the call summaries of the forward and backward
+     *         solvers are read from this directory and written back by {@link WeightedBoomerang#persistSummaries()}, so
+     *         a later analysis of the same program does not saturate unchanged callees again.
+     */
+    Optional<File> summaryDirectory();
+
     public int analysisTimeoutMS();
 
     public boolean isAllocationVal(Value val);
@@ -65,4 +76,68 @@ public interface BoomerangOptions {
     boolean trackStaticFieldAtEntryPointToClinit();
 
     boolean trackFields();
+
+    /**
+     * @return If present, the call and field automata of the solvers are saturated by the worklist-driven post* that
+     *         processes new transitions iteratively in the given order. If absent, the listener-driven post* is used.
+     */
+    Optional<TransitionWorklist.Order> postStarWorklistOrder();
+
+    /**
+     * @return If present, snapshots of {@link WeightedBoomerang#getMetrics()} are handed to this reporter every
+     *         {@link #metricsReportIntervalMS()} milliseconds until {@link WeightedBoomerang#stopMetricsReporting()}.
+     *         All solvers created with these options share the reporter and one reporting thread. The reporter is not
+     *         closed by the solvers.
+     */
+    Optional<MetricsReporter> metricsReporter();
+
+    int metricsReportIntervalMS();
+
+    /**
+     * @return The number of solvers a {@link WeightedBoomerang} retains between queries, or a negative value for no
+     *         bound. Solvers that interacted during one query are evicted together, least recently used first.
+     */
+    int maxRetainedSolvers();
+
+    /**
+     * @return The number of call and field automaton transitions of all solvers retained between queries, or a
+     *         negative value for no bound.
+     */
+    long maxRetainedTransitions();
+
+    /**
+     * @return The limits on the work of each query, enforced in addition to {@link #analysisTimeoutMS()}. A query that
+     *         exceeds them stops propagating and returns incomplete results.
+     */
+    QueryBudget queryBudget();
+
+    /**
+     * @return The number of threads that solve the queries submitted to
+     *         {@link WeightedBoomerang#solveAsync(ForwardQuery)} and
+     *         {@link WeightedBoomerang#solveAsync(BackwardQuery)}. The queries of one instance are still solved one
+     *         at a time under its solver lock, so further threads do not solve queries in parallel but wait for the
+     *         lock. Results are read from the shared solvers: a later query may evict them, after which the results
+     *         of an earlier one are incomplete. Copy what is needed, for instance with
+     *         {@link boomerang.results.CachedBackwardResults}, before submitting further queries. The threads run
+     *         until {@link WeightedBoomerang#shutdown()}.
+     */
+    int asyncQueryThreads();
+
+    /**
+     * @return The number of asynchronous queries that may wait for a thread. Further queries are rejected.
+     */
+    int maxPendingAsyncQueries();
+
+    /**
+     * @return The number of answers {@link WeightedBoomerang#solveCached(BackwardQuery)} caches, or zero to disable
+     *         the cache.
+     */
+    int maxCachedResults();
+
+    /**
+     * @return Whether the solvers are grouped by the queries they interacted in even if their number is unbounded, so
+     *         that {@link WeightedBoomerang#invalidateMethods(java.util.Collection)} only evicts the solvers that
+     *         depend on the changed methods.
+     */
+    boolean incrementalAnalysis();
 }
@@ -13,6 +13,12 @@ package boomerang;
 
 import boomerang.stats.IBoomerangStats;
 
+/**
+ * @deprecated Queries that exceed {@link BoomerangOptions#analysisTimeoutMS()} or their {@link QueryBudget} are
+ *             cancelled and return incomplete results, see {@link CancellationToken}. This exception is no longer
+ *             thrown.
+ */
+@Deprecated
 public class BoomerangTimeoutException extends RuntimeException {
 
     private IBoomerangStats stats;
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops a query of a {@link WeightedBoomerang}. The solvers poll the token before they compute the successors of a
+ * node, so a cancelled query stops propagating at the next node and returns its results so far, flagged as
+ * incomplete. A token may be cancelled from any thread; it is also cancelled when the query exceeds its
+ * {@link QueryBudget}.
+ */
+public class CancellationToken {
+
+    public enum Reason {
+        CANCELLED, WALL_TIME, PROPAGATIONS, RULES, TRANSITIONS, HEAP,
+        /**
+         * The {@link QueryPredicate} of the query was decided, see
+         * {@link WeightedBoomerang#decide(BackwardQuery, QueryPredicate)}.
+         */
+        DECIDED,
+        /**
+         * The query shared solvers with a query that was stopped before they saturated.
+         */
+        SHARED
+    }
+
+    private final AtomicReference<Reason> reason = new AtomicReference<>();
+
+    public void cancel() {
+        cancel(Reason.CANCELLED);
+    }
+
+    /**
+     * Cancels the token, unless it already is. The reason of the first cancellation is kept.
+     */
+    public void cancel(Reason reason) {
+        this.reason.compareAndSet(null, reason);
+    }
+
+    public boolean isCancelled() {
+        return reason.get() != null;
+    }
+
+    /**
+     * @return Why the token was cancelled, or null if it was not.
+     */
+    public Reason getReason() {
+        return reason.get();
+    }
+}
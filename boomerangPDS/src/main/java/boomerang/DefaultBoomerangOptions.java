@@ -18,10 +18,13 @@ import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.stats.IBoomerangStats;
 import boomerang.stats.SimpleBoomerangStats;
+import boomerang.stats.metrics.MetricsReporter;
 import com.google.common.base.Optional;
 import soot.*;
 import soot.jimple.*;
+import wpds.impl.TransitionWorklist;
 
+import java.io.File;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -106,6 +109,11 @@ public class DefaultBoomerangOptions implements BoomerangOptions {
         return false;
     }
 
+    @Override
+    public Optional<File> summaryDirectory() {
+        return Optional.absent();
+    }
+
     public boolean trackAnySubclassOfThrowable() {
         return false;
     }
@@ -223,4 +231,54 @@ public class DefaultBoomerangOptions implements BoomerangOptions {
     public boolean trackFields() {
         return true;
     }
+
+    @Override
+    public Optional<TransitionWorklist.Order> postStarWorklistOrder() {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<MetricsReporter> metricsReporter() {
+        return Optional.absent();
+    }
+
+    @Override
+    public int metricsReportIntervalMS() {
+        return 10000;
+    }
+
+    @Override
+    public int maxRetainedSolvers() {
+        return -1;
+    }
+
+    @Override
+    public long maxRetainedTransitions() {
+        return -1;
+    }
+
+    @Override
+    public QueryBudget queryBudget() {
+        return QueryBudget.unlimited();
+    }
+
+    @Override
+    public int asyncQueryThreads() {
+        return 1;
+    }
+
+    @Override
+    public int maxPendingAsyncQueries() {
+        return 1024;
+    }
+
+    @Override
+    public int maxCachedResults() {
+        return 0;
+    }
+
+    @Override
+    public boolean incrementalAnalysis() {
+        return false;
+    }
 }
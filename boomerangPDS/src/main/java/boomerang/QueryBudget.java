@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+/**
+ * Limits on the work of one query of a {@link WeightedBoomerang}, counted over all solvers involved in it: wall time,
+ * propagations (nodes whose successors were computed), pushdown system rules, automaton transitions and the heap in
+ * use. A limit that is not positive is not enforced. When a limit is exceeded, the {@link CancellationToken} of the
+ * query is cancelled and the query returns its results so far, flagged as incomplete.
+ */
+public class QueryBudget {
+
+    private static final QueryBudget UNLIMITED = new QueryBudget(0, 0, 0, 0, 0);
+
+    private final long wallTimeMS;
+    private final long maxPropagations;
+    private final long maxRules;
+    private final long maxTransitions;
+    private final long maxHeapBytes;
+
+    private QueryBudget(long wallTimeMS, long maxPropagations, long maxRules, long maxTransitions,
+            long maxHeapBytes) {
+        this.wallTimeMS = wallTimeMS;
+        this.maxPropagations = maxPropagations;
+        this.maxRules = maxRules;
+        this.maxTransitions = maxTransitions;
+        this.maxHeapBytes = maxHeapBytes;
+    }
+
+    public static QueryBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    public QueryBudget withWallTimeMS(long wallTimeMS) {
+        return new QueryBudget(wallTimeMS, maxPropagations, maxRules, maxTransitions, maxHeapBytes);
+    }
+
+    public QueryBudget withMaxPropagations(long maxPropagations) {
+        return new QueryBudget(wallTimeMS, maxPropagations, maxRules, maxTransitions, maxHeapBytes);
+    }
+
+    public QueryBudget withMaxRules(long maxRules) {
+        return new QueryBudget(wallTimeMS, maxPropagations, maxRules, maxTransitions, maxHeapBytes);
+    }
+
+    public QueryBudget withMaxTransitions(long maxTransitions) {
+        return new QueryBudget(wallTimeMS, maxPropagations, maxRules, maxTransitions, maxHeapBytes);
+    }
+
+    /**
+     * Limits the heap in use, as reported by the {@link Runtime}. As it includes garbage not yet collected, it
+     * overestimates the memory the query retains.
+     */
+    public QueryBudget withMaxHeapBytes(long maxHeapBytes) {
+        return new QueryBudget(wallTimeMS, maxPropagations, maxRules, maxTransitions, maxHeapBytes);
+    }
+
+    public long getWallTimeMS() {
+        return wallTimeMS;
+    }
+
+    public long getMaxPropagations() {
+        return maxPropagations;
+    }
+
+    public long getMaxRules() {
+        return maxRules;
+    }
+
+    public long getMaxTransitions() {
+        return maxTransitions;
+    }
+
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    public boolean isUnlimited() {
+        return wallTimeMS <= 0 && maxPropagations <= 0 && maxRules <= 0 && maxTransitions <= 0 && maxHeapBytes <= 0;
+    }
+
+    /**
+     * @return The limit the usage exceeds, or null if it is within all limits.
+     */
+    CancellationToken.Reason exceeded(long elapsedMS, long propagations, long rules, long transitions,
+            long heapBytes) {
+        if (wallTimeMS > 0 && elapsedMS > wallTimeMS)
+            return CancellationToken.Reason.WALL_TIME;
+        if (maxPropagations > 0 && propagations > maxPropagations)
+            return CancellationToken.Reason.PROPAGATIONS;
+        if (maxRules > 0 && rules > maxRules)
+            return CancellationToken.Reason.RULES;
+        if (maxTransitions > 0 && transitions > maxTransitions)
+            return CancellationToken.Reason.TRANSITIONS;
+        if (maxHeapBytes > 0 && heapBytes > maxHeapBytes)
+            return CancellationToken.Reason.HEAP;
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryBudget [wallTimeMS=" + wallTimeMS + ", maxPropagations=" + maxPropagations + ", maxRules="
+                + maxRules + ", maxTransitions=" + maxTransitions + ", maxHeapBytes=" + maxHeapBytes + "]";
+    }
+}
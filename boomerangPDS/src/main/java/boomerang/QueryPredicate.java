@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.Collection;
+
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.BackwardBoomerangResults;
+import soot.Scene;
+import soot.Type;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+
+/**
+ * A yes/no question about a query, answered by {@link WeightedBoomerang#decide(BackwardQuery, QueryPredicate)} while
+ * the query is solved. The predicate observes the nodes the solver of the query reaches, the weights of its call
+ * automaton and, for a backward query, the allocation sites found. As soon as the predicate calls
+ * {@link #decide(boolean)}, the query stops propagating. If the solvers saturate first, the answer is
+ * {@link #whenSaturated()}.
+ * <p>
+ * A predicate answers a single query and cannot be reused.
+ */
+public abstract class QueryPredicate<W extends Weight> {
+
+    private CancellationToken token;
+    private boolean started;
+    private Boolean decision;
+
+    /**
+     * Called for every node the solver of the query reaches.
+     */
+    protected void onReachableNode(Node<Statement, Val> node) {
+    }
+
+    /**
+     * Called for every allocation site found for a backward query.
+     */
+    protected void onAllocationSite(ForwardQuery allocationSite) {
+    }
+
+    /**
+     * Called for every weight added to the call automaton of the solver of the query.
+     */
+    protected void onCallWeight(Transition<Statement, INode<Val>> transition, W weight) {
+    }
+
+    /**
+     * @return The answer if the solvers saturate before the predicate decided.
+     */
+    protected abstract boolean whenSaturated();
+
+    /**
+     * Decides the predicate and stops the query. Only the first decision counts.
+     */
+    protected final void decide(boolean value) {
+        if (!isActive()) {
+            return;
+        }
+        decision = value;
+        token.cancel(CancellationToken.Reason.DECIDED);
+    }
+
+    public boolean isDecided() {
+        return decision != null;
+    }
+
+    void start(CancellationToken token) {
+        if (started) {
+            throw new IllegalStateException("A predicate answers a single query only.");
+        }
+        started = true;
+        this.token = token;
+    }
+
+    boolean isActive() {
+        return token != null && decision == null;
+    }
+
+    void finish() {
+        token = null;
+    }
+
+    boolean getValue() {
+        return decision != null ? decision : whenSaturated();
+    }
+
+    /**
+     * Whether any allocation site of a backward query allocates an object of the type or of a subtype.
+     */
+    public static <W extends Weight> QueryPredicate<W> anyAllocationSiteOfType(final Type type) {
+        return new QueryPredicate<W>() {
+            @Override
+            protected void onAllocationSite(ForwardQuery allocationSite) {
+                Type allocated = BackwardBoomerangResults.allocatedType(allocationSite);
+                if (Scene.v().getOrMakeFastHierarchy().canStoreType(allocated, type)) {
+                    decide(true);
+                }
+            }
+
+            @Override
+            protected boolean whenSaturated() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Whether a backward query shares an allocation site with the given ones, for example with the allocation sites of
+     * another query, see {@link BackwardBoomerangResults#hasNonEmptyIntersection(soot.PointsToSet)}.
+     */
+    public static <W extends Weight> QueryPredicate<W> anyAllocationSiteIn(
+            final Collection<ForwardQuery> allocationSites) {
+        return new QueryPredicate<W>() {
+            @Override
+            protected void onAllocationSite(ForwardQuery allocationSite) {
+                if (allocationSites.contains(allocationSite)) {
+                    decide(true);
+                }
+            }
+
+            @Override
+            protected boolean whenSaturated() {
+                return false;
+            }
+        };
+    }
+}
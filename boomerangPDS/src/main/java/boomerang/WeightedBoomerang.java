@@ -12,27 +12,38 @@
 package boomerang;
 
 import boomerang.callgraph.BackwardsObservableICFG;
+import boomerang.callgraph.CallGraphEdgeListener;
 import boomerang.callgraph.CalleeListener;
 import boomerang.callgraph.CallerListener;
+import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 
@@ -46,7 +57,11 @@ import boomerang.poi.ExecuteImportFieldStmtPOI;
 import boomerang.poi.PointOfIndirection;
 import boomerang.preanalysis.BoomerangPretransformer;
 import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.BatchBackwardResults;
+import boomerang.results.CachedBackwardResults;
+import boomerang.results.ExtractAllocationSiteStateListener;
 import boomerang.results.ForwardBoomerangResults;
+import boomerang.results.QueryResultCache;
 import boomerang.seedfactory.SimpleSeedFactory;
 import boomerang.solver.*;
 import boomerang.seedfactory.SeedFactory;
@@ -56,6 +71,11 @@ import boomerang.solver.ForwardBoomerangSolver;
 import boomerang.solver.ReachableMethodListener;
 import boomerang.solver.StatementBasedCallTransitionListener;
 import boomerang.stats.IBoomerangStats;
+import boomerang.stats.metrics.Counter;
+import boomerang.stats.metrics.Gauge;
+import boomerang.stats.metrics.Histogram;
+import boomerang.stats.metrics.Metrics;
+import boomerang.stats.metrics.PeriodicMetricsReporting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
@@ -63,7 +83,6 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
-import heros.utilities.DefaultValueMap;
 
 import soot.*;
 import soot.jimple.*;
@@ -101,8 +120,9 @@ import wpds.impl.UnbalancedPopListener;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
 import wpds.interfaces.State;
-import wpds.interfaces.WPAStateListener;
+import wpds.interfaces.WPAStateHandler;
 import wpds.interfaces.WPAUpdateListener;
+import wpds.interfaces.WPDSUpdateListener;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -110,18 +130,57 @@ import java.util.concurrent.TimeUnit;
 
 public abstract class WeightedBoomerang<W extends Weight> {
     public static final boolean DEBUG = false;
+    private static final int HEAP_SAMPLING_INTERVAL = 256;
     protected ObservableICFG<Unit, SootMethod> icfg;
     private static final Logger logger = LoggerFactory.getLogger(WeightedBoomerang.class);
-    private Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField = new HashMap<>();
-    private long lastTick;
+    private final BoomerangArena arena = new BoomerangArena();
     private IBoomerangStats<W> stats;
-    private Set<SolverCreationListener<W>> solverCreationListeners = Sets.newHashSet();
-    private Multimap<SolverPair, ExecuteImportFieldStmtPOI<W>> poiListeners = HashMultimap.create();
-    private Multimap<SolverPair, INode<Node<Statement, Val>>> activatedPoi = HashMultimap.create();
-    private final DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers = new DefaultValueMap<Query, AbstractBoomerangSolver<W>>() {
+    private final Metrics metrics = new Metrics();
+    private final Counter callRules = metrics.counter("callPDS.rules");
+    private final Counter fieldRules = metrics.counter("fieldPDS.rules");
+    private final Counter callTransitions = metrics.counter("callAutomaton.transitions");
+    private final Counter fieldTransitions = metrics.counter("fieldAutomaton.transitions");
+    private final Counter stateListeners = metrics.counter("stateListeners.registered");
+    private final Counter poiActivations = metrics.counter("poi.activations");
+    private final Counter timedOutQueries = metrics.counter("queries.timedOut");
+    private final Counter decidedQueries = metrics.counter("queries.decided");
+    private final Counter invalidatedSolvers = metrics.counter("solvers.invalidated");
+    private final Counter propagations = metrics.counter("nodes.propagated");
+    private final Histogram forwardQueryLatency = metrics.histogram("forwardQuery.latencyMS");
+    private final Histogram backwardQueryLatency = metrics.histogram("backwardQuery.latencyMS");
+    private final Counter evictedSolvers = metrics.counter("solvers.evicted");
+    private final Counter resultCacheHits = metrics.counter("resultCache.hits");
+    private final Counter resultCacheMisses = metrics.counter("resultCache.misses");
+    private final AtomicInteger liveSolvers = new AtomicInteger();
+    private PeriodicMetricsReporting metricsReporting;
+    private Set<SolverCreationListener<W>> solverCreationListeners = Sets.newConcurrentHashSet();
+    /**
+     * Registries that connect the solvers of different queries. A solver pair is only accessed by the thread that owns
+     * the component of its solvers, see {@link SolverPool}, so the registries need not be guarded beyond being
+     * concurrent.
+     */
+    private ListenerMultimap<SolverPair, ExecuteImportFieldStmtPOI<W>> poiListeners = new ListenerMultimap<>();
+    private ListenerMultimap<SolverPair, INode<Node<Statement, Val>>> activatedPoi = new ListenerMultimap<>();
+    private final TriggerBaseAllocationAtFieldWrite triggerBaseAllocation = new TriggerBaseAllocationAtFieldWrite();
+    /**
+     * The cancellation token and budget of the outermost query the current thread solves. Queries it starts while
+     * solving it, for instance to resolve the call graph, share them.
+     */
+    private final ThreadLocal<QueryContext> context = new ThreadLocal<QueryContext>() {
+        @Override
+        protected QueryContext initialValue() {
+            return new QueryContext();
+        }
+    };
+    private volatile boolean solversConfigured;
+    private int analysisQueries;
+    private AsyncQuerySolver<W> asyncSolver;
+    private volatile QueryResultCache resultCache;
+    private final SolverPool<W> queryToSolvers = new SolverPool<W>() {
 
         @Override
         protected AbstractBoomerangSolver<W> createItem(final Query key) {
+            liveSolvers.incrementAndGet();
             final AbstractBoomerangSolver<W> solver;
             if (key instanceof BackwardQuery) {
                 logger.debug("Backward solving query: " + key);
@@ -168,11 +227,41 @@ public abstract class WeightedBoomerang<W extends Weight> {
                         }
                     });
             stats.registerSolver(key, solver);
+            solver.getCallPDS().registerUpdateListener(new WPDSUpdateListener<Statement, INode<Val>, W>() {
+                @Override
+                public void onRuleAdded(Rule<Statement, INode<Val>, W> rule) {
+                    callRules.inc();
+                    QueryContext ctx = context.get();
+                    ctx.rules++;
+                    checkTimeout(ctx);
+                }
+            });
+            solver.getFieldPDS().registerUpdateListener(new WPDSUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
+                @Override
+                public void onRuleAdded(Rule<Field, INode<Node<Statement, Val>>, W> rule) {
+                    fieldRules.inc();
+                    QueryContext ctx = context.get();
+                    ctx.rules++;
+                    checkTimeout(ctx);
+                }
+            });
+            solver.registerListener(new SyncPDSUpdateListener<Statement, Val>() {
+                @Override
+                public void onReachableNodeAdded(Node<Statement, Val> reachableNode) {
+                    propagations.inc();
+                    QueryContext ctx = context.get();
+                    ctx.propagations++;
+                    checkTimeout(ctx);
+                }
+            });
             solver.getCallAutomaton().registerListener(new WPAUpdateListener<Statement, INode<Val>, W>() {
                 @Override
                 public void onWeightAdded(Transition<Statement, INode<Val>> t, W w,
                         WeightedPAutomaton<Statement, INode<Val>, W> aut) {
-                    checkTimeout();
+                    callTransitions.inc();
+                    QueryContext ctx = context.get();
+                    ctx.transitions++;
+                    checkTimeout(ctx);
                 }
             });
             solver.getFieldAutomaton().registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
@@ -180,7 +269,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 @Override
                 public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
                         WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                    checkTimeout();
+                    fieldTransitions.inc();
+                    QueryContext ctx = context.get();
+                    ctx.transitions++;
+                    checkTimeout(ctx);
                 }
             });
             SeedFactory<W> seedFactory = getSeedFactory();
@@ -192,8 +284,44 @@ public abstract class WeightedBoomerang<W extends Weight> {
             onCreateSubSolver(key, solver);
             return solver;
         }
+
+        @Override
+        protected void onEvicted(Map<Query, AbstractBoomerangSolver<W>> solvers) {
+            liveSolvers.addAndGet(-solvers.size());
+            releaseEvictedSolvers(solvers);
+        }
+
+        @Override
+        protected void onRecreated(Query key, AbstractBoomerangSolver<W> solver) {
+            if (key instanceof ForwardQuery) {
+                forwardSolve((ForwardQuery) key);
+            } else {
+                backwardSolve((BackwardQuery) key);
+            }
+        }
+
+        @Override
+        protected void onIncomplete(Query key) {
+            QueryContext ctx = context.get();
+            if (ctx.depth > 0) {
+                ctx.cancellation.cancel(CancellationToken.Reason.SHARED);
+            }
+        }
     };
 
+    private static final class QueryContext {
+        private int depth;
+        private CancellationToken cancellation = new CancellationToken();
+        private boolean discarded;
+        private QueryBudget budget = QueryBudget.unlimited();
+        private Stopwatch budgetWatch = Stopwatch.createUnstarted();
+        private long analysisTimeAtStart;
+        private long propagations;
+        private long rules;
+        private long transitions;
+        private int budgetChecks;
+    }
+
     private void registerUnbalancedPopListener(Node<Statement, AbstractBoomerangSolver<W>> unbalancedPopPair,
             UnbalancedPopHandler<W> unbalancedPopInfo) {
         if (unbalancedPopPairs.contains(unbalancedPopPair)) {
@@ -204,24 +332,142 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     }
 
+    /**
+     * Releases everything outside of the evicted solvers that refers to them: the allocations recorded at points of
+     * indirection, the activations and unbalanced pops of solver pairs and the listeners the solvers registered at the
+     * call graph. Solving the queries anew then recomputes exactly what was released. The arena drops the nodes of the
+     * methods no remaining solver has visited.
+     */
+    private void releaseEvictedSolvers(Map<Query, AbstractBoomerangSolver<W>> solvers) {
+        final Set<AbstractBoomerangSolver<W>> evicted = Sets.newHashSet(solvers.values());
+        Set<Query> queries = solvers.keySet();
+        for (Entry<Query, AbstractBoomerangSolver<W>> e : solvers.entrySet()) {
+            stats.evictedSolver(e.getKey(), e.getValue());
+            evictedSolvers.inc();
+        }
+        for (FieldWritePOI poi : fieldWrites.values()) {
+            poi.removeAllocations(queries);
+        }
+        for (FieldReadPOI poi : fieldReads.values()) {
+            poi.removeAllocations(queries);
+        }
+        scopedQueries.removeAll(queries);
+        Predicate<SolverPair> pairOfEvicted = new Predicate<SolverPair>() {
+            @Override
+            public boolean apply(SolverPair pair) {
+                return evicted.contains(pair.flowSolver) || evicted.contains(pair.baseSolver);
+            }
+        };
+        poiListeners.removeKeys(pairOfEvicted);
+        activatedPoi.removeKeys(pairOfEvicted);
+        Predicate<Node<Statement, AbstractBoomerangSolver<W>>> popOfEvicted = new Predicate<Node<Statement, AbstractBoomerangSolver<W>>>() {
+            @Override
+            public boolean apply(Node<Statement, AbstractBoomerangSolver<W>> unbalancedPopPair) {
+                return evicted.contains(unbalancedPopPair.fact());
+            }
+        };
+        unbalancedListeners.removeKeys(popOfEvicted);
+        Iterables.removeIf(unbalancedPopPairs, popOfEvicted);
+        icfg().removeListeners(new Predicate<Object>() {
+            @Override
+            public boolean apply(Object listener) {
+                return listener instanceof SolverOwnedListener
+                        && evicted.contains(((SolverOwnedListener<?>) listener).getSolver());
+            }
+        });
+        if (queryToSolvers.isEmpty()) {
+            arena.prune(Predicates.alwaysTrue());
+            return;
+        }
+        Set<SootMethod> unvisited = Sets.newHashSet();
+        for (AbstractBoomerangSolver<W> solver : evicted) {
+            unvisited.addAll(solver.getVisitedMethods());
+        }
+        for (AbstractBoomerangSolver<W> solver : queryToSolvers.values()) {
+            if (unvisited.isEmpty()) {
+                break;
+            }
+            unvisited.removeAll(solver.getVisitedMethods());
+        }
+        arena.pruneMethods(unvisited);
+    }
+
+    /**
+     * Charges the work done so far to {@link BoomerangOptions#analysisTimeoutMS()} and to the {@link QueryBudget} of the
+     * current query, and cancels the query once either is exceeded. Its solvers then stop at their next safe point.
+     */
     public void checkTimeout() {
+        checkTimeout(context.get());
+    }
+
+    /**
+     * The analysis time is charged as the time spent solving queries before the current one started plus the time the
+     * current one took, and the budget as the work of the current thread.
+     */
+    private void checkTimeout(QueryContext ctx) {
+        if (ctx.cancellation.isCancelled()) {
+            return;
+        }
         if (options.analysisTimeoutMS() > 0) {
-            long elapsed = analysisWatch.elapsed(TimeUnit.MILLISECONDS);
-            if (elapsed - lastTick > 15000) {
-                System.out.println("Alive " + elapsed + "  " + options.analysisTimeoutMS());
-                lastTick = elapsed;
-            }
+            long elapsed = ctx.analysisTimeAtStart + ctx.budgetWatch.elapsed(TimeUnit.MILLISECONDS);
             if (options.analysisTimeoutMS() < elapsed) {
-                if (analysisWatch.isRunning())
-                    analysisWatch.stop();
-                throw new BoomerangTimeoutException(elapsed, stats);
+                ctx.cancellation.cancel(CancellationToken.Reason.WALL_TIME);
+                return;
             }
         }
+        if (ctx.budget.isUnlimited()) {
+            return;
+        }
+        long heap = 0;
+        if (ctx.budget.getMaxHeapBytes() > 0 && ++ctx.budgetChecks % HEAP_SAMPLING_INTERVAL == 0) {
+            Runtime runtime = Runtime.getRuntime();
+            heap = runtime.totalMemory() - runtime.freeMemory();
+        }
+        CancellationToken.Reason exceeded = ctx.budget.exceeded(ctx.budgetWatch.elapsed(TimeUnit.MILLISECONDS),
+                ctx.propagations, ctx.rules, ctx.transitions, heap);
+        if (exceeded != null) {
+            ctx.cancellation.cancel(exceeded);
+        }
     }
 
-    Multimap<Node<Statement, AbstractBoomerangSolver<W>>, UnbalancedPopHandler<W>> unbalancedListeners = HashMultimap
-            .create();
-    Set<Node<Statement, AbstractBoomerangSolver<W>>> unbalancedPopPairs = Sets.newHashSet();
+    /**
+     * @return Whether the query of the current thread was cancelled, either by its client or because it exceeded its
+     *         budget. Once a solver of the query notices, the solvers the query looked up are marked as incomplete.
+     */
+    public boolean isCancelled() {
+        QueryContext ctx = context.get();
+        if (!ctx.cancellation.isCancelled()) {
+            return false;
+        }
+        if (ctx.depth > 0 && !ctx.discarded) {
+            ctx.discarded = true;
+            queryToSolvers.discardSession();
+        }
+        return true;
+    }
+
+    /**
+     * @return Why the current query was cancelled, or null if it was not. The solvers of a cancelled query are
+     *         incomplete and are discarded before the next query, which solves them anew if it needs them.
+     */
+    private CancellationToken.Reason stopReason() {
+        QueryContext ctx = context.get();
+        CancellationToken.Reason reason = ctx.cancellation.getReason();
+        if (reason != null && ctx.depth == 1) {
+            // A decided query stopped early as well, its solvers and call graph are incomplete
+            if (reason == CancellationToken.Reason.DECIDED) {
+                decidedQueries.inc();
+            } else {
+                timedOutQueries.inc();
+            }
+            queryToSolvers.discardSession();
+        }
+        return reason;
+    }
+
+    ListenerMultimap<Node<Statement, AbstractBoomerangSolver<W>>, UnbalancedPopHandler<W>> unbalancedListeners =
+            new ListenerMultimap<>();
+    Set<Node<Statement, AbstractBoomerangSolver<W>>> unbalancedPopPairs = Sets.newConcurrentHashSet();
 
     private void triggerUnbalancedPop(Node<Statement, AbstractBoomerangSolver<W>> unbalancedPopPair) {
         if (unbalancedPopPairs.add(unbalancedPopPair)) {
@@ -240,32 +486,47 @@ public abstract class WeightedBoomerang<W extends Weight> {
     private NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> backwardFieldSummaries = new SummaryNestedWeightedPAutomatons<>();
     private NestedWeightedPAutomatons<Statement, INode<Val>, W> forwardCallSummaries = new SummaryNestedWeightedPAutomatons<>();
     private NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> forwardFieldSummaries = new SummaryNestedWeightedPAutomatons<>();
-    private DefaultValueMap<FieldWritePOI, FieldWritePOI> fieldWrites = new DefaultValueMap<FieldWritePOI, FieldWritePOI>() {
-        @Override
-        protected FieldWritePOI createItem(FieldWritePOI key) {
-            stats.registerFieldWritePOI(key);
-            return key;
-        }
-    };
-    private DefaultValueMap<FieldReadPOI, FieldReadPOI> fieldReads = new DefaultValueMap<FieldReadPOI, FieldReadPOI>() {
-        @Override
-        protected FieldReadPOI createItem(FieldReadPOI key) {
-            stats.registerFieldReadPOI(key);
-            return key;
-        }
-    };
+    private PersistentSummaryNestedWeightedPAutomatons<Statement, INode<Val>, W> persistentForwardCallSummaries;
+    private PersistentSummaryNestedWeightedPAutomatons<Statement, INode<Val>, W> persistentBackwardCallSummaries;
+    private final ConcurrentMap<FieldWritePOI, FieldWritePOI> fieldWrites = Maps.newConcurrentMap();
+    private final ConcurrentMap<FieldReadPOI, FieldReadPOI> fieldReads = Maps.newConcurrentMap();
     protected final BoomerangOptions options;
     private Debugger<W> debugger;
     private Stopwatch analysisWatch = Stopwatch.createUnstarted();
-    private Set<BackwardQuery> scopedQueries = Sets.newHashSet();
+    private Set<BackwardQuery> scopedQueries = Sets.newConcurrentHashSet();
 
     public WeightedBoomerang(BoomerangOptions options) {
         this.options = options;
         this.stats = options.statsFactory();
+        if (options.summaryDirectory().isPresent()) {
+            if (options.callSummaries()) {
+                loadSummaries(options.summaryDirectory().get());
+            } else {
+                logger.warn("Summaries are only persisted when call summaries are enabled.");
+            }
+        }
+        if (options.callSummaries() || options.fieldSummaries()) {
+            if (options.maxRetainedSolvers() >= 0 || options.maxRetainedTransitions() >= 0) {
+                logger.warn("Solvers share their summary automata and are not evicted when summaries are enabled.");
+            }
+        } else {
+            queryToSolvers.setBounds(options.maxRetainedSolvers(), options.maxRetainedTransitions());
+            queryToSolvers.setTrackComponents(options.incrementalAnalysis());
+        }
+        metrics.gauge("solvers", new Gauge() {
+            @Override
+            public long value() {
+                return liveSolvers.get();
+            }
+        });
         if (!BoomerangPretransformer.v().isApplied()) {
             throw new RuntimeException(
                     "Using WeightedBoomerang requires a call to BoomerangPretransformer.v().apply() prior constructing the ICFG");
         }
+        if (options.metricsReporter().isPresent()) {
+            metricsReporting = PeriodicMetricsReporting.start(metrics, options.metricsReporter().get(),
+                    options.metricsReportIntervalMS());
+        }
     }
 
     public WeightedBoomerang() {
@@ -273,7 +534,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
 
     protected AbstractBoomerangSolver<W> createBackwardSolver(final BackwardQuery backwardQuery) {
-        BackwardBoomerangSolver<W> solver = new BackwardBoomerangSolver<W>(bwicfg(), backwardQuery, genField, options,
+        BackwardBoomerangSolver<W> solver = new BackwardBoomerangSolver<W>(bwicfg(), backwardQuery, arena, options,
                 createCallSummaries(backwardQuery, backwardCallSummaries),
                 createFieldSummaries(backwardQuery, backwardFieldSummaries)) {
 
@@ -299,11 +560,21 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 return WeightedBoomerang.this.getBackwardCallWeights();
             }
 
+            @Override
+            protected void onStateListenerRegister() {
+                stateListeners.inc();
+            }
+
             @Override
             protected void onManyStateListenerRegister() {
                 checkTimeout();
             }
 
+            @Override
+            protected boolean isCancelled() {
+                return WeightedBoomerang.this.isCancelled();
+            }
+
         };
         solver.registerListener(new SyncPDSUpdateListener<Statement, Val>() {
             @Override
@@ -393,7 +664,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
 
     protected ForwardBoomerangSolver<W> createForwardSolver(final ForwardQuery sourceQuery) {
-        final ForwardBoomerangSolver<W> solver = new ForwardBoomerangSolver<W>(icfg(), sourceQuery, genField, options,
+        final ForwardBoomerangSolver<W> solver = new ForwardBoomerangSolver<W>(icfg(), sourceQuery, arena, options,
                 createCallSummaries(sourceQuery, forwardCallSummaries),
                 createFieldSummaries(sourceQuery, forwardFieldSummaries)) {
 
@@ -421,11 +692,21 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 super.addCallRule(rule);
             }
 
+            @Override
+            protected void onStateListenerRegister() {
+                stateListeners.inc();
+            }
+
             @Override
             protected void onManyStateListenerRegister() {
                 checkTimeout();
             }
 
+            @Override
+            protected boolean isCancelled() {
+                return WeightedBoomerang.this.isCancelled();
+            }
+
         };
 
         solver.registerListener(new SyncPDSUpdateListener<Statement, Val>() {
@@ -465,11 +746,21 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
             @Override
             public WeightedPAutomaton<Statement, INode<Val>, W> getSummaryAutomaton(INode<Val> target) {
-                if (target.fact().equals(sourceQuery.var())) {
+                // Only generated states have summaries, the others, e.g. the states of unbalanced returns, are states
+                // of the solver's own automaton.
+                if (target.fact().equals(sourceQuery.var()) || !(target instanceof GeneratedState)) {
                     return queryToSolvers.getOrCreate(sourceQuery).getCallAutomaton();
                 }
                 return summaries.getSummaryAutomaton(target);
             }
+
+            @Override
+            public boolean isSaturated(INode<Val> target) {
+                if (target.fact().equals(sourceQuery.var()) || !(target instanceof GeneratedState)) {
+                    return false;
+                }
+                return summaries.isSaturated(target);
+            }
         };
     }
 
@@ -495,6 +786,62 @@ public abstract class WeightedBoomerang<W extends Weight> {
         };
     }
 
+    private void loadSummaries(File directory) {
+        JimpleSummaryCodec<W> codec = createSummaryCodec(arena);
+        if (codec == null) {
+            throw new IllegalStateException(getClass().getName() + " does not support persisting its summaries.");
+        }
+        try {
+            persistentForwardCallSummaries = new PersistentSummaryNestedWeightedPAutomatons<>(
+                    new PersistentSummaryStore<>(new File(directory, "forward-call-summaries.bin"), codec));
+            persistentBackwardCallSummaries = new PersistentSummaryNestedWeightedPAutomatons<>(
+                    new PersistentSummaryStore<>(new File(directory, "backward-call-summaries.bin"), codec));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the summaries in " + directory, e);
+        }
+        forwardCallSummaries = persistentForwardCallSummaries;
+        backwardCallSummaries = persistentBackwardCallSummaries;
+        metrics.gauge("summaries.imported", new Gauge() {
+            @Override
+            public long value() {
+                return persistentForwardCallSummaries.getStore().getImported()
+                        + persistentBackwardCallSummaries.getStore().getImported();
+            }
+        });
+        metrics.gauge("summaries.invalidated", new Gauge() {
+            @Override
+            public long value() {
+                return persistentForwardCallSummaries.getStore().getInvalidated()
+                        + persistentBackwardCallSummaries.getStore().getInvalidated();
+            }
+        });
+    }
+
+    /**
+     * @return The codec that stores the call summaries of this instance if {@link BoomerangOptions#summaryDirectory()}
+     *         is set, or null if the weights of this instance cannot be stored.
+     */
+    protected JimpleSummaryCodec<W> createSummaryCodec(BoomerangArena arena) {
+        return null;
+    }
+
+    /**
+     * Writes the call summaries of all solvers to the {@link BoomerangOptions#summaryDirectory()}, replacing the
+     * summaries stored by earlier runs for the same callees. Does nothing unless call summaries are persisted.
+     */
+    public void persistSummaries() throws IOException {
+        if (persistentForwardCallSummaries == null) {
+            return;
+        }
+        queryToSolvers.lockExclusive();
+        try {
+            persistentForwardCallSummaries.persist();
+            persistentBackwardCallSummaries.persist();
+        } finally {
+            queryToSolvers.exclusiveLock().unlock();
+        }
+    }
+
     public boolean preventCallRuleAdd(ForwardQuery sourceQuery, Rule<Statement, INode<Val>, W> rule) {
         return false;
     }
@@ -505,8 +852,27 @@ public abstract class WeightedBoomerang<W extends Weight> {
         InstanceFieldRef ifr = (InstanceFieldRef) as.getRightOp();
         Val base = new Val(ifr.getBase(), icfg().getMethodOf(as));
         Field field = new Field(ifr.getField());
-        return fieldReads
-                .getOrCreate(new FieldReadPOI(s, base, field, new Val(as.getLeftOp(), icfg().getMethodOf(as))));
+        return fieldRead(new FieldReadPOI(s, base, field, new Val(as.getLeftOp(), icfg().getMethodOf(as))));
+    }
+
+    private FieldReadPOI fieldRead(FieldReadPOI key) {
+        FieldReadPOI poi = fieldReads.putIfAbsent(key, key);
+        if (poi != null) {
+            return poi;
+        }
+        stats.registerFieldReadPOI(key);
+        metrics.counter("poi.fieldReads").inc();
+        return key;
+    }
+
+    private FieldWritePOI fieldWrite(FieldWritePOI key) {
+        FieldWritePOI poi = fieldWrites.putIfAbsent(key, key);
+        if (poi != null) {
+            return poi;
+        }
+        stats.registerFieldWritePOI(key);
+        metrics.counter("poi.fieldWrites").inc();
+        return key;
     }
 
     protected FieldReadPOI createArrayFieldLoad(Statement s) {
@@ -515,7 +881,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
         ArrayRef ifr = (ArrayRef) as.getRightOp();
         Val base = new Val(ifr.getBase(), icfg().getMethodOf(as));
         Val stored = new Val(as.getLeftOp(), icfg().getMethodOf(as));
-        return fieldReads.getOrCreate(new FieldReadPOI(s, base, Field.array(), stored));
+        return fieldRead(new FieldReadPOI(s, base, Field.array(), stored));
     }
 
     protected FieldWritePOI createArrayFieldStore(Statement s) {
@@ -524,7 +890,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
         ArrayRef ifr = (ArrayRef) as.getLeftOp();
         Val base = new Val(ifr.getBase(), icfg().getMethodOf(as));
         Val stored = new Val(as.getRightOp(), icfg().getMethodOf(as));
-        return fieldWrites.getOrCreate(new FieldWritePOI(s, base, Field.array(), stored));
+        return fieldWrite(new FieldWritePOI(s, base, Field.array(), stored));
     }
 
     protected FieldWritePOI createFieldStore(Statement s) {
@@ -534,7 +900,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
         Val base = new Val(ifr.getBase(), icfg().getMethodOf(as));
         Val stored = new Val(as.getRightOp(), icfg().getMethodOf(as));
         Field field = new Field(ifr.getField());
-        return fieldWrites.getOrCreate(new FieldWritePOI(s, base, field, stored));
+        return fieldWrite(new FieldWritePOI(s, base, field, stored));
     }
 
     public static boolean isFieldStore(Statement s) {
@@ -598,67 +964,70 @@ public abstract class WeightedBoomerang<W extends Weight> {
         }
         if (node.fact().equals(fieldWritePoi.getBaseVar())) {
             queryToSolvers.getOrCreate(sourceQuery).getFieldAutomaton()
-                    .registerListener(new TriggerBaseAllocationAtFieldWrite(new SingleNode<Node<Statement, Val>>(node),
-                            fieldWritePoi, sourceQuery));
+                    .registerListener(new SingleNode<Node<Statement, Val>>(node), triggerBaseAllocation, fieldWritePoi,
+                            sourceQuery);
         }
     }
 
     public BackwardBoomerangResults<W> backwardSolveUnderScope(BackwardQuery backwardQuery, ForwardQuery forwardQuery,
             Node<Statement, Val> node) {
-        scopedQueries.add(backwardQuery);
-        boolean timedout = false;
+        beginQuery(backwardQuery);
         try {
-            backwardSolve(backwardQuery);
-            final AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
-            AbstractBoomerangSolver<W> fwSolver = queryToSolvers.getOrCreate(forwardQuery);
-            fwSolver.registerReachableMethodListener(new ReachableMethodListener<W>() {
-                @Override
-                public void reachable(SootMethod m) {
-                    bwSolver.addReachable(m);
-                }
-            });
+            return doBackwardSolveUnderScope(backwardQuery, forwardQuery, node);
+        } finally {
+            endQuery();
+        }
+    }
 
-            fwSolver.getCallAutomaton().registerListener(new StackListener<Statement, INode<Val>, W>(
-                    fwSolver.getCallAutomaton(), new SingleNode<>(node.fact()), node.stmt()) {
+    private BackwardBoomerangResults<W> doBackwardSolveUnderScope(BackwardQuery backwardQuery,
+            ForwardQuery forwardQuery, Node<Statement, Val> node) {
+        scopedQueries.add(backwardQuery);
+        backwardSolve(backwardQuery);
+        final AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
+        AbstractBoomerangSolver<W> fwSolver = queryToSolvers.getOrSolve(forwardQuery);
+        fwSolver.registerReachableMethodListener(new ReachableMethodListener<W>() {
+            @Override
+            public void reachable(SootMethod m) {
+                bwSolver.addReachable(m);
+            }
+        });
 
-                @Override
-                public void stackElement(Statement callSite) {
-                    triggerUnbalancedPop(new Node<Statement, AbstractBoomerangSolver<W>>(callSite, bwSolver));
-                }
+        fwSolver.getCallAutomaton().registerListener(new StackListener<Statement, INode<Val>, W>(
+                fwSolver.getCallAutomaton(), new SingleNode<>(node.fact()), node.stmt()) {
 
-                @Override
-                public void anyContext(Statement end) {
-                    for (Unit sP : icfg().getStartPointsOf(end.getMethod())) {
-                        bwSolver.registerStatementCallTransitionListener(new CanUnbalancedReturn(end.getMethod(),
-                                new Statement((Stmt) sP, end.getMethod()), bwSolver));
-                    }
+            @Override
+            public void stackElement(Statement callSite) {
+                triggerUnbalancedPop(new Node<Statement, AbstractBoomerangSolver<W>>(callSite, bwSolver));
+            }
+
+            @Override
+            public void anyContext(Statement end) {
+                for (Unit sP : icfg().getStartPointsOf(end.getMethod())) {
+                    bwSolver.registerStatementCallTransitionListener(new CanUnbalancedReturn(end.getMethod(),
+                            new Statement((Stmt) sP, end.getMethod()), bwSolver));
                 }
-            });
-        } catch (BoomerangTimeoutException e) {
-            timedout = true;
-            cleanup();
-        }
+            }
+        });
 
-        return new BackwardBoomerangResults<W>(backwardQuery, timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new BackwardBoomerangResults<W>(backwardQuery, stopReason(), this.queryToSolvers, getStats(),
+                currentAnalysisWatch());
     }
 
-    private void cleanup() {
-        for (AbstractBoomerangSolver<W> solver : queryToSolvers.values()) {
-            solver.cleanup();
+    public BackwardBoomerangResults<W> backwardSolveUnderScope(BackwardQuery backwardQuery,
+            IContextRequester requester) {
+        beginQuery(backwardQuery);
+        try {
+            return doBackwardSolveUnderScope(backwardQuery, requester);
+        } finally {
+            endQuery();
         }
-        this.poiListeners.clear();
-        this.unbalancedListeners.clear();
     }
 
-    public BackwardBoomerangResults<W> backwardSolveUnderScope(BackwardQuery backwardQuery,
+    private BackwardBoomerangResults<W> doBackwardSolveUnderScope(BackwardQuery backwardQuery,
             IContextRequester requester) {
         scopedQueries.add(backwardQuery);
-        boolean timedout = false;
+        restartAnalysisWatch();
         try {
-            if (analysisWatch.isRunning()) {
-                analysisWatch.stop();
-            }
-            analysisWatch = Stopwatch.createStarted();
             backwardSolve(backwardQuery);
 
             final AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
@@ -667,18 +1036,15 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 bwSolver.registerListener(
                         new CanUnbalancedReturnToCallSite(backwardQuery.stmt().getMethod(), c, bwSolver, requester));
             }
-            if (analysisWatch.isRunning()) {
-                analysisWatch.stop();
-            }
-        } catch (BoomerangTimeoutException e) {
-            timedout = true;
-            cleanup();
+        } finally {
+            stopAnalysisWatch();
         }
-
-        return new BackwardBoomerangResults<W>(backwardQuery, timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new BackwardBoomerangResults<W>(backwardQuery, stopReason(), this.queryToSolvers, getStats(),
+                currentAnalysisWatch());
     }
 
-    private final class UnbalancedPopCallerListener implements CallerListener<Unit, SootMethod> {
+    private final class UnbalancedPopCallerListener
+            implements CallerListener<Unit, SootMethod>, SolverOwnedListener<W> {
         private final SootMethod callee;
         private final UnbalancedPopHandler<W> info;
         private final Query key;
@@ -697,6 +1063,11 @@ public abstract class WeightedBoomerang<W extends Weight> {
             return callee;
         }
 
+        @Override
+        public AbstractBoomerangSolver<W> getSolver() {
+            return solver;
+        }
+
         @Override
         public void onCallerAdded(Unit callSite, SootMethod m) {
             if (!((Stmt) callSite).containsInvokeExpr())
@@ -838,7 +1209,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     }
 
-    private final class UnbalancedReturnCallerListener implements CallerListener<Unit, SootMethod> {
+    private final class UnbalancedReturnCallerListener
+            implements CallerListener<Unit, SootMethod>, SolverOwnedListener<W> {
         private final AbstractBoomerangSolver<W> bwSolver;
         private final SootMethod method;
 
@@ -852,6 +1224,11 @@ public abstract class WeightedBoomerang<W extends Weight> {
             return method;
         }
 
+        @Override
+        public AbstractBoomerangSolver<W> getSolver() {
+            return bwSolver;
+        }
+
         @Override
         public void onCallerAdded(Unit callSite, SootMethod m) {
             if (!((Stmt) callSite).containsInvokeExpr())
@@ -989,20 +1366,16 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     }
 
-    private class TriggerBaseAllocationAtFieldWrite extends WPAStateListener<Field, INode<Node<Statement, Val>>, W> {
-
-        private final PointOfIndirection<Statement, Val, Field> fieldWritePoi;
-        private final ForwardQuery sourceQuery;
-
-        public TriggerBaseAllocationAtFieldWrite(INode<Node<Statement, Val>> state,
-                PointOfIndirection<Statement, Val, Field> fieldWritePoi, ForwardQuery sourceQuery) {
-            super(state);
-            this.fieldWritePoi = fieldWritePoi;
-            this.sourceQuery = sourceQuery;
-        }
+    /**
+     * Keyed by the field write POI and the query of the base, registered for the states of the field automaton at
+     * the field write: adds the query as base allocation of the POI once the base is reached.
+     */
+    private class TriggerBaseAllocationAtFieldWrite implements WPAStateHandler<Field, INode<Node<Statement, Val>>, W,
+            PointOfIndirection<Statement, Val, Field>, ForwardQuery> {
 
         @Override
-        public void onOutTransitionAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+        public void onOutTransitionAdded(PointOfIndirection<Statement, Val, Field> fieldWritePoi,
+                ForwardQuery sourceQuery, Transition<Field, INode<Node<Statement, Val>>> t, W w,
                 WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
             if (isAllocationNode(t.getTarget().fact().fact(), sourceQuery)) {
                 fieldWritePoi.addBaseAllocation(sourceQuery);
@@ -1010,56 +1383,18 @@ public abstract class WeightedBoomerang<W extends Weight> {
         }
 
         @Override
-        public void onInTransitionAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+        public void onInTransitionAdded(PointOfIndirection<Statement, Val, Field> fieldWritePoi,
+                ForwardQuery sourceQuery, Transition<Field, INode<Node<Statement, Val>>> t, W w,
                 WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
         }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = super.hashCode();
-            result = prime * result + getOuterType().hashCode();
-            result = prime * result + ((fieldWritePoi == null) ? 0 : fieldWritePoi.hashCode());
-            result = prime * result + ((sourceQuery == null) ? 0 : sourceQuery.hashCode());
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (!super.equals(obj))
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            TriggerBaseAllocationAtFieldWrite other = (TriggerBaseAllocationAtFieldWrite) obj;
-            if (!getOuterType().equals(other.getOuterType()))
-                return false;
-            if (fieldWritePoi == null) {
-                if (other.fieldWritePoi != null)
-                    return false;
-            } else if (!fieldWritePoi.equals(other.fieldWritePoi))
-                return false;
-            if (sourceQuery == null) {
-                if (other.sourceQuery != null)
-                    return false;
-            } else if (!sourceQuery.equals(other.sourceQuery))
-                return false;
-            return true;
-        }
-
-        private WeightedBoomerang getOuterType() {
-            return WeightedBoomerang.this;
-        }
-
     }
 
     private void forwardHandleFieldLoad(final Node<Statement, Val> node, final FieldReadPOI fieldReadPoi,
             final ForwardQuery sourceQuery) {
         if (node.fact().equals(fieldReadPoi.getBaseVar())) {
             queryToSolvers.getOrCreate(sourceQuery).getFieldAutomaton()
-                    .registerListener(new TriggerBaseAllocationAtFieldWrite(new SingleNode<Node<Statement, Val>>(node),
-                            fieldReadPoi, sourceQuery));
+                    .registerListener(new SingleNode<Node<Statement, Val>>(node), triggerBaseAllocation, fieldReadPoi,
+                            sourceQuery);
         }
     }
 
@@ -1074,24 +1409,134 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
 
     public ForwardBoomerangResults<W> solve(ForwardQuery query) {
-        if (!analysisWatch.isRunning()) {
+        return solve(query, new CancellationToken());
+    }
+
+    /**
+     * Solves the query until its solvers saturate, the token is cancelled or the query exceeds the
+     * {@link BoomerangOptions#queryBudget()}. The results of a query that stopped early are flagged as incomplete, see
+     * {@link ForwardBoomerangResults#getStopReason()}. A token passed to a query started while solving another one is
+     * ignored; the token of the outermost query applies.
+     */
+    public ForwardBoomerangResults<W> solve(ForwardQuery query, CancellationToken token) {
+        beginQuery(query, token);
+        try {
+            return doSolve(query);
+        } finally {
+            endQuery();
+        }
+    }
+
+    private void beginQuery(Query query) {
+        beginQuery(query, new CancellationToken());
+    }
+
+    /**
+     * Queries of different threads are solved concurrently unless they share solvers, see {@link SolverPool}. Summaries
+     * and the dynamic call graph are shared by all solvers, so with either of them queries are solved one at a time.
+     */
+    private void beginQuery(Query query, CancellationToken token) {
+        configureSolvers();
+        QueryContext ctx = context.get();
+        if (ctx.depth == 0) {
+            ctx.cancellation = token;
+            ctx.discarded = false;
+            ctx.budget = options.queryBudget();
+            ctx.budgetWatch = Stopwatch.createStarted();
+            ctx.analysisTimeAtStart = analysisTime();
+            ctx.propagations = 0;
+            ctx.rules = 0;
+            ctx.transitions = 0;
+            ctx.budgetChecks = 0;
+        }
+        ctx.depth++;
+        try {
+            queryToSolvers.beginQuery(query);
+        } catch (RuntimeException | Error e) {
+            ctx.depth--;
+            throw e;
+        }
+    }
+
+    private void configureSolvers() {
+        if (solversConfigured) {
+            return;
+        }
+        synchronized (this) {
+            if (!solversConfigured) {
+                queryToSolvers.setExclusive(options.callSummaries() || options.fieldSummaries()
+                        || icfg() instanceof ObservableDynamicICFG);
+                solversConfigured = true;
+            }
+        }
+    }
+
+    /**
+     * Once the outermost query terminates, the solver pool evicts solvers of earlier queries that exceed the bounds of
+     * {@link BoomerangOptions#maxRetainedSolvers()} and {@link BoomerangOptions#maxRetainedTransitions()}.
+     */
+    private void endQuery() {
+        try {
+            queryToSolvers.endQuery();
+        } finally {
+            context.get().depth--;
+        }
+    }
+
+    /**
+     * The analysis watch runs while any query is solved.
+     */
+    private synchronized void startAnalysisWatch() {
+        if (analysisQueries++ == 0 && !analysisWatch.isRunning()) {
             analysisWatch.start();
         }
-        boolean timedout = false;
+    }
+
+    private synchronized void stopAnalysisWatch() {
+        if (--analysisQueries == 0 && analysisWatch.isRunning()) {
+            analysisWatch.stop();
+        }
+    }
+
+    /**
+     * Restarts the analysis time at zero, as a scoped query is timed on its own.
+     */
+    private synchronized void restartAnalysisWatch() {
+        boolean running = analysisWatch.isRunning();
+        analysisWatch = Stopwatch.createUnstarted();
+        if (running) {
+            analysisWatch.start();
+        }
+        startAnalysisWatch();
+        context.get().analysisTimeAtStart = 0;
+    }
+
+    private synchronized Stopwatch currentAnalysisWatch() {
+        return analysisWatch;
+    }
+
+    private synchronized long analysisTime() {
+        return analysisWatch.elapsed(TimeUnit.MILLISECONDS);
+    }
+
+    private ForwardBoomerangResults<W> doSolve(ForwardQuery query) {
+        startAnalysisWatch();
+        CancellationToken.Reason stopReason;
         try {
+            Stopwatch queryWatch = Stopwatch.createStarted();
             logger.debug("Starting forward analysis of: {}", query);
             forwardSolve(query);
             logger.debug("Terminated forward analysis of: {}", query);
-        } catch (BoomerangTimeoutException e) {
-            timedout = true;
-            cleanup();
-            logger.debug("Timeout of query: {}", query);
-        }
-
-        if (analysisWatch.isRunning()) {
-            analysisWatch.stop();
+            stopReason = stopReason();
+            if (stopReason != null) {
+                logger.debug("Stopped query {} early: {}", query, stopReason);
+            }
+            forwardQueryLatency.record(queryWatch.elapsed(TimeUnit.MILLISECONDS));
+        } finally {
+            stopAnalysisWatch();
         }
-        return new ForwardBoomerangResults<W>(query, icfg(), timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new ForwardBoomerangResults<W>(query, icfg(), stopReason, this.queryToSolvers, getStats(),
+                currentAnalysisWatch());
     }
 
     public BackwardBoomerangResults<W> solve(BackwardQuery query) {
@@ -1099,25 +1544,333 @@ public abstract class WeightedBoomerang<W extends Weight> {
         return solve(query, true);
     }
 
+    /**
+     * Solves the query like {@link #solve(ForwardQuery, CancellationToken)}.
+     */
+    public BackwardBoomerangResults<W> solve(BackwardQuery query, CancellationToken token) {
+        icfg().addUnbalancedMethod(query.stmt().getMethod());
+        beginQuery(query, token);
+        try {
+            return doSolve(query, true);
+        } finally {
+            endQuery();
+        }
+    }
+
+    /**
+     * Submits the query to be solved on the threads of {@link BoomerangOptions#asyncQueryThreads()}, see
+     * {@link AsyncQuerySolver}. Cancelling the returned future cancels the query unless an equal query waits for it.
+     * The threads run until {@link #shutdown()}.
+     */
+    public CompletableFuture<ForwardBoomerangResults<W>> solveAsync(ForwardQuery query) {
+        return asyncSolver().solveAsync(query);
+    }
+
+    public CompletableFuture<BackwardBoomerangResults<W>> solveAsync(BackwardQuery query) {
+        return asyncSolver().solveAsync(query);
+    }
+
+    private synchronized AsyncQuerySolver<W> asyncSolver() {
+        if (asyncSolver == null) {
+            asyncSolver = new AsyncQuerySolver<W>(this, options.asyncQueryThreads(), options.maxPendingAsyncQueries());
+        }
+        return asyncSolver;
+    }
+
+    /**
+     * Solves the backward queries as one: a single backward solver is seeded with all of their statements and
+     * variables, so propagation along the paths they share is done once, and the answers are extracted in one pass.
+     * The queries share the cancellation token and the {@link BoomerangOptions#queryBudget()}.
+     */
+    public BatchBackwardResults<W> solveBatch(Collection<BackwardQuery> queries) {
+        return solveBatch(queries, new CancellationToken());
+    }
+
+    public BatchBackwardResults<W> solveBatch(Collection<BackwardQuery> queries, CancellationToken token) {
+        if (queries.isEmpty()) {
+            return new BatchBackwardResults<W>(queries, null, null, queryToSolvers);
+        }
+        BackwardQuery first = queries.iterator().next();
+        BatchBackwardQuery batch = new BatchBackwardQuery(first.stmt(), first.var(), queries);
+        if (!options.aliasing()) {
+            return new BatchBackwardResults<W>(queries, batch, null, queryToSolvers);
+        }
+        for (BackwardQuery query : queries) {
+            icfg().addUnbalancedMethod(query.stmt().getMethod());
+        }
+        beginQuery(batch, token);
+        startAnalysisWatch();
+        try {
+            Stopwatch queryWatch = Stopwatch.createStarted();
+            AbstractBoomerangSolver<W> solver = queryToSolvers.getOrCreate(batch);
+            for (BackwardQuery query : queries) {
+                if (!query.stmt().getUnit().isPresent()) {
+                    continue;
+                }
+                if (query.asNode().equals(batch.asNode())) {
+                    solver.solve(query.asNode());
+                } else {
+                    // Each further query keeps its own initial states, so its flows are type checked against it
+                    solver.solveFrom(query.asNode());
+                }
+            }
+            CancellationToken.Reason stopReason = stopReason();
+            if (stopReason != null) {
+                logger.debug("Stopped batch of {} queries early: {}", queries.size(), stopReason);
+            }
+            backwardQueryLatency.record(queryWatch.elapsed(TimeUnit.MILLISECONDS));
+            return new BatchBackwardResults<W>(queries, batch, stopReason, queryToSolvers);
+        } finally {
+            stopAnalysisWatch();
+            endQuery();
+        }
+    }
+
+    /**
+     * Solves the query until the predicate is decided, see {@link QueryPredicate}. The solvers stop as soon as the
+     * predicate decides; like those of any stopped query, they are then discarded.
+     *
+     * @return The decision or, if the solvers saturated first, the answer of the predicate on saturation. Absent if
+     *         the query stopped for a different reason, see {@link BoomerangOptions#queryBudget()}.
+     */
+    public Optional<Boolean> decide(BackwardQuery query, QueryPredicate<W> predicate) {
+        return decide(query, predicate, new CancellationToken());
+    }
+
+    public Optional<Boolean> decide(ForwardQuery query, QueryPredicate<W> predicate) {
+        return decide(query, predicate, new CancellationToken());
+    }
+
+    public Optional<Boolean> decide(final Query query, final QueryPredicate<W> predicate, CancellationToken token) {
+        predicate.start(token);
+        final List<Runnable> unregister = Lists.newArrayList();
+        SolverCreationListener<W> observer = new SolverCreationListener<W>() {
+            @Override
+            public void onCreatedSolver(Query key, AbstractBoomerangSolver<W> solver) {
+                if (key.equals(query)) {
+                    observe(solver, predicate, unregister);
+                } else if (key instanceof ForwardQuery && query instanceof BackwardQuery) {
+                    observeAllocationSite((ForwardQuery) key, (BackwardQuery) query, solver, predicate, unregister);
+                }
+            }
+        };
+        queryToSolvers.lockExclusive();
+        try {
+            registerSolverCreationListener(observer);
+            CancellationToken.Reason stopReason = null;
+            if (!predicate.isDecided()) {
+                stopReason = query instanceof BackwardQuery ? solve((BackwardQuery) query, token).getStopReason()
+                        : solve((ForwardQuery) query, token).getStopReason();
+            }
+            if (predicate.isDecided() || stopReason == null) {
+                return Optional.of(predicate.getValue());
+            }
+            return Optional.absent();
+        } finally {
+            solverCreationListeners.remove(observer);
+            for (Runnable r : unregister) {
+                r.run();
+            }
+            predicate.finish();
+            queryToSolvers.exclusiveLock().unlock();
+        }
+    }
+
+    /**
+     * Observes the solver of the query for the predicate. The listeners are removed by running the actions added to
+     * unregister once the query is decided.
+     */
+    private void observe(final AbstractBoomerangSolver<W> solver, final QueryPredicate<W> predicate,
+            List<Runnable> unregister) {
+        final SyncPDSUpdateListener<Statement, Val> nodes = new SyncPDSUpdateListener<Statement, Val>() {
+            @Override
+            public void onReachableNodeAdded(Node<Statement, Val> reachableNode) {
+                if (predicate.isActive()) {
+                    predicate.onReachableNode(reachableNode);
+                }
+            }
+        };
+        final WPAUpdateListener<Statement, INode<Val>, W> weights = new WPAUpdateListener<Statement, INode<Val>, W>() {
+            @Override
+            public void onWeightAdded(Transition<Statement, INode<Val>> t, W w,
+                    WeightedPAutomaton<Statement, INode<Val>, W> aut) {
+                if (predicate.isActive()) {
+                    predicate.onCallWeight(t, w);
+                }
+            }
+        };
+        solver.registerListener(nodes);
+        solver.getCallAutomaton().registerListener(weights);
+        unregister.add(new Runnable() {
+            @Override
+            public void run() {
+                solver.unregisterListener(nodes);
+                solver.getCallAutomaton().unregisterListener(weights);
+            }
+        });
+    }
+
+    /**
+     * Reports the allocation site to the predicate once its solver reaches the node of the backward query, as an
+     * {@link ExtractAllocationSiteStateListener} would. State listeners cannot be removed, so this is an update
+     * listener of the field automaton, removed like those of {@link #observe}.
+     */
+    private void observeAllocationSite(final ForwardQuery allocationSite, BackwardQuery query,
+            final AbstractBoomerangSolver<W> solver, final QueryPredicate<W> predicate, List<Runnable> unregister) {
+        final INode<Node<Statement, Val>> initialState = solver.getFieldAutomaton().getInitialState();
+        final Node<Statement, Val> queryNode = query.asNode();
+        final WPAUpdateListener<Field, INode<Node<Statement, Val>>, W> sites = new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
+            @Override
+            public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+                    WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
+                if (predicate.isActive() && t.getTarget().equals(initialState) && t.getLabel().equals(Field.empty())
+                        && t.getStart().fact().equals(queryNode)) {
+                    predicate.onAllocationSite(allocationSite);
+                }
+            }
+        };
+        solver.getFieldAutomaton().registerListener(sites);
+        unregister.add(new Runnable() {
+            @Override
+            public void run() {
+                solver.getFieldAutomaton().unregisterListener(sites);
+            }
+        });
+    }
+
+    /**
+     * Retracts what the solvers derived from the bodies of the changed methods. The solvers that hold a rule or a
+     * transition stemming from one of the methods are evicted together with the solvers they interacted with, and the
+     * cached answers that depend on the methods are invalidated. Solving an evicted query again re-saturates it against
+     * the current bodies, the other solvers and their results stay valid. Unless the solvers are grouped, see
+     * {@link BoomerangOptions#incrementalAnalysis()}, all of them are evicted.
+     * <p>
+     * The {@link #icfg()} drops what it derived from the previous bodies, see {@link ObservableICFG#updateBodies}.
+     * Edges it resolved elsewhere in the program are kept, a change that removes flows to other call sites leaves
+     * their callees over-approximated until the call graph is reset.
+     *
+     * @return The queries whose solvers were evicted.
+     */
+    public Set<Query> invalidateMethods(Collection<SootMethod> changed) {
+        if (options.callSummaries() || options.fieldSummaries()) {
+            throw new IllegalStateException("Solvers share their summary automata and cannot be invalidated.");
+        }
+        queryToSolvers.lockExclusive();
+        try {
+            Set<Query> dependent = Sets.newHashSet();
+            if (!options.incrementalAnalysis()) {
+                // The solvers do not record the methods of their rules, any of them may depend on the changes
+                dependent.addAll(queryToSolvers.keySet());
+            } else {
+                for (Entry<Query, AbstractBoomerangSolver<W>> e : queryToSolvers.entrySet()) {
+                    for (SootMethod method : changed) {
+                        if (e.getValue().dependsOn(method)) {
+                            dependent.add(e.getKey());
+                            break;
+                        }
+                    }
+                }
+            }
+            if (resultCache != null) {
+                for (SootMethod method : changed) {
+                    resultCache.invalidate(method);
+                }
+            }
+            Set<Query> evicted = queryToSolvers.evictComponentsOf(dependent);
+            icfg().updateBodies(changed);
+            invalidatedSolvers.add(evicted.size());
+            logger.debug("{} changed methods invalidated {} solvers", changed.size(), evicted.size());
+            return evicted;
+        } finally {
+            queryToSolvers.exclusiveLock().unlock();
+        }
+    }
+
+    /**
+     * Answers the query from the {@link QueryResultCache} of this instance, or solves it and caches its answer unless
+     * it stopped early. Without a cache, see {@link BoomerangOptions#maxCachedResults()}, the query is always solved.
+     * An answer that stopped early reports so through {@link CachedBackwardResults#isTimedout()}.
+     */
+    public CachedBackwardResults solveCached(BackwardQuery query) {
+        QueryResultCache cache = getResultCache();
+        if (cache != null) {
+            CachedBackwardResults cached = cache.get(query);
+            if (cached != null) {
+                resultCacheHits.inc();
+                return cached;
+            }
+            resultCacheMisses.inc();
+        }
+        BackwardBoomerangResults<W> results = solve(query);
+        CachedBackwardResults answer = CachedBackwardResults.of(query, results);
+        if (cache != null && !results.isTimedout()) {
+            cache.put(answer, results.getVisitedMethods());
+        }
+        return answer;
+    }
+
+    /**
+     * @return The cache of {@link #solveCached(BackwardQuery)}, or null if {@link BoomerangOptions#maxCachedResults()}
+     *         disables it. Answers are invalidated when an {@link ObservableDynamicICFG} adds a call graph edge into or
+     *         out of a method their solvers visited.
+     */
+    public QueryResultCache getResultCache() {
+        if (resultCache != null || options.maxCachedResults() <= 0) {
+            return resultCache;
+        }
+        // Under the lock that invalidateMethods holds, which reads the cache as well
+        queryToSolvers.lockExclusive();
+        try {
+            if (resultCache == null) {
+                final QueryResultCache cache = new QueryResultCache(options.maxCachedResults());
+                if (icfg() instanceof ObservableDynamicICFG) {
+                    ((ObservableDynamicICFG) icfg()).addEdgeListener(new CallGraphEdgeListener<Unit, SootMethod>() {
+                        @Override
+                        public void onEdgeAdded(Unit callSite, SootMethod caller, SootMethod callee) {
+                            cache.onEdgeAdded(caller, callee);
+                        }
+                    });
+                }
+                resultCache = cache;
+            }
+            return resultCache;
+        } finally {
+            queryToSolvers.exclusiveLock().unlock();
+        }
+    }
+
     public BackwardBoomerangResults<W> solve(BackwardQuery query, boolean timing) {
-        if (timing && !analysisWatch.isRunning()) {
-            analysisWatch.start();
+        beginQuery(query);
+        try {
+            return doSolve(query, timing);
+        } finally {
+            endQuery();
         }
-        boolean timedout = false;
+    }
+
+    private BackwardBoomerangResults<W> doSolve(BackwardQuery query, boolean timing) {
+        if (timing) {
+            startAnalysisWatch();
+        }
+        CancellationToken.Reason stopReason;
         try {
+            Stopwatch queryWatch = Stopwatch.createStarted();
             logger.debug("Starting backward analysis of: {}", query);
             backwardSolve(query);
             logger.debug("Terminated backward analysis of: {}", query);
-        } catch (BoomerangTimeoutException e) {
-            timedout = true;
-            cleanup();
-            logger.debug("Timeout of query: {}", query);
-        }
-        if (timing && analysisWatch.isRunning()) {
-            analysisWatch.stop();
+            stopReason = stopReason();
+            if (stopReason != null) {
+                logger.debug("Stopped query {} early: {}", query, stopReason);
+            }
+            backwardQueryLatency.record(queryWatch.elapsed(TimeUnit.MILLISECONDS));
+        } finally {
+            if (timing) {
+                stopAnalysisWatch();
+            }
         }
 
-        return new BackwardBoomerangResults<W>(query, timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new BackwardBoomerangResults<W>(query, stopReason, this.queryToSolvers, getStats(),
+                currentAnalysisWatch());
     }
 
     protected void backwardSolve(BackwardQuery query) {
@@ -1276,7 +2029,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     protected void activateAllPois(SolverPair pair, INode<Node<Statement, Val>> start) {
         if (activatedPoi.put(pair, start)) {
-            Collection<ExecuteImportFieldStmtPOI<W>> listeners = poiListeners.get(pair);
+            poiActivations.inc();
+            Iterable<ExecuteImportFieldStmtPOI<W>> listeners = poiListeners.get(pair);
             for (ExecuteImportFieldStmtPOI<W> l : Lists.newArrayList(listeners)) {
                 l.trigger(start);
             }
@@ -1285,7 +2039,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     public void registerActivationListener(WeightedBoomerang<W>.SolverPair solverPair,
             ExecuteImportFieldStmtPOI<W> exec) {
-        Collection<INode<Node<Statement, Val>>> listeners = activatedPoi.get(solverPair);
+        Iterable<INode<Node<Statement, Val>>> listeners = activatedPoi.get(solverPair);
         for (INode<Node<Statement, Val>> node : Lists.newArrayList(listeners)) {
             exec.trigger(node);
         }
@@ -1358,15 +2112,31 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     protected abstract WeightFunctions<Statement, Val, Statement, W> getForwardCallWeights(ForwardQuery sourceQuery);
 
-    public DefaultValueMap<Query, AbstractBoomerangSolver<W>> getSolvers() {
+    /**
+     * The solvers by query. If the pool is bounded, only the solvers of the last query are guaranteed to be retained.
+     */
+    public SolverPool<W> getSolvers() {
         return queryToSolvers;
     }
 
+    /**
+     * The lock that excludes all queries of this instance, see {@link SolverPool#exclusiveLock()}. Clients that access
+     * the solvers directly while other threads solve further queries on the same instance must hold this lock.
+     */
+    public Lock getSolverLock() {
+        return queryToSolvers.exclusiveLock();
+    }
+
     public abstract Debugger<W> createDebugger();
 
     public void debugOutput() {
-        Debugger<W> debugger = getOrCreateDebugger();
-        debugger.done(queryToSolvers);
+        queryToSolvers.lockExclusive();
+        try {
+            Debugger<W> debugger = getOrCreateDebugger();
+            debugger.done(queryToSolvers);
+        } finally {
+            queryToSolvers.exclusiveLock().unlock();
+        }
     }
 
     public Debugger<W> getOrCreateDebugger() {
@@ -1383,35 +2153,91 @@ public abstract class WeightedBoomerang<W extends Weight> {
         return stats;
     }
 
+    /**
+     * Live counters of this instance: rules and transitions of all solvers, state listener registrations, points of
+     * indirection, call graph edges and query latencies. Unlike {@link #getStats()}, the metrics may be read while
+     * queries are being solved.
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops the periodic reporting configured by {@link BoomerangOptions#metricsReporter()}, after reporting a final
+     * snapshot. The reporter itself stays open for other solvers.
+     */
+    public void stopMetricsReporting() {
+        if (metricsReporting != null) {
+            metricsReporting.stop();
+            metricsReporting = null;
+        }
+    }
+
+    /**
+     * Cancels the asynchronous queries in flight, stops the threads solving them and stops the metrics reporting.
+     * Queries submitted with {@link #solveAsync(ForwardQuery)} afterwards run on new threads.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (asyncSolver != null) {
+                asyncSolver.shutdown();
+                asyncSolver = null;
+            }
+        }
+        stopMetricsReporting();
+    }
+
     public void onCreateSubSolver(Query key, AbstractBoomerangSolver<W> solver) {
         for (SolverCreationListener<W> l : solverCreationListeners) {
             l.onCreatedSolver(key, solver);
         }
     }
 
+    /**
+     * Replays the existing solvers to the listener. While a query is solved, those are the solvers the query owns, see
+     * {@link SolverPool#getOwnedSolvers()}, otherwise all of them.
+     */
     public void registerSolverCreationListener(SolverCreationListener<W> l) {
-        if(solverCreationListeners.add(l)) {
-          for(Entry<Query, AbstractBoomerangSolver<W>> e : Lists.newArrayList(queryToSolvers.entrySet())) {
-            l.onCreatedSolver(e.getKey(), e.getValue());
-          }
+        boolean inSession = queryToSolvers.inSession();
+        if (!inSession) {
+            queryToSolvers.lockExclusive();
+        }
+        try {
+            if (solverCreationListeners.add(l)) {
+                for (Entry<Query, AbstractBoomerangSolver<W>> e : Lists
+                        .newArrayList(queryToSolvers.getOwnedSolvers().entrySet())) {
+                    l.onCreatedSolver(e.getKey(), e.getValue());
+                }
+            }
+        } finally {
+            if (!inSession) {
+                queryToSolvers.exclusiveLock().unlock();
+            }
         }
     }
 
     public Table<Statement, Val, W> getResults(Query seed) {
-        final Table<Statement, Val, W> results = HashBasedTable.create();
-        WeightedPAutomaton<Statement, INode<Val>, W> fieldAut = queryToSolvers.getOrCreate(seed).getCallAutomaton();
-        for (Entry<Transition<Statement, INode<Val>>, W> e : fieldAut.getTransitionsToFinalWeights().entrySet()) {
-            Transition<Statement, INode<Val>> t = e.getKey();
-            W w = e.getValue();
-            if (t.getLabel().equals(Statement.epsilon()))
-                continue;
-            if (t.getStart().fact().value() instanceof Local
-                    && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
-                continue;
-            if (t.getLabel().getUnit().isPresent())
-                results.put(t.getLabel(), t.getStart().fact(), w);
-        }
-        return results;
+        configureSolvers();
+        queryToSolvers.beginRead(seed);
+        try {
+            final Table<Statement, Val, W> results = HashBasedTable.create();
+            WeightedPAutomaton<Statement, INode<Val>, W> fieldAut = queryToSolvers.getOrSolve(seed)
+                    .getCallAutomaton();
+            for (Entry<Transition<Statement, INode<Val>>, W> e : fieldAut.getTransitionsToFinalWeights().entrySet()) {
+                Transition<Statement, INode<Val>> t = e.getKey();
+                W w = e.getValue();
+                if (t.getLabel().equals(Statement.epsilon()))
+                    continue;
+                if (t.getStart().fact().value() instanceof Local
+                        && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
+                    continue;
+                if (t.getLabel().getUnit().isPresent())
+                    results.put(t.getLabel(), t.getStart().fact(), w);
+            }
+            return results;
+        } finally {
+            queryToSolvers.endRead();
+        }
     }
 
     public BoomerangOptions getOptions() {
@@ -65,11 +65,23 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
                 public ObservableICFG<Unit, SootMethod> icfg() {
                     return new ObservableStaticICFG(new BoomerangICFG(false));
                 }
+
+                @Override
+                protected int seedThreads() {
+                    return WholeProgramBoomerang.this.seedThreads();
+                }
             };
         }
         return seedFactory;
     }
 
+    /**
+     * Number of threads on which the method bodies are scanned for allocation sites.
+     */
+    protected int seedThreads() {
+        return 1;
+    }
+
     public void wholeProgramAnalysis() {
         long before = System.currentTimeMillis();
 
@@ -1,5 +1,7 @@
 package boomerang.callgraph;
 
+import com.google.common.base.Predicate;
+
 import soot.SootMethod;
 import soot.Unit;
 import soot.Value;
@@ -101,6 +103,11 @@ public class BackwardsObservableICFG implements ObservableICFG<Unit, SootMethod>
         delegate.addCallerListener(listener);
     }
 
+    @Override
+    public void removeListeners(Predicate<Object> filter) {
+        delegate.removeListeners(filter);
+    }
+
  
     @Override
     public void addUnbalancedMethod(SootMethod method) {
@@ -122,4 +129,9 @@ public class BackwardsObservableICFG implements ObservableICFG<Unit, SootMethod>
         delegate.resetCallGraph();
     }
 
+    @Override
+    public void updateBodies(Collection<SootMethod> methods) {
+        delegate.updateBodies(methods);
+    }
+
 }
@@ -1,10 +1,41 @@
 package boomerang.callgraph;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import soot.Body;
+import soot.SootMethod;
+import soot.Unit;
 import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
 
+/**
+ * The ICFG may be read by several threads, e.g. by concurrent IDEal seeds. The unit graphs, parameter refs, call sites,
+ * callees and callers are kept in the Guava loading caches of the super classes, which are thread-safe. The unit to
+ * owner mapping is a concurrent map, as it is updated for new bodies while other threads read it.
+ */
 public class BoomerangICFG extends JimpleBasedInterproceduralCFG {
 	public BoomerangICFG(boolean enableException) {
 		super(enableException);
 		this.includePhantomCallees = true;
 	}
+
+	@Override
+	protected Map<Unit, Body> createUnitToOwnerMap() {
+		return new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public Body getBodyOf(Unit u) {
+		// The concurrent map rejects null keys
+		return u == null ? null : super.getBodyOf(u);
+	}
+
+	/**
+	 * Maps the units of the active body of the method to it and drops what was derived from its previous body.
+	 */
+	public void updateBody(SootMethod method) {
+		initializeUnitToOwner(method);
+		methodToParameterRefs.invalidate(method);
+		methodToCallsFromWithin.invalidate(method);
+	}
 }
@@ -0,0 +1,336 @@
+package boomerang.callgraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import soot.Kind;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * The callees of the call sites an {@link ObservableDynamicICFG} resolved with demand-driven queries, tied to a
+ * fingerprint of the program they were computed for. A cache is kept across {@link ObservableICFG#resetCallGraph()},
+ * and it can be written to a compact binary file and read back by a later run: if the program did not change, the
+ * call sites found in the cache take their callees from it and are not queried for again.
+ *
+ * The file stores every string once and refers to call sites by the signature of their method and their position in
+ * its body.
+ */
+public class CallGraphCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallGraphCache.class);
+
+    private static final int MAGIC = 0x42434743;
+    private static final int VERSION = 1;
+
+    private static final Kind[] KINDS = { Kind.INVALID, Kind.STATIC, Kind.VIRTUAL, Kind.INTERFACE, Kind.SPECIAL,
+            Kind.CLINIT, Kind.THREAD, Kind.EXECUTOR, Kind.ASYNCTASK, Kind.FINALIZE, Kind.HANDLER, Kind.INVOKE_FINALIZE,
+            Kind.PRIVILEGED, Kind.NEWINSTANCE, Kind.REFL_INVOKE, Kind.REFL_CONSTR_NEWINSTANCE,
+            Kind.REFL_CLASS_NEWINSTANCE };
+
+    private final long fingerprint;
+    private final Map<Unit, Set<Callee>> resolvedCallSites = new HashMap<>();
+    private final Map<Unit, SootMethod> callers = new HashMap<>();
+
+    private CallGraphCache(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * An empty cache for the program currently loaded into the {@link Scene}.
+     */
+    public static CallGraphCache forProgram() {
+        return new CallGraphCache(fingerprint());
+    }
+
+    /**
+     * Reads the cache stored in the file. Returns an empty cache for the program currently loaded into the
+     * {@link Scene} if the file does not exist, cannot be read or was written for a different program.
+     */
+    public static CallGraphCache read(File file) {
+        CallGraphCache cache = forProgram();
+        if (!file.exists()) {
+            return cache;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("Ignoring call graph cache {}, unknown format", file);
+                return cache;
+            }
+            if (in.readLong() != cache.fingerprint) {
+                logger.info("Ignoring call graph cache {}, it was computed for a different program", file);
+                return cache;
+            }
+            cache.readCallSites(in);
+            logger.debug("Read {} resolved call sites from {}", cache.size(), file);
+        } catch (IOException e) {
+            logger.warn("Could not read call graph cache " + file, e);
+            cache.resolvedCallSites.clear();
+            cache.callers.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Writes the cache to the file, replacing its contents.
+     */
+    public void write(File file) {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            writeCallSites(out);
+        } catch (IOException e) {
+            logger.warn("Could not write call graph cache " + file, e);
+        }
+    }
+
+    /**
+     * The number of resolved call sites in the cache.
+     */
+    public int size() {
+        return resolvedCallSites.size();
+    }
+
+    boolean isResolved(Unit callSite) {
+        return resolvedCallSites.containsKey(callSite);
+    }
+
+    Collection<Callee> getCallees(Unit callSite) {
+        Set<Callee> callees = resolvedCallSites.get(callSite);
+        return callees == null ? Collections.<Callee> emptySet() : callees;
+    }
+
+    /**
+     * Records the edges out of the call site as its complete set of callees.
+     */
+    void putResolved(SootMethod caller, Unit callSite, Iterator<Edge> edgesOut) {
+        Set<Callee> callees = new LinkedHashSet<>();
+        while (edgesOut.hasNext()) {
+            Edge edge = edgesOut.next();
+            callees.add(new Callee(edge.tgt(), edge.kind()));
+        }
+        resolvedCallSites.put(callSite, callees);
+        callers.put(callSite, caller);
+    }
+
+    private void writeCallSites(DataOutputStream out) throws IOException {
+        Map<SootMethod, Map<Integer, Set<Callee>>> byMethod = new LinkedHashMap<>();
+        Map<SootMethod, Map<Unit, Integer>> positions = new HashMap<>();
+        for (Entry<Unit, Set<Callee>> e : resolvedCallSites.entrySet()) {
+            SootMethod caller = callers.get(e.getKey());
+            Map<Unit, Integer> index = positions.get(caller);
+            if (index == null) {
+                index = new HashMap<>();
+                for (Unit u : caller.getActiveBody().getUnits()) {
+                    index.put(u, index.size());
+                }
+                positions.put(caller, index);
+                byMethod.put(caller, new LinkedHashMap<Integer, Set<Callee>>());
+            }
+            byMethod.get(caller).put(index.get(e.getKey()), e.getValue());
+        }
+
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (Entry<SootMethod, Map<Integer, Set<Callee>>> e : byMethod.entrySet()) {
+            intern(e.getKey().getSignature(), strings);
+            for (Set<Callee> callees : e.getValue().values()) {
+                for (Callee callee : callees) {
+                    intern(callee.method.getSignature(), strings);
+                    intern(callee.kind.name(), strings);
+                }
+            }
+        }
+        out.writeInt(strings.size());
+        for (String s : strings.keySet()) {
+            out.writeUTF(s);
+        }
+        out.writeInt(byMethod.size());
+        for (Entry<SootMethod, Map<Integer, Set<Callee>>> e : byMethod.entrySet()) {
+            out.writeInt(strings.get(e.getKey().getSignature()));
+            out.writeInt(e.getValue().size());
+            for (Entry<Integer, Set<Callee>> callSite : e.getValue().entrySet()) {
+                out.writeInt(callSite.getKey());
+                out.writeInt(callSite.getValue().size());
+                for (Callee callee : callSite.getValue()) {
+                    out.writeInt(strings.get(callee.method.getSignature()));
+                    out.writeInt(strings.get(callee.kind.name()));
+                }
+            }
+        }
+    }
+
+    private void readCallSites(DataInputStream in) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        Map<String, Kind> kinds = Maps.newHashMap();
+        for (Kind kind : KINDS) {
+            kinds.put(kind.name(), kind);
+        }
+        int methods = in.readInt();
+        for (int i = 0; i < methods; i++) {
+            SootMethod method = Scene.v().grabMethod(strings[in.readInt()]);
+            List<Unit> units = method != null && method.hasActiveBody()
+                    ? Lists.newArrayList(method.getActiveBody().getUnits())
+                    : Collections.<Unit> emptyList();
+            int callSites = in.readInt();
+            for (int j = 0; j < callSites; j++) {
+                int position = in.readInt();
+                Set<Callee> callees = new LinkedHashSet<>();
+                boolean complete = position < units.size();
+                int calleeCount = in.readInt();
+                for (int k = 0; k < calleeCount; k++) {
+                    SootMethod callee = Scene.v().grabMethod(strings[in.readInt()]);
+                    Kind kind = kinds.get(strings[in.readInt()]);
+                    if (callee == null || kind == null) {
+                        complete = false;
+                    } else {
+                        callees.add(new Callee(callee, kind));
+                    }
+                }
+                if (complete) {
+                    resolvedCallSites.put(units.get(position), callees);
+                    callers.put(units.get(position), method);
+                }
+            }
+        }
+    }
+
+    private static void intern(String s, Map<String, Integer> strings) {
+        if (!strings.containsKey(s)) {
+            strings.put(s, strings.size());
+        }
+    }
+
+    /**
+     * Hashes the signatures and bodies of the reachable methods and the hierarchy of the application classes, which
+     * determine the callees the demand-driven queries find.
+     */
+    private static long fingerprint() {
+        List<SootMethod> methods = new ArrayList<>();
+        for (Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext();) {
+            methods.add(iter.next().method());
+        }
+        Collections.sort(methods, new Comparator<SootMethod>() {
+            @Override
+            public int compare(SootMethod m1, SootMethod m2) {
+                return m1.getSignature().compareTo(m2.getSignature());
+            }
+        });
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (SootMethod m : methods) {
+            hasher.putString(m.getSignature(), StandardCharsets.UTF_8);
+            if (m.hasActiveBody()) {
+                for (Unit u : m.getActiveBody().getUnits()) {
+                    hasher.putString(u.toString(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        List<SootClass> classes = new ArrayList<>(Scene.v().getApplicationClasses());
+        Collections.sort(classes, new Comparator<SootClass>() {
+            @Override
+            public int compare(SootClass c1, SootClass c2) {
+                return c1.getName().compareTo(c2.getName());
+            }
+        });
+        for (SootClass c : classes) {
+            hasher.putString(c.getName(), StandardCharsets.UTF_8);
+            if (c.hasSuperclass()) {
+                hasher.putString(c.getSuperclass().getName(), StandardCharsets.UTF_8);
+            }
+            for (SootClass i : c.getInterfaces()) {
+                hasher.putString(i.getName(), StandardCharsets.UTF_8);
+            }
+            for (SootMethod m : c.getMethods()) {
+                hasher.putString(m.getSubSignature(), StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    static class Callee {
+        private final SootMethod method;
+        private final Kind kind;
+
+        private Callee(SootMethod method, Kind kind) {
+            this.method = method;
+            this.kind = kind;
+        }
+
+        SootMethod getMethod() {
+            return method;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((kind == null) ? 0 : kind.hashCode());
+            result = prime * result + ((method == null) ? 0 : method.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Callee other = (Callee) obj;
+            if (kind == null) {
+                if (other.kind != null)
+                    return false;
+            } else if (!kind.equals(other.kind))
+                return false;
+            if (method == null) {
+                if (other.method != null)
+                    return false;
+            } else if (!method.equals(other.method))
+                return false;
+            return true;
+        }
+    }
+}
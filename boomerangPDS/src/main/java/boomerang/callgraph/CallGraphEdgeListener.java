@@ -0,0 +1,10 @@
+package boomerang.callgraph;
+
+/**
+ * Notified of every edge added to the call graph of an {@link ObservableDynamicICFG}, regardless of its caller or
+ * callee.
+ */
+public interface CallGraphEdgeListener<N, M> {
+
+    void onEdgeAdded(N callSite, M caller, M callee);
+}
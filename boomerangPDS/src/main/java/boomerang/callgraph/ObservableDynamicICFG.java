@@ -1,5 +1,6 @@
 package boomerang.callgraph;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -8,16 +9,16 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Predicate;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import boomerang.BackwardQuery;
 import boomerang.Boomerang;
@@ -27,6 +28,7 @@ import boomerang.SolverCreationListener;
 import boomerang.WeightedBoomerang;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
+import boomerang.results.BackwardBoomerangResults;
 import boomerang.results.ExtractAllocationSiteStateListener;
 import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.ForwardBoomerangSolver;
@@ -57,6 +59,7 @@ import soot.toolkits.graph.DirectedGraph;
 import soot.toolkits.graph.ExceptionalUnitGraph;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
+import wpds.impl.ListenerMultimap;
 import wpds.impl.Weight;
 
 /**
@@ -160,9 +163,15 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     private CallGraph precomputedCallGraph;
     private WeightedBoomerang<? extends Weight> solver;
     private Set<SootMethod> unbalancedMethods = Sets.newHashSet();
+    private CallGraphCache callGraphCache;
+    private Set<Unit> queriedCallSites = Sets.newHashSet();
+    private Set<Unit> cachedCallSites = Sets.newHashSet();
+    private Set<SootMethod> changedMethods = Sets.newHashSet();
+    private long stoppedQueriesAtReset;
 
-    private Multimap<Unit, CalleeListener<Unit, SootMethod>> calleeListeners = HashMultimap.create();
-    private Multimap<SootMethod, CallerListener<Unit, SootMethod>> callerListeners = HashMultimap.create();
+    private ListenerMultimap<Unit, CalleeListener<Unit, SootMethod>> calleeListeners = new ListenerMultimap<>();
+    private ListenerMultimap<SootMethod, CallerListener<Unit, SootMethod>> callerListeners = new ListenerMultimap<>();
+    private final List<CallGraphEdgeListener<Unit, SootMethod>> edgeListeners = new CopyOnWriteArrayList<>();
 
     private final boolean enableExceptions;
 
@@ -287,6 +296,12 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
                 // If it was a special invoke, there is a single target
                 addCallIfNotInGraph(unit, ie.getMethod(), Kind.SPECIAL);
                 // If the precomputed graph has more edges than our graph, there may be more edges to find
+            } else if (callGraphCache != null && callGraphCache.isResolved(unit)) {
+                // The callees were found by the queries of an earlier run or seed
+                addCachedCallees(unit);
+            } else if (changedMethods.contains(getMethodOf(unit))) {
+                // The precomputed graph has no edges out of the call sites of a changed body
+                queryForCallees(unit);
             } else if (precomputedCallGraph != null && potentiallyHasMoreEdges(precomputedCallGraph.edgesOutOf(unit),
                     demandDrivenCallGraph.edgesOutOf(unit))) {
                 // Query for callees of the unit and add edges to the graph
@@ -305,13 +320,15 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         InvokeExpr invokeExpr = stmt.getInvokeExpr();
         Value value = ((InstanceInvokeExpr) invokeExpr).getBase();
         Val val = new Val(value, getMethodOf(stmt));
+        boolean resolved = true;
         for (Unit pred : getPredsOf(stmt)) {
             Statement statement = new Statement((Stmt) pred, getMethodOf(unit));
 
             BackwardQuery query = new BackwardQuery(statement, val);
 
             // Execute that query
-            solver.solve(query, false);
+            BackwardBoomerangResults<? extends Weight> results = solver.solve(query, false);
+            resolved &= !results.isTimedout();
             forAnyAllocationSiteOfQuery(query, invokeExpr, stmt);
             
             // Go through possible types an add edges to implementations in possible types
@@ -331,6 +348,20 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
 //                }
 //            }
         }
+        if (resolved) {
+            queriedCallSites.add(unit);
+        }
+    }
+
+    private void addCachedCallees(Unit unit) {
+        if (!cachedCallSites.add(unit)) {
+            return;
+        }
+        logger.debug("Took callees of '{}' from the call graph cache.", unit);
+        solver.getMetrics().counter("callGraph.cachedCallSites").inc();
+        for (CallGraphCache.Callee callee : callGraphCache.getCallees(unit)) {
+            addCallIfNotInGraph(unit, callee.getMethod(), callee.getKind());
+        }
     }
 
     
@@ -394,6 +425,20 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         }
     }
 
+    /**
+     * Registers a listener for every edge added to the call graph from now on. Unlike callee and caller listeners, it
+     * is not notified of the edges already in the graph and is kept by {@link #resetCallGraph()}.
+     */
+    public void addEdgeListener(CallGraphEdgeListener<Unit, SootMethod> listener) {
+        edgeListeners.add(listener);
+    }
+
+    @Override
+    public void removeListeners(Predicate<Object> filter) {
+        calleeListeners.removeIf(filter);
+        callerListeners.removeIf(filter);
+    }
+
     private boolean potentiallyHasMoreEdges(Iterator<Edge> chaEdgeIterator, Iterator<Edge> knownEdgeIterator) {
         // Make a map checking for every edge in the CHA call graph whether it is in the known edges
 
@@ -431,7 +476,7 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         Iterator<Edge> precomputedCallers = precomputedCallGraph.edgesInto(sootMethod);
         while (precomputedCallers.hasNext()) {
             Edge methodCall = precomputedCallers.next();
-            if (methodCall.srcUnit() == null)
+            if (methodCall.srcUnit() == null || !unitToOwner.containsKey(methodCall.srcUnit()))
                 continue;
             callers.add(methodCall.srcUnit());
             unbalancedMethods.add(methodCall.src());
@@ -453,15 +498,19 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
             return false;
         }
         logger.debug("Added call from unit '{}' to method '{}'", caller, callee);
+        solver.getMetrics().counter("callGraph.edges").inc();
         // Notify all interested listeners, so ..
         // .. CalleeListeners interested in callees of the caller or the CallGraphExtractor that is interested in any
-        for (CalleeListener<Unit, SootMethod> listener : Lists.newArrayList(calleeListeners.get(caller))) {
+        for (CalleeListener<Unit, SootMethod> listener : calleeListeners.get(caller)) {
             listener.onCalleeAdded(caller, callee);
         }
         // .. CallerListeners interested in callers of the callee or the CallGraphExtractor that is interested in any
-        for (CallerListener<Unit, SootMethod> listener : Lists.newArrayList(callerListeners.get(callee))) {
+        for (CallerListener<Unit, SootMethod> listener : callerListeners.get(callee)) {
             listener.onCallerAdded(caller, callee);
         }
+        for (CallGraphEdgeListener<Unit, SootMethod> listener : edgeListeners) {
+            listener.onEdgeAdded(caller, edge.src(), callee);
+        }
         return true;
     }
 
@@ -570,8 +619,55 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         return numberOfEdgesTakenFromPrecomputedCallGraph;
     }
 
+    /**
+     * Takes the callees of the call sites resolved in the cache from it instead of querying for them, and records the
+     * call sites this graph resolves in the cache whenever the call graph is reset or saved.
+     */
+    public void setCallGraphCache(CallGraphCache callGraphCache) {
+        this.callGraphCache = callGraphCache;
+    }
+
+    public CallGraphCache getCallGraphCache() {
+        return callGraphCache;
+    }
+
+    /**
+     * Records the call sites resolved so far in the call graph cache, creating one if none was set, and writes it to
+     * the file. Should only be called between queries, when the callees found for the call sites are complete.
+     */
+    public void saveCallGraphCache(File file) {
+        if (callGraphCache == null) {
+            callGraphCache = CallGraphCache.forProgram();
+        }
+        storeResolvedCallSites();
+        callGraphCache.write(file);
+    }
+
+    private void storeResolvedCallSites() {
+        if (callGraphCache == null) {
+            return;
+        }
+        if (stoppedQueries() > stoppedQueriesAtReset) {
+            // A query that timed out or was decided may have stopped the propagation that finds further callees
+            logger.debug("Not caching the call sites, a query stopped early.");
+            return;
+        }
+        for (Unit unit : queriedCallSites) {
+            callGraphCache.putResolved(getMethodOf(unit), unit, demandDrivenCallGraph.edgesOutOf(unit));
+        }
+    }
+
+    private long stoppedQueries() {
+        return solver.getMetrics().counter("queries.timedOut").get()
+                + solver.getMetrics().counter("queries.decided").get();
+    }
+
     @Override
     public void resetCallGraph() {
+        storeResolvedCallSites();
+        queriedCallSites.clear();
+        cachedCallSites.clear();
+        stoppedQueriesAtReset = stoppedQueries();
         demandDrivenCallGraph = new CallGraph();
         numberOfEdgesTakenFromPrecomputedCallGraph = 0;
         unbalancedMethods.clear();
@@ -579,4 +675,45 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         callerListeners.clear();
     }
 
+    /**
+     * Also removes the edges out of the previous call sites of the methods. The call graph cache was computed for the
+     * previous bodies and is detached.
+     */
+    @Override
+    public void updateBodies(Collection<SootMethod> methods) {
+        Set<SootMethod> changed = Sets.newHashSet(methods);
+        Iterator<Entry<Unit, Body>> owners = unitToOwner.entrySet().iterator();
+        while (owners.hasNext()) {
+            Entry<Unit, Body> e = owners.next();
+            SootMethod method = e.getValue().getMethod();
+            if (!changed.contains(method)) {
+                continue;
+            }
+            if (!method.hasActiveBody() || method.getActiveBody() != e.getValue()
+                    || !e.getValue().getUnits().contains(e.getKey())) {
+                owners.remove();
+                bodyToUnitGraph.invalidate(e.getValue());
+                demandDrivenCallGraph.removeAllEdgesOutOf(e.getKey());
+                queriedCallSites.remove(e.getKey());
+                cachedCallSites.remove(e.getKey());
+            }
+        }
+        for (SootMethod method : changed) {
+            if (method.hasActiveBody()) {
+                Body body = method.getActiveBody();
+                for (Unit unit : body.getUnits()) {
+                    unitToOwner.put(unit, body);
+                }
+                bodyToUnitGraph.invalidate(body);
+            }
+            methodToParameterRefs.invalidate(method);
+            methodToCallsFromWithin.invalidate(method);
+        }
+        changedMethods.addAll(changed);
+        if (callGraphCache != null) {
+            logger.debug("Detached the call graph cache, the bodies of {} methods changed.", changed.size());
+            callGraphCache = null;
+        }
+    }
+
 }
@@ -1,5 +1,7 @@
 package boomerang.callgraph;
 
+import com.google.common.base.Predicate;
+
 import soot.SootMethod;
 import soot.Unit;
 import soot.Value;
@@ -13,6 +15,13 @@ import java.util.Set;
 /**
  * An interprocedural control-flow graph, for which caller-callee edges can be observed using {@link CalleeListener} and
  * {@link CallerListener}. Can be used for demand-driven call graph generation.
+ * <p>
+ * Threading: listeners are notified on the thread that discovers the edge, while it still holds whatever lock it
+ * acquired to do so. A {@link boomerang.WeightedBoomerang} only calls into its ICFG while holding its solver lock, so
+ * an ICFG used by a single Boomerang instance may be accessed from several querying threads without further
+ * synchronization. An ICFG shared between several instances that solve concurrently must be safe for concurrent use
+ * and must not report edges to listeners of another instance, which is why only {@link ObservableStaticICFG} may be
+ * shared that way; an {@link ObservableDynamicICFG} is bound to the Boomerang instance that drives it.
  *
  * @param <N>
  *            Nodes in the CFG, typically {@link Unit} or {@link Block}
@@ -48,6 +57,12 @@ public interface ObservableICFG<N, M> {
      */
     void addCallerListener(CallerListener<N, M> listener);
 
+    /**
+     * Unregisters the callee and caller listeners that match the filter, e.g. those of a solver that was evicted. Has
+     * no effect for call graphs that do not retain listeners.
+     */
+    void removeListeners(Predicate<Object> filter);
+
     /**
      * Returns all precomputed callers for a given method. Behaviour from {@link #addCalleeListener(CalleeListener)}
      * only differs when using dynamic call graph.
@@ -123,4 +138,11 @@ public interface ObservableICFG<N, M> {
      */
     void resetCallGraph();
 
+    /**
+     * Drops what was derived from the previous bodies of the methods after their active bodies were replaced, e.g. by
+     * a change to the program. The statements of the new bodies are mapped to their methods and their call sites are
+     * resolved when they are observed.
+     */
+    void updateBodies(Collection<M> methods);
+
 }
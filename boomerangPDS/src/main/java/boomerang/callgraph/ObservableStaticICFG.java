@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import com.google.common.base.Predicate;
 import com.google.common.collect.Sets;
 
 /**
@@ -28,7 +29,7 @@ public class ObservableStaticICFG implements ObservableICFG<Unit, SootMethod> {
      * Wrapped static ICFG. If available, this is used to handle all queries.
      */
     private BoomerangICFG precomputedGraph;
-    private Set<SootMethod> unbalancedMethods = Sets.newHashSet();
+    private Set<SootMethod> unbalancedMethods = Sets.newConcurrentHashSet();
 
     public ObservableStaticICFG(BoomerangICFG icfg) {
         this.precomputedGraph = icfg;
@@ -63,6 +64,11 @@ public class ObservableStaticICFG implements ObservableICFG<Unit, SootMethod> {
         }
     }
 
+    @Override
+    public void removeListeners(Predicate<Object> filter) {
+        // Listeners are notified on registration and not retained
+    }
+
     @Override
     public Collection<Unit> getAllPrecomputedCallers(SootMethod sootMethod) {
         for(Unit u : precomputedGraph.getCallersOf(sootMethod)) {
@@ -166,4 +172,15 @@ public class ObservableStaticICFG implements ObservableICFG<Unit, SootMethod> {
     public void resetCallGraph() {
         // Static call graph does not need to be reset, ignore this
     }
+
+    /**
+     * The precomputed call graph is not updated, a call site of a new body only has callees if the client added its
+     * edges to the call graph of the {@link soot.Scene}.
+     */
+    @Override
+    public void updateBodies(Collection<SootMethod> methods) {
+        for (SootMethod method : methods) {
+            precomputedGraph.updateBody(method);
+        }
+    }
 }
@@ -11,7 +11,7 @@
  *******************************************************************************/
 package boomerang.jimple;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.collect.Maps;
 
@@ -181,13 +181,15 @@ public class Field implements Location {
 
     }
 
-    private static Map<Field, ExclusionWildcardField> exclusionWildcards = Maps.newHashMap();
+    private static ConcurrentMap<Field, ExclusionWildcardField> exclusionWildcards = Maps.newConcurrentMap();
 
     public static Field exclusionWildcard(Field exclusion) {
-        if (!exclusionWildcards.containsKey(exclusion)) {
-            exclusionWildcards.put(exclusion, new ExclusionWildcardField(exclusion));
+        ExclusionWildcardField wildcard = exclusionWildcards.get(exclusion);
+        if (wildcard == null) {
+            exclusionWildcards.putIfAbsent(exclusion, new ExclusionWildcardField(exclusion));
+            wildcard = exclusionWildcards.get(exclusion);
         }
-        return exclusionWildcards.get(exclusion);
+        return wildcard;
     }
 
     public SootField getSootField() {
@@ -0,0 +1,339 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.jimple;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+
+import boomerang.solver.BoomerangArena;
+import soot.Body;
+import soot.Local;
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import sync.pds.solver.nodes.GeneratedState;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.interfaces.SummaryCodec;
+
+/**
+ * Encodes the call summaries of Boomerang's solvers for a {@link wpds.impl.PersistentSummaryStore}. Statements are
+ * stored as the signature of their method and their index in its body, locals by their name. A summary depends on the
+ * methods its statements and facts stem from, and on those of the summaries of its callees. The fingerprint of a method
+ * is the SHA-256 hash of its current body, computed once per store load. Decoded states and
+ * statements are taken from the arena of the solvers they are imported into.
+ * 
+ * Summaries over facts other than locals, static fields and the zero value are not stored.
+ */
+public abstract class JimpleSummaryCodec<W extends Weight> implements SummaryCodec<Statement, INode<Val>, W> {
+
+    private static final int EPSILON = 0;
+    private static final int STATEMENT = 1;
+
+    private static final int SINGLE_NODE = 0;
+    private static final int GENERATED_STATE = 1;
+
+    private static final int ZERO = 0;
+    private static final int LOCAL = 1;
+    private static final int ALLOCATION = 2;
+    private static final int STATIC_FIELD = 3;
+
+    private final BoomerangArena arena;
+    private final Map<Body, List<Unit>> units = Maps.newHashMap();
+    private final Map<Body, Map<Unit, Integer>> unitIndices = Maps.newHashMap();
+    private final Map<Body, Map<String, Local>> locals = Maps.newHashMap();
+    private final Map<String, String> fingerprints = Maps.newHashMap();
+
+    public JimpleSummaryCodec(BoomerangArena arena) {
+        this.arena = arena;
+    }
+
+    @Override
+    public String key(INode<Val> target) {
+        if (!(target instanceof GeneratedState))
+            return null;
+        GeneratedState<Val, Statement> state = (GeneratedState<Val, Statement>) target;
+        if (!(state.node() instanceof SingleNode))
+            return null;
+        Statement entry = state.location();
+        Val fact = state.node().fact();
+        if (!entry.getUnit().isPresent() || !isStorable(fact) || unitIndex(entry) < 0)
+            return null;
+        StringBuilder key = new StringBuilder(entry.getMethod().getSignature());
+        key.append('#').append(unitIndex(entry)).append(' ');
+        if (fact.equals(Val.zero())) {
+            key.append("zero");
+        } else if (fact.isStatic()) {
+            key.append(((StaticFieldVal) fact).field().getSignature()).append(' ').append(fact.m().getSignature());
+        } else {
+            key.append(fact.m().getSignature()).append(' ').append(((Local) fact.value()).getName());
+        }
+        if (fact.isUnbalanced()) {
+            if (unitIndex(fact.unbalancedStmt) < 0)
+                return null;
+            key.append(" unbalanced ").append(fact.unbalancedStmt.getMethod().getSignature()).append('#')
+                    .append(unitIndex(fact.unbalancedStmt));
+        }
+        return key.toString();
+    }
+
+    private static boolean isStorable(Val fact) {
+        if (fact.equals(Val.zero()))
+            return true;
+        if (fact instanceof StaticFieldVal)
+            return fact.m() != null;
+        return fact.getClass() == Val.class && fact.value() instanceof Local;
+    }
+
+    @Override
+    public Collection<String> dependencies(Transition<Statement, INode<Val>> trans) {
+        Set<SootMethod> methods = Sets.newHashSet();
+        addMethods(trans.getStart(), methods);
+        addMethods(trans.getTarget(), methods);
+        if (trans.getLabel().getMethod() != null)
+            methods.add(trans.getLabel().getMethod());
+        List<String> dependencies = Lists.newArrayList();
+        for (SootMethod m : methods) {
+            dependencies.add(m.getSignature());
+        }
+        return dependencies;
+    }
+
+    private static void addMethods(INode<Val> state, Set<SootMethod> methods) {
+        if (state instanceof GeneratedState) {
+            GeneratedState<Val, Statement> generated = (GeneratedState<Val, Statement>) state;
+            addMethods(generated.node(), methods);
+            if (generated.location().getMethod() != null)
+                methods.add(generated.location().getMethod());
+            return;
+        }
+        Val fact = state.fact();
+        if (fact.m() != null)
+            methods.add(fact.m());
+        if (fact.isUnbalanced())
+            methods.add(fact.unbalancedStmt.getMethod());
+        if (fact instanceof AllocVal)
+            methods.add(((AllocVal) fact).allocationStatement().getMethod());
+    }
+
+    @Override
+    public String fingerprint(String dependency) {
+        if (fingerprints.containsKey(dependency))
+            return fingerprints.get(dependency);
+        SootMethod method = Scene.v().grabMethod(dependency);
+        String fingerprint = null;
+        if (method != null && method.hasActiveBody())
+            fingerprint = Hashing.sha256().hashString(method.getActiveBody().toString(), StandardCharsets.UTF_8)
+                    .toString();
+        fingerprints.put(dependency, fingerprint);
+        return fingerprint;
+    }
+
+    @Override
+    public void clearFingerprints() {
+        fingerprints.clear();
+    }
+
+    @Override
+    public void writeState(INode<Val> state, DataOutput out) throws IOException {
+        if (state instanceof GeneratedState) {
+            GeneratedState<Val, Statement> generated = (GeneratedState<Val, Statement>) state;
+            out.writeByte(GENERATED_STATE);
+            writeState(generated.node(), out);
+            writeLocation(generated.location(), out);
+        } else if (state instanceof SingleNode) {
+            out.writeByte(SINGLE_NODE);
+            writeVal(state.fact(), out);
+        } else {
+            throw new IOException("Cannot store state " + state);
+        }
+    }
+
+    @Override
+    public INode<Val> readState(DataInput in) throws IOException {
+        switch (in.readByte()) {
+        case GENERATED_STATE:
+            INode<Val> node = readState(in);
+            return arena.callState(node, readLocation(in));
+        case SINGLE_NODE:
+            return arena.singleNode(readVal(in));
+        default:
+            throw new IOException("Unknown state");
+        }
+    }
+
+    private void writeVal(Val fact, DataOutput out) throws IOException {
+        if (fact.equals(Val.zero())) {
+            out.writeByte(ZERO);
+            return;
+        }
+        if (fact instanceof StaticFieldVal && fact.m() != null) {
+            out.writeByte(STATIC_FIELD);
+            out.writeUTF(((StaticFieldVal) fact).field().getSignature());
+            out.writeUTF(fact.m().getSignature());
+        } else if (fact instanceof AllocVal && fact.value() instanceof Local) {
+            AllocVal alloc = (AllocVal) fact;
+            out.writeByte(ALLOCATION);
+            writeLocal(fact, out);
+            writeLocation(alloc.allocationStatement(), out);
+            out.writeInt(boxIndex(alloc.allocationStatement(), alloc.allocationValue()));
+        } else if (fact.getClass() == Val.class && fact.value() instanceof Local) {
+            out.writeByte(LOCAL);
+            writeLocal(fact, out);
+        } else {
+            throw new IOException("Cannot store fact " + fact);
+        }
+        out.writeBoolean(fact.isUnbalanced());
+        if (fact.isUnbalanced())
+            writeLocation(fact.unbalancedStmt, out);
+    }
+
+    private Val readVal(DataInput in) throws IOException {
+        Val fact;
+        switch (in.readByte()) {
+        case ZERO:
+            return Val.zero();
+        case STATIC_FIELD:
+            SootField field = Scene.v().grabField(in.readUTF());
+            SootMethod m = method(in.readUTF());
+            if (field == null)
+                throw new IOException("Unknown field");
+            fact = new StaticFieldVal(Jimple.v().newStaticFieldRef(field.makeRef()), field, m);
+            break;
+        case ALLOCATION:
+            SootMethod allocMethod = method(in.readUTF());
+            Local local = local(allocMethod, in.readUTF());
+            Statement allocStmt = readLocation(in);
+            List<ValueBox> boxes = allocStmt.getUnit().get().getUseAndDefBoxes();
+            int box = in.readInt();
+            if (box < 0 || box >= boxes.size())
+                throw new IOException("Unknown allocation value");
+            fact = new AllocVal(local, allocMethod, boxes.get(box).getValue(), allocStmt);
+            break;
+        case LOCAL:
+            SootMethod localMethod = method(in.readUTF());
+            fact = new Val(local(localMethod, in.readUTF()), localMethod);
+            break;
+        default:
+            throw new IOException("Unknown fact");
+        }
+        if (in.readBoolean())
+            fact = fact.asUnbalanced(readLocation(in));
+        return fact;
+    }
+
+    private static void writeLocal(Val fact, DataOutput out) throws IOException {
+        out.writeUTF(fact.m().getSignature());
+        out.writeUTF(((Local) fact.value()).getName());
+    }
+
+    private static int boxIndex(Statement stmt, Value value) throws IOException {
+        List<ValueBox> boxes = stmt.getUnit().get().getUseAndDefBoxes();
+        for (int i = 0; i < boxes.size(); i++) {
+            if (boxes.get(i).getValue() == value)
+                return i;
+        }
+        throw new IOException("Allocation value " + value + " is not part of " + stmt);
+    }
+
+    @Override
+    public void writeLocation(Statement location, DataOutput out) throws IOException {
+        if (location.equals(Statement.epsilon())) {
+            out.writeByte(EPSILON);
+            return;
+        }
+        int index = location.getUnit().isPresent() ? unitIndex(location) : -1;
+        if (index < 0)
+            throw new IOException("Cannot store statement " + location);
+        out.writeByte(STATEMENT);
+        out.writeUTF(location.getMethod().getSignature());
+        out.writeInt(index);
+    }
+
+    @Override
+    public Statement readLocation(DataInput in) throws IOException {
+        if (in.readByte() == EPSILON)
+            return Statement.epsilon();
+        SootMethod method = method(in.readUTF());
+        Body body = method.getActiveBody();
+        List<Unit> bodyUnits = units.get(body);
+        if (bodyUnits == null) {
+            bodyUnits = Lists.newArrayList(body.getUnits());
+            units.put(body, bodyUnits);
+        }
+        int index = in.readInt();
+        if (index < 0 || index >= bodyUnits.size())
+            throw new IOException("Unknown statement");
+        return arena.statement((Stmt) bodyUnits.get(index), method);
+    }
+
+    /**
+     * @return The index of the statement in the current body of its method, or -1 if it is not part of it.
+     */
+    private int unitIndex(Statement stmt) {
+        SootMethod method = stmt.getMethod();
+        if (method == null || !method.hasActiveBody())
+            return -1;
+        Body body = method.getActiveBody();
+        Map<Unit, Integer> indices = unitIndices.get(body);
+        if (indices == null) {
+            indices = Maps.newHashMap();
+            for (Unit u : body.getUnits()) {
+                indices.put(u, indices.size());
+            }
+            unitIndices.put(body, indices);
+        }
+        Integer index = indices.get(stmt.getUnit().get());
+        return index == null ? -1 : index;
+    }
+
+    private static SootMethod method(String signature) throws IOException {
+        SootMethod method = Scene.v().grabMethod(signature);
+        if (method == null || !method.hasActiveBody())
+            throw new IOException("Unknown method " + signature);
+        return method;
+    }
+
+    private Local local(SootMethod method, String name) throws IOException {
+        Body body = method.getActiveBody();
+        Map<String, Local> byName = locals.get(body);
+        if (byName == null) {
+            byName = Maps.newHashMap();
+            for (Local l : body.getLocals()) {
+                byName.put(l.getName(), l);
+            }
+            locals.put(body, byName);
+        }
+        Local local = byName.get(name);
+        if (local == null)
+            throw new IOException("Unknown local " + name + " in " + method);
+        return local;
+    }
+}
@@ -11,11 +11,11 @@
  *******************************************************************************/
 package boomerang.jimple;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
 
 import soot.SootMethod;
 import soot.jimple.AssignStmt;
@@ -33,6 +33,7 @@ public class Statement implements Location {
     private final Stmt delegate;
     private final SootMethod method;
     private final String rep;
+    private int hashCode;
 
     public Statement(Stmt delegate, SootMethod m) {
         this.delegate = delegate;
@@ -58,10 +59,13 @@ public class Statement implements Location {
 
     @Override
     public int hashCode() {
+        if (hashCode != 0)
+            return hashCode;
         final int prime = 31;
         int result = 1;
         result = prime * result + ((delegate == null) ? 0 : delegate.hashCode());
         result = prime * result + ((rep == null) ? 0 : rep.hashCode());
+        hashCode = result;
         return result;
     }
 
@@ -149,21 +153,34 @@ public class Statement implements Location {
     }
 
     private static boolean DEBUG = true;
-    private static Map<SootMethod, Integer> methodToInteger = new HashMap<>();
-    private static Map<Stmt, Integer> statementToInteger = new HashMap<>();
+    private static final ConcurrentMap<SootMethod, Integer> methodToInteger = Maps.newConcurrentMap();
+    private static final ConcurrentMap<Stmt, Integer> statementToInteger = Maps.newConcurrentMap();
 
     public int stmtToInt(Stmt s) {
-        if (!statementToInteger.containsKey(s)) {
-            statementToInteger.put(s, statementToInteger.size());
+        Integer id = statementToInteger.get(s);
+        if (id != null) {
+            return id;
+        }
+        // Ids are dense, so they are handed out under the lock; lookups of known statements do not take it.
+        synchronized (statementToInteger) {
+            if (!statementToInteger.containsKey(s)) {
+                statementToInteger.put(s, statementToInteger.size());
+            }
+            return statementToInteger.get(s);
         }
-        return statementToInteger.get(s);
     }
 
     public int methodToInt(SootMethod method) {
-        if (!methodToInteger.containsKey(method)) {
-            methodToInteger.put(method, methodToInteger.size());
+        Integer id = methodToInteger.get(method);
+        if (id != null) {
+            return id;
+        }
+        synchronized (methodToInteger) {
+            if (!methodToInteger.containsKey(method)) {
+                methodToInteger.put(method, methodToInteger.size());
+            }
+            return methodToInteger.get(method);
         }
-        return methodToInteger.get(method);
     }
 
     public SootMethod getMethod() {
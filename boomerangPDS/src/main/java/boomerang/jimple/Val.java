@@ -22,6 +22,7 @@ public class Val {
     private final Value v;
     private final String rep;
     protected final Statement unbalancedStmt;
+    private int hashCode;
 
     private static Val zeroInstance;
 
@@ -66,12 +67,15 @@ public class Val {
 
     @Override
     public int hashCode() {
+        if (hashCode != 0)
+            return hashCode;
         final int prime = 31;
         int result = 1;
         // result = prime * result + ((m == null) ? 0 : m.hashCode());
         result = prime * result + ((rep == null) ? 0 : rep.hashCode());
         result = prime * result + ((v == null) ? 0 : v.hashCode());
         result = prime * result + ((unbalancedStmt == null) ? 0 : unbalancedStmt.hashCode());
+        hashCode = result;
         return result;
     }
 
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package boomerang.poi;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import com.google.common.collect.Lists;
@@ -19,6 +21,11 @@ import com.google.common.collect.Sets;
 import boomerang.ForwardQuery;
 import boomerang.Query;
 
+/**
+ * The allocations are recorded under the lock of the point of indirection, as the solvers of different threads reach
+ * the same statement. Executing a pair connects their solvers, see {@link boomerang.solver.SolverPool}, and is done
+ * outside of the lock.
+ */
 public abstract class PointOfIndirection<Statement, Val, Field> {
 
     private Set<ForwardQuery> actualBaseAllocations = Sets.newHashSet();
@@ -27,20 +34,39 @@ public abstract class PointOfIndirection<Statement, Val, Field> {
     public abstract void execute(ForwardQuery baseAllocation, Query flowAllocation);
 
     public void addBaseAllocation(ForwardQuery baseAllocation) {
-        if (actualBaseAllocations.add(baseAllocation)) {
-            for (Query flowAllocation : Lists.newArrayList(flowAllocations)) {
-                execute(baseAllocation, flowAllocation);
+        List<Query> flows;
+        synchronized (this) {
+            if (!actualBaseAllocations.add(baseAllocation)) {
+                return;
             }
+            flows = Lists.newArrayList(flowAllocations);
+        }
+        for (Query flowAllocation : flows) {
+            execute(baseAllocation, flowAllocation);
         }
     }
 
     public void addFlowAllocation(Query flowAllocation) {
-        if (flowAllocations.add(flowAllocation)) {
-            for (ForwardQuery baseAllocation : Lists.newArrayList(actualBaseAllocations)) {
-                execute(baseAllocation, flowAllocation);
+        List<ForwardQuery> bases;
+        synchronized (this) {
+            if (!flowAllocations.add(flowAllocation)) {
+                return;
             }
+            bases = Lists.newArrayList(actualBaseAllocations);
+        }
+        for (ForwardQuery baseAllocation : bases) {
+            execute(baseAllocation, flowAllocation);
         }
     }
 
+    /**
+     * Forgets the allocations of queries whose solvers were evicted, so that the point of indirection is executed again
+     * once they are solved anew.
+     */
+    public synchronized void removeAllocations(Collection<? extends Query> queries) {
+        actualBaseAllocations.removeAll(queries);
+        flowAllocations.removeAll(queries);
+    }
+
     public abstract Statement getStmt();
 }
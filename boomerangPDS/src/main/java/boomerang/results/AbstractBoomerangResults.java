@@ -12,7 +12,7 @@ import boomerang.Query;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.solver.AbstractBoomerangSolver;
-import heros.utilities.DefaultValueMap;
+import boomerang.solver.SolverPool;
 import soot.Local;
 import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
@@ -24,11 +24,26 @@ import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
 import wpds.interfaces.WPAStateListener;
 
+/**
+ * Results read the solvers they were computed by. Each reader owns the component of the solvers of its query while it
+ * reads them, see {@link SolverPool#beginRead(Query)}, so results can be read while other threads solve further
+ * queries.
+ */
 public class AbstractBoomerangResults<W extends Weight> {
-    protected final DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers;
+    protected final SolverPool<W> queryToSolvers;
+    private final Query readQuery;
 
-    public AbstractBoomerangResults(DefaultValueMap<Query, AbstractBoomerangSolver<W>> solverMap) {
-        this.queryToSolvers = solverMap;
+    public AbstractBoomerangResults(Query readQuery, SolverPool<W> solverPool) {
+        this.queryToSolvers = solverPool;
+        this.readQuery = readQuery;
+    }
+
+    protected void lock() {
+        queryToSolvers.beginRead(readQuery);
+    }
+
+    protected void unlock() {
+        queryToSolvers.endRead();
     }
 
     protected Context constructContextGraph(ForwardQuery forwardQuery, Node<Statement, Val> targetFact) {
@@ -39,20 +54,25 @@ public class AbstractBoomerangResults<W extends Weight> {
     }
 
     public Table<Statement, Val, W> asStatementValWeightTable(ForwardQuery query) {
-        final Table<Statement, Val, W> results = HashBasedTable.create();
-        WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrCreate(query).getCallAutomaton();
-        for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
-            Transition<Statement, INode<Val>> t = e.getKey();
-            W w = e.getValue();
-            if (t.getLabel().equals(Statement.epsilon()))
-                continue;
-            if (t.getStart().fact().value() instanceof Local
-                    && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
-                continue;
-            if (t.getLabel().getUnit().isPresent())
-                results.put(t.getLabel(), t.getStart().fact(), w);
+        lock();
+        try {
+            final Table<Statement, Val, W> results = HashBasedTable.create();
+            WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrSolve(query).getCallAutomaton();
+            for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
+                Transition<Statement, INode<Val>> t = e.getKey();
+                W w = e.getValue();
+                if (t.getLabel().equals(Statement.epsilon()))
+                    continue;
+                if (t.getStart().fact().value() instanceof Local
+                        && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
+                    continue;
+                if (t.getLabel().getUnit().isPresent())
+                    results.put(t.getLabel(), t.getStart().fact(), w);
+            }
+            return results;
+        } finally {
+            unlock();
         }
-        return results;
     }
 
     private class OpeningCallStackExtracter extends WPAStateListener<Statement, INode<Val>, W> {
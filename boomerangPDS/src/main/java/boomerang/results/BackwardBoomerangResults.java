@@ -9,6 +9,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import boomerang.BackwardQuery;
+import boomerang.CancellationToken;
 import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.Util;
@@ -17,15 +18,16 @@ import boomerang.jimple.Field;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.solver.AbstractBoomerangSolver;
+import boomerang.solver.SolverPool;
 import boomerang.stats.IBoomerangStats;
 import boomerang.util.AccessPath;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import heros.utilities.DefaultValueMap;
 import soot.Local;
 import soot.PointsToSet;
+import soot.SootMethod;
 import soot.Type;
 import soot.jimple.ClassConstant;
 import soot.jimple.NewExpr;
@@ -46,17 +48,16 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
 
     private final BackwardQuery query;
     private Map<ForwardQuery, AbstractBoomerangResults<W>.Context> allocationSites;
-    private final boolean timedout;
+    private final CancellationToken.Reason stopReason;
     private final IBoomerangStats<W> stats;
     private Stopwatch analysisWatch;
     private long maxMemory;
 
-    public BackwardBoomerangResults(BackwardQuery query, boolean timedout,
-            DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
-            Stopwatch analysisWatch) {
-        super(queryToSolvers);
+    public BackwardBoomerangResults(BackwardQuery query, CancellationToken.Reason stopReason,
+            SolverPool<W> queryToSolvers, IBoomerangStats<W> stats, Stopwatch analysisWatch) {
+        super(query, queryToSolvers);
         this.query = query;
-        this.timedout = timedout;
+        this.stopReason = stopReason;
         this.stats = stats;
         this.analysisWatch = analysisWatch;
         stats.terminated(query, this);
@@ -64,12 +65,29 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
     }
 
     public Map<ForwardQuery, AbstractBoomerangResults<W>.Context> getAllocationSites() {
-        computeAllocations();
-        return allocationSites;
+        lock();
+        try {
+            computeAllocations();
+            return allocationSites;
+        } finally {
+            unlock();
+        }
     }
 
+    /**
+     * @return Whether the query stopped before its solvers saturated, because it was cancelled, exceeded its
+     *         {@link boomerang.QueryBudget} or {@link boomerang.BoomerangOptions#analysisTimeoutMS()}. The results
+     *         are then incomplete.
+     */
     public boolean isTimedout() {
-        return timedout;
+        return stopReason != null;
+    }
+
+    /**
+     * @return Why the query stopped before its solvers saturated, or null if it did not.
+     */
+    public CancellationToken.Reason getStopReason() {
+        return stopReason;
     }
 
     public IBoomerangStats<W> getStats() {
@@ -80,11 +98,34 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
         return analysisWatch;
     }
 
+    /**
+     * @return The methods visited by the solver of the query and by the solvers of its allocation sites.
+     */
+    public Set<SootMethod> getVisitedMethods() {
+        lock();
+        try {
+            Set<SootMethod> methods = Sets.newHashSet();
+            AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
+            if (solver != null) {
+                methods.addAll(solver.getVisitedMethods());
+            }
+            for (ForwardQuery allocationSite : getAllocationSites().keySet()) {
+                AbstractBoomerangSolver<W> fwSolver = queryToSolvers.get(allocationSite);
+                if (fwSolver != null) {
+                    methods.addAll(fwSolver.getVisitedMethods());
+                }
+            }
+            return methods;
+        } finally {
+            unlock();
+        }
+    }
+
     private void computeAllocations() {
         if (allocationSites != null)
             return;
         final Set<ForwardQuery> results = Sets.newHashSet();
-        for (final Entry<Query, AbstractBoomerangSolver<W>> fw : queryToSolvers.entrySet()) {
+        for (final Entry<Query, AbstractBoomerangSolver<W>> fw : queryToSolvers.getOwnedSolvers().entrySet()) {
             if (!(fw.getKey() instanceof ForwardQuery)) {
                 continue;
             }
@@ -107,36 +148,45 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
     }
 
     public boolean aliases(Query el) {
-        for (final Query fw : getAllocationSites().keySet()) {
-            if (fw instanceof BackwardQuery)
-                continue;
+        lock();
+        try {
+            for (final Query fw : getAllocationSites().keySet()) {
+                if (fw instanceof BackwardQuery)
+                    continue;
 
-            if (queryToSolvers.getOrCreate(fw).getReachedStates().contains(el.asNode())) {
-                for (Transition<Field, INode<Node<Statement, Val>>> t : queryToSolvers.getOrCreate(fw)
-                        .getFieldAutomaton().getTransitions()) {
-                    if (t.getStart() instanceof GeneratedState) {
-                        continue;
-                    }
-                    if (t.getStart().fact().equals(el.asNode()) && t.getLabel().equals(Field.empty())) {
-                        return true;
+                if (queryToSolvers.getOrSolve(fw).getReachedStates().contains(el.asNode())) {
+                    for (Transition<Field, INode<Node<Statement, Val>>> t : queryToSolvers.getOrSolve(fw)
+                            .getFieldAutomaton().getTransitions()) {
+                        if (t.getStart() instanceof GeneratedState) {
+                            continue;
+                        }
+                        if (t.getStart().fact().equals(el.asNode()) && t.getLabel().equals(Field.empty())) {
+                            return true;
+                        }
                     }
                 }
             }
+            return false;
+        } finally {
+            unlock();
         }
-        return false;
     }
 
     @Deprecated
     public Set<AccessPath> getAllAliases(Statement stmt) {
-        final Set<AccessPath> results = Sets.newHashSet();
-        for (final Query fw : getAllocationSites().keySet()) {
-            if (fw instanceof BackwardQuery)
-                continue;
-            queryToSolvers.getOrCreate(fw)
-                    .registerListener(new ExtractAllAliasListener<W>(this.queryToSolvers.get(fw), results, stmt));
+        lock();
+        try {
+            final Set<AccessPath> results = Sets.newHashSet();
+            for (final Query fw : getAllocationSites().keySet()) {
+                if (fw instanceof BackwardQuery)
+                    continue;
+                results.addAll(queryToSolvers.getOrSolve(fw).getAliasesAt(stmt));
 
+            }
+            return results;
+        } finally {
+            unlock();
         }
-        return results;
     }
 
     @Deprecated
@@ -146,8 +196,13 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
 
     @Override
     public boolean isEmpty() {
-        computeAllocations();
-        return allocationSites.isEmpty();
+        lock();
+        try {
+            computeAllocations();
+            return allocationSites.isEmpty();
+        } finally {
+            unlock();
+        }
     }
 
     @Override
@@ -177,19 +232,30 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
 
     @Override
     public Set<Type> possibleTypes() {
-        computeAllocations();
-        Set<Type> res = Sets.newHashSet();
-        for (ForwardQuery q : allocationSites.keySet()) {
-            Val fact = q.asNode().fact();
-            if (fact.isNewExpr()) {
-                AllocVal alloc = (AllocVal) fact;
-                NewExpr expr = (NewExpr) alloc.allocationValue();
-                res.add(expr.getType());
-            } else {
-                res.add(fact.value().getType());
+        lock();
+        try {
+            computeAllocations();
+            Set<Type> res = Sets.newHashSet();
+            for (ForwardQuery q : allocationSites.keySet()) {
+                res.add(allocatedType(q));
             }
+            return res;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * @return The type of the object allocated at the allocation site.
+     */
+    public static Type allocatedType(ForwardQuery allocationSite) {
+        Val fact = allocationSite.asNode().fact();
+        if (fact.isNewExpr()) {
+            AllocVal alloc = (AllocVal) fact;
+            NewExpr expr = (NewExpr) alloc.allocationValue();
+            return expr.getType();
         }
-        return res;
+        return fact.value().getType();
     }
 
     /**
@@ -198,12 +264,17 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
      * @return Set of types the backward analysis propagates
      */
     public Set<Type> getPropagationType() {
-        AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
-        Set<Type> types = Sets.newHashSet();
-        for (Transition<Statement, INode<Val>> t : solver.getCallAutomaton().getTransitions()) {
-            types.add(t.getStart().fact().getType());
+        lock();
+        try {
+            AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
+            Set<Type> types = Sets.newHashSet();
+            for (Transition<Statement, INode<Val>> t : solver.getCallAutomaton().getTransitions()) {
+                types.add(t.getStart().fact().getType());
+            }
+            return types;
+        } finally {
+            unlock();
         }
-        return types;
     }
 
     /**
@@ -215,20 +286,25 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
      * @return The set of relevant statements during data-flow propagation
      */
     public Set<Node<Statement, Val>> getDataFlowPath(ForwardQuery query) {
-        Set<Node<Statement, Val>> dataFlowPath = Sets.newHashSet();
-        WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrCreate(query).getCallAutomaton();
-        for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
-            Transition<Statement, INode<Val>> t = e.getKey();
-            if (t.getLabel().equals(Statement.epsilon()))
-                continue;
-            if (t.getStart().fact().value() instanceof Local
-                    && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
-                continue;
-            if (queryToSolvers.getOrCreate(query).valueUsedInStatement(t.getLabel().getUnit().get(),
-                    t.getStart().fact()))
-                dataFlowPath.add(new Node<Statement, Val>(t.getLabel(), t.getStart().fact()));
+        lock();
+        try {
+            Set<Node<Statement, Val>> dataFlowPath = Sets.newHashSet();
+            WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrSolve(query).getCallAutomaton();
+            for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
+                Transition<Statement, INode<Val>> t = e.getKey();
+                if (t.getLabel().equals(Statement.epsilon()))
+                    continue;
+                if (t.getStart().fact().value() instanceof Local
+                        && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
+                    continue;
+                if (queryToSolvers.getOrSolve(query).valueUsedInStatement(t.getLabel().getUnit().get(),
+                        t.getStart().fact()))
+                    dataFlowPath.add(new Node<Statement, Val>(t.getLabel(), t.getStart().fact()));
+            }
+            return dataFlowPath;
+        } finally {
+            unlock();
         }
-        return dataFlowPath;
     }
     
     @Override
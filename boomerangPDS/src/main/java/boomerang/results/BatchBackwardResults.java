@@ -0,0 +1,146 @@
+package boomerang.results;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import boomerang.BackwardQuery;
+import boomerang.CancellationToken;
+import boomerang.ForwardQuery;
+import boomerang.Query;
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.solver.AbstractBoomerangSolver;
+import boomerang.solver.SolverPool;
+import boomerang.util.AccessPath;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.WPAStateListener;
+
+/**
+ * The answers of backward queries that were solved together. Instead of searching every solver once per query, as
+ * {@link BackwardBoomerangResults} does, the allocation sites of all queries are collected in one pass over the
+ * forward solvers, and the aliases of all queries at one statement are extracted once per allocation site.
+ */
+public class BatchBackwardResults<W extends Weight> extends AbstractBoomerangResults<W> {
+
+    private final Map<Node<Statement, Val>, BackwardQuery> queries = Maps.newHashMap();
+    private final CancellationToken.Reason stopReason;
+    private Table<Statement, Val, CachedBackwardResults> results;
+
+    /**
+     * @param batch
+     *            The query of the solver the queries were solved by, null if there are none.
+     */
+    public BatchBackwardResults(Collection<BackwardQuery> queries, BackwardQuery batch,
+            CancellationToken.Reason stopReason, SolverPool<W> queryToSolvers) {
+        super(batch, queryToSolvers);
+        for (BackwardQuery query : queries) {
+            this.queries.put(query.asNode(), query);
+        }
+        this.stopReason = stopReason;
+    }
+
+    /**
+     * @return The answers of the queries by their statement and variable.
+     */
+    public Table<Statement, Val, CachedBackwardResults> getResults() {
+        lock();
+        try {
+            if (results == null) {
+                results = extract();
+            }
+            return results;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * @return Whether the queries stopped before their solvers saturated. The answers are then incomplete.
+     */
+    public boolean isTimedout() {
+        return stopReason != null;
+    }
+
+    public CancellationToken.Reason getStopReason() {
+        return stopReason;
+    }
+
+    private Table<Statement, Val, CachedBackwardResults> extract() {
+        final Multimap<BackwardQuery, ForwardQuery> allocationSites = HashMultimap.create();
+        for (final Entry<Query, AbstractBoomerangSolver<W>> fw : queryToSolvers.getOwnedSolvers().entrySet()) {
+            if (!(fw.getKey() instanceof ForwardQuery)) {
+                continue;
+            }
+            WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> fieldAutomaton = fw.getValue()
+                    .getFieldAutomaton();
+            fieldAutomaton.registerListener(new ExtractAllocationSitesListener(fieldAutomaton.getInitialState()) {
+                @Override
+                protected void allocationSiteFound(BackwardQuery query) {
+                    allocationSites.put(query, (ForwardQuery) fw.getKey());
+                }
+            });
+        }
+
+        Table<Statement, Val, CachedBackwardResults> table = HashBasedTable.create();
+        for (BackwardQuery query : queries.values()) {
+            Set<ForwardQuery> sites = Sets.newHashSet(allocationSites.get(query));
+            Set<AccessPath> queryAliases = Sets.newHashSet();
+            for (ForwardQuery site : sites) {
+                queryAliases.addAll(queryToSolvers.get(site).getAliasesAt(query.stmt()));
+            }
+            table.put(query.stmt(), query.var(), new CachedBackwardResults(query, sites, queryAliases, stopReason));
+        }
+        return table;
+    }
+
+    private abstract class ExtractAllocationSitesListener
+            extends WPAStateListener<Field, INode<Node<Statement, Val>>, W> {
+
+        ExtractAllocationSitesListener(INode<Node<Statement, Val>> state) {
+            super(state);
+        }
+
+        @Override
+        public void onOutTransitionAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+                WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> weightedPAutomaton) {
+        }
+
+        @Override
+        public void onInTransitionAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+                WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> weightedPAutomaton) {
+            if (!t.getLabel().equals(Field.empty())) {
+                return;
+            }
+            BackwardQuery query = queries.get(t.getStart().fact());
+            if (query != null) {
+                allocationSiteFound(query);
+            }
+        }
+
+        protected abstract void allocationSiteFound(BackwardQuery query);
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj;
+        }
+    }
+}
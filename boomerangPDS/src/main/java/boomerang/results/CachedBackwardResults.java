@@ -0,0 +1,106 @@
+package boomerang.results;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import boomerang.BackwardQuery;
+import boomerang.CancellationToken;
+import boomerang.ForwardQuery;
+import boomerang.util.AccessPath;
+import soot.Type;
+import wpds.impl.Weight;
+
+/**
+ * The answers of a {@link BackwardQuery}, copied out of the solvers of its {@link BackwardBoomerangResults}. Unlike
+ * those, they stay valid after the solvers are evicted and can be read without holding the solver lock. The aliases
+ * are only extracted from the solvers the first time they are read, and the types are derived from the allocation
+ * sites.
+ */
+public class CachedBackwardResults {
+
+    private final BackwardQuery query;
+    private final ImmutableSet<ForwardQuery> allocationSites;
+    private final CancellationToken.Reason stopReason;
+    private BackwardBoomerangResults<?> source;
+    private ImmutableSet<AccessPath> aliases;
+    private ImmutableSet<Type> possibleTypes;
+
+    public CachedBackwardResults(BackwardQuery query, Set<ForwardQuery> allocationSites, Set<AccessPath> aliases,
+            CancellationToken.Reason stopReason) {
+        this.query = query;
+        this.stopReason = stopReason;
+        this.allocationSites = ImmutableSet.copyOf(allocationSites);
+        this.aliases = ImmutableSet.copyOf(aliases);
+    }
+
+    private CachedBackwardResults(BackwardQuery query, BackwardBoomerangResults<?> source) {
+        this.query = query;
+        this.stopReason = source.getStopReason();
+        this.allocationSites = ImmutableSet.copyOf(source.getAllocationSites().keySet());
+        this.source = source;
+    }
+
+    /**
+     * Copies the allocation sites out of the results, together with the reason they stopped early, if any. The aliases
+     * are copied when they are first read.
+     */
+    public static <W extends Weight> CachedBackwardResults of(BackwardQuery query, BackwardBoomerangResults<W> results) {
+        return new CachedBackwardResults(query, results);
+    }
+
+    public BackwardQuery getQuery() {
+        return query;
+    }
+
+    public Set<ForwardQuery> getAllocationSites() {
+        return allocationSites;
+    }
+
+    @SuppressWarnings("deprecation")
+    public synchronized Set<AccessPath> getAllAliases() {
+        if (aliases == null) {
+            aliases = ImmutableSet.copyOf(source.getAllAliases());
+            source = null;
+        }
+        return aliases;
+    }
+
+    public synchronized Set<Type> possibleTypes() {
+        if (possibleTypes == null) {
+            ImmutableSet.Builder<Type> types = ImmutableSet.builder();
+            for (ForwardQuery site : allocationSites) {
+                types.add(BackwardBoomerangResults.allocatedType(site));
+            }
+            possibleTypes = types.build();
+        }
+        return possibleTypes;
+    }
+
+    public boolean isEmpty() {
+        return allocationSites.isEmpty();
+    }
+
+    /**
+     * @return Whether the query stopped before its solvers saturated. The answers are then incomplete.
+     */
+    public boolean isTimedout() {
+        return stopReason != null;
+    }
+
+    /**
+     * @return Why the query stopped before its solvers saturated, or null if it did not.
+     */
+    public CancellationToken.Reason getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * @return Whether both queries may point to a common allocation site, as
+     *         {@link BackwardBoomerangResults#hasNonEmptyIntersection(soot.PointsToSet)}.
+     */
+    public boolean hasNonEmptyIntersection(CachedBackwardResults other) {
+        return !Sets.intersection(allocationSites, other.allocationSites).isEmpty();
+    }
+}
@@ -1,5 +1,6 @@
 package boomerang.results;
 
+import boomerang.CancellationToken;
 import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.callgraph.CallerListener;
@@ -11,10 +12,10 @@ import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.ForwardBoomerangSolver;
+import boomerang.solver.SolverPool;
 import boomerang.stats.IBoomerangStats;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.*;
-import heros.utilities.DefaultValueMap;
 import soot.Local;
 import soot.SootMethod;
 import soot.Unit;
@@ -42,19 +43,19 @@ import java.util.Set;
 public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerangResults<W> {
 
     private final ForwardQuery query;
-    private final boolean timedout;
+    private final CancellationToken.Reason stopReason;
     private final IBoomerangStats<W> stats;
     private Stopwatch analysisWatch;
     private long maxMemory;
     private ObservableICFG<Unit, SootMethod> icfg;
 
-    public ForwardBoomerangResults(ForwardQuery query, ObservableICFG<Unit, SootMethod> icfg, boolean timedout,
-            DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
+    public ForwardBoomerangResults(ForwardQuery query, ObservableICFG<Unit, SootMethod> icfg,
+            CancellationToken.Reason stopReason, SolverPool<W> queryToSolvers, IBoomerangStats<W> stats,
             Stopwatch analysisWatch) {
-        super(queryToSolvers);
+        super(query, queryToSolvers);
         this.query = query;
         this.icfg = icfg;
-        this.timedout = timedout;
+        this.stopReason = stopReason;
         this.stats = stats;
         this.analysisWatch = analysisWatch;
         stats.terminated(query, this);
@@ -65,49 +66,66 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
         return analysisWatch;
     }
 
+    /**
+     * @return Whether the query stopped before its solvers saturated, because it was cancelled, exceeded its
+     *         {@link boomerang.QueryBudget} or {@link boomerang.BoomerangOptions#analysisTimeoutMS()}. The results
+     *         are then incomplete.
+     */
     public boolean isTimedout() {
-        return timedout;
+        return stopReason != null;
+    }
+
+    /**
+     * @return Why the query stopped before its solvers saturated, or null if it did not.
+     */
+    public CancellationToken.Reason getStopReason() {
+        return stopReason;
     }
 
     public Table<Statement, Val, W> getObjectDestructingStatements() {
-        AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
-        if (solver == null)
-            return HashBasedTable.create();
-        Set<SootMethod> visitedMethods = solver.getVisitedMethods();
-        ForwardBoomerangSolver<W> forwardSolver = (ForwardBoomerangSolver) queryToSolvers.get(query);
-        Table<Statement, Val, W> destructingStatement = HashBasedTable.create();
-        Table<Statement, Val, W> res = asStatementValWeightTable();
-        for (SootMethod flowReaches : visitedMethods) {
-            for (Unit ep : icfg.getEndPointsOf(flowReaches)) {
-                Statement exitStmt = new Statement((Stmt) ep, flowReaches);
-                Set<State> escapes = Sets.newHashSet();
-                icfg.addCallerListener(new CallerListener<Unit, SootMethod>() {
-                    @Override
-                    public SootMethod getObservedCallee() {
-                        return flowReaches;
-                    }
+        lock();
+        try {
+            AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
+            if (solver == null)
+                return HashBasedTable.create();
+            Set<SootMethod> visitedMethods = solver.getVisitedMethods();
+            ForwardBoomerangSolver<W> forwardSolver = (ForwardBoomerangSolver) queryToSolvers.get(query);
+            Table<Statement, Val, W> destructingStatement = HashBasedTable.create();
+            Table<Statement, Val, W> res = asStatementValWeightTable();
+            for (SootMethod flowReaches : visitedMethods) {
+                for (Unit ep : icfg.getEndPointsOf(flowReaches)) {
+                    Statement exitStmt = new Statement((Stmt) ep, flowReaches);
+                    Set<State> escapes = Sets.newHashSet();
+                    icfg.addCallerListener(new CallerListener<Unit, SootMethod>() {
+                        @Override
+                        public SootMethod getObservedCallee() {
+                            return flowReaches;
+                        }
 
-                    @Override
-                    public void onCallerAdded(Unit callSite, SootMethod m) {
-                        SootMethod callee = icfg.getMethodOf(callSite);
-                        if (visitedMethods.contains(callee)) {
-                            for (Val v : solver.getValsAtStatement(exitStmt)) {
-                                for (Unit retSite : icfg.getSuccsOf(callSite)) {
-                                    escapes.addAll(forwardSolver.computeReturnFlow(flowReaches, (Stmt) ep,
-                                            v, (Stmt) callSite, (Stmt) retSite));
+                        @Override
+                        public void onCallerAdded(Unit callSite, SootMethod m) {
+                            SootMethod callee = icfg.getMethodOf(callSite);
+                            if (visitedMethods.contains(callee)) {
+                                for (Val v : solver.getValsAtStatement(exitStmt)) {
+                                    for (Unit retSite : icfg.getSuccsOf(callSite)) {
+                                        escapes.addAll(forwardSolver.computeReturnFlow(flowReaches, (Stmt) ep,
+                                                v, (Stmt) callSite, (Stmt) retSite));
+                                    }
                                 }
                             }
                         }
+                    });
+                    if (escapes.isEmpty()) {                   
+                    	Map<Val, W> row = res.row(exitStmt);
+                        findLastUsage(exitStmt, row, destructingStatement, forwardSolver);
                     }
-                });
-                if (escapes.isEmpty()) {                   
-                	Map<Val, W> row = res.row(exitStmt);
-                    findLastUsage(exitStmt, row, destructingStatement, forwardSolver);
                 }
             }
-        }
 
-        return destructingStatement;
+            return destructingStatement;
+        } finally {
+            unlock();
+        }
     }
 
     public Table<Statement, Val, W> asStatementValWeightTable() {
@@ -149,20 +167,25 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
      * @return The set of relevant statements during data-flow propagation
      */
     public Set<Node<Statement, Val>> getDataFlowPath() {
-        Set<Node<Statement, Val>> dataFlowPath = Sets.newHashSet();
-        WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrCreate(query).getCallAutomaton();
-        for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
-            Transition<Statement, INode<Val>> t = e.getKey();
-            if (t.getLabel().equals(Statement.epsilon()))
-                continue;
-            if (t.getStart().fact().value() instanceof Local
-                    && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
-                continue;
-            if (queryToSolvers.getOrCreate(query).valueUsedInStatement(t.getLabel().getUnit().get(),
-                    t.getStart().fact()))
-                dataFlowPath.add(new Node<Statement, Val>(t.getLabel(), t.getStart().fact()));
+        lock();
+        try {
+            Set<Node<Statement, Val>> dataFlowPath = Sets.newHashSet();
+            WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrSolve(query).getCallAutomaton();
+            for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
+                Transition<Statement, INode<Val>> t = e.getKey();
+                if (t.getLabel().equals(Statement.epsilon()))
+                    continue;
+                if (t.getStart().fact().value() instanceof Local
+                        && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
+                    continue;
+                if (queryToSolvers.getOrSolve(query).valueUsedInStatement(t.getLabel().getUnit().get(),
+                        t.getStart().fact()))
+                    dataFlowPath.add(new Node<Statement, Val>(t.getLabel(), t.getStart().fact()));
+            }
+            return dataFlowPath;
+        } finally {
+            unlock();
         }
-        return dataFlowPath;
     }
 
     public IBoomerangStats<W> getStats() {
@@ -170,119 +193,144 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
     }
 
     public Map<Statement, SootMethod> getInvokedMethodOnInstance() {
-        Map<Statement, SootMethod> invokedMethodsOnInstance = Maps.newHashMap();
-        if (query.stmt().isCallsite()) {
-            Stmt queryUnit = query.stmt().getUnit().get();
-            if (queryUnit.containsInvokeExpr()) {
-                invokedMethodsOnInstance.put(query.stmt(), queryUnit.getInvokeExpr().getMethod());
+        lock();
+        try {
+            Map<Statement, SootMethod> invokedMethodsOnInstance = Maps.newHashMap();
+            if (query.stmt().isCallsite()) {
+                Stmt queryUnit = query.stmt().getUnit().get();
+                if (queryUnit.containsInvokeExpr()) {
+                    invokedMethodsOnInstance.put(query.stmt(), queryUnit.getInvokeExpr().getMethod());
+                }
             }
-        }
-        queryToSolvers.get(query).getFieldAutomaton()
-                .registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
+            queryToSolvers.get(query).getFieldAutomaton()
+                    .registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
 
-                    @Override
-                    public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
-                            WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                        if (!t.getLabel().equals(Field.empty()) || t.getStart() instanceof GeneratedState) {
-                            return;
-                        }
-                        Node<Statement, Val> node = t.getStart().fact();
-                        Val fact = node.fact();
-                        Statement curr = node.stmt();
-                        if (curr.isCallsite()) {
-                            Stmt callSite = (Stmt) curr.getUnit().get();
-                            if (callSite.getInvokeExpr() instanceof InstanceInvokeExpr) {
-                                InstanceInvokeExpr e = (InstanceInvokeExpr) callSite.getInvokeExpr();
-                                if (e.getBase().equals(fact.value())) {
-                                    invokedMethodsOnInstance.put(curr, e.getMethod());
+                        @Override
+                        public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+                                WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
+                            if (!t.getLabel().equals(Field.empty()) || t.getStart() instanceof GeneratedState) {
+                                return;
+                            }
+                            Node<Statement, Val> node = t.getStart().fact();
+                            Val fact = node.fact();
+                            Statement curr = node.stmt();
+                            if (curr.isCallsite()) {
+                                Stmt callSite = (Stmt) curr.getUnit().get();
+                                if (callSite.getInvokeExpr() instanceof InstanceInvokeExpr) {
+                                    InstanceInvokeExpr e = (InstanceInvokeExpr) callSite.getInvokeExpr();
+                                    if (e.getBase().equals(fact.value())) {
+                                        invokedMethodsOnInstance.put(curr, e.getMethod());
+                                    }
                                 }
                             }
                         }
-                    }
-                });
-        return invokedMethodsOnInstance;
+                    });
+            return invokedMethodsOnInstance;
+        } finally {
+            unlock();
+        }
     }
 
     public Set<NullPointer> getPotentialNullPointerDereferences() {
-        Set<Node<Statement, Val>> res = Sets.newHashSet();
-        queryToSolvers.get(query).getFieldAutomaton()
-                .registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
+        lock();
+        try {
+            Set<Node<Statement, Val>> res = Sets.newHashSet();
+            queryToSolvers.get(query).getFieldAutomaton()
+                    .registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
 
-                    @Override
-                    public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
-                            WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                        if (!t.getLabel().equals(Field.empty()) || t.getStart() instanceof GeneratedState) {
-                            return;
-                        }
-                        Node<Statement, Val> node = t.getStart().fact();
-                        Val fact = node.fact();
-                        SootMethod m = fact.m();
+                        @Override
+                        public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+                                WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
+                            if (!t.getLabel().equals(Field.empty()) || t.getStart() instanceof GeneratedState) {
+                                return;
+                            }
+                            Node<Statement, Val> node = t.getStart().fact();
+                            Val fact = node.fact();
+                            SootMethod m = fact.m();
 
-                        // A this variable can never be null.
-                        if (m.hasActiveBody() && Util.isThisLocal(fact, m)) {
-                            return;
-                        }
-                        Statement curr = node.stmt();
-                        for (Unit pred : icfg.getPredsOf(curr.getUnit().get())) {
-                            Node<Statement, Val> nullPointerNode = new Node<>(
-                                    new Statement((Stmt) pred, curr.getMethod()), fact);
-                            if (pred instanceof Stmt && ((Stmt) pred).containsInvokeExpr()) {
-                                Stmt callSite = (Stmt) pred;
-                                if (callSite.getInvokeExpr() instanceof InstanceInvokeExpr) {
-                                    InstanceInvokeExpr e = (InstanceInvokeExpr) callSite.getInvokeExpr();
-                                    if (e.getBase().equals(fact.value())) {
-                                        res.add(nullPointerNode);
-                                    }
-                                }
+                            // A this variable can never be null.
+                            if (m.hasActiveBody() && Util.isThisLocal(fact, m)) {
+                                return;
                             }
-                            if (pred instanceof AssignStmt) {
-                                AssignStmt assignStmt = (AssignStmt) pred;
-                                if (assignStmt.getRightOp() instanceof InstanceFieldRef) {
-                                    InstanceFieldRef ifr = (InstanceFieldRef) assignStmt.getRightOp();
-                                    if (ifr.getBase().equals(fact.value())) {
-                                        res.add(nullPointerNode);
+                            Statement curr = node.stmt();
+                            for (Unit pred : icfg.getPredsOf(curr.getUnit().get())) {
+                                Node<Statement, Val> nullPointerNode = new Node<>(
+                                        new Statement((Stmt) pred, curr.getMethod()), fact);
+                                if (pred instanceof Stmt && ((Stmt) pred).containsInvokeExpr()) {
+                                    Stmt callSite = (Stmt) pred;
+                                    if (callSite.getInvokeExpr() instanceof InstanceInvokeExpr) {
+                                        InstanceInvokeExpr e = (InstanceInvokeExpr) callSite.getInvokeExpr();
+                                        if (e.getBase().equals(fact.value())) {
+                                            res.add(nullPointerNode);
+                                        }
                                     }
                                 }
-                                if (assignStmt.getRightOp() instanceof LengthExpr) {
-                                    LengthExpr lengthExpr = (LengthExpr) assignStmt.getRightOp();
-                                    if (lengthExpr.getOp().equals(fact.value())) {
-                                        res.add(nullPointerNode);
+                                if (pred instanceof AssignStmt) {
+                                    AssignStmt assignStmt = (AssignStmt) pred;
+                                    if (assignStmt.getRightOp() instanceof InstanceFieldRef) {
+                                        InstanceFieldRef ifr = (InstanceFieldRef) assignStmt.getRightOp();
+                                        if (ifr.getBase().equals(fact.value())) {
+                                            res.add(nullPointerNode);
+                                        }
+                                    }
+                                    if (assignStmt.getRightOp() instanceof LengthExpr) {
+                                        LengthExpr lengthExpr = (LengthExpr) assignStmt.getRightOp();
+                                        if (lengthExpr.getOp().equals(fact.value())) {
+                                            res.add(nullPointerNode);
+                                        }
                                     }
                                 }
                             }
                         }
-                    }
-                });
+                    });
 
-        Set<NullPointer> resWithContext = Sets.newHashSet();
-        for (Node<Statement, Val> r : res) {
-            AbstractBoomerangResults<W>.Context context = constructContextGraph(query, r);
-            resWithContext.add(new NullPointer(query.stmt(), query.var(), r.stmt(), r.fact(),
-                    context.getOpeningContext(), context.getClosingContext()));
+            Set<NullPointer> resWithContext = Sets.newHashSet();
+            for (Node<Statement, Val> r : res) {
+                AbstractBoomerangResults<W>.Context context = constructContextGraph(query, r);
+                resWithContext.add(new NullPointer(query.stmt(), query.var(), r.stmt(), r.fact(),
+                        context.getOpeningContext(), context.getClosingContext()));
+            }
+            return resWithContext;
+        } finally {
+            unlock();
         }
-        return resWithContext;
     }
 
     public Context getContext(Node<Statement, Val> node) {
-        return constructContextGraph(query, node);
+        lock();
+        try {
+            return constructContextGraph(query, node);
+        } finally {
+            unlock();
+        }
     }
 
     public boolean containsCallRecursion() {
-        for (Entry<Query, AbstractBoomerangSolver<W>> e : queryToSolvers.entrySet()) {
-            if (e.getValue().getCallAutomaton().containsLoop()) {
-                return true;
+        lock();
+        try {
+            for (Entry<Query, AbstractBoomerangSolver<W>> e : queryToSolvers.getOwnedSolvers().entrySet()) {
+                if (e.getValue().getCallAutomaton().containsLoop()) {
+                    return true;
+                }
             }
+            return false;
+        } finally {
+            unlock();
         }
-        return false;
     }
 
     public boolean containsFieldLoop() {
-        for (Entry<Query, AbstractBoomerangSolver<W>> e : queryToSolvers.entrySet()) {
-            if (e.getValue().getFieldAutomaton().containsLoop()) {
-                return true;
+        lock();
+        try {
+            for (Entry<Query, AbstractBoomerangSolver<W>> e : queryToSolvers.getOwnedSolvers().entrySet()) {
+                if (e.getValue().getFieldAutomaton().containsLoop()) {
+                    return true;
+                }
             }
+            return false;
+        } finally {
+            unlock();
         }
-        return false;
     }
 
     public long getMaxMemory() {
@@ -0,0 +1,114 @@
+package boomerang.results;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+import boomerang.BackwardQuery;
+import soot.SootMethod;
+
+/**
+ * The {@link CachedBackwardResults} of the most recently used backward queries. Each answer records the methods its
+ * solvers visited; an edge added to the call graph into or out of one of them may extend the answer, so the answer is
+ * invalidated.
+ */
+public class QueryResultCache {
+
+    private final int maxAnswers;
+    private final Map<BackwardQuery, CachedAnswer> answers = new LinkedHashMap<>(16, 0.75f, true);
+    private final Multimap<SootMethod, BackwardQuery> dependents = HashMultimap.create();
+    private long invalidated;
+
+    public QueryResultCache(int maxAnswers) {
+        this.maxAnswers = maxAnswers;
+    }
+
+    /**
+     * @return The cached answer of the query, or null if there is none.
+     */
+    public synchronized CachedBackwardResults get(BackwardQuery query) {
+        CachedAnswer answer = answers.get(query);
+        return answer == null ? null : answer.results;
+    }
+
+    /**
+     * Caches the answer, which depends on the call graph around the given methods. Evicts the least recently used
+     * answer if the cache is full.
+     */
+    public synchronized void put(CachedBackwardResults results, Collection<SootMethod> dependencies) {
+        BackwardQuery query = results.getQuery();
+        remove(query);
+        CachedAnswer answer = new CachedAnswer(results, ImmutableSet.copyOf(dependencies));
+        answers.put(query, answer);
+        for (SootMethod m : answer.dependencies) {
+            dependents.put(m, query);
+        }
+        Iterator<Entry<BackwardQuery, CachedAnswer>> eldest = answers.entrySet().iterator();
+        while (answers.size() > maxAnswers && eldest.hasNext()) {
+            Entry<BackwardQuery, CachedAnswer> e = eldest.next();
+            eldest.remove();
+            removeDependencies(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Invalidates the answers that depend on either end of a new call graph edge.
+     */
+    public synchronized void onEdgeAdded(SootMethod caller, SootMethod callee) {
+        invalidate(caller);
+        invalidate(callee);
+    }
+
+    public synchronized void invalidate(SootMethod method) {
+        for (BackwardQuery query : Lists.newArrayList(dependents.get(method))) {
+            remove(query);
+            invalidated++;
+        }
+    }
+
+    public synchronized void clear() {
+        answers.clear();
+        dependents.clear();
+    }
+
+    public synchronized int size() {
+        return answers.size();
+    }
+
+    /**
+     * @return The number of answers invalidated by changes of the call graph so far.
+     */
+    public synchronized long getInvalidated() {
+        return invalidated;
+    }
+
+    private void remove(BackwardQuery query) {
+        CachedAnswer answer = answers.remove(query);
+        if (answer != null) {
+            removeDependencies(query, answer);
+        }
+    }
+
+    private void removeDependencies(BackwardQuery query, CachedAnswer answer) {
+        for (SootMethod m : answer.dependencies) {
+            dependents.remove(m, query);
+        }
+    }
+
+    private static class CachedAnswer {
+        private final CachedBackwardResults results;
+        private final ImmutableSet<SootMethod> dependencies;
+
+        private CachedAnswer(CachedBackwardResults results, ImmutableSet<SootMethod> dependencies) {
+            this.results = results;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -15,11 +15,16 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
@@ -84,29 +89,53 @@ public abstract class SeedFactory<W extends Weight> {
     };
     private Collection<SootMethod> processed = Sets.newHashSet();
     private Multimap<Query, SootMethod> queryToScope = HashMultimap.create();
+    /**
+     * While seeds are discovered in parallel: the pool scanning the bodies, the pending scans and the transitions of
+     * the methods whose seeds are not yet known.
+     */
+    private ForkJoinPool pool;
+    private final Map<SootMethod, ForkJoinTask<Set<Query>>> pendingSeeds = new HashMap<>();
+    private final Multimap<SootMethod, Transition<Method, INode<Reachable>>> pendingTransitions = HashMultimap
+            .create();
 
     public Collection<Query> computeSeeds() {
         List<SootMethod> entryPoints = Scene.v().getEntryPoints();
         System.out.print("Computing seeds starting at " + entryPoints.size() + " entry method(s).");
         Stopwatch watch = Stopwatch.createStarted();
-        for (SootMethod m : entryPoints) {
-            automaton.addTransition(new Transition<>(wrap(Reachable.v()), new Method(m), automaton.getInitialState()));
+        if (seedThreads() > 1) {
+            // Build the hierarchy up front, generate must not build it concurrently
+            Scene.v().getOrMakeFastHierarchy();
+            pool = new ForkJoinPool(seedThreads());
         }
-        automaton.registerListener(new WPAUpdateListener<Method, INode<Reachable>, Weight.NoWeight>() {
-            @Override
-            public void onWeightAdded(Transition<Method, INode<Reachable>> t, Weight.NoWeight noWeight,
-                    WeightedPAutomaton<Method, INode<Reachable>, Weight.NoWeight> aut) {
-                process(t);
+        try {
+            for (SootMethod m : entryPoints) {
+                automaton.addTransition(
+                        new Transition<>(wrap(Reachable.v()), new Method(m), automaton.getInitialState()));
             }
-        });
+            automaton.registerListener(new WPAUpdateListener<Method, INode<Reachable>, Weight.NoWeight>() {
+                @Override
+                public void onWeightAdded(Transition<Method, INode<Reachable>> t, Weight.NoWeight noWeight,
+                        WeightedPAutomaton<Method, INode<Reachable>, Weight.NoWeight> aut) {
+                    process(t);
+                }
+            });
 
-        if (analyseClassInitializers()) {
-            Set<SootClass> sootClasses = Sets.newHashSet();
-            for (SootMethod p : Sets.newHashSet(processed)) {
-                if (sootClasses.add(p.getDeclaringClass())) {
-                    addStaticInitializerFor(p.getDeclaringClass());
+            if (analyseClassInitializers()) {
+                Set<SootClass> sootClasses = Sets.newHashSet();
+                for (SootMethod p : Sets.newHashSet(processed)) {
+                    if (sootClasses.add(p.getDeclaringClass())) {
+                        addStaticInitializerFor(p.getDeclaringClass());
+                    }
                 }
             }
+            if (pool != null) {
+                collectPendingSeeds();
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+                pool = null;
+            }
         }
         System.out.print("Seed finding took " + watch.elapsed(TimeUnit.SECONDS) + " second(s) and analyzed "
                 + processed.size() + " method(s).");
@@ -127,6 +156,22 @@ public abstract class SeedFactory<W extends Weight> {
         return false;
     }
 
+    /**
+     * Number of threads on which {@link #computeSeeds()} scans the bodies of the reachable methods for seeds. The
+     * reachability of the methods is still computed on the calling thread, which is also the only one that registers
+     * listeners with the {@link #icfg()}.
+     */
+    protected int seedThreads() {
+        return 1;
+    }
+
+    /**
+     * Returns the seeds at the statement of the method. Called once for every statement of a reachable method. With
+     * more than one {@link #seedThreads()}, the statements of different methods are passed concurrently from the
+     * worker threads of a fork-join pool; the statements of one method are passed in order by a single thread. The
+     * implementation must then not modify any state shared between methods without synchronizing, and may only read
+     * from the Soot scene.
+     */
     protected abstract Collection<? extends Query> generate(SootMethod method, Stmt u);
 
     private void process(Transition<Method, INode<Reachable>> t) {
@@ -135,17 +180,20 @@ public abstract class SeedFactory<W extends Weight> {
         if (!m.hasActiveBody())
             return;
         computeQueriesPerMethod(m);
+        if (pool != null) {
+            pendingTransitions.put(m, t);
+            return;
+        }
         for (Query q : seedsPerMethod.get(m)) {
             seedToTransition.put(q, t);
         }
     }
 
-    private void computeQueriesPerMethod(SootMethod m) {
+    private void computeQueriesPerMethod(final SootMethod m) {
         if (!processed.add(m)) {
             return;
         }
-        Set<Query> seeds = Sets.newHashSet();
-        for (Unit u : m.getActiveBody().getUnits()) {
+        for (final Unit u : m.getActiveBody().getUnits()) {
             if (icfg().isCallStmt(u)) {
                 icfg().addCalleeListener(new CalleeListener<Unit, SootMethod>() {
                     @Override
@@ -161,9 +209,38 @@ public abstract class SeedFactory<W extends Weight> {
                     }
                 });
             }
+        }
+        if (pool != null) {
+            pendingSeeds.put(m, pool.submit(new Callable<Set<Query>>() {
+                @Override
+                public Set<Query> call() {
+                    return generateSeeds(m);
+                }
+            }));
+        } else {
+            seedsPerMethod.putAll(m, generateSeeds(m));
+        }
+    }
+
+    private Set<Query> generateSeeds(SootMethod m) {
+        Set<Query> seeds = Sets.newHashSet();
+        for (Unit u : m.getActiveBody().getUnits()) {
             seeds.addAll(generate(m, (Stmt) u));
         }
-        seedsPerMethod.putAll(m, seeds);
+        return seeds;
+    }
+
+    private void collectPendingSeeds() {
+        for (Entry<SootMethod, ForkJoinTask<Set<Query>>> e : pendingSeeds.entrySet()) {
+            seedsPerMethod.putAll(e.getKey(), e.getValue().join());
+        }
+        pendingSeeds.clear();
+        for (Entry<SootMethod, Transition<Method, INode<Reachable>>> e : pendingTransitions.entries()) {
+            for (Query q : seedsPerMethod.get(e.getKey())) {
+                seedToTransition.put(q, e.getValue());
+            }
+        }
+        pendingTransitions.clear();
     }
 
     private void addPushRule(Method caller, Method callee) {
@@ -178,17 +255,17 @@ public abstract class SeedFactory<W extends Weight> {
 
     public abstract ObservableICFG<Unit, SootMethod> icfg();
 
-    public Collection<SootMethod> getMethodScope(Query query) {
+    public synchronized Collection<SootMethod> getMethodScope(Query query) {
         Set<SootMethod> scope = Sets.newHashSet();
         if (queryToScope.containsKey(query)) {
-            return queryToScope.get(query);
+            return ImmutableSet.copyOf(queryToScope.get(query));
         }
         for (Transition<Method, INode<Reachable>> t : seedToTransition.get(query)) {
             scope.add(t.getLabel().getMethod());
             automaton.registerListener(new TransitiveClosure(t.getTarget(), scope, query));
         }
         queryToScope.putAll(query, scope);
-        return scope;
+        return ImmutableSet.copyOf(scope);
     }
 
     private class TransitiveClosure extends WPAStateListener<Method, INode<Reachable>, Weight.NoWeight> {
@@ -248,7 +325,7 @@ public abstract class SeedFactory<W extends Weight> {
         }
     }
 
-    public Collection<SootMethod> getAnyMethodScope() {
+    public synchronized Collection<SootMethod> getAnyMethodScope() {
         Set<SootMethod> out = Sets.newHashSet();
         for (Query q : seedToTransition.keySet()) {
             out.addAll(getMethodScope(q));
@@ -11,8 +11,9 @@
  *******************************************************************************/
 package boomerang.solver;
 
-import java.util.AbstractMap;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -39,6 +40,8 @@ import boomerang.jimple.AllocVal;
 import boomerang.jimple.Field;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
+import boomerang.results.ExtractAllAliasListener;
+import boomerang.util.AccessPath;
 import boomerang.util.RegExAccessPath;
 import pathexpression.IRegEx;
 import soot.NullType;
@@ -58,6 +61,7 @@ import soot.jimple.StaticFieldRef;
 import soot.jimple.Stmt;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 import sync.pds.solver.SyncPDSSolver;
+import sync.pds.solver.SyncPDSUpdateListener;
 import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
@@ -67,6 +71,7 @@ import wpds.impl.NormalRule;
 import wpds.impl.PopRule;
 import wpds.impl.Rule;
 import wpds.impl.Transition;
+import wpds.impl.TransitionWorklist;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
 import wpds.impl.WeightedPushdownSystem;
@@ -75,7 +80,7 @@ import wpds.interfaces.WPAUpdateListener;
 
 public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSSolver<Statement, Val, Field, W> {
 
-    private final class ReturnFlowCallerListener implements CallerListener<Unit, SootMethod> {
+    private final class ReturnFlowCallerListener implements CallerListener<Unit, SootMethod>, SolverOwnedListener<W> {
         private final Stmt curr;
         private final SootMethod method;
         private final Val value;
@@ -156,6 +161,11 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             return method;
         }
 
+        @Override
+        public AbstractBoomerangSolver<W> getSolver() {
+            return AbstractBoomerangSolver.this;
+        }
+
         private AbstractBoomerangSolver getOuterType() {
             return AbstractBoomerangSolver.this;
         }
@@ -165,7 +175,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
     protected final ObservableICFG<Unit, SootMethod> icfg;
     protected final Query query;
     protected boolean INTERPROCEDURAL = true;
-    protected final Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> generatedFieldState;
+    protected final BoomerangArena arena;
     private Multimap<SootMethod, Transition<Field, INode<Node<Statement, Val>>>> perMethodFieldTransitions = HashMultimap
             .create();
     private Multimap<SootMethod, MethodBasedFieldTransitionListener<W>> perMethodFieldTransitionsListener = HashMultimap
@@ -180,15 +190,54 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             .create();
     private Set<ReachableMethodListener<W>> reachableMethodListeners = Sets.newHashSet();
     private Multimap<SootMethod, Runnable> queuedReachableMethod = HashMultimap.create();
+    private Set<SootMethod> perMethodRules = Sets.newHashSet();
     private Collection<SootMethod> reachableMethods = Sets.newHashSet();
+    private final Set<SootMethod> visitedMethods = Sets.newConcurrentHashSet();
+    private final Map<Statement, Set<AccessPath>> aliasesAt = Maps.newHashMap();
     protected final BoomerangOptions options;
 
-    public AbstractBoomerangSolver(ObservableICFG<Unit, SootMethod> icfg, Query query,
-            Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField,
+    private static <W extends Weight> TransitionWorklist<Statement, INode<Val>, W> createCallWorklist(
+            BoomerangOptions options) {
+        if (!options.postStarWorklistOrder().isPresent())
+            return null;
+        return TransitionWorklist.create(options.postStarWorklistOrder().get(),
+                new Comparator<Transition<Statement, INode<Val>>>() {
+                    @Override
+                    public int compare(Transition<Statement, INode<Val>> t1, Transition<Statement, INode<Val>> t2) {
+                        return compareMethods(t1.getLabel().getMethod(), t2.getLabel().getMethod());
+                    }
+                });
+    }
+
+    private static <W extends Weight> TransitionWorklist<Field, INode<Node<Statement, Val>>, W> createFieldWorklist(
+            BoomerangOptions options) {
+        if (!options.postStarWorklistOrder().isPresent())
+            return null;
+        return TransitionWorklist.create(options.postStarWorklistOrder().get(),
+                new Comparator<Transition<Field, INode<Node<Statement, Val>>>>() {
+                    @Override
+                    public int compare(Transition<Field, INode<Node<Statement, Val>>> t1,
+                            Transition<Field, INode<Node<Statement, Val>>> t2) {
+                        return compareMethods(t1.getStart().fact().stmt().getMethod(),
+                                t2.getStart().fact().stmt().getMethod());
+                    }
+                });
+    }
+
+    private static int compareMethods(SootMethod m1, SootMethod m2) {
+        int n1 = m1 == null ? -1 : m1.getNumber();
+        int n2 = m2 == null ? -1 : m2.getNumber();
+        return Integer.compare(n1, n2);
+    }
+
+    public AbstractBoomerangSolver(ObservableICFG<Unit, SootMethod> icfg, Query query, BoomerangArena arena,
             BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
             NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
         super(new SingleNode<Val>(query.asNode().fact()), new SingleNode<Node<Statement, Val>>(query.asNode()),
-                options.callSummaries(), callSummaries, options.fieldSummaries(), fieldSummaries);
+                options.callSummaries(), callSummaries, options.fieldSummaries(), fieldSummaries,
+                AbstractBoomerangSolver.<W> createCallWorklist(options),
+                AbstractBoomerangSolver.<W> createFieldWorklist(options), arena);
+        this.arena = arena;
         this.options = options;
         this.icfg = icfg;
         this.query = query;
@@ -209,8 +258,15 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
                 addCallTransitionToStatement(t.getLabel(), t, w);
             }
         });
-        // TODO recap, I assume we can implement this more easily.
-        this.generatedFieldState = genField;
+        registerListener(new SyncPDSUpdateListener<Statement, Val>() {
+            @Override
+            public void onReachableNodeAdded(Node<Statement, Val> reachableNode) {
+                SootMethod method = reachableNode.stmt().getMethod();
+                if (method != null) {
+                    visitedMethods.add(method);
+                }
+            }
+        });
         addReachable(query.asNode().stmt().getMethod());
     }
 
@@ -243,6 +299,8 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             if (rule.getL1().equals(rule.getL2()) && rule.getS1().equals(rule.getS2()))
                 return;
         }
+        addRuleToMethod(rule.getL1());
+        addRuleToMethod(rule.getL2());
         if (rule instanceof PopRule)
             super.addCallRule(rule);
         else
@@ -260,6 +318,8 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             if (rule.getL1().equals(rule.getL2()) && rule.getS1().equals(rule.getS2()))
                 return;
         }
+        addRuleToMethod(rule.getS1().fact().stmt());
+        addRuleToMethod(rule.getS2().fact().stmt());
         submit(rule.getS2().fact().stmt().getMethod(), new Runnable() {
             @Override
             public void run() {
@@ -268,6 +328,21 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         });
     }
 
+    private void addRuleToMethod(Statement stmt) {
+        if (options.incrementalAnalysis() && stmt != null && stmt.getMethod() != null) {
+            perMethodRules.add(stmt.getMethod());
+        }
+    }
+
+    /**
+     * @return Whether a rule or a field automaton transition of this solver stems from the method, so that the results
+     *         of the solver may change when the body of the method does. The methods of the rules are only recorded
+     *         with {@link BoomerangOptions#incrementalAnalysis()}.
+     */
+    public boolean dependsOn(SootMethod method) {
+        return perMethodRules.contains(method) || perMethodFieldTransitions.containsKey(method);
+    }
+
     private void addTransitionToMethod(SootMethod method, Transition<Field, INode<Node<Statement, Val>>> t) {
         if (perMethodFieldTransitions.put(method, t)) {
             for (MethodBasedFieldTransitionListener<W> l : Lists
@@ -333,14 +408,6 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         }
     }
 
-    public INode<Node<Statement, Val>> generateFieldState(final INode<Node<Statement, Val>> d, final Field loc) {
-        Entry<INode<Node<Statement, Val>>, Field> e = new AbstractMap.SimpleEntry<>(d, loc);
-        if (!generatedFieldState.containsKey(e)) {
-            generatedFieldState.put(e, new GeneratedState<Node<Statement, Val>, Field>(d, loc));
-        }
-        return generatedFieldState.get(e);
-    }
-
     protected boolean isIdentityFlow(Val value, Stmt succ, SootMethod method, Collection<State> out) {
         if (out.size() != 1 || succ.containsInvokeExpr() || icfg.isExitStmt(succ))
             return false;
@@ -353,7 +420,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         }
         List<State> l = Lists.newArrayList(out);
         State state = l.get(0);
-        return state.equals(new Node<Statement, Val>(new Statement((Stmt) succ, method), value));
+        return state.equals(arena.node(arena.statement((Stmt) succ, method), value));
     }
 
     private boolean containsStaticFieldAccess(Stmt succ) {
@@ -556,7 +623,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             return res;
         Stmt curr = stmt.getUnit().get();
         for (Unit succ : icfg.getSuccsOf(curr)) {
-            res.add(new Statement((Stmt) succ, icfg.getMethodOf(succ)));
+            res.add(arena.statement((Stmt) succ, icfg.getMethodOf(succ)));
         }
         return res;
     }
@@ -567,7 +634,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             return res;
         Stmt curr = stmt.getUnit().get();
         for (Unit succ : icfg.getPredsOf(curr)) {
-            res.add(new Statement((Stmt) succ, icfg.getMethodOf(succ)));
+            res.add(arena.statement((Stmt) succ, icfg.getMethodOf(succ)));
         }
         return res;
     }
@@ -585,6 +652,10 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         return callingPDS.getAllRules().size() + fieldPDS.getAllRules().size();
     }
 
+    public int getNumberOfTransitions() {
+        return callAutomaton.getTransitionStore().size() + fieldAutomaton.getTransitionStore().size();
+    }
+
     @Override
     protected boolean preventFieldTransitionAdd(Transition<Field, INode<Node<Statement, Val>>> t, W weight) {
         if (!t.getLabel().equals(Field.empty()) || !options.typeCheck()) {
@@ -750,12 +821,25 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         this.perStatementFieldTransitionsListener.clear();
     }
 
+	/**
+	 * @return A live view of the methods of the reached nodes, which may be read while the solver saturates.
+	 */
 	public Set<SootMethod> getVisitedMethods() {
-		Set<SootMethod> methods = Sets.newHashSet();
-		for(Node<Statement, Val> s : getReachedStates()) {
-			methods.add(s.stmt().getMethod());
+		return Collections.unmodifiableSet(visitedMethods);
+	}
+
+	/**
+	 * @return A live view of the access paths that point to the allocation site of this solver at the statement. They
+	 *         are extracted by one listener per statement, however often they are asked for.
+	 */
+	public Set<AccessPath> getAliasesAt(Statement stmt) {
+		Set<AccessPath> aliases = aliasesAt.get(stmt);
+		if (aliases == null) {
+			aliases = Sets.newHashSet();
+			aliasesAt.put(stmt, aliases);
+			registerListener(new ExtractAllAliasListener<W>(this, aliases, stmt));
 		}
-		return methods;
+		return Collections.unmodifiableSet(aliases);
 	}
 
 	public Set<Val> getValsAtStatement(Statement exitStmt) {
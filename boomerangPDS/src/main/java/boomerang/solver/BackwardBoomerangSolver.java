@@ -11,12 +11,9 @@
  *******************************************************************************/
 package boomerang.solver;
 
-import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import com.google.common.base.Optional;
@@ -49,7 +46,6 @@ import soot.jimple.ThrowStmt;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 import sync.pds.solver.nodes.CallPopNode;
 import sync.pds.solver.nodes.ExclusionNode;
-import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import sync.pds.solver.nodes.NodeWithLocation;
@@ -61,7 +57,7 @@ import wpds.interfaces.State;
 
 public abstract class BackwardBoomerangSolver<W extends Weight> extends AbstractBoomerangSolver<W> {
 
-    private final class CallSiteCalleeListener implements CalleeListener<Unit, SootMethod> {
+    private final class CallSiteCalleeListener implements CalleeListener<Unit, SootMethod>, SolverOwnedListener<W> {
         private final Node<Statement, Val> curr;
         private final SootMethod caller;
         private final Statement callSite;
@@ -91,8 +87,8 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             InvokeExpr invokeExpr = curr.stmt().getUnit().get().getInvokeExpr();
             for (Unit calleeSp : icfg.getStartPointsOf(callee)) {
                 for (Unit returnSite : icfg.getSuccsOf(callSite)) {
-                    Collection<? extends State> res = computeCallFlow(caller, new Statement((Stmt) returnSite, caller),
-                            new Statement((Stmt) callSite, caller), invokeExpr, curr.fact(), callee, (Stmt) calleeSp);
+                    Collection<? extends State> res = computeCallFlow(caller, arena.statement((Stmt) returnSite, caller),
+                            arena.statement((Stmt) callSite, caller), invokeExpr, curr.fact(), callee, (Stmt) calleeSp);
                     out.addAll(res);
                 }
             }
@@ -142,6 +138,11 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             return true;
         }
 
+        @Override
+        public AbstractBoomerangSolver<W> getSolver() {
+            return BackwardBoomerangSolver.this;
+        }
+
         private BackwardBoomerangSolver getOuterType() {
             return BackwardBoomerangSolver.this;
         }
@@ -149,10 +150,9 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
     }
 
     public BackwardBoomerangSolver(ObservableICFG<Unit, SootMethod> icfg, BackwardQuery query,
-            Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField,
-            BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
+            BoomerangArena arena, BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
             NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
-        super(icfg, query, genField, options, callSummaries, fieldSummaries);
+        super(icfg, query, arena, options, callSummaries, fieldSummaries);
     }
 
     @Override
@@ -165,18 +165,13 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
     }
 
     public INode<Node<Statement, Val>> generateFieldState(final INode<Node<Statement, Val>> d, final Field loc) {
-        Entry<INode<Node<Statement, Val>>, Field> e = new AbstractMap.SimpleEntry<>(d, loc);
-        if (!generatedFieldState.containsKey(e)) {
-            generatedFieldState.put(e,
-                    new GeneratedState<Node<Statement, Val>, Field>(fieldAutomaton.getInitialState(), loc));
-        }
-        return generatedFieldState.get(e);
+        return arena.fieldState(fieldAutomaton.getInitialState(), loc);
     }
 
     @Override
     protected Collection<? extends State> computeReturnFlow(SootMethod method, Stmt curr, Val value, Stmt callSite,
             Stmt returnSite) {
-        Statement returnSiteStatement = new Statement(returnSite, icfg.getMethodOf(returnSite));
+        Statement returnSiteStatement = arena.statement(returnSite, icfg.getMethodOf(returnSite));
         Set<State> out = Sets.newHashSet();
         if (!method.isStatic()) {
             if (method.getActiveBody().getThisLocal().equals(value.value())) {
@@ -275,7 +270,7 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
         if (invokeExpr instanceof InstanceInvokeExpr) {
             InstanceInvokeExpr iie = (InstanceInvokeExpr) invokeExpr;
             if (iie.getBase().equals(fact.value()) && !callee.isStatic()) {
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
+                out.add(new PushNode<Statement, Val, Statement>(arena.statement(calleeSp, callee),
                         new Val(calleeBody.getThisLocal(), callee), returnSite, PDSSystem.CALLS));
             }
         }
@@ -284,7 +279,7 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
         for (Value arg : invokeExpr.getArgs()) {
             if (arg.equals(fact.value()) && parameterLocals.size() > i) {
                 Local param = parameterLocals.get(i);
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee), new Val(param, callee),
+                out.add(new PushNode<Statement, Val, Statement>(arena.statement(calleeSp, callee), new Val(param, callee),
                         returnSite, PDSSystem.CALLS));
             }
             i++;
@@ -294,12 +289,12 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             AssignStmt as = (AssignStmt) callSite.getUnit().get();
             ReturnStmt retStmt = (ReturnStmt) calleeSp;
             if (as.getLeftOp().equals(fact.value())) {
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
+                out.add(new PushNode<Statement, Val, Statement>(arena.statement(calleeSp, callee),
                         new Val(retStmt.getOp(), callee), returnSite, PDSSystem.CALLS));
             }
         }
         if (fact.isStatic()) {
-            out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
+            out.add(new PushNode<Statement, Val, Statement>(arena.statement(calleeSp, callee),
                     new StaticFieldVal(fact.value(), ((StaticFieldVal) fact).field(), callee), returnSite,
                     PDSSystem.CALLS));
         }
@@ -332,31 +327,31 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
                 if (rightOp instanceof InstanceFieldRef) {
                     if (options.trackFields()) {
                         InstanceFieldRef ifr = (InstanceFieldRef) rightOp;
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
+                        out.add(new PushNode<Statement, Val, Field>(arena.statement(succ, method),
                                 new Val(ifr.getBase(), method), new Field(ifr.getField()), PDSSystem.FIELDS));
                     }
                 } else if (rightOp instanceof StaticFieldRef) {
                     if (options.trackFields() && options.staticFlows()) {
                         StaticFieldRef sfr = (StaticFieldRef) rightOp;
-                        out.add(new Node<Statement, Val>(new Statement(succ, method),
+                        out.add(arena.node(arena.statement(succ, method),
                                 new StaticFieldVal(leftOp, sfr.getField(), method)));
                     }
                 } else if (rightOp instanceof ArrayRef) {
                     ArrayRef ifr = (ArrayRef) rightOp;
                     if (options.trackFields() && options.arrayFlows()) {
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
+                        out.add(new PushNode<Statement, Val, Field>(arena.statement(succ, method),
                                 new Val(ifr.getBase(), method), Field.array(), PDSSystem.FIELDS));
                     }
                     // leftSideMatches = false;
                 } else if (rightOp instanceof CastExpr) {
                     CastExpr castExpr = (CastExpr) rightOp;
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(castExpr.getOp(), method)));
+                    out.add(arena.node(arena.statement(succ, method), new Val(castExpr.getOp(), method)));
                 } else {
                     if (isFieldLoadWithBase(curr, fact)) {
-                        out.add(new ExclusionNode<Statement, Val, Field>(new Statement(succ, method), fact,
+                        out.add(new ExclusionNode<Statement, Val, Field>(arena.statement(succ, method), fact,
                                 getLoadedField(curr)));
                     } else {
-                        out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(rightOp, method)));
+                        out.add(arena.node(arena.statement(succ, method), new Val(rightOp, method)));
                     }
                 }
             }
@@ -365,26 +360,26 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
                 Value base = ifr.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(rightOp, method), new Field(ifr.getField()));
+                            arena.statement(succ, method), new Val(rightOp, method), new Field(ifr.getField()));
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             } else if (leftOp instanceof StaticFieldRef) {
                 StaticFieldRef sfr = (StaticFieldRef) leftOp;
                 if (fact.isStatic() && fact.equals(new StaticFieldVal(leftOp, sfr.getField(), method))) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(rightOp, method)));
+                    out.add(arena.node(arena.statement(succ, method), new Val(rightOp, method)));
                 }
             } else if (leftOp instanceof ArrayRef) {
                 ArrayRef ifr = (ArrayRef) leftOp;
                 Value base = ifr.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(rightOp, method), Field.array());
+                            arena.statement(succ, method), new Val(rightOp, method), Field.array());
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             }
         }
         if (!leftSideMatches)
-            out.add(new Node<Statement, Val>(new Statement(succ, method), fact));
+            out.add(arena.node(arena.statement(succ, method), fact));
         return out;
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.solver;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import soot.SootMethod;
+import soot.jimple.Stmt;
+import sync.pds.solver.nodes.NodeArena;
+
+/**
+ * The {@link NodeArena} shared by the solvers of one {@link boomerang.WeightedBoomerang} instance, which also holds the
+ * canonical {@link Statement} of each statement of the program.
+ */
+public class BoomerangArena extends NodeArena<Statement, Val, Field> {
+
+    private final ConcurrentMap<Stmt, Statement> statements = Maps.newConcurrentMap();
+
+    public Statement statement(Stmt stmt, SootMethod method) {
+        Statement statement = statements.get(stmt);
+        if (statement == null) {
+            statements.putIfAbsent(stmt, new Statement(stmt, method));
+            statement = statements.get(stmt);
+        }
+        return statement;
+    }
+
+    @Override
+    public void prune(Predicate<? super Statement> stale) {
+        super.prune(stale);
+        Iterables.removeIf(statements.values(), stale);
+    }
+
+    /**
+     * Drops everything the arena holds for the statements of the methods.
+     */
+    public void pruneMethods(final Set<SootMethod> methods) {
+        if (methods.isEmpty()) {
+            return;
+        }
+        prune(new Predicate<Statement>() {
+            @Override
+            public boolean apply(Statement statement) {
+                return methods.contains(statement.getMethod());
+            }
+        });
+    }
+}
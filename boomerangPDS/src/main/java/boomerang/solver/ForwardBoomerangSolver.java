@@ -68,7 +68,7 @@ import wpds.impl.Weight;
 import wpds.interfaces.State;
 
 public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractBoomerangSolver<W> {
-    private final class CallSiteCalleeListener implements CalleeListener<Unit, SootMethod> {
+    private final class CallSiteCalleeListener implements CalleeListener<Unit, SootMethod>, SolverOwnedListener<W> {
         private final SootMethod caller;
         private final Stmt callSite;
         private final Node<Statement, Val> currNode;
@@ -143,7 +143,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             // onlyStaticInitializer = false;
             for (Unit calleeSp : icfg.getStartPointsOf(callee)) {
                 Set<State> out = Sets.newHashSet();
-                Collection<? extends State> res = computeCallFlow(caller, new Statement((Stmt) callSite, caller),
+                Collection<? extends State> res = computeCallFlow(caller, arena.statement((Stmt) callSite, caller),
                         invokeExpr, currNode.fact(), callee, (Stmt) calleeSp);
                 out.addAll(res);
                 for (State s : out) {
@@ -158,16 +158,20 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             return callSite;
         }
 
+        @Override
+        public AbstractBoomerangSolver<W> getSolver() {
+            return ForwardBoomerangSolver.this;
+        }
+
         private ForwardBoomerangSolver getOuterType() {
             return ForwardBoomerangSolver.this;
         }
     }
 
     public ForwardBoomerangSolver(ObservableICFG<Unit, SootMethod> icfg, ForwardQuery query,
-            Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField,
-            BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
+            BoomerangArena arena, BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
             NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
-        super(icfg, query, genField, options, callSummaries, fieldSummaries);
+        super(icfg, query, arena, options, callSummaries, fieldSummaries);
     }
 
     public Collection<? extends State> computeCallFlow(SootMethod caller, Statement callSite, InvokeExpr invokeExpr,
@@ -180,7 +184,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
         if (invokeExpr instanceof InstanceInvokeExpr) {
             InstanceInvokeExpr iie = (InstanceInvokeExpr) invokeExpr;
             if (iie.getBase().equals(fact.value()) && !callee.isStatic()) {
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
+                out.add(new PushNode<Statement, Val, Statement>(arena.statement(calleeSp, callee),
                         new Val(calleeBody.getThisLocal(), callee), callSite, PDSSystem.CALLS));
             }
         }
@@ -189,13 +193,13 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
         for (Value arg : invokeExpr.getArgs()) {
             if (arg.equals(fact.value()) && parameterLocals.size() > i) {
                 Local param = parameterLocals.get(i);
-                out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee), new Val(param, callee),
+                out.add(new PushNode<Statement, Val, Statement>(arena.statement(calleeSp, callee), new Val(param, callee),
                         callSite, PDSSystem.CALLS));
             }
             i++;
         }
         if (fact.isStatic()) {
-            out.add(new PushNode<Statement, Val, Statement>(new Statement(calleeSp, callee),
+            out.add(new PushNode<Statement, Val, Statement>(arena.statement(calleeSp, callee),
                     new StaticFieldVal(fact.value(), ((StaticFieldVal) fact).field(), callee), callSite,
                     PDSSystem.CALLS));
         }
@@ -203,12 +207,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
     }
 
     public INode<Node<Statement, Val>> generateFieldState(final INode<Node<Statement, Val>> d, final Field loc) {
-        Entry<INode<Node<Statement, Val>>, Field> e = new AbstractMap.SimpleEntry<>(d, loc);
-        if (!generatedFieldState.containsKey(e)) {
-            generatedFieldState.put(e,
-                    new GeneratedState<Node<Statement, Val>, Field>(fieldAutomaton.getInitialState(), loc));
-        }
-        return generatedFieldState.get(e);
+        return arena.fieldState(fieldAutomaton.getInitialState(), loc);
     }
 
     @Override
@@ -358,10 +357,10 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             // always maintain data-flow if not a field write // killFlow has
             // been taken care of
             if (!options.trackReturnOfInstanceOf() || !isInstanceOfStatement(succ, fact)) {
-                out.add(new Node<Statement, Val>(new Statement((Stmt) succ, method), fact));
+                out.add(arena.node(arena.statement((Stmt) succ, method), fact));
             }
         } else {
-            out.add(new ExclusionNode<Statement, Val, Field>(new Statement(succ, method), fact, getWrittenField(succ)));
+            out.add(new ExclusionNode<Statement, Val, Field>(arena.statement(succ, method), fact, getWrittenField(succ)));
         }
         if (succ instanceof AssignStmt) {
             AssignStmt assignStmt = (AssignStmt) succ;
@@ -371,23 +370,23 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
                 if (leftOp instanceof InstanceFieldRef) {
                     InstanceFieldRef ifr = (InstanceFieldRef) leftOp;
                     if (options.trackFields()) {
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
+                        out.add(new PushNode<Statement, Val, Field>(arena.statement(succ, method),
                                 new Val(ifr.getBase(), method), new Field(ifr.getField()), PDSSystem.FIELDS));
                     }
                 } else if (leftOp instanceof StaticFieldRef) {
                     StaticFieldRef sfr = (StaticFieldRef) leftOp;
                     if (options.trackFields() && options.staticFlows()) {
-                        out.add(new Node<Statement, Val>(new Statement(succ, method),
+                        out.add(arena.node(arena.statement(succ, method),
                                 new StaticFieldVal(leftOp, sfr.getField(), method)));
                     }
                 } else if (leftOp instanceof ArrayRef) {
                     ArrayRef arrayRef = (ArrayRef) leftOp;
                     if (options.trackFields() && options.arrayFlows()) {
-                        out.add(new PushNode<Statement, Val, Field>(new Statement(succ, method),
+                        out.add(new PushNode<Statement, Val, Field>(arena.statement(succ, method),
                                 new Val(arrayRef.getBase(), method), Field.array(), PDSSystem.FIELDS));
                     }
                 } else {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(leftOp, method)));
+                    out.add(arena.node(arena.statement(succ, method), new Val(leftOp, method)));
                 }
             }
             if (rightOp instanceof InstanceFieldRef) {
@@ -395,32 +394,32 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
                 Value base = ifr.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(leftOp, method), new Field(ifr.getField()));
+                            arena.statement(succ, method), new Val(leftOp, method), new Field(ifr.getField()));
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             } else if (rightOp instanceof StaticFieldRef) {
                 StaticFieldRef sfr = (StaticFieldRef) rightOp;
                 if (fact.isStatic() && fact.equals(new StaticFieldVal(rightOp, sfr.getField(), method))) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(leftOp, method)));
+                    out.add(arena.node(arena.statement(succ, method), new Val(leftOp, method)));
                 }
             } else if (rightOp instanceof ArrayRef) {
                 ArrayRef arrayRef = (ArrayRef) rightOp;
                 Value base = arrayRef.getBase();
                 if (base.equals(fact.value())) {
                     NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
-                            new Statement(succ, method), new Val(leftOp, method), Field.array());
+                            arena.statement(succ, method), new Val(leftOp, method), Field.array());
                     out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
                 }
             } else if (rightOp instanceof CastExpr) {
                 CastExpr castExpr = (CastExpr) rightOp;
                 if (castExpr.getOp().equals(fact.value())) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method), new Val(leftOp, method)));
+                    out.add(arena.node(arena.statement(succ, method), new Val(leftOp, method)));
                 }
             } else if (rightOp instanceof InstanceOfExpr && query.getType() instanceof NullType
                     && options.trackReturnOfInstanceOf()) {
                 InstanceOfExpr instanceOfExpr = (InstanceOfExpr) rightOp;
                 if (instanceOfExpr.getOp().equals(fact.value())) {
-                    out.add(new Node<Statement, Val>(new Statement(succ, method),
+                    out.add(arena.node(arena.statement(succ, method),
                             new ValWithFalseVariable(fact.value(), method, leftOp)));
                 }
             }
@@ -462,7 +461,7 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
     @Override
     public Collection<? extends State> computeReturnFlow(SootMethod method, Stmt curr, Val value, Stmt callSite,
             Stmt returnSite) {
-        Statement returnSiteStatement = new Statement(callSite, icfg.getMethodOf(callSite));
+        Statement returnSiteStatement = arena.statement(callSite, icfg.getMethodOf(callSite));
         if (curr instanceof ThrowStmt && !options.throwFlows()) {
             return Collections.emptySet();
         }
@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.solver;
+
+import wpds.impl.Weight;
+
+/**
+ * A call graph listener that propagates into a single solver. When the solver is evicted from its {@link SolverPool},
+ * its listeners are unregistered from the call graph.
+ */
+public interface SolverOwnedListener<W extends Weight> {
+    AbstractBoomerangSolver<W> getSolver();
+}
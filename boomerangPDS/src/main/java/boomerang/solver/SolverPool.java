@@ -0,0 +1,696 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.solver;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import boomerang.Query;
+import heros.utilities.DefaultValueMap;
+import wpds.impl.Weight;
+
+/**
+ * The solvers of a {@link boomerang.WeightedBoomerang} by query, optionally bounded by a number of solvers and a number
+ * of automaton transitions.
+ * <p>
+ * Solvers that are looked up while a query is solved may depend on each other, through points of indirection,
+ * unbalanced returns or the call graph, and are grouped into one component. A component is owned by at most one thread
+ * at a time, so queries of different threads saturate disjoint solvers concurrently. A thread that looks up a solver of
+ * a component another thread owns gives up its own component and waits; once both are free, it merges them and goes
+ * on. Each thread solves its query as if the other threads had solved theirs re-entrantly at its lookups, and the
+ * outermost query of a component only terminates once no other thread is still solving in it.
+ * <p>
+ * When the outermost query terminates, idle components are evicted as a whole, least recently used first, until the
+ * pool is within its bounds again. The component of the query that just terminated is never evicted, so its results
+ * can be read until the next query is solved. Looking up an evicted query creates a new solver. The pool does not
+ * remember which queries it evicted: a lookup that expects a solved solver, see {@link #getOrSolve(Query)}, passes a
+ * new one to {@link #onRecreated(Query, AbstractBoomerangSolver)} to be solved again, while
+ * {@link #getOrCreate(Query)} leaves it to the caller to solve it.
+ * <p>
+ * The solvers of a query that stopped before they saturated are incomplete. If the query is marked with
+ * {@link #discardSession()}, its component, or the solvers it looked up itself if the pool does not track components,
+ * is evicted once it is idle, so later queries solve them anew. A query that looks up such a solver while another
+ * thread still solves in its component is told by {@link #onIncomplete(Query)}. After a change of the program,
+ * {@link #evictComponentsOf(Collection)} evicts the components of the solvers that depend on it right away.
+ * <p>
+ * Maintenance that must see all solvers at rest, e.g. the eviction after a change, runs under the
+ * {@link #exclusiveLock()}. Lookups outside of a query or a read, see {@link #beginRead(Query)}, are not synchronized
+ * and must hold that lock if other threads solve queries.
+ */
+public abstract class SolverPool<W extends Weight> extends DefaultValueMap<Query, AbstractBoomerangSolver<W>> {
+
+    private final ConcurrentMap<Query, AbstractBoomerangSolver<W>> solvers = Maps.newConcurrentMap();
+    private final ReentrantReadWriteLock sessionLock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Session> session = new ThreadLocal<>();
+    /**
+     * Components by query, guarded by this pool. Read without it only to check whether the current thread owns the
+     * component of a query.
+     */
+    private final ConcurrentMap<Query, Component> componentOf = Maps.newConcurrentMap();
+    private final Set<Component> components = Sets.newIdentityHashSet();
+    private final Set<Query> staleQueries = Sets.newConcurrentHashSet();
+    private final AtomicInteger evictedSolvers = new AtomicInteger();
+    private int maxSolvers = -1;
+    private long maxTransitions = -1;
+    private long clock;
+    private boolean trackComponents;
+    private boolean exclusive;
+
+    private static final class Component {
+        private final Set<Query> keys = Sets.newHashSet();
+        private volatile Thread owner;
+        private Component mergedInto;
+        private int sessions;
+        private int finishing;
+        private long lastUse;
+    }
+
+    private static final class Session {
+        private final Lock lock;
+        private final Set<Query> queries = Sets.newHashSet();
+        private Component component;
+        private int depth;
+        private boolean solving;
+        private boolean discard;
+
+        private Session(Lock lock) {
+            this.lock = lock;
+        }
+    }
+
+    /**
+     * Bounds the pool, which is unbounded by default. Must be called before the first query.
+     *
+     * @param maxSolvers
+     *            The number of retained solvers, negative for no bound.
+     * @param maxTransitions
+     *            The number of call and field automaton transitions of the retained solvers, negative for no bound.
+     */
+    public void setBounds(int maxSolvers, long maxTransitions) {
+        this.maxSolvers = maxSolvers;
+        this.maxTransitions = maxTransitions;
+    }
+
+    public boolean isBounded() {
+        return maxSolvers >= 0 || maxTransitions >= 0;
+    }
+
+    /**
+     * Groups the solvers into components even if the pool is unbounded, so that {@link #evictComponentsOf(Collection)}
+     * evicts only the solvers that depend on each other. Must be called before the first query.
+     */
+    public void setTrackComponents(boolean trackComponents) {
+        this.trackComponents = trackComponents;
+    }
+
+    private boolean tracksComponents() {
+        return isBounded() || trackComponents;
+    }
+
+    /**
+     * Solves the queries of all threads one at a time, for solvers that share state outside of their components, e.g.
+     * summaries or a call graph resolved on demand. Must be called before the first query.
+     */
+    public void setExclusive(boolean exclusive) {
+        this.exclusive = exclusive;
+    }
+
+    public boolean isExclusive() {
+        return exclusive;
+    }
+
+    /**
+     * @return The lock that excludes all queries and reads while it is held. A thread that solves a query or reads
+     *         results must not acquire it.
+     */
+    public Lock exclusiveLock() {
+        return sessionLock.writeLock();
+    }
+
+    /**
+     * Acquires the {@link #exclusiveLock()}, which must be released by the caller.
+     *
+     * @throws IllegalStateException
+     *             if the current thread solves a query or reads results, as it would wait for itself.
+     */
+    public void lockExclusive() {
+        if (sessionLock.getReadHoldCount() > 0 && !sessionLock.isWriteLockedByCurrentThread()) {
+            throw new IllegalStateException("The solvers cannot be locked while a query is solved.");
+        }
+        sessionLock.writeLock().lock();
+    }
+
+    /**
+     * Starts solving a query. Calls nest; the solvers looked up until the outermost call of {@link #endQuery()} join
+     * the component of the outermost query.
+     */
+    public void beginQuery(Query query) {
+        begin(query, true);
+    }
+
+    /**
+     * Terminates the query started by the matching {@link #beginQuery(Query)}. If it is the outermost one, waits until
+     * no other thread solves in its component and evicts the least recently used idle components other than its own
+     * until the pool is within its bounds.
+     */
+    public void endQuery() {
+        end();
+    }
+
+    /**
+     * Starts reading the results of a query. The solvers looked up until the matching {@link #endRead()} are owned by
+     * the current thread, like those of a query.
+     *
+     * @param query
+     *            The query whose component is read, may be null or a query without a solver.
+     */
+    public void beginRead(Query query) {
+        begin(query, false);
+    }
+
+    public void endRead() {
+        end();
+    }
+
+    /**
+     * Marks the solvers looked up by the query being solved as incomplete. They can still be read by the current thread
+     * until its outermost query terminates, and are evicted once their component is idle. If the pool tracks
+     * components, these are the solvers of the component of the query, otherwise the solvers it looked up itself.
+     */
+    public void discardSession() {
+        Session s = session.get();
+        if (s != null) {
+            s.discard = true;
+        }
+    }
+
+    /**
+     * @return Whether the current thread solves a query or reads results.
+     */
+    public boolean inSession() {
+        return session.get() != null;
+    }
+
+    private void begin(Query query, boolean solving) {
+        Session s = session.get();
+        if (s == null) {
+            Lock lock = exclusive ? sessionLock.writeLock() : sessionLock.readLock();
+            lock.lock();
+            s = new Session(lock);
+            session.set(s);
+            if (solving) {
+                evictStale();
+            }
+        }
+        s.depth++;
+        s.solving |= solving;
+        if (solving || (query != null && solvers.containsKey(query))) {
+            lookup(s, query);
+        }
+    }
+
+    private void end() {
+        Session s = session.get();
+        if (--s.depth > 0) {
+            return;
+        }
+        session.remove();
+        try {
+            synchronized (this) {
+                leave(s);
+            }
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the current thread the owner of the component of the query, merged with the component of its session.
+     */
+    private void lookup(Session s, Query key) {
+        Component component = componentOf.get(key);
+        if (component == null || component.owner != Thread.currentThread()) {
+            synchronized (this) {
+                acquire(s, key);
+            }
+        }
+        if (s.queries.add(key) && s.solving && staleQueries.contains(key)) {
+            onIncomplete(key);
+        }
+    }
+
+    private void acquire(Session s, Query key) {
+        Thread current = Thread.currentThread();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                Component mine = resolve(s.component);
+                Component target = resolve(componentOf.get(key));
+                if (target != null && target != mine && target.sessions == 0 && target.owner == null
+                        && evictStaleOf(target)) {
+                    continue;
+                }
+                if (isFree(mine) && isFree(target)) {
+                    Component c = merge(mine, target);
+                    if (c == null) {
+                        c = new Component();
+                        components.add(c);
+                    }
+                    if (mine == null) {
+                        c.sessions++;
+                    }
+                    if (target == null) {
+                        c.keys.add(key);
+                        componentOf.put(key, c);
+                    }
+                    c.owner = current;
+                    c.lastUse = ++clock;
+                    s.component = c;
+                    return;
+                }
+                release(s, mine);
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                current.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Ends the session of the current thread. A session that solved a query waits until every other session of its
+     * component terminates as well, so that no solver of the component has pending work once its results are read.
+     */
+    private void leave(Session s) {
+        Component c = resolve(s.component);
+        if (c == null) {
+            return;
+        }
+        if (s.solving) {
+            c.finishing++;
+            boolean interrupted = false;
+            while ((c = resolve(c)).finishing < c.sessions) {
+                release(s, c);
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            c.finishing--;
+        }
+        if (s.discard) {
+            staleQueries.addAll(tracksComponents() ? c.keys : s.queries);
+        }
+        release(s, c);
+        c.sessions--;
+        c.lastUse = ++clock;
+        notifyAll();
+        if (c.keys.isEmpty() && c.sessions == 0) {
+            components.remove(c);
+        }
+        if (s.solving && isBounded()) {
+            evictToBounds(c);
+        }
+    }
+
+    private void release(Session s, Component c) {
+        if (c == null || c.owner != Thread.currentThread()) {
+            return;
+        }
+        if (s.discard) {
+            staleQueries.addAll(tracksComponents() ? c.keys : s.queries);
+        }
+        c.owner = null;
+        notifyAll();
+    }
+
+    private boolean isFree(Component c) {
+        return c == null || c.owner == null || c.owner == Thread.currentThread();
+    }
+
+    private Component resolve(Component c) {
+        while (c != null && c.mergedInto != null) {
+            c = c.mergedInto;
+        }
+        return c;
+    }
+
+    private Component merge(Component a, Component b) {
+        if (a == null || a == b) {
+            return b == null ? a : b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.keys.size() < b.keys.size()) {
+            return merge(b, a);
+        }
+        for (Query q : b.keys) {
+            componentOf.put(q, a);
+        }
+        a.keys.addAll(b.keys);
+        a.sessions += b.sessions;
+        a.finishing += b.finishing;
+        a.lastUse = Math.max(a.lastUse, b.lastUse);
+        b.keys.clear();
+        b.owner = null;
+        b.mergedInto = a;
+        components.remove(b);
+        return a;
+    }
+
+    @Override
+    public AbstractBoomerangSolver<W> getOrCreate(Query key) {
+        return getOrCreate(key, false);
+    }
+
+    /**
+     * @return The solver of the query, which the caller expects to be solved already, e.g. to read its results. If the
+     *         pool has none, e.g. because it was evicted, the new solver is solved by
+     *         {@link #onRecreated(Query, AbstractBoomerangSolver)} first.
+     */
+    public AbstractBoomerangSolver<W> getOrSolve(Query key) {
+        return getOrCreate(key, true);
+    }
+
+    private AbstractBoomerangSolver<W> getOrCreate(Query key, boolean solve) {
+        Session s = session.get();
+        if (s != null) {
+            lookup(s, key);
+        }
+        AbstractBoomerangSolver<W> solver = solvers.get(key);
+        if (solver != null) {
+            return solver;
+        }
+        if (s == null) {
+            register(key);
+        }
+        if (!solve) {
+            return create(key);
+        }
+        beginQuery(key);
+        try {
+            solver = create(key);
+            onRecreated(key, solver);
+            return solver;
+        } finally {
+            endQuery();
+        }
+    }
+
+    /**
+     * Puts a query looked up outside of a session into a component of its own, so that it is evicted like the others.
+     */
+    private synchronized void register(Query key) {
+        if (!componentOf.containsKey(key)) {
+            Component c = new Component();
+            c.keys.add(key);
+            c.lastUse = ++clock;
+            componentOf.put(key, c);
+            components.add(c);
+        }
+    }
+
+    private AbstractBoomerangSolver<W> create(Query key) {
+        AbstractBoomerangSolver<W> solver = createItem(key);
+        AbstractBoomerangSolver<W> existing = solvers.putIfAbsent(key, solver);
+        return existing == null ? solver : existing;
+    }
+
+    @Override
+    public AbstractBoomerangSolver<W> get(Object key) {
+        Session s = session.get();
+        if (s != null && key instanceof Query && solvers.containsKey(key)) {
+            lookup(s, (Query) key);
+        }
+        return solvers.get(key);
+    }
+
+    @Override
+    public AbstractBoomerangSolver<W> put(Query key, AbstractBoomerangSolver<W> value) {
+        return solvers.put(key, value);
+    }
+
+    @Override
+    public AbstractBoomerangSolver<W> remove(Object key) {
+        return solvers.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends Query, ? extends AbstractBoomerangSolver<W>> m) {
+        solvers.putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        solvers.clear();
+    }
+
+    @Override
+    public int size() {
+        return solvers.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return solvers.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return solvers.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return solvers.containsValue(value);
+    }
+
+    /**
+     * The views are live and weakly consistent, they may be iterated while other threads solve queries.
+     */
+    @Override
+    public Set<Query> keySet() {
+        return solvers.keySet();
+    }
+
+    @Override
+    public Collection<AbstractBoomerangSolver<W>> values() {
+        return solvers.values();
+    }
+
+    @Override
+    public Set<Entry<Query, AbstractBoomerangSolver<W>>> entrySet() {
+        return solvers.entrySet();
+    }
+
+    /**
+     * @return The solvers the current thread may access: those of the component it owns while it solves a query or
+     *         reads results, unless the queries are solved one at a time, and all solvers otherwise.
+     */
+    public Map<Query, AbstractBoomerangSolver<W>> getOwnedSolvers() {
+        Session s = session.get();
+        if (s == null || exclusive) {
+            return Collections.unmodifiableMap(solvers);
+        }
+        Map<Query, AbstractBoomerangSolver<W>> owned = Maps.newHashMap();
+        if (s.component == null) {
+            return owned;
+        }
+        synchronized (this) {
+            for (Query q : resolve(s.component).keys) {
+                AbstractBoomerangSolver<W> solver = solvers.get(q);
+                if (solver != null) {
+                    owned.put(q, solver);
+                }
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * @return The number of solvers evicted so far.
+     */
+    public int getEvictedSolvers() {
+        return evictedSolvers.get();
+    }
+
+    /**
+     * @return The number of components the retained solvers are grouped into, zero if the pool does not track
+     *         components.
+     */
+    public synchronized int getNumberOfComponents() {
+        return tracksComponents() ? components.size() : 0;
+    }
+
+    /**
+     * Called after the solvers of a component were removed from the pool and cleaned up, to release everything else
+     * that refers to them.
+     */
+    protected abstract void onEvicted(Map<Query, AbstractBoomerangSolver<W>> solvers);
+
+    /**
+     * Called when {@link #getOrSolve(Query)} created a solver for the query, e.g. because its previous solver was
+     * evicted, to solve it again.
+     */
+    protected abstract void onRecreated(Query key, AbstractBoomerangSolver<W> solver);
+
+    /**
+     * Called when the current thread looks up the solver of a query that a stopped query left incomplete and that
+     * cannot be evicted, as another thread still solves in its component. What the current query derives from it is
+     * incomplete as well.
+     */
+    protected abstract void onIncomplete(Query key);
+
+    /**
+     * Evicts the components of the queries at once, or every solver if the pool does not track components. Must be
+     * called while holding the {@link #exclusiveLock()}.
+     *
+     * @return The queries whose solvers were evicted.
+     */
+    public synchronized Set<Query> evictComponentsOf(Collection<Query> queries) {
+        if (!sessionLock.isWriteLockedByCurrentThread() || session.get() != null) {
+            throw new IllegalStateException("Solvers cannot be evicted while a query is solved.");
+        }
+        Set<Query> evictedQueries = Sets.newHashSet();
+        if (queries.isEmpty()) {
+            return evictedQueries;
+        }
+        Set<Component> roots = Sets.newIdentityHashSet();
+        if (!tracksComponents()) {
+            roots.addAll(components);
+        } else {
+            for (Query query : queries) {
+                Component c = componentOf.get(query);
+                if (c != null && solvers.containsKey(query)) {
+                    roots.add(c);
+                }
+            }
+        }
+        for (Component c : roots) {
+            for (Query q : c.keys) {
+                if (solvers.containsKey(q)) {
+                    evictedQueries.add(q);
+                }
+            }
+            evict(c);
+        }
+        return evictedQueries;
+    }
+
+    private void evictToBounds(Component retained) {
+        long transitions = 0;
+        if (maxTransitions >= 0) {
+            for (AbstractBoomerangSolver<W> solver : solvers.values()) {
+                transitions += solver.getNumberOfTransitions();
+            }
+        }
+        while ((maxSolvers >= 0 && solvers.size() > maxSolvers)
+                || (maxTransitions >= 0 && transitions > maxTransitions)) {
+            Component lru = null;
+            for (Component c : components) {
+                if (c != retained && c.sessions == 0 && c.owner == null && (lru == null || c.lastUse < lru.lastUse)) {
+                    lru = c;
+                }
+            }
+            if (lru == null) {
+                return;
+            }
+            transitions -= evict(lru);
+        }
+    }
+
+    /**
+     * Evicts the idle components that hold solvers of stopped queries.
+     */
+    private synchronized void evictStale() {
+        if (staleQueries.isEmpty()) {
+            return;
+        }
+        for (Component c : Lists.newArrayList(components)) {
+            if (c.sessions == 0 && c.owner == null) {
+                evictStaleOf(c);
+            }
+        }
+    }
+
+    /**
+     * Evicts the solvers of stopped queries from the idle component, all of its solvers if the pool tracks components.
+     *
+     * @return Whether a solver was evicted.
+     */
+    private boolean evictStaleOf(Component c) {
+        Set<Query> stale = Sets.newHashSet();
+        for (Query q : c.keys) {
+            if (staleQueries.contains(q)) {
+                stale.add(q);
+            }
+        }
+        if (stale.isEmpty()) {
+            return false;
+        }
+        staleQueries.removeAll(tracksComponents() ? c.keys : stale);
+        if (tracksComponents()) {
+            evict(c);
+        } else {
+            evictQueries(c, stale);
+        }
+        return true;
+    }
+
+    private long evict(Component c) {
+        long transitions = evictQueries(c, Sets.newHashSet(c.keys));
+        components.remove(c);
+        return transitions;
+    }
+
+    private long evictQueries(Component c, Collection<Query> queries) {
+        Map<Query, AbstractBoomerangSolver<W>> removed = Maps.newHashMap();
+        long transitions = 0;
+        for (Query q : queries) {
+            c.keys.remove(q);
+            componentOf.remove(q);
+            AbstractBoomerangSolver<W> solver = solvers.remove(q);
+            if (solver != null) {
+                transitions += solver.getNumberOfTransitions();
+                solver.cleanup();
+                removed.put(q, solver);
+            }
+        }
+        if (c.keys.isEmpty() && c.sessions == 0) {
+            components.remove(c);
+        }
+        evictedSolvers.addAndGet(removed.size());
+        onEvicted(removed);
+        return transitions;
+    }
+}
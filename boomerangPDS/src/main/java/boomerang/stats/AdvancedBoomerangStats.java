@@ -47,7 +47,8 @@ import wpds.interfaces.WPDSUpdateListener;
 
 public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats<W> {
 
-    private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private final Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private final RetainedSolvers<W> retained = new RetainedSolvers<>(queries);
     private Set<WeightedTransition<Field, INode<Node<Statement, Val>>, W>> globalFieldTransitions = Sets.newHashSet();
     private int fieldTransitionCollisions;
     private Set<WeightedTransition<Statement, INode<Val>, W>> globalCallTransitions = Sets.newHashSet();
@@ -91,20 +92,25 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
 
     @Override
     public void registerSolver(Query key, final AbstractBoomerangSolver<W> solver) {
-        if (queries.containsKey(key)) {
-            return;
+        synchronized (this) {
+            if (queries.containsKey(key)) {
+                return;
+            }
+            queries.put(key, solver);
         }
-        queries.put(key, solver);
         solver.getFieldAutomaton().registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
             @Override
             public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
                     WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                if (!globalFieldTransitions.add(new WeightedTransition<Field, INode<Node<Statement, Val>>, W>(t, w))) {
-                    fieldTransitionCollisions++;
-                }
-                fieldVisitedMethods.add(t.getStart().fact().stmt().getMethod());
-                if (t.getLabel().equals(Field.array())) {
-                    arrayFlows++;
+                synchronized (AdvancedBoomerangStats.this) {
+                    if (!globalFieldTransitions
+                            .add(new WeightedTransition<Field, INode<Node<Statement, Val>>, W>(t, w))) {
+                        fieldTransitionCollisions++;
+                    }
+                    fieldVisitedMethods.add(t.getStart().fact().stmt().getMethod());
+                    if (t.getLabel().equals(Field.array())) {
+                        arrayFlows++;
+                    }
                 }
             }
         });
@@ -113,13 +119,15 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
             @Override
             public void onWeightAdded(Transition<Statement, INode<Val>> t, W w,
                     WeightedPAutomaton<Statement, INode<Val>, W> aut) {
-                if (!globalCallTransitions.add(new WeightedTransition<Statement, INode<Val>, W>(t, w))) {
-                    callTransitionCollisions++;
-                }
-                callVisitedMethods.add(t.getLabel().getMethod());
+                synchronized (AdvancedBoomerangStats.this) {
+                    if (!globalCallTransitions.add(new WeightedTransition<Statement, INode<Val>, W>(t, w))) {
+                        callTransitionCollisions++;
+                    }
+                    callVisitedMethods.add(t.getLabel().getMethod());
 
-                if (t.getStart().fact().isStatic()) {
-                    staticFlows++;
+                    if (t.getStart().fact().isStatic()) {
+                        staticFlows++;
+                    }
                 }
             }
         });
@@ -127,12 +135,14 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         solver.getFieldPDS().registerUpdateListener(new WPDSUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
             @Override
             public void onRuleAdded(Rule<Field, INode<Node<Statement, Val>>, W> rule) {
-                if (!globalFieldRules.add(rule)) {
-                    fieldRulesCollisions++;
-                } else if (COUNT_TOP_METHODS) {
-                    increaseMethod(rule.getS1().fact().stmt().getMethod().toString(),
-                            (solver instanceof BackwardBoomerangSolver ? backwardFieldMethodsRules
-                                    : forwardFieldMethodsRules));
+                synchronized (AdvancedBoomerangStats.this) {
+                    if (!globalFieldRules.add(rule)) {
+                        fieldRulesCollisions++;
+                    } else if (COUNT_TOP_METHODS) {
+                        increaseMethod(rule.getS1().fact().stmt().getMethod().toString(),
+                                (solver instanceof BackwardBoomerangSolver ? backwardFieldMethodsRules
+                                        : forwardFieldMethodsRules));
+                    }
                 }
             }
         });
@@ -140,12 +150,14 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
 
             @Override
             public void onRuleAdded(Rule<Statement, INode<Val>, W> rule) {
-                if (!globalCallRules.add(rule)) {
-                    callRulesCollisions++;
+                synchronized (AdvancedBoomerangStats.this) {
+                    if (!globalCallRules.add(rule)) {
+                        callRulesCollisions++;
 
-                } else if (COUNT_TOP_METHODS) {
-                    increaseMethod(rule.getL1().getMethod().toString(), (solver instanceof BackwardBoomerangSolver
-                            ? backwardCallMethodsRules : forwardCallMethodsRules));
+                    } else if (COUNT_TOP_METHODS) {
+                        increaseMethod(rule.getL1().getMethod().toString(), (solver instanceof BackwardBoomerangSolver
+                                ? backwardCallMethodsRules : forwardCallMethodsRules));
+                    }
                 }
             }
         });
@@ -154,13 +166,15 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
 
             @Override
             public void onReachableNodeAdded(Node<Statement, Val> reachableNode) {
-                if (solver instanceof ForwardBoomerangSolver) {
-                    if (!reachedForwardNodes.add(reachableNode)) {
-                        reachedForwardNodeCollisions++;
-                    }
-                } else {
-                    if (!reachedBackwardNodes.add(reachableNode)) {
-                        reachedBackwardNodeCollisions++;
+                synchronized (AdvancedBoomerangStats.this) {
+                    if (solver instanceof ForwardBoomerangSolver) {
+                        if (!reachedForwardNodes.add(reachableNode)) {
+                            reachedForwardNodeCollisions++;
+                        }
+                    } else {
+                        if (!reachedBackwardNodes.add(reachableNode)) {
+                            reachedBackwardNodeCollisions++;
+                        }
                     }
                 }
             }
@@ -176,16 +190,31 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
     }
 
     @Override
-    public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
+    public synchronized void evictedSolver(Query key, AbstractBoomerangSolver<W> solver) {
+        retained.evicted(key);
+    }
+
+    @Override
+    public synchronized int getEvictedSolvers() {
+        return retained.getEvicted();
+    }
+
+    @Override
+    public synchronized long getRetainedSolverSize() {
+        return retained.getTransitions();
+    }
+
+    @Override
+    public synchronized void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
         fieldWritePOIs++;
     }
 
     @Override
-    public void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key) {
+    public synchronized void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key) {
         fieldReadPOIs++;
     }
 
-    public String toString() {
+    public synchronized String toString() {
         String s = "=========== Boomerang Stats =============\n";
         int forwardQuery = 0;
         int backwardQuery = 0;
@@ -199,6 +228,8 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
                 queries.keySet().size());
         s += String.format("Visited Methods (Field/Call): \t\t %s/%s\n", fieldVisitedMethods.size(),
                 callVisitedMethods.size());
+        s += String.format("Solvers (Retained/Evicted/Retained Transitions): \t\t %s/%s/%s\n", queries.size(),
+                retained.getEvicted(), getRetainedSolverSize());
         s += String.format("Reached Forward Nodes(Collisions): \t\t %s (%s)\n", reachedForwardNodes.size(),
                 reachedForwardNodeCollisions);
         s += String.format("Reached Backward Nodes(Collisions): \t\t %s (%s)\n", reachedBackwardNodes.size(),
@@ -239,8 +270,29 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         return s;
     }
 
+    /**
+     * The sizes of the collected sets and the POI counts, keyed by a stable metric name. Used by the corpus
+     * benchmark to track analysis cost per test case across versions.
+     */
+    public synchronized Map<String, Integer> getCounters() {
+        Map<String, Integer> counters = Maps.newLinkedHashMap();
+        counters.put("queries", queries.size());
+        counters.put("reachedForwardNodes", reachedForwardNodes.size());
+        counters.put("reachedBackwardNodes", reachedBackwardNodes.size());
+        counters.put("fieldRules", globalFieldRules.size());
+        counters.put("callRules", globalCallRules.size());
+        counters.put("fieldTransitions", globalFieldTransitions.size());
+        counters.put("callTransitions", globalCallTransitions.size());
+        counters.put("fieldVisitedMethods", fieldVisitedMethods.size());
+        counters.put("callVisitedMethods", callVisitedMethods.size());
+        counters.put("fieldWritePOIs", fieldWritePOIs);
+        counters.put("fieldReadPOIs", fieldReadPOIs);
+        counters.put("evictedSolvers", retained.getEvicted());
+        return counters;
+    }
+
     @Override
-    public Set<SootMethod> getCallVisitedMethods() {
+    public synchronized Set<SootMethod> getCallVisitedMethods() {
         return Sets.newHashSet(callVisitedMethods);
     }
 
@@ -307,7 +359,7 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
     }
 
     @Override
-    public Collection<? extends Node<Statement, Val>> getForwardReachesNodes() {
+    public synchronized Collection<? extends Node<Statement, Val>> getForwardReachesNodes() {
         Set<Node<Statement, Val>> res = Sets.newHashSet();
         for (Query q : queries.keySet()) {
             if (q instanceof ForwardQuery)
@@ -317,13 +369,13 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
     }
 
     @Override
-    public void terminated(ForwardQuery query, ForwardBoomerangResults<W> forwardBoomerangResults) {
+    public synchronized void terminated(ForwardQuery query, ForwardBoomerangResults<W> forwardBoomerangResults) {
         // TODO Auto-generated method stub
 
     }
 
     @Override
-    public void terminated(BackwardQuery query, BackwardBoomerangResults<W> backwardBoomerangResults) {
+    public synchronized void terminated(BackwardQuery query, BackwardBoomerangResults<W> backwardBoomerangResults) {
         // TODO Auto-generated method stub
 
     }
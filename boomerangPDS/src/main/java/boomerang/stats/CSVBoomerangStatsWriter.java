@@ -56,7 +56,8 @@ import wpds.interfaces.WPDSUpdateListener;
 
 public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStats<W> {
 
-    private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private final Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
+    private final RetainedSolvers<W> retained = new RetainedSolvers<>(queries);
     private Set<WeightedTransition<Field, INode<Node<Statement, Val>>, W>> globalFieldTransitions = Sets.newHashSet();
     private int fieldTransitionCollisions;
     private Set<WeightedTransition<Statement, INode<Val>, W>> globalCallTransitions = Sets.newHashSet();
@@ -88,7 +89,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     private long memoryBefore;
 
     private enum Headers {
-        Query, QueryType, FieldTransitions, CallTransitions, CallRules, FieldRules, ReachedForwardNodes, ReachedBackwardNodes, CallVisitedMethods, FieldVisitedMethods, CallVisitedStmts, FieldVisitedStmts, FieldWritePOIs, FieldReadPOIs, StaticFlows, ArrayFlows, QueryTime, Timeout, ICFGEdges, CallGeneratedStates, FieldGeneratedStates, FieldLongestAccessPath, CallLongestCallStack, CallContainsLoop, FieldContainsLoop, MemoryBefore, MemoryAfter, MemoryDiff
+        Query, QueryType, FieldTransitions, CallTransitions, CallRules, FieldRules, ReachedForwardNodes, ReachedBackwardNodes, CallVisitedMethods, FieldVisitedMethods, CallVisitedStmts, FieldVisitedStmts, FieldWritePOIs, FieldReadPOIs, StaticFlows, ArrayFlows, QueryTime, Timeout, ICFGEdges, CallGeneratedStates, FieldGeneratedStates, FieldLongestAccessPath, CallLongestCallStack, CallContainsLoop, FieldContainsLoop, MemoryBefore, MemoryAfter, MemoryDiff, EvictedSolvers, RetainedTransitions
     }
 
     public CSVBoomerangStatsWriter(String outputFileName) {
@@ -115,24 +116,29 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
 
     @Override
     public void registerSolver(Query key, final AbstractBoomerangSolver<W> solver) {
-        if (queries.containsKey(key)) {
-            return;
+        synchronized (this) {
+            if (queries.containsKey(key)) {
+                return;
+            }
+            queries.put(key, solver);
         }
-        queries.put(key, solver);
         solver.getFieldAutomaton().registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
             @Override
             public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
                     WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                if (!globalFieldTransitions.add(new WeightedTransition<Field, INode<Node<Statement, Val>>, W>(t, w))) {
-                    fieldTransitionCollisions++;
-                }
-                fieldVisitedMethods.add(t.getStart().fact().stmt().getMethod());
-                fieldVisitedStmts.add(t.getStart().fact().stmt());
-                if (t.getLabel().equals(Field.array())) {
-                    arrayFlows++;
+                synchronized (CSVBoomerangStatsWriter.this) {
+                    if (!globalFieldTransitions
+                            .add(new WeightedTransition<Field, INode<Node<Statement, Val>>, W>(t, w))) {
+                        fieldTransitionCollisions++;
+                    }
+                    fieldVisitedMethods.add(t.getStart().fact().stmt().getMethod());
+                    fieldVisitedStmts.add(t.getStart().fact().stmt());
+                    if (t.getLabel().equals(Field.array())) {
+                        arrayFlows++;
+                    }
+                    addFieldGeneratedState(t.getStart());
+                    addFieldGeneratedState(t.getTarget());
                 }
-                addFieldGeneratedState(t.getStart());
-                addFieldGeneratedState(t.getTarget());
             }
         });
 
@@ -140,25 +146,29 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
             @Override
             public void onWeightAdded(Transition<Statement, INode<Val>> t, W w,
                     WeightedPAutomaton<Statement, INode<Val>, W> aut) {
-                if (!globalCallTransitions.add(new WeightedTransition<Statement, INode<Val>, W>(t, w))) {
-                    callTransitionCollisions++;
-                }
-                callVisitedMethods.add(t.getLabel().getMethod());
-                fieldVisitedStmts.add(t.getLabel());
+                synchronized (CSVBoomerangStatsWriter.this) {
+                    if (!globalCallTransitions.add(new WeightedTransition<Statement, INode<Val>, W>(t, w))) {
+                        callTransitionCollisions++;
+                    }
+                    callVisitedMethods.add(t.getLabel().getMethod());
+                    fieldVisitedStmts.add(t.getLabel());
 
-                if (t.getStart().fact().isStatic()) {
-                    staticFlows++;
+                    if (t.getStart().fact().isStatic()) {
+                        staticFlows++;
+                    }
+                    addCallGeneratedState(t.getStart());
+                    addCallGeneratedState(t.getTarget());
                 }
-                addCallGeneratedState(t.getStart());
-                addCallGeneratedState(t.getTarget());
             }
         });
 
         solver.getFieldPDS().registerUpdateListener(new WPDSUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
             @Override
             public void onRuleAdded(Rule<Field, INode<Node<Statement, Val>>, W> rule) {
-                if (!globalFieldRules.add(rule)) {
-                    fieldRulesCollisions++;
+                synchronized (CSVBoomerangStatsWriter.this) {
+                    if (!globalFieldRules.add(rule)) {
+                        fieldRulesCollisions++;
+                    }
                 }
             }
         });
@@ -166,8 +176,10 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
 
             @Override
             public void onRuleAdded(Rule<Statement, INode<Val>, W> rule) {
-                if (!globalCallRules.add(rule)) {
-                    callRulesCollisions++;
+                synchronized (CSVBoomerangStatsWriter.this) {
+                    if (!globalCallRules.add(rule)) {
+                        callRulesCollisions++;
+                    }
                 }
             }
         });
@@ -176,13 +188,15 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
 
             @Override
             public void onReachableNodeAdded(Node<Statement, Val> reachableNode) {
-                if (solver instanceof ForwardBoomerangSolver) {
-                    if (!reachedForwardNodes.add(reachableNode)) {
-                        reachedForwardNodeCollisions++;
-                    }
-                } else {
-                    if (!reachedBackwardNodes.add(reachableNode)) {
-                        reachedBackwardNodeCollisions++;
+                synchronized (CSVBoomerangStatsWriter.this) {
+                    if (solver instanceof ForwardBoomerangSolver) {
+                        if (!reachedForwardNodes.add(reachableNode)) {
+                            reachedForwardNodeCollisions++;
+                        }
+                    } else {
+                        if (!reachedBackwardNodes.add(reachableNode)) {
+                            reachedBackwardNodeCollisions++;
+                        }
                     }
                 }
             }
@@ -202,16 +216,31 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     }
 
     @Override
-    public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
+    public synchronized void evictedSolver(Query key, AbstractBoomerangSolver<W> solver) {
+        retained.evicted(key);
+    }
+
+    @Override
+    public synchronized int getEvictedSolvers() {
+        return retained.getEvicted();
+    }
+
+    @Override
+    public synchronized long getRetainedSolverSize() {
+        return retained.getTransitions();
+    }
+
+    @Override
+    public synchronized void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
         fieldWritePOIs++;
     }
 
     @Override
-    public void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key) {
+    public synchronized void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key) {
         fieldReadPOIs++;
     }
 
-    public String toString() {
+    public synchronized String toString() {
         String s = "=========== Boomerang Stats =============\n";
         int forwardQuery = 0;
         int backwardQuery = 0;
@@ -225,6 +254,8 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
                 queries.keySet().size());
         s += String.format("Visited Methods (Field/Call): \t\t %s/%s\n", fieldVisitedMethods.size(),
                 callVisitedMethods.size());
+        s += String.format("Solvers (Retained/Evicted/Retained Transitions): \t\t %s/%s/%s\n", queries.size(),
+                retained.getEvicted(), getRetainedSolverSize());
         s += String.format("Reached Forward Nodes(Collisions): \t\t %s (%s)\n", reachedForwardNodes.size(),
                 reachedForwardNodeCollisions);
         s += String.format("Reached Backward Nodes(Collisions): \t\t %s (%s)\n", reachedBackwardNodes.size(),
@@ -245,7 +276,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     }
 
     @Override
-    public Set<SootMethod> getCallVisitedMethods() {
+    public synchronized Set<SootMethod> getCallVisitedMethods() {
         return Sets.newHashSet(callVisitedMethods);
     }
 
@@ -312,7 +343,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     }
 
     @Override
-    public Collection<? extends Node<Statement, Val>> getForwardReachesNodes() {
+    public synchronized Collection<? extends Node<Statement, Val>> getForwardReachesNodes() {
         Set<Node<Statement, Val>> res = Sets.newHashSet();
         for (Query q : queries.keySet()) {
             if (q instanceof ForwardQuery)
@@ -322,12 +353,12 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     }
 
     @Override
-    public void terminated(ForwardQuery query, ForwardBoomerangResults<W> res) {
+    public synchronized void terminated(ForwardQuery query, ForwardBoomerangResults<W> res) {
         writeToFile(query, res.getAnalysisWatch().elapsed(TimeUnit.MILLISECONDS), res.isTimedout());
     }
 
     @Override
-    public void terminated(BackwardQuery query, BackwardBoomerangResults<W> res) {
+    public synchronized void terminated(BackwardQuery query, BackwardBoomerangResults<W> res) {
         writeToFile(query, res.getAnalysisWatch().elapsed(TimeUnit.MILLISECONDS), res.isTimedout());
     }
 
@@ -361,6 +392,8 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
         put(Headers.MemoryAfter, memoryAfter);
         put(Headers.MemoryBefore, memoryBefore);
         put(Headers.MemoryDiff, memoryAfter - memoryBefore);
+        put(Headers.EvictedSolvers, retained.getEvicted());
+        put(Headers.RetainedTransitions, getRetainedSolverSize());
         try {
             File reportFile = new File(outputFileName).getAbsoluteFile();
             if (!reportFile.getParentFile().exists()) {
@@ -33,6 +33,19 @@ import wpds.impl.Weight;
 public interface IBoomerangStats<W extends Weight> {
     void registerSolver(Query key, AbstractBoomerangSolver<W> solver);
 
+    /**
+     * Called when the solver of the query was evicted from the solver pool. A solver that is created for the query
+     * later on is registered again.
+     */
+    void evictedSolver(Query key, AbstractBoomerangSolver<W> solver);
+
+    int getEvictedSolvers();
+
+    /**
+     * @return The number of call and field automaton transitions of the registered solvers that are not evicted.
+     */
+    long getRetainedSolverSize();
+
     void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key);
 
     void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key);
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.stats;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import boomerang.Query;
+import boomerang.solver.AbstractBoomerangSolver;
+import wpds.impl.Weight;
+
+/**
+ * The eviction bookkeeping shared by the {@link IBoomerangStats} implementations: the solvers they registered by
+ * query, of which evicted ones are removed, and the number of evicted solvers. The map is guarded like the rest of the
+ * state of the implementation.
+ */
+final class RetainedSolvers<W extends Weight> {
+
+    private final Map<Query, AbstractBoomerangSolver<W>> solvers;
+    private final AtomicInteger evicted = new AtomicInteger();
+
+    RetainedSolvers(Map<Query, AbstractBoomerangSolver<W>> solvers) {
+        this.solvers = solvers;
+    }
+
+    void evicted(Query key) {
+        solvers.remove(key);
+        evicted.incrementAndGet();
+    }
+
+    int getEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * @return The number of call and field automaton transitions of the retained solvers.
+     */
+    long getTransitions() {
+        long size = 0;
+        for (AbstractBoomerangSolver<W> solver : solvers.values()) {
+            size += solver.getNumberOfTransitions();
+        }
+        return size;
+    }
+}
@@ -41,34 +41,56 @@ import wpds.interfaces.WPAUpdateListener;
  */
 public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W> {
 
-    private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
-    private Set<SootMethod> callVisitedMethods = Sets.newHashSet();
-    private Set<SootMethod> fieldVisitedMethods = Sets.newHashSet();
+    private final Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newConcurrentMap();
+    private final RetainedSolvers<W> retained = new RetainedSolvers<>(queries);
+    private Set<SootMethod> callVisitedMethods = Sets.newConcurrentHashSet();
+    private Set<SootMethod> fieldVisitedMethods = Sets.newConcurrentHashSet();
 
     @Override
     public void registerSolver(Query key, final AbstractBoomerangSolver<W> solver) {
-        if (queries.containsKey(key)) {
+        if (queries.putIfAbsent(key, solver) != null) {
             return;
         }
-        queries.put(key, solver);
 
         solver.getCallAutomaton().registerListener(new WPAUpdateListener<Statement, INode<Val>, W>() {
             @Override
             public void onWeightAdded(Transition<Statement, INode<Val>> t, W w,
                     WeightedPAutomaton<Statement, INode<Val>, W> aut) {
-                callVisitedMethods.add(t.getLabel().getMethod());
+                addMethod(callVisitedMethods, t.getLabel().getMethod());
             }
         });
         solver.getFieldAutomaton().registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
             @Override
             public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
                     WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                fieldVisitedMethods.add(t.getStart().fact().stmt().getMethod());
+                addMethod(fieldVisitedMethods, t.getStart().fact().stmt().getMethod());
             }
         });
 
     }
 
+    private static void addMethod(Set<SootMethod> methods, SootMethod method) {
+        // The epsilon statement has no method
+        if (method != null) {
+            methods.add(method);
+        }
+    }
+
+    @Override
+    public void evictedSolver(Query key, AbstractBoomerangSolver<W> solver) {
+        retained.evicted(key);
+    }
+
+    @Override
+    public int getEvictedSolvers() {
+        return retained.getEvicted();
+    }
+
+    @Override
+    public long getRetainedSolverSize() {
+        return retained.getTransitions();
+    }
+
     @Override
     public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
 
@@ -93,6 +115,8 @@ public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W
         s += String.format("Visited Methods (Field/Call): \t\t %s/%s/(%s/%s)\n", fieldVisitedMethods.size(),
                 callVisitedMethods.size(), Sets.difference(fieldVisitedMethods, callVisitedMethods).size(),
                 Sets.difference(callVisitedMethods, fieldVisitedMethods).size());
+        s += String.format("Solvers (Retained/Evicted/Retained Transitions): \t\t %s/%s/%s\n", queries.size(),
+                retained.getEvicted(), getRetainedSolverSize());
         s += "\n";
         return s;
     }
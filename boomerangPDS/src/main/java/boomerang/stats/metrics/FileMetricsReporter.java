@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.stats.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map.Entry;
+
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends each snapshot as one JSON object per line to a file, so that a long run can be followed with
+ * <code>tail -f</code> and the file stays readable if the analysis is killed.
+ */
+public class FileMetricsReporter implements MetricsReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileMetricsReporter.class);
+    private final Writer out;
+
+    public FileMetricsReporter(File file) throws IOException {
+        this.out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void report(MetricsSnapshot snapshot) {
+        JSONObject line = new JSONObject();
+        line.put("timestamp", snapshot.getTimestamp());
+        for (Entry<String, Number> e : snapshot.getValues().entrySet()) {
+            line.put(e.getKey(), e.getValue());
+        }
+        try {
+            out.write(line.toJSONString());
+            out.write(System.lineSeparator());
+            out.flush();
+        } catch (IOException e) {
+            logger.warn("Could not write metrics snapshot", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.stats.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Publishes the latest snapshot as read-only attributes of the MBean <code>boomerang:type=Metrics,name=...</code> in
+ * the platform MBean server, e.g. to watch a running analysis in JConsole or VisualVM.
+ */
+public class JmxMetricsReporter implements MetricsReporter, DynamicMBean {
+
+    private final ObjectName objectName;
+    private volatile MetricsSnapshot latest;
+
+    public JmxMetricsReporter(String name) throws JMException {
+        this.objectName = new ObjectName("boomerang:type=Metrics,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName))
+            server.unregisterMBean(objectName);
+        server.registerMBean(this, objectName);
+    }
+
+    @Override
+    public void report(MetricsSnapshot snapshot) {
+        latest = snapshot;
+    }
+
+    @Override
+    public void close() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Already unregistered.
+        }
+    }
+
+    private Map<String, Number> values() {
+        MetricsSnapshot snapshot = latest;
+        return snapshot == null ? Collections.<String, Number> emptyMap() : snapshot.getValues();
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = values().get(attribute);
+        if (value == null)
+            throw new AttributeNotFoundException(attribute);
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        Map<String, Number> values = values();
+        for (String attribute : attributes) {
+            if (values.containsKey(attribute))
+                list.add(new Attribute(attribute, values.get(attribute)));
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) {
+        throw new UnsupportedOperationException("Metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("Metrics have no operations");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = Lists.newArrayList();
+        for (Entry<String, Number> e : values().entrySet()) {
+            attributes.add(new MBeanAttributeInfo(e.getKey(), e.getValue().getClass().getName(), e.getKey(), true,
+                    false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Boomerang analysis metrics",
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, new MBeanOperationInfo[0], null);
+    }
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.stats.metrics;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Maps;
+
+/**
+ * A registry of named counters, gauges and histograms. Metrics are created on first access and live as long as the
+ * registry. Callers on hot paths should keep a reference to the metric instead of looking it up by name each time.
+ */
+public class Metrics {
+
+    private final ConcurrentMap<String, Counter> counters = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, Gauge> gauges = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, Histogram> histograms = Maps.newConcurrentMap();
+
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter != null)
+            return counter;
+        counters.putIfAbsent(name, new Counter());
+        return counters.get(name);
+    }
+
+    public Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram != null)
+            return histogram;
+        histograms.putIfAbsent(name, new Histogram());
+        return histograms.get(name);
+    }
+
+    /**
+     * Registers a gauge, replacing a previously registered gauge of the same name.
+     */
+    public void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public MetricsSnapshot snapshot() {
+        SortedMap<String, Number> values = Maps.newTreeMap();
+        for (Entry<String, Counter> e : counters.entrySet()) {
+            values.put(e.getKey(), e.getValue().get());
+        }
+        for (Entry<String, Gauge> e : gauges.entrySet()) {
+            values.put(e.getKey(), e.getValue().value());
+        }
+        for (Entry<String, Histogram> e : histograms.entrySet()) {
+            putHistogram(values, e.getKey(), e.getValue());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), values);
+    }
+
+    private static void putHistogram(Map<String, Number> values, String name, Histogram h) {
+        long count = h.getCount();
+        values.put(name + ".count", count);
+        values.put(name + ".mean", count == 0 ? 0.0 : (double) h.getSum() / count);
+        values.put(name + ".p50", h.getQuantile(0.5));
+        values.put(name + ".p99", h.getQuantile(0.99));
+        values.put(name + ".max", h.getMax());
+    }
+}
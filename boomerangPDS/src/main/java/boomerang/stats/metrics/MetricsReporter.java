@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.stats.metrics;
+
+import java.io.Closeable;
+
+/**
+ * Receives the snapshots taken by {@link PeriodicMetricsReporting}, one snapshot at a time, from the reporting thread
+ * or from the thread that stops a registration. A reporter may serve several registries and is not closed by them;
+ * whoever created it closes it once all analyses using it are done.
+ */
+public interface MetricsReporter extends Closeable {
+
+    void report(MetricsSnapshot snapshot);
+}
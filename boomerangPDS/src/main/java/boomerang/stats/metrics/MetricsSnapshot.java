@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.stats.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The values of all metrics of a {@link Metrics} registry at one point in time. Histograms contribute the entries
+ * <code>name.count</code>, <code>name.mean</code>, <code>name.p50</code>, <code>name.p99</code> and
+ * <code>name.max</code>.
+ */
+public class MetricsSnapshot {
+
+    private final long timestamp;
+    private final SortedMap<String, Number> values;
+
+    MetricsSnapshot(long timestamp, SortedMap<String, Number> values) {
+        this.timestamp = timestamp;
+        this.values = Collections.unmodifiableSortedMap(values);
+    }
+
+    /**
+     * @return The time the snapshot was taken, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, Number> getValues() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot " + values;
+    }
+}
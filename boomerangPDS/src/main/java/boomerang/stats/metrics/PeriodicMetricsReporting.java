@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.stats.metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Hands snapshots of {@link Metrics} registries to a {@link MetricsReporter} at a fixed rate. All registries reporting
+ * to the same reporter share one daemon thread, so reporting never keeps the JVM alive and never blocks the solvers.
+ * The schedule only holds the registrations weakly: a registry that is garbage collected without being stopped is
+ * dropped, and the thread ends once no registration is left. The reporter is never closed here, it belongs to whoever
+ * created it.
+ */
+public class PeriodicMetricsReporting {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeriodicMetricsReporting.class);
+    private static final Map<MetricsReporter, Schedule> schedules = Maps.newIdentityHashMap();
+    private final Metrics metrics;
+    private final Schedule schedule;
+
+    private PeriodicMetricsReporting(Metrics metrics, Schedule schedule) {
+        this.metrics = metrics;
+        this.schedule = schedule;
+    }
+
+    /**
+     * Starts reporting the registry. If the reporter already serves other registries, their period is kept.
+     */
+    public static PeriodicMetricsReporting start(Metrics metrics, MetricsReporter reporter, long periodMS) {
+        synchronized (schedules) {
+            Schedule schedule = schedules.get(reporter);
+            if (schedule == null) {
+                schedule = new Schedule(reporter, periodMS);
+                schedules.put(reporter, schedule);
+            }
+            PeriodicMetricsReporting reporting = new PeriodicMetricsReporting(metrics, schedule);
+            schedule.registrations.add(new WeakReference<>(reporting));
+            return reporting;
+        }
+    }
+
+    /**
+     * Stops reporting the registry after reporting a final snapshot of it. The reporter stays open.
+     */
+    public void stop() {
+        synchronized (schedules) {
+            Iterator<WeakReference<PeriodicMetricsReporting>> it = schedule.registrations.iterator();
+            while (it.hasNext()) {
+                PeriodicMetricsReporting reporting = it.next().get();
+                if (reporting == null || reporting == this)
+                    it.remove();
+            }
+            schedule.shutdownIfUnused();
+        }
+        schedule.report(metrics);
+    }
+
+    private static class Schedule {
+        private final MetricsReporter reporter;
+        private final List<WeakReference<PeriodicMetricsReporting>> registrations = Lists.newArrayList();
+        private final ScheduledExecutorService executor;
+
+        private Schedule(MetricsReporter reporter, long periodMS) {
+            this.reporter = reporter;
+            this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "boomerang-metrics");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    reportAll();
+                }
+            }, periodMS, periodMS, TimeUnit.MILLISECONDS);
+        }
+
+        private void reportAll() {
+            List<Metrics> live = Lists.newArrayList();
+            synchronized (schedules) {
+                Iterator<WeakReference<PeriodicMetricsReporting>> it = registrations.iterator();
+                while (it.hasNext()) {
+                    PeriodicMetricsReporting reporting = it.next().get();
+                    if (reporting == null)
+                        it.remove();
+                    else
+                        live.add(reporting.metrics);
+                }
+                shutdownIfUnused();
+            }
+            for (Metrics m : live) {
+                report(m);
+            }
+        }
+
+        /**
+         * Must hold the lock of {@link PeriodicMetricsReporting#schedules}.
+         */
+        private void shutdownIfUnused() {
+            if (registrations.isEmpty() && schedules.get(reporter) == this) {
+                schedules.remove(reporter);
+                executor.shutdown();
+            }
+        }
+
+        private void report(Metrics metrics) {
+            synchronized (reporter) {
+                try {
+                    reporter.report(metrics.snapshot());
+                } catch (RuntimeException e) {
+                    // An exception would cancel all further reports.
+                    logger.warn("Metrics reporter failed", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.basic;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the interprocedural cases with call summaries that are stored after the first run. The callees are edited
+ * before the second run, which must discard their summaries and still find the same allocation sites.
+ */
+public class EditedCalleeSummaryInterproceduralTest extends InterprocedualTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected File summaryDirectory() {
+        return folder.getRoot();
+    }
+
+    @Override
+    protected boolean editCallees() {
+        return true;
+    }
+
+    @After
+    public void summariesInvalidated() {
+        assertTrue("No stored summary of an edited callee was discarded.", invalidatedSummaries > 0);
+    }
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.basic;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the interprocedural cases with call summaries that are stored after the first run and imported by a second.
+ */
+public class StoredSummaryInterproceduralTest extends InterprocedualTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected File summaryDirectory() {
+        return folder.getRoot();
+    }
+
+    @After
+    public void summariesImported() {
+        assertTrue("No stored summary was imported.", importedSummaries > 0);
+        assertTrue("The imported summaries did not save call rules: " + warmCallRules + " of " + coldCallRules,
+                warmCallRules < coldCallRules);
+    }
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.multiqueries;
+
+/**
+ * Runs the batch, predicate and result cache modes one after the other on a solver that retains few solvers.
+ */
+public class CombinedModesMultiQueryTests extends MultiQueryTests {
+
+    @Override
+    protected boolean solveBatch() {
+        return true;
+    }
+
+    @Override
+    protected boolean decideQueries() {
+        return true;
+    }
+
+    @Override
+    protected int maxCachedResults() {
+        return 16;
+    }
+
+    @Override
+    protected int maxRetainedSolvers() {
+        return 1;
+    }
+
+    @Override
+    protected int queryRounds() {
+        return 2;
+    }
+}
@@ -17,6 +17,10 @@ import test.core.MultiQueryBoomerangTest;
 import test.core.selfrunning.AllocatedObject;
 import test.core.selfrunning.AllocatedObject2;
 
+/**
+ * The multi query test cases. The subclasses run them again with the solver or the harness configured differently, see
+ * the options of {@link MultiQueryBoomerangTest}.
+ */
 public class MultiQueryTests extends MultiQueryBoomerangTest {
 
     @Test
@@ -39,6 +43,66 @@ public class MultiQueryTests extends MultiQueryBoomerangTest {
         queryFor2(query, AllocatedObject2.class);
     }
 
+    @Test
+    public void queriesThroughCalls() {
+        Alloc1 alloc1 = new Alloc1();
+        Container other = new Container();
+        store(other, new Alloc2());
+        Object query1 = id(alloc1);
+        Object query2 = load(other);
+        queryFor1(query1, AllocatedObject.class);
+        queryFor2(query2, AllocatedObject2.class);
+    }
+
+    @Test
+    public void virtualCalls() {
+        Provider p1 = new Provider1();
+        Provider p2 = new Provider2();
+        Object query1 = p1.get();
+        Object query2 = p2.get();
+        queryFor1(query1, AllocatedObject.class);
+        queryFor2(query2, AllocatedObject2.class);
+    }
+
+    @Test
+    public void virtualCallsThroughField() {
+        Container c = new Container();
+        c.provider = new Provider1();
+        Provider p = c.provider;
+        Object query1 = p.get();
+        queryFor1(query1, AllocatedObject.class);
+    }
+
+    private static Object id(Object o) {
+        return o;
+    }
+
+    private static void store(Container base, Object value) {
+        base.field = value;
+    }
+
+    private static Object load(Container base) {
+        return base.field;
+    }
+
+    private interface Provider {
+        Object get();
+    }
+
+    private static class Provider1 implements Provider {
+        @Override
+        public Object get() {
+            return new Alloc1();
+        }
+    }
+
+    private static class Provider2 implements Provider {
+        @Override
+        public Object get() {
+            return new Alloc2();
+        }
+    }
+
     private static class Alloc1 implements AllocatedObject {
         Object field = new Object();
     }
@@ -46,4 +110,9 @@ public class MultiQueryTests extends MultiQueryBoomerangTest {
     private static class Alloc2 implements AllocatedObject2 {
 
     }
+
+    private static class Container {
+        Object field;
+        Provider provider;
+    }
 }
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package test.core;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -49,9 +51,13 @@ import boomerang.preanalysis.BoomerangPretransformer;
 import boomerang.results.BackwardBoomerangResults;
 import boomerang.seedfactory.SeedFactory;
 import boomerang.solver.AbstractBoomerangSolver;
+import boomerang.stats.AdvancedBoomerangStats;
+import boomerang.stats.IBoomerangStats;
+import boomerang.stats.SimpleBoomerangStats;
 import boomerang.util.AccessPath;
 import heros.utilities.DefaultValueMap;
 import soot.Body;
+import soot.IntType;
 import soot.Local;
 import soot.RefType;
 import soot.Scene;
@@ -63,6 +69,7 @@ import soot.Value;
 import soot.jimple.AssignStmt;
 import soot.jimple.IntConstant;
 import soot.jimple.InvokeExpr;
+import soot.jimple.Jimple;
 import soot.jimple.NewExpr;
 import soot.jimple.ReturnStmt;
 import soot.jimple.Stmt;
@@ -73,6 +80,7 @@ import sync.pds.solver.WeightFunctions;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import sync.pds.solver.nodes.SingleNode;
+import test.core.benchmark.CaseMetrics;
 import test.core.selfrunning.AbstractTestingFramework;
 import wpds.impl.Transition;
 import wpds.impl.Weight;
@@ -94,6 +102,19 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
     protected Collection<Error> imprecisionErrors = Sets.newHashSet();
 
     protected int analysisTimeout = 3000 * 1000;
+    /**
+     * The number of summaries imported by the solvers of the second runs, see {@link #summaryDirectory()}.
+     */
+    protected long importedSummaries;
+    /**
+     * The number of stored summaries the solvers of the second runs discarded as outdated, see {@link #editCallees()}.
+     */
+    protected long invalidatedSummaries;
+    /**
+     * The number of call rules added by the solvers of the first and of the second runs.
+     */
+    protected long coldCallRules;
+    protected long warmCallRules;
 
     public enum AnalysisMode {
         WholeProgram, DemandDrivenBackward;
@@ -320,13 +341,22 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
         final Set<Node<Statement, Val>> results = Sets.newHashSet();
 
         for (final Query query : queries) {
-            DefaultBoomerangOptions options = (queryDetector.integerQueries ? new IntAndStringBoomerangOptions()
-                    : new DefaultBoomerangOptions() {
+            DefaultBoomerangOptions options = (queryDetector.integerQueries ? new IntAndStringBoomerangOptions() {
+                        @Override
+                        public IBoomerangStats statsFactory() {
+                            return createStats();
+                        }
+                    } : new DefaultBoomerangOptions() {
                         @Override
                         public boolean arrayFlows() {
                             return true;
                         }
 
+                        @Override
+                        public IBoomerangStats statsFactory() {
+                            return createStats();
+                        }
+
                         @Override
                         public int analysisTimeoutMS() {
                             return analysisTimeout;
@@ -336,32 +366,28 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
                         public boolean onTheFlyCallGraph() {
                             return false;
                         }
-                    });
-            Boomerang solver = new Boomerang(options) {
-                @Override
-                public ObservableICFG<Unit, SootMethod> icfg() {
-                    if (dynamicIcfg == null) {
-                        // dynamicIcfg = staticIcfg;
-                        dynamicIcfg = new ObservableDynamicICFG(this);
-                    }
-                    return dynamicIcfg;
-                }
 
-                @Override
-                public Debugger createDebugger() {
-                    return VISUALIZATION ? new IDEVizDebugger(ideVizFile, icfg()) : new Debugger();
-                }
+                        @Override
+                        public boolean callSummaries() {
+                            return summaryDirectory() != null;
+                        }
 
-                @Override
-                public SeedFactory<NoWeight> getSeedFactory() {
-                    return null;
-                }
-            };
+                        @Override
+                        public com.google.common.base.Optional<File> summaryDirectory() {
+                            return com.google.common.base.Optional.fromNullable(AbstractBoomerangTest.this
+                                    .summaryDirectory());
+                        }
+                    });
+            Boomerang solver = createSolver(options);
             if (query instanceof BackwardQuery) {
                 setupSolver(solver);
                 BackwardBoomerangResults<NoWeight> res = solver.solve((BackwardQuery) query);
 
                 solver.debugOutput();
+                recordStats(solver);
+                if (summaryDirectory() != null) {
+                    solveWithStoredSummaries(solver, options, (BackwardQuery) query, res);
+                }
 
                 for (ForwardQuery q : res.getAllocationSites().keySet()) {
                     results.add(q.asNode());
@@ -382,6 +408,92 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
         return results;
     }
 
+    private Boomerang createSolver(DefaultBoomerangOptions options) {
+        return new Boomerang(options) {
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                if (dynamicIcfg == null) {
+                    // dynamicIcfg = staticIcfg;
+                    dynamicIcfg = new ObservableDynamicICFG(this);
+                }
+                return dynamicIcfg;
+            }
+
+            @Override
+            public Debugger createDebugger() {
+                return VISUALIZATION ? new IDEVizDebugger(ideVizFile, icfg()) : new Debugger();
+            }
+
+            @Override
+            public SeedFactory<NoWeight> getSeedFactory() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Stores the call summaries of the solver, then solves the query again with a fresh solver that must find the same
+     * allocation sites.
+     */
+    private void solveWithStoredSummaries(Boomerang solver, DefaultBoomerangOptions options, BackwardQuery query,
+            BackwardBoomerangResults<NoWeight> res) {
+        try {
+            solver.persistSummaries();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (editCallees()) {
+            editCallees(solver, query.stmt().getMethod());
+        }
+        dynamicIcfg = null;
+        Boomerang fresh = createSolver(options);
+        BackwardBoomerangResults<NoWeight> again = fresh.solve(query);
+        if (!again.getAllocationSites().keySet().equals(res.getAllocationSites().keySet())) {
+            unsoundErrors.add(new Error("Stored summaries changed the results of " + query + ": "
+                    + again.getAllocationSites().keySet()));
+        }
+        Map<String, Number> cold = solver.getMetrics().snapshot().getValues();
+        Map<String, Number> warm = fresh.getMetrics().snapshot().getValues();
+        importedSummaries += warm.get("summaries.imported").longValue();
+        invalidatedSummaries += warm.get("summaries.invalidated").longValue();
+        coldCallRules += cold.get("callPDS.rules").longValue();
+        warmCallRules += warm.get("callPDS.rules").longValue();
+    }
+
+    /**
+     * Adds an unused local to the body of each method the solver visited, except for the method of the query. This
+     * changes the fingerprints of the callees but neither the results nor the keys of their summaries.
+     */
+    private static void editCallees(Boomerang solver, SootMethod queryMethod) {
+        Set<SootMethod> visited = Sets.newHashSet();
+        for (AbstractBoomerangSolver<NoWeight> s : solver.getSolvers().values()) {
+            visited.addAll(s.getVisitedMethods());
+        }
+        for (SootMethod m : visited) {
+            if (!m.equals(queryMethod) && m.hasActiveBody()) {
+                Body body = m.getActiveBody();
+                body.getLocals().add(Jimple.v().newLocal("edited" + body.getLocalCount(), IntType.v()));
+            }
+        }
+    }
+
+    /**
+     * @return Whether the callees are edited between the first and the second run, see {@link #summaryDirectory()}.
+     *         The second run must then discard their stored summaries, see {@link #invalidatedSummaries}.
+     */
+    protected boolean editCallees() {
+        return false;
+    }
+
+    /**
+     * @return If not null, each query is solved with call summaries that are stored in this directory. A second,
+     *         fresh solver then imports them and must find the same allocation sites, see
+     *         {@link #importedSummaries}.
+     */
+    protected File summaryDirectory() {
+        return null;
+    }
+
     private void checkContainsAllExpectedAccessPath(Set<AccessPath> allAliases) {
         HashSet<AccessPath> expected = Sets.newHashSet(queryDetector.expectedAccessPaths);
         expected.removeAll(allAliases);
@@ -402,6 +514,11 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
             public boolean onTheFlyCallGraph() {
                 return false;
             }
+
+            @Override
+            public IBoomerangStats statsFactory() {
+                return createStats();
+            }
         }) {
             @Override
             public ObservableICFG<Unit, SootMethod> icfg() {
@@ -500,6 +617,7 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
         }
 
         solver.debugOutput();
+        recordStats(solver);
         compareQuery(allocationSites, results, AnalysisMode.WholeProgram);
         System.out.println();
     }
@@ -507,6 +625,17 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
     protected void setupSolver(WeightedBoomerang<NoWeight> solver) {
     }
 
+    private IBoomerangStats<NoWeight> createStats() {
+        return CaseMetrics.isRecording() ? new AdvancedBoomerangStats<NoWeight>()
+                : new SimpleBoomerangStats<NoWeight>();
+    }
+
+    private void recordStats(WeightedBoomerang<NoWeight> solver) {
+        if (solver.getStats() instanceof AdvancedBoomerangStats) {
+            CaseMetrics.addAll(((AdvancedBoomerangStats<NoWeight>) solver.getStats()).getCounters());
+        }
+    }
+
     private boolean allocatesObjectOfInterest(NewExpr rightOp) {
         SootClass interfaceType = Scene.v().getSootClass("test.core.selfrunning.AllocatedObject");
         if (!interfaceType.isInterface())
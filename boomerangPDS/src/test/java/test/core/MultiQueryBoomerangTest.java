@@ -13,6 +13,7 @@ package test.core;
 
 import boomerang.*;
 import boomerang.callgraph.BoomerangICFG;
+import boomerang.callgraph.CallGraphCache;
 import boomerang.callgraph.CalleeListener;
 import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
@@ -24,6 +25,9 @@ import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.preanalysis.BoomerangPretransformer;
 import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.CachedBackwardResults;
+import boomerang.results.QueryResultCache;
+import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.seedfactory.SeedFactory;
 import boomerang.seedfactory.SimpleSeedFactory;
 import com.google.common.base.Joiner;
@@ -31,18 +35,33 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 import org.junit.Rule;
 import org.junit.rules.Timeout;
 import soot.*;
 import soot.jimple.*;
+import soot.jimple.toolkits.callgraph.CallGraph;
 import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
 import sync.pds.solver.nodes.Node;
 import test.core.selfrunning.AbstractTestingFramework;
 import wpds.impl.Weight;
 import wpds.impl.Weight.NoWeight;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class MultiQueryBoomerangTest extends AbstractTestingFramework {
 
@@ -185,7 +204,59 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
         }
     }
 
+    /**
+     * Runs every enabled mode in turn on the one solver instance, each of them solves all queries and checks the
+     * answers. A limited query budget stops every query early, so it cannot be combined with the other modes.
+     */
     private void runDemandDrivenBackward() {
+        solver = createSolver();
+        if (!queryBudget().isUnlimited()) {
+            if (solveAsync() || queryThreads() > 1 || maxCachedResults() > 0 || solveBatch() || decideQueries()
+                    || incrementalAnalysis() || cacheCallGraph() || queryRounds() > 1) {
+                throw new IllegalStateException("A query budget cannot be combined with modes that check the answers.");
+            }
+            solveUnderBudget();
+            solver.debugOutput();
+            return;
+        }
+        if (solveAsync()) {
+            solveAsynchronously();
+        }
+        if (queryThreads() > 1) {
+            solveConcurrently();
+        }
+        if (overlapQueries()) {
+            solveOverlapping();
+        }
+        if (maxCachedResults() > 0) {
+            solveWithResultCache();
+        }
+        if (solveBatch()) {
+            solveAsBatch();
+        }
+        if (decideQueries()) {
+            solveByPredicates();
+        }
+        if (incrementalAnalysis()) {
+            solveAfterChanges();
+        }
+        int components = 0;
+        for (int round = 0; round < queryRounds(); round++) {
+            solveSequentially();
+            components = Math.max(components, solver.getSolvers().getNumberOfComponents());
+        }
+        // The component of the last query is never evicted
+        if (maxRetainedSolvers() >= 0 && queryRounds() > 1 && components > 1
+                && solver.getStats().getEvictedSolvers() == 0) {
+            throw new AssertionError("No solver was evicted, the queries were not solved anew.");
+        }
+        if (cacheCallGraph()) {
+            solveWithCallGraphCache();
+        }
+        solver.debugOutput();
+    }
+
+    private WeightedBoomerang<NoWeight> createSolver() {
         DefaultBoomerangOptions options = new DefaultBoomerangOptions() {
             @Override
             public boolean arrayFlows() {
@@ -201,8 +272,28 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
             public boolean onTheFlyCallGraph() {
                 return false;
             }
+
+            @Override
+            public int maxRetainedSolvers() {
+                return MultiQueryBoomerangTest.this.maxRetainedSolvers();
+            }
+
+            @Override
+            public QueryBudget queryBudget() {
+                return MultiQueryBoomerangTest.this.queryBudget();
+            }
+
+            @Override
+            public int maxCachedResults() {
+                return MultiQueryBoomerangTest.this.maxCachedResults();
+            }
+
+            @Override
+            public boolean incrementalAnalysis() {
+                return MultiQueryBoomerangTest.this.incrementalAnalysis();
+            }
         };
-        solver = new Boomerang(options) {
+        return new Boomerang(options) {
             @Override
             public ObservableICFG<Unit, SootMethod> icfg() {
                 if (dynamicIcfg == null) {
@@ -221,13 +312,555 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
                 return seedFactory;
             }
         };
+    }
+
+    private void solveSequentially() {
         for (final Query query : queryForCallSites) {
             if (query instanceof BackwardQuery) {
                 BackwardBoomerangResults<NoWeight> res = solver.solve((BackwardQuery) query);
                 compareQuery(query, res.getAllocationSites().keySet());
             }
         }
-        solver.debugOutput();
+    }
+
+    /**
+     * Submits every query three times while the executor is blocked, cancels one of the submissions and checks that
+     * the other two are answered by one solving run. Then submits every query once more and cancels it before it
+     * starts, which must not affect the results of the earlier submissions.
+     */
+    private void solveAsynchronously() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncQuerySolver<NoWeight> async = new AsyncQuerySolver<>(solver, executor);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Map<Query, List<CompletableFuture<BackwardBoomerangResults<NoWeight>>>> futures = new LinkedHashMap<>();
+        for (Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                List<CompletableFuture<BackwardBoomerangResults<NoWeight>>> submitted = Lists.newArrayList();
+                for (int i = 0; i < 3; i++) {
+                    submitted.add(async.solveAsync((BackwardQuery) query));
+                }
+                submitted.remove(1).cancel(true);
+                futures.put(query, submitted);
+            }
+        }
+        blocked.countDown();
+        try {
+            for (Entry<Query, List<CompletableFuture<BackwardBoomerangResults<NoWeight>>>> e : futures.entrySet()) {
+                BackwardBoomerangResults<NoWeight> res = e.getValue().get(0).get();
+                if (res != e.getValue().get(1).get()) {
+                    throw new AssertionError("Equal queries in flight were solved more than once: " + e.getKey());
+                }
+                if (res.isTimedout()) {
+                    throw new AssertionError("Query " + e.getKey() + " was cancelled by a single submission.");
+                }
+                compareQuery(e.getKey(), Sets.newHashSet(res.getAllocationSites().keySet()));
+            }
+            for (Query query : futures.keySet()) {
+                CompletableFuture<BackwardBoomerangResults<NoWeight>> cancelled = async
+                        .solveAsync((BackwardQuery) query);
+                cancelled.cancel(true);
+                BackwardBoomerangResults<NoWeight> res = async.solveAsync((BackwardQuery) query).get();
+                compareQuery(query, Sets.newHashSet(res.getAllocationSites().keySet()));
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            async.shutdown();
+        }
+        solveFastAlongsideSlowQuery();
+    }
+
+    /**
+     * Submits two queries to an {@link AsyncQuerySolver} of two threads. The first query is held once its solver is
+     * created until the second one was answered, which only terminates if the queries are solved concurrently.
+     */
+    private void solveFastAlongsideSlowQuery() {
+        List<BackwardQuery> queries = Lists.newArrayList();
+        for (Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                queries.add((BackwardQuery) query);
+            }
+        }
+        if (queries.size() < 2) {
+            return;
+        }
+        final BackwardQuery slow = queries.get(0);
+        final BackwardQuery fast = queries.get(1);
+        final CountDownLatch slowStarted = new CountDownLatch(1);
+        final CountDownLatch fastAnswered = new CountDownLatch(1);
+        WeightedBoomerang<NoWeight> boomerang = new Boomerang(new DefaultBoomerangOptions() {
+            @Override
+            public boolean arrayFlows() {
+                return true;
+            }
+
+            @Override
+            public int analysisTimeoutMS() {
+                return analysisTimeout;
+            }
+        }) {
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                return staticIcfg;
+            }
+
+            @Override
+            public void onCreateSubSolver(Query key, AbstractBoomerangSolver<NoWeight> solver) {
+                super.onCreateSubSolver(key, solver);
+                if (key.equals(slow) && slowStarted.getCount() > 0) {
+                    slowStarted.countDown();
+                    try {
+                        fastAnswered.await(60, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public Debugger createDebugger() {
+                return new Debugger();
+            }
+        };
+        AsyncQuerySolver<NoWeight> async = new AsyncQuerySolver<>(boomerang, Executors.newFixedThreadPool(2));
+        try {
+            CompletableFuture<BackwardBoomerangResults<NoWeight>> slowResults = async.solveAsync(slow);
+            if (!slowStarted.await(60, TimeUnit.SECONDS)) {
+                throw new AssertionError("The slow query was not started.");
+            }
+            BackwardBoomerangResults<NoWeight> fastResults;
+            try {
+                fastResults = async.solveAsync(fast).get(60, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                throw new AssertionError("The fast query waited for the slow query.", e);
+            }
+            if (slowResults.isDone()) {
+                throw new AssertionError("The slow query finished before the fast query.");
+            }
+            fastAnswered.countDown();
+            compareQuery(fast, Sets.newHashSet(fastResults.getAllocationSites().keySet()));
+            compareQuery(slow, Sets.newHashSet(slowResults.get().getAllocationSites().keySet()));
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            fastAnswered.countDown();
+            async.shutdown();
+        }
+    }
+
+    /**
+     * Solves all queries in one batch and checks that no solver was created for any single query. Then solves a batch
+     * of the first query alone, which must not reuse the solver of the first batch. Solvers of single queries that an
+     * earlier mode created may be retained.
+     */
+    private void solveAsBatch() {
+        List<BackwardQuery> batch = Lists.newArrayList();
+        Map<Query, AbstractBoomerangSolver<NoWeight>> before = new HashMap<>(solver.getSolvers());
+        for (Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                batch.add((BackwardQuery) query);
+            }
+        }
+        Table<Statement, Val, CachedBackwardResults> results = solver.solveBatch(batch).getResults();
+        for (BackwardQuery query : batch) {
+            if (solver.getSolvers().containsKey(query) && solver.getSolvers().get(query) != before.get(query)) {
+                throw new AssertionError("A solver was created for the single query " + query);
+            }
+            compareQuery(query, results.get(query.stmt(), query.var()).getAllocationSites());
+        }
+        if (batch.size() > 1) {
+            int solvers = solver.getSolvers().size() + solver.getStats().getEvictedSolvers();
+            BackwardQuery first = batch.get(0);
+            results = solver.solveBatch(Collections.singleton(first)).getResults();
+            if (solver.getSolvers().size() + solver.getStats().getEvictedSolvers() == solvers) {
+                throw new AssertionError("The batch of " + first + " reused the solver of a larger batch.");
+            }
+            compareQuery(first, results.get(first.stmt(), first.var()).getAllocationSites());
+        }
+    }
+
+    /**
+     * Checks the impact of changes: solves the queries, then changes each application method the solvers visited in
+     * turn, except those holding queries or expected allocation sites. The body of the method is replaced by a copy with
+     * new statements and locals. The solvers that depend on the method must be evicted and reported, the others kept.
+     * The queries solved again must give the expected results, and neither a solver nor the call graph may refer to a
+     * statement of the previous body.
+     */
+    private void solveAfterChanges() {
+        solveSequentially();
+        int components = solver.getSolvers().getNumberOfComponents();
+        Set<SootMethod> methods = Sets.newHashSet();
+        for (AbstractBoomerangSolver<NoWeight> s : solver.getSolvers().values()) {
+            methods.addAll(s.getVisitedMethods());
+        }
+        Set<SootMethod> unchangeable = Sets.newHashSet();
+        for (Entry<Query, Query> e : expectedAllocsForQuery.entries()) {
+            unchangeable.add(e.getKey().stmt().getMethod());
+            unchangeable.add(e.getValue().stmt().getMethod());
+        }
+        for (Query query : queryForCallSites) {
+            unchangeable.add(query.stmt().getMethod());
+        }
+        boolean changed = false;
+        boolean retained = false;
+        for (SootMethod method : methods) {
+            if (!method.getDeclaringClass().isApplicationClass() || unchangeable.contains(method)) {
+                continue;
+            }
+            Set<Unit> previousBody = Sets.newHashSet(method.getActiveBody().getUnits());
+            method.setActiveBody((Body) method.getActiveBody().clone());
+            changed = true;
+            Map<Query, AbstractBoomerangSolver<NoWeight>> before = new HashMap<>(solver.getSolvers());
+            Set<Query> evicted = solver.invalidateMethods(Collections.singleton(method));
+            for (Entry<Query, AbstractBoomerangSolver<NoWeight>> e : before.entrySet()) {
+                boolean kept = solver.getSolvers().get(e.getKey()) == e.getValue();
+                if (kept && e.getValue().getVisitedMethods().contains(method)) {
+                    throw new AssertionError("The solver of " + e.getKey() + " visited " + method + " but was kept.");
+                }
+                if (kept == evicted.contains(e.getKey())) {
+                    throw new AssertionError("The eviction of the solver of " + e.getKey() + " was misreported.");
+                }
+                retained |= kept;
+            }
+            solveSequentially();
+            for (Entry<Query, AbstractBoomerangSolver<NoWeight>> e : solver.getSolvers().entrySet()) {
+                for (Node<Statement, Val> node : e.getValue().getReachedStates()) {
+                    if (node.stmt().getUnit().isPresent() && previousBody.contains(node.stmt().getUnit().get())) {
+                        throw new AssertionError("The solver of " + e.getKey() + " reached " + node
+                                + " in the previous body of " + method);
+                    }
+                }
+            }
+            CallGraph callGraph = dynamicIcfg.getCallGraphCopy();
+            for (Unit unit : previousBody) {
+                if (callGraph.edgesOutOf(unit).hasNext()) {
+                    throw new AssertionError("The call graph kept the edges out of " + unit + " in the previous body of "
+                            + method);
+                }
+            }
+        }
+        if (!changed) {
+            throw new AssertionError("No method body was changed.");
+        }
+        // Solvers that interacted are evicted together, a single component cannot be kept
+        if (!retained && components > 1) {
+            throw new AssertionError("Every change invalidated all solvers.");
+        }
+    }
+
+    /**
+     * Decides predicates over the allocation sites of each query, which must stop the query as soon as an expected
+     * allocation site is found, and then checks that the query is still answered completely. Solvers retained by an
+     * earlier mode may decide a predicate before its query is solved.
+     */
+    private void solveByPredicates() {
+        boolean fresh = solver.getSolvers().isEmpty();
+        for (Query query : queryForCallSites) {
+            if (!(query instanceof BackwardQuery)) {
+                continue;
+            }
+            BackwardQuery backwardQuery = (BackwardQuery) query;
+            List<ForwardQuery> expected = Lists.newArrayList();
+            for (Query site : expectedAllocsForQuery.get(query)) {
+                expected.add((ForwardQuery) site);
+            }
+            com.google.common.base.Optional<Boolean> found = solver.decide(backwardQuery,
+                    QueryPredicate.<NoWeight> anyAllocationSiteIn(expected));
+            if (!found.isPresent() || !found.get()) {
+                throw new AssertionError("No expected allocation site was found for " + query);
+            }
+            Type expectedType = BackwardBoomerangResults.allocatedType(expected.get(0));
+            com.google.common.base.Optional<Boolean> ofType = solver.decide(backwardQuery,
+                    QueryPredicate.<NoWeight> anyAllocationSiteOfType(expectedType));
+            if (!ofType.isPresent() || !ofType.get()) {
+                throw new AssertionError("No allocation site of the expected type was found for " + query);
+            }
+            com.google.common.base.Optional<Boolean> none = solver.decide(backwardQuery,
+                    QueryPredicate.<NoWeight> anyAllocationSiteIn(Collections.<ForwardQuery> emptySet()));
+            if (!none.isPresent() || none.get()) {
+                throw new AssertionError("The undecided predicate of " + query + " did not answer on saturation.");
+            }
+            compareQuery(query, solver.solve(backwardQuery).getAllocationSites().keySet());
+        }
+        if (fresh && solver.getMetrics().counter("queries.decided").get() == 0) {
+            throw new AssertionError("No query stopped when its predicate was decided.");
+        }
+        if (solver.getMetrics().counter("queries.timedOut").get() != 0) {
+            throw new AssertionError("A decided query was counted as timed out.");
+        }
+    }
+
+    /**
+     * Solves every query twice through the result cache, which must answer the second time. Then invalidates the
+     * answers that depend on the method of each query and checks that the query is solved again.
+     */
+    private void solveWithResultCache() {
+        for (Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                CachedBackwardResults answer = solver.solveCached((BackwardQuery) query);
+                if (answer.isTimedout()) {
+                    throw new AssertionError("The answer of " + query + " stopped early: " + answer.getStopReason());
+                }
+                compareQuery(query, answer.getAllocationSites());
+                if (solver.solveCached((BackwardQuery) query) != answer) {
+                    throw new AssertionError("The answer of " + query + " was not cached.");
+                }
+            }
+        }
+        QueryResultCache cache = solver.getResultCache();
+        for (Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                CachedBackwardResults answer = solver.solveCached((BackwardQuery) query);
+                cache.invalidate(query.stmt().getMethod());
+                if (cache.get((BackwardQuery) query) != null) {
+                    throw new AssertionError("The answer of " + query + " was not invalidated.");
+                }
+                CachedBackwardResults recomputed = solver.solveCached((BackwardQuery) query);
+                compareQuery(query, recomputed.getAllocationSites());
+                if (!recomputed.getAllAliases().equals(answer.getAllAliases())) {
+                    throw new AssertionError("The aliases of " + query + " changed when it was solved again.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves the queries under the {@link #queryBudget()}, which they are expected to exceed, and checks that the
+     * solver stops them early, flags their results, discards their incomplete solvers and answers a query that is
+     * cancelled before it starts.
+     */
+    private void solveUnderBudget() {
+        for (final Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                BackwardBoomerangResults<NoWeight> res = solver.solve((BackwardQuery) query);
+                if (!res.isTimedout() || res.getStopReason() == CancellationToken.Reason.CANCELLED) {
+                    throw new AssertionError("Query " + query + " did not stop at its budget.");
+                }
+                CancellationToken token = new CancellationToken();
+                token.cancel();
+                res = solver.solve((BackwardQuery) query, token);
+                if (res.getStopReason() != CancellationToken.Reason.CANCELLED) {
+                    throw new AssertionError("Cancelled query " + query + " was not flagged as cancelled.");
+                }
+            }
+        }
+        if (solver.getStats().getEvictedSolvers() == 0) {
+            throw new AssertionError("The incomplete solvers of the stopped queries were not discarded.");
+        }
+    }
+
+    /**
+     * Saves the call graph of the solved queries to a cache file and solves the queries again with a fresh solver whose
+     * call graph is read from that file.
+     */
+    private void solveWithCallGraphCache() {
+        File cacheFile;
+        try {
+            cacheFile = File.createTempFile("callgraph", ".cache");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            ((ObservableDynamicICFG) dynamicIcfg).saveCallGraphCache(cacheFile);
+            dynamicIcfg = null;
+            solver = createSolver();
+            CallGraphCache cache = CallGraphCache.read(cacheFile);
+            ((ObservableDynamicICFG) solver.icfg()).setCallGraphCache(cache);
+            solveSequentially();
+            if (cache.size() > 0 && solver.getMetrics().counter("callGraph.cachedCallSites").get() == 0) {
+                throw new AssertionError("No call site was resolved from the call graph cache.");
+            }
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+    /**
+     * Number of threads that concurrently solve the queries against the one shared solver instance.
+     */
+    protected int queryThreads() {
+        return 1;
+    }
+
+    /**
+     * Whether predicates over the allocation sites of the queries are decided by
+     * {@link WeightedBoomerang#decide(BackwardQuery, QueryPredicate)}.
+     */
+    protected boolean decideQueries() {
+        return false;
+    }
+
+    /**
+     * Whether the queries are solved together by {@link WeightedBoomerang#solveBatch(Collection)}.
+     */
+    protected boolean solveBatch() {
+        return false;
+    }
+
+    /**
+     * Whether the queries are submitted to an {@link AsyncQuerySolver}.
+     */
+    protected boolean solveAsync() {
+        return false;
+    }
+
+    /**
+     * Number of solvers the shared solver instance retains between queries, negative for no bound.
+     */
+    protected int maxRetainedSolvers() {
+        return -1;
+    }
+
+    /**
+     * Whether the queries are solved a second time by a fresh solver that reads the call graph cache of the first.
+     */
+    protected boolean cacheCallGraph() {
+        return false;
+    }
+
+    /**
+     * The budget each query is solved under. Queries under a limited budget are expected to exceed it.
+     */
+    protected QueryBudget queryBudget() {
+        return QueryBudget.unlimited();
+    }
+
+    /**
+     * Number of answers the result cache of the shared solver instance holds, zero to solve the queries without it.
+     */
+    protected int maxCachedResults() {
+        return 0;
+    }
+
+    /**
+     * Whether the impact of changed methods on the solvers is checked, see
+     * {@link WeightedBoomerang#invalidateMethods(Collection)}.
+     */
+    protected boolean incrementalAnalysis() {
+        return false;
+    }
+
+    /**
+     * Number of times the queries are solved in sequence, to solve them again after their solvers were evicted.
+     */
+    protected int queryRounds() {
+        return 1;
+    }
+
+    /**
+     * Whether every query is solved on a thread of its own, such that all of them are in flight at the same time.
+     */
+    protected boolean overlapQueries() {
+        return false;
+    }
+
+    /**
+     * Solves each query on its own thread with a fresh solver on the static call graph. The solver of each query waits
+     * until the solvers of all other queries were created, which only happens if the queries are solved concurrently.
+     */
+    private void solveOverlapping() {
+        final Set<BackwardQuery> queries = Sets.newHashSet();
+        for (Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                queries.add((BackwardQuery) query);
+            }
+        }
+        if (queries.size() < 2) {
+            return;
+        }
+        final CyclicBarrier inFlight = new CyclicBarrier(queries.size());
+        final Set<Query> waited = Sets.newConcurrentHashSet();
+        final WeightedBoomerang<NoWeight> overlapping = new Boomerang(new DefaultBoomerangOptions() {
+            @Override
+            public boolean arrayFlows() {
+                return true;
+            }
+
+            @Override
+            public int analysisTimeoutMS() {
+                return analysisTimeout;
+            }
+        }) {
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                return staticIcfg;
+            }
+
+            @Override
+            public void onCreateSubSolver(Query key, AbstractBoomerangSolver<NoWeight> solver) {
+                super.onCreateSubSolver(key, solver);
+                if (queries.contains(key) && waited.add(key)) {
+                    try {
+                        inFlight.await(60, TimeUnit.SECONDS);
+                    } catch (TimeoutException | BrokenBarrierException e) {
+                        throw new AssertionError("The queries were not solved concurrently.", e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+
+            @Override
+            public Debugger createDebugger() {
+                return new Debugger();
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(queries.size());
+        Map<Query, Future<Set<ForwardQuery>>> futures = new LinkedHashMap<>();
+        for (final BackwardQuery query : queries) {
+            futures.put(query, executor.submit(new Callable<Set<ForwardQuery>>() {
+                @Override
+                public Set<ForwardQuery> call() {
+                    BackwardBoomerangResults<NoWeight> res = overlapping.solve(query);
+                    return Sets.newHashSet(res.getAllocationSites().keySet());
+                }
+            }));
+        }
+        try {
+            for (Entry<Query, Future<Set<ForwardQuery>>> e : futures.entrySet()) {
+                compareQuery(e.getKey(), e.getValue().get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void solveConcurrently() {
+        ExecutorService executor = Executors.newFixedThreadPool(queryThreads());
+        Map<Query, Future<Set<ForwardQuery>>> futures = new LinkedHashMap<>();
+        for (final Query query : queryForCallSites) {
+            if (query instanceof BackwardQuery) {
+                futures.put(query, executor.submit(new Callable<Set<ForwardQuery>>() {
+                    @Override
+                    public Set<ForwardQuery> call() {
+                        BackwardBoomerangResults<NoWeight> res = solver.solve((BackwardQuery) query);
+                        return Sets.newHashSet(res.getAllocationSites().keySet());
+                    }
+                }));
+            }
+        }
+        try {
+            for (Entry<Query, Future<Set<ForwardQuery>>> e : futures.entrySet()) {
+                compareQuery(e.getKey(), e.getValue().get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private boolean allocatesObjectOfInterest(NewExpr rightOp, String type) {
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import com.google.common.collect.Sets;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import wpds.impl.WeightedPAutomaton;
+
+/**
+ * Runs boomerangPDS test classes once per {@link wpds.impl.TransitionStore} implementation and prints how far the
+ * heap occupancy observed after a garbage collection (i.e. the live set) grew during the run, and the run time of
+ * each run. Test classes
+ * are passed as program arguments; without arguments a set of field-heavy cases is used. A small young generation
+ * (e.g. -Xmn64m) makes the live set measurement more fine grained.
+ */
+public class TransitionStoreMemoryComparison {
+
+    private static final String[] STORES = { "hash", "int" };
+    private static final String[] DEFAULT_TEST_CLASSES = { "test.cases.fields.complexity.Fields5LongTest",
+            "test.cases.fields.complexity.Fields10LongTest", "test.cases.fields.complexity.Recursion2LongTest",
+            "test.cases.fields.ThreeFieldsTest", "test.cases.hashmap.AllAliasTest" };
+
+    private static volatile long maxLiveHeap;
+
+    public static void main(String... args) throws ClassNotFoundException {
+        String[] testClasses = args.length == 0 ? DEFAULT_TEST_CLASSES : args;
+        registerGcListener();
+        System.out.println("TestClass;Store;MaxLiveHeapGrowthMB;TimeMS;Failures");
+        for (String testClass : testClasses) {
+            Class<?> c = Class.forName(testClass);
+            for (String store : STORES) {
+                System.setProperty(WeightedPAutomaton.TRANSITION_STORE_PROPERTY, store);
+                System.gc();
+                long baseline = usedHeap();
+                maxLiveHeap = baseline;
+                long before = System.currentTimeMillis();
+                Result result = JUnitCore.runClasses(c);
+                long time = System.currentTimeMillis() - before;
+                System.out.println(testClass + ";" + store + ";" + (maxLiveHeap - baseline) / (1024 * 1024) + ";"
+                        + time + ";" + result.getFailureCount());
+            }
+        }
+        System.clearProperty(WeightedPAutomaton.TRANSITION_STORE_PROPERTY);
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void registerGcListener() {
+        final Set<String> heapPools = Sets.newHashSet();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        NotificationListener listener = new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION))
+                    return;
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                        .from((CompositeData) notification.getUserData());
+                long used = 0;
+                for (Map.Entry<String, MemoryUsage> e : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                    if (heapPools.contains(e.getKey())) {
+                        used += e.getValue().getUsed();
+                    }
+                }
+                if (used > maxLiveHeap) {
+                    maxLiveHeap = used;
+                }
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+
+import boomerang.stats.metrics.FileMetricsReporter;
+import boomerang.stats.metrics.Gauge;
+import boomerang.stats.metrics.Histogram;
+import boomerang.stats.metrics.Metrics;
+import boomerang.stats.metrics.MetricsReporter;
+import boomerang.stats.metrics.MetricsSnapshot;
+import boomerang.stats.metrics.PeriodicMetricsReporting;
+
+public class MetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void histogramBoundsQuantilesByPowersOfTwo() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.getQuantile(0.5));
+        for (long v = 1; v <= 100; v++) {
+            h.record(v);
+        }
+        h.record(-5);
+        assertEquals(101, h.getCount());
+        assertEquals(5050, h.getSum());
+        assertEquals(100, h.getMax());
+        assertEquals(63, h.getQuantile(0.5));
+        assertEquals(100, h.getQuantile(0.99));
+        assertEquals(0, h.getQuantile(0));
+    }
+
+    @Test
+    public void snapshotContainsAllMetricsSorted() {
+        Metrics metrics = new Metrics();
+        metrics.counter("b.counter").add(3);
+        metrics.counter("b.counter").inc();
+        metrics.gauge("a.gauge", new Gauge() {
+            @Override
+            public long value() {
+                return 7;
+            }
+        });
+        metrics.histogram("c.latency").record(4);
+        MetricsSnapshot snapshot = metrics.snapshot();
+        Map<String, Number> values = snapshot.getValues();
+        assertEquals(4L, values.get("b.counter"));
+        assertEquals(7L, values.get("a.gauge"));
+        assertEquals(1L, values.get("c.latency.count"));
+        assertEquals(4.0, values.get("c.latency.mean"));
+        assertEquals(4L, values.get("c.latency.max"));
+        assertEquals(Lists.newArrayList("a.gauge", "b.counter", "c.latency.count", "c.latency.max", "c.latency.mean",
+                "c.latency.p50", "c.latency.p99"), Lists.newArrayList(values.keySet()));
+        metrics.counter("b.counter").inc();
+        assertEquals(4L, snapshot.getValues().get("b.counter"));
+    }
+
+    @Test
+    public void fileReporterAppendsOneJsonObjectPerLine() throws IOException {
+        File file = folder.newFile("metrics.json");
+        Metrics metrics = new Metrics();
+        metrics.counter("rules").add(2);
+        try (FileMetricsReporter reporter = new FileMetricsReporter(file)) {
+            reporter.report(metrics.snapshot());
+            metrics.counter("rules").inc();
+            reporter.report(metrics.snapshot());
+        }
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        JSONObject last = (JSONObject) JSONValue.parse(lines.get(1));
+        assertEquals(3L, last.get("rules"));
+        assertTrue(last.containsKey("timestamp"));
+    }
+
+    @Test
+    public void stopReportsFinalSnapshotAndKeepsSharedReporterOpen() throws InterruptedException {
+        RecordingReporter reporter = new RecordingReporter();
+        Metrics first = new Metrics();
+        first.counter("first").inc();
+        Metrics second = new Metrics();
+        second.counter("second").inc();
+        PeriodicMetricsReporting firstReporting = PeriodicMetricsReporting.start(first, reporter, 10);
+        PeriodicMetricsReporting secondReporting = PeriodicMetricsReporting.start(second, reporter, 10);
+        assertEquals(1, reportingThreads());
+        waitFor(reporter, "second");
+
+        firstReporting.stop();
+        assertTrue(reporter.lastHas("first"));
+        assertFalse(reporter.closed);
+        assertEquals(1, reportingThreads());
+
+        secondReporting.stop();
+        assertTrue(reporter.lastHas("second"));
+        assertFalse(reporter.closed);
+        awaitNoReportingThreads();
+    }
+
+    @Test
+    public void collectedRegistrationsEndTheReportingThread() throws InterruptedException {
+        RecordingReporter reporter = new RecordingReporter();
+        PeriodicMetricsReporting reporting = PeriodicMetricsReporting.start(new Metrics(), reporter, 10);
+        WeakReference<PeriodicMetricsReporting> ref = new WeakReference<>(reporting);
+        reporting = null;
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(ref.get() == null);
+        awaitNoReportingThreads();
+    }
+
+    private static void waitFor(RecordingReporter reporter, String name) throws InterruptedException {
+        for (int i = 0; i < 500 && !reporter.seen(name); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(reporter.seen(name));
+    }
+
+    private static void awaitNoReportingThreads() throws InterruptedException {
+        for (int i = 0; i < 500 && reportingThreads() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, reportingThreads());
+    }
+
+    private static int reportingThreads() {
+        int threads = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("boomerang-metrics") && t.isAlive())
+                threads++;
+        }
+        return threads;
+    }
+
+    private static class RecordingReporter implements MetricsReporter {
+        private final List<MetricsSnapshot> snapshots = Lists.newArrayList();
+        private boolean closed;
+
+        @Override
+        public synchronized void report(MetricsSnapshot snapshot) {
+            snapshots.add(snapshot);
+        }
+
+        private synchronized boolean seen(String name) {
+            for (MetricsSnapshot s : snapshots) {
+                if (s.getValues().containsKey(name))
+                    return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean lastHas(String name) {
+            return snapshots.get(snapshots.size() - 1).getValues().containsKey(name);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -12,19 +12,31 @@
 package ideal;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import boomerang.ForwardQuery;
 import boomerang.Query;
+import boomerang.QueryPredicate;
 import boomerang.WeightedForwardQuery;
+import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.callgraph.ObservableStaticICFG;
 import boomerang.results.ForwardBoomerangResults;
@@ -48,9 +60,9 @@ public class IDEALAnalysis<W extends Weight> {
 
     protected final IDEALAnalysisDefinition<W> analysisDefinition;
     private final SeedFactory<W> seedFactory;
-    private int seedCount;
-    private Map<WeightedForwardQuery<W>, Stopwatch> analysisTime = new HashMap<>();
-    private Set<WeightedForwardQuery<W>> timedoutSeeds = new HashSet<>();
+    private final AtomicInteger seedCount = new AtomicInteger();
+    private Map<WeightedForwardQuery<W>, Stopwatch> analysisTime = Maps.newConcurrentMap();
+    private Set<WeightedForwardQuery<W>> timedoutSeeds = Sets.newConcurrentHashSet();
 
     public IDEALAnalysis(final IDEALAnalysisDefinition<W> analysisDefinition) {
         this.analysisDefinition = analysisDefinition;
@@ -65,6 +77,11 @@ public class IDEALAnalysis<W extends Weight> {
             public ObservableICFG<Unit, SootMethod> icfg() {
                 return analysisDefinition.icfg();
             }
+
+            @Override
+            protected int seedThreads() {
+                return analysisDefinition.seedThreads();
+            }
         };
     }
 
@@ -73,15 +90,21 @@ public class IDEALAnalysis<W extends Weight> {
 
         Collection<Query> initialSeeds = seedFactory.computeSeeds();
 
+        if (analysisDefinition.analysisThreads() > 1 && analysisDefinition.icfg() instanceof ObservableDynamicICFG)
+            logger.warn("A dynamic call graph is bound to a single solver, analyzing seeds sequentially.");
         if (initialSeeds.isEmpty())
             System.out.println("No seeds found!");
         else
             System.out.println("Analysing " + initialSeeds.size() + " seeds!");
+        if (analysisDefinition.analysisThreads() > 1 && !(analysisDefinition.icfg() instanceof ObservableDynamicICFG)) {
+            runConcurrently(initialSeeds);
+            return;
+        }
         for (Query s : initialSeeds) {
             if (!(s instanceof WeightedForwardQuery))
                 continue;
             WeightedForwardQuery<W> seed = (WeightedForwardQuery<W>) s;
-            seedCount++;
+            seedCount.incrementAndGet();
             logger.info("Analyzing " + seed);
             Stopwatch watch = Stopwatch.createStarted();
             analysisTime.put(seed, watch);
@@ -89,13 +112,89 @@ public class IDEALAnalysis<W extends Weight> {
                 analysisDefinition.icfg().resetCallGraph();
             ForwardBoomerangResults<W> res = run(seed);
             watch.stop();
-            System.out.println("Analyzed (finished,timedout): \t (" + (seedCount - timedoutSeeds.size()) + ","
-                    + timedoutSeeds.size() + ") of " + initialSeeds.size() + " seeds! ");
+            printProgress(initialSeeds.size());
             analysisDefinition.getResultHandler().report(seed, res);
         }
     }
 
+    /**
+     * Analyzes the seeds on a pool of {@link IDEALAnalysisDefinition#analysisThreads()} threads. Each seed gets its own
+     * {@link IDEALSeedSolver} and thus its own phase-1 and phase-2 solvers, only the call graph and the seed scopes are
+     * shared. Results are reported on the calling thread once all seeds finished, in the order of the given seeds.
+     */
+    private void runConcurrently(Collection<Query> initialSeeds) {
+        if (analysisDefinition.icfg() != null)
+            analysisDefinition.icfg().resetCallGraph();
+        ExecutorService executor = Executors.newFixedThreadPool(analysisDefinition.analysisThreads(),
+                new ThreadFactoryBuilder().setNameFormat("ideal-seed-%d").setDaemon(true).build());
+        List<WeightedForwardQuery<W>> seeds = Lists.newArrayList();
+        List<Future<ForwardBoomerangResults<W>>> futures = Lists.newArrayList();
+        try {
+            for (Query s : initialSeeds) {
+                if (!(s instanceof WeightedForwardQuery))
+                    continue;
+                final WeightedForwardQuery<W> seed = (WeightedForwardQuery<W>) s;
+                seeds.add(seed);
+                futures.add(executor.submit(new Callable<ForwardBoomerangResults<W>>() {
+                    @Override
+                    public ForwardBoomerangResults<W> call() {
+                        seedCount.incrementAndGet();
+                        logger.info("Analyzing " + seed);
+                        Stopwatch watch = Stopwatch.createStarted();
+                        analysisTime.put(seed, watch);
+                        ForwardBoomerangResults<W> res = analyze(seed);
+                        watch.stop();
+                        printProgress(initialSeeds.size());
+                        return res;
+                    }
+                }));
+            }
+            IDEALResultHandler<W> resultHandler = analysisDefinition.getResultHandler();
+            for (int i = 0; i < seeds.size(); i++) {
+                resultHandler.report(seeds.get(i), futures.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while analyzing seeds", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void printProgress(int totalSeeds) {
+        System.out.println("Analyzed (finished,timedout): \t (" + (seedCount.get() - timedoutSeeds.size()) + ","
+                + timedoutSeeds.size() + ") of " + totalSeeds + " seeds! ");
+    }
+
     public ForwardBoomerangResults<W> run(ForwardQuery seed) {
+        ForwardBoomerangResults<W> res = analyze(seed);
+        analysisDefinition.getResultHandler().report((WeightedForwardQuery) seed, res);
+        return res;
+    }
+
+    /**
+     * Decides the predicate for the seed without analyzing it to saturation, see
+     * {@link IDEALSeedSolver#decide(QueryPredicate)}. Nothing is reported to the result handler.
+     *
+     * @return The answer, absent if the seed timed out.
+     */
+    public Optional<Boolean> decide(ForwardQuery seed, QueryPredicate<W> predicate) {
+        IDEALSeedSolver<W> idealAnalysis = new IDEALSeedSolver<W>(analysisDefinition, seed, seedFactory);
+        if (analysisDefinition.icfg() != null) {
+            analysisDefinition.icfg().addUnbalancedMethod(seed.stmt().getMethod());
+        }
+        Optional<Boolean> decision = idealAnalysis.decide(predicate);
+        if (!decision.isPresent()) {
+            timedoutSeeds.add((WeightedForwardQuery) seed);
+        }
+        return decision;
+    }
+
+    private ForwardBoomerangResults<W> analyze(ForwardQuery seed) {
         IDEALSeedSolver<W> idealAnalysis = new IDEALSeedSolver<W>(analysisDefinition, seed, seedFactory);
         ForwardBoomerangResults<W> res;
         try {
@@ -107,7 +206,6 @@ public class IDEALAnalysis<W extends Weight> {
             res = (ForwardBoomerangResults<W>) e.getLastResults();
             timedoutSeeds.add((WeightedForwardQuery) seed);
         }
-        analysisDefinition.getResultHandler().report((WeightedForwardQuery) seed, res);
         return res;
     }
 
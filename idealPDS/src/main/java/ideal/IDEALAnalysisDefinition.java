@@ -54,6 +54,24 @@ public abstract class IDEALAnalysisDefinition<W extends Weight> {
         return true;
     }
 
+    /**
+     * Number of threads on which independent seeds are analyzed. With more than one thread, the {@link #icfg()} and
+     * the {@link #getResultHandler()} are shared between the seeds, the ICFG must hence be safe for concurrent use
+     * (e.g. {@link boomerang.callgraph.ObservableStaticICFG}). With an {@link boomerang.callgraph.ObservableDynamicICFG}
+     * the seeds are analyzed sequentially. Results are still reported in seed order.
+     */
+    public int analysisThreads() {
+        return 1;
+    }
+
+    /**
+     * Number of threads on which the method bodies are scanned for seeds. With more than one thread,
+     * {@link #generate(SootMethod, Unit)} is called concurrently for different methods and must be safe for that.
+     */
+    public int seedThreads() {
+        return 1;
+    }
+
     public String toString() {
         String str = "====== IDEal Analysis Options ======";
         // str += "\nEdge Functions:\t\t" + edgeFunctions();
@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
@@ -24,6 +25,7 @@ import com.google.common.collect.Sets;
 import boomerang.BackwardQuery;
 import boomerang.ForwardQuery;
 import boomerang.Query;
+import boomerang.QueryPredicate;
 import boomerang.WeightedBoomerang;
 import boomerang.callgraph.BoomerangICFG;
 import boomerang.callgraph.ObservableDynamicICFG;
@@ -308,6 +310,40 @@ public class IDEALSeedSolver<W extends Weight> {
     }
 
     public ForwardBoomerangResults<W> run() {
+        try {
+            return runPhases();
+        } finally {
+            phase1Solver.shutdown();
+            phase2Solver.shutdown();
+        }
+    }
+
+    /**
+     * Decides the predicate over the value flow phase of the seed, see {@link WeightedBoomerang#decide(ForwardQuery,
+     * QueryPredicate)}. The object flow phase runs to saturation first, the value flow phase stops as soon as the
+     * predicate is decided.
+     *
+     * @return The answer, absent if either phase timed out.
+     */
+    public Optional<Boolean> decide(QueryPredicate<W> predicate) {
+        try {
+            ForwardBoomerangResults<W> resultPhase1 = runPhase(this.phase1Solver, Phases.ObjectFlow);
+            if (resultPhase1.isTimedout()) {
+                return Optional.absent();
+            }
+            preparePhase(this.phase2Solver, Phases.ValueFlow);
+            try {
+                return phase2Solver.decide((ForwardQuery) seed, predicate);
+            } finally {
+                analysisStopwatch.stop();
+            }
+        } finally {
+            phase1Solver.shutdown();
+            phase2Solver.shutdown();
+        }
+    }
+
+    private ForwardBoomerangResults<W> runPhases() {
         ForwardBoomerangResults<W> resultPhase1 = runPhase(this.phase1Solver, Phases.ObjectFlow);
         if (resultPhase1.isTimedout()) {
             if (analysisStopwatch.isRunning()) {
@@ -329,11 +365,14 @@ public class IDEALSeedSolver<W extends Weight> {
         return new WeightedBoomerang<W>(analysisDefinition.boomerangOptions()) {
             @Override
             public ObservableICFG<Unit, SootMethod> icfg() {
-                if (analysisDefinition.icfg() == null) {
-                    // For Static ICFG use this line
-                    analysisDefinition.icfg = new ObservableStaticICFG(new BoomerangICFG(false));
+                // Seeds analyzed concurrently must end up with the same call graph.
+                synchronized (analysisDefinition) {
+                    if (analysisDefinition.icfg() == null) {
+                        // For Static ICFG use this line
+                        analysisDefinition.icfg = new ObservableStaticICFG(new BoomerangICFG(false));
+                    }
+                    return analysisDefinition.icfg();
                 }
-                return analysisDefinition.icfg();
             }
 
             @Override
@@ -402,6 +441,16 @@ public class IDEALSeedSolver<W extends Weight> {
     }
 
     private ForwardBoomerangResults<W> runPhase(final WeightedBoomerang<W> boomerang, final Phases phase) {
+        preparePhase(boomerang, phase);
+        ForwardBoomerangResults<W> res = boomerang.solve((ForwardQuery) seed);
+        if (phase.equals(Phases.ValueFlow)) {
+            boomerang.debugOutput();
+        }
+        analysisStopwatch.stop();
+        return res;
+    }
+
+    private void preparePhase(final WeightedBoomerang<W> boomerang, final Phases phase) {
         analysisStopwatch.start();
         idealWeightFunctions.setPhase(phase);
         final WeightedPAutomaton<Statement, INode<Val>, W> callAutomaton = boomerang.getSolvers().getOrCreate(seed)
@@ -435,12 +484,6 @@ public class IDEALSeedSolver<W extends Weight> {
                 seedSolver.getFieldAutomaton().registerListener(new TriggerBackwardQuery(seedSolver, boomerang, curr));
             }
         });
-        ForwardBoomerangResults<W> res = boomerang.solve((ForwardQuery) seed);
-        if (phase.equals(Phases.ValueFlow)) {
-            boomerang.debugOutput();
-        }
-        analysisStopwatch.stop();
-        return res;
     }
 
     protected void addAffectedPotentialStrongUpdate(Node<Statement, Val> strongUpdateNode, Statement stmt) {
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate;
+
+import java.util.LinkedList;
+import java.util.Map;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+import boomerang.QueryPredicate;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import sync.pds.solver.nodes.GeneratedState;
+import sync.pds.solver.nodes.INode;
+import typestate.finiteautomata.ITransition;
+import wpds.impl.Transition;
+
+/**
+ * Whether the object of a seed may reach an error state of the state machine, see
+ * {@link ideal.IDEALAnalysis#decide(boomerang.ForwardQuery, QueryPredicate)}. Decides as soon as the weight of a
+ * transition of the call automaton relative to the seed contains a transition into an error state.
+ * <p>
+ * Weights of transitions into a generated state are relative to the entry of a callee. As for
+ * {@link wpds.impl.WeightedPAutomaton#getTransitionsToFinalWeights()}, they are extended by the weight of the
+ * transitions out of the generated state once those are known.
+ */
+public class ErrorStatePredicate extends QueryPredicate<TransitionFunction> {
+
+    private final Map<Transition<Statement, INode<Val>>, TransitionFunction> weights = Maps.newHashMap();
+    private final Multimap<INode<Val>, Transition<Statement, INode<Val>>> inTransitions = HashMultimap.create();
+    private final Map<INode<Val>, TransitionFunction> contexts = Maps.newHashMap();
+
+    @Override
+    protected void onCallWeight(Transition<Statement, INode<Val>> transition, TransitionFunction weight) {
+        TransitionFunction old = weights.get(transition);
+        weights.put(transition, old == null ? weight : (TransitionFunction) old.combineWith(weight));
+        inTransitions.put(transition.getTarget(), transition);
+        LinkedList<Transition<Statement, INode<Val>>> worklist = new LinkedList<>();
+        worklist.add(transition);
+        while (!worklist.isEmpty() && !isDecided()) {
+            Transition<Statement, INode<Val>> t = worklist.poll();
+            TransitionFunction context = t.getTarget() instanceof GeneratedState ? contexts.get(t.getTarget())
+                    : TransitionFunction.one();
+            if (context == null) {
+                continue;
+            }
+            TransitionFunction relativeToSeed = (TransitionFunction) context.extendWith(weights.get(t));
+            if (reachesErrorState(relativeToSeed)) {
+                decide(true);
+                return;
+            }
+            if (t.getStart() instanceof GeneratedState) {
+                TransitionFunction oldContext = contexts.get(t.getStart());
+                TransitionFunction newContext = oldContext == null ? relativeToSeed
+                        : (TransitionFunction) oldContext.combineWith(relativeToSeed);
+                if (!newContext.equals(oldContext)) {
+                    contexts.put(t.getStart(), newContext);
+                    worklist.addAll(inTransitions.get(t.getStart()));
+                }
+            }
+        }
+    }
+
+    private static boolean reachesErrorState(TransitionFunction weight) {
+        for (ITransition t : weight.values()) {
+            if (t.to() != null && t.to().isErrorState()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean whenSaturated() {
+        return false;
+    }
+}
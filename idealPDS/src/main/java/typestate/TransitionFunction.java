@@ -16,44 +16,76 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
-
 import boomerang.jimple.Statement;
+import typestate.TransitionSet.Extension;
 import typestate.finiteautomata.ITransition;
-import typestate.finiteautomata.Transition;
 import wpds.impl.Weight;
 
+/**
+ * Weight of the typestate analysis. The transitions are kept as a {@link TransitionSet} hash-consed in the
+ * {@link TransitionTable} of the state machine, therefore
+ * comparing two functions compares their sets by identity and the transition sets of {@link #extendWith(Weight)} and
+ * {@link #combineWith(Weight)} are looked up in a memo table after their first computation. Only functions created
+ * with the same table can be combined. As before, the state change statements do not take part in equality.
+ */
 public class TransitionFunction extends Weight {
 
-    private final Set<ITransition> value;
+    private final TransitionSet value;
 
     private final String rep;
 
-    private static TransitionFunction one;
+    private static final TransitionFunction one = new TransitionFunction("ONE");
+
+    private static final TransitionFunction zero = new TransitionFunction("ZERO");
 
-    private static TransitionFunction zero;
+    private final Set<Statement> stateChangeStatements;
 
-    private Set<Statement> stateChangeStatements;
+    /**
+     * The table of the functions created by the deprecated constructors. It is never released.
+     */
+    private static final TransitionTable legacyTable = new TransitionTable();
 
+    /**
+     * @deprecated The function is created in a table shared by all such functions, which is never released and cannot
+     *             be combined with the functions of a state machine. Use
+     *             {@link #TransitionFunction(TransitionTable, Set, Set)} with the table of the state machine instead.
+     */
+    @Deprecated
     public TransitionFunction(Set<? extends ITransition> trans, Set<Statement> stateChangeStatements) {
-        this.stateChangeStatements = stateChangeStatements;
-        this.value = new HashSet<>(trans);
-        this.rep = null;
+        this(legacyTable, trans, stateChangeStatements);
     }
 
+    /**
+     * @deprecated See {@link #TransitionFunction(Set, Set)}.
+     */
+    @Deprecated
     public TransitionFunction(ITransition trans, Set<Statement> stateChangeStatements) {
-        this(new HashSet<>(Collections.singleton(trans)), stateChangeStatements);
+        this(legacyTable, trans, stateChangeStatements);
+    }
+
+    public TransitionFunction(TransitionTable table, Set<? extends ITransition> trans,
+            Set<Statement> stateChangeStatements) {
+        this(TransitionSet.of(table, trans), stateChangeStatements);
+    }
+
+    public TransitionFunction(TransitionTable table, ITransition trans, Set<Statement> stateChangeStatements) {
+        this(table, Collections.singleton(trans), stateChangeStatements);
+    }
+
+    private TransitionFunction(TransitionSet value, Set<Statement> stateChangeStatements) {
+        this.stateChangeStatements = stateChangeStatements;
+        this.value = value;
+        this.rep = null;
     }
 
     private TransitionFunction(String rep) {
-        this.value = Sets.newHashSet();
+        this.value = TransitionSet.EMPTY;
         this.rep = rep;
-        this.stateChangeStatements = Sets.newHashSet();
+        this.stateChangeStatements = Collections.emptySet();
     }
 
     public Collection<ITransition> values() {
-        return Lists.newArrayList(value);
+        return value.values();
     }
 
     public Set<Statement> getLastStateChangeStatements() {
@@ -70,24 +102,10 @@ public class TransitionFunction extends Weight {
             return zero();
         }
         TransitionFunction func = (TransitionFunction) other;
-        Set<ITransition> otherTransitions = func.value;
-        Set<ITransition> ress = new HashSet<>();
-        Set<Statement> newStateChangeStatements = new HashSet<>();
-        for (ITransition first : value) {
-            for (ITransition second : otherTransitions) {
-                if (second.equals(Transition.identity())) {
-                    ress.add(first);
-                    newStateChangeStatements.addAll(stateChangeStatements);
-                } else if (first.equals(Transition.identity())) {
-                    ress.add(second);
-                    newStateChangeStatements.addAll(func.stateChangeStatements);
-                } else if (first.to().equals(second.from())) {
-                    ress.add(new Transition(first.from(), second.to()));
-                    newStateChangeStatements.addAll(func.stateChangeStatements);
-                }
-            }
-        }
-        return new TransitionFunction(ress, newStateChangeStatements);
+        Extension res = value.extend(func.value);
+        Set<Statement> empty = Collections.emptySet();
+        return new TransitionFunction(res.set, union(res.usesLeft ? stateChangeStatements : empty,
+                res.usesRight ? func.stateChangeStatements : empty));
     }
 
     @Override
@@ -103,31 +121,32 @@ public class TransitionFunction extends Weight {
         }
         TransitionFunction func = (TransitionFunction) other;
         if (other.equals(one()) || this.equals(one())) {
-            Set<ITransition> transitions = new HashSet<>((other.equals(one()) ? value : func.value));
-            Set<ITransition> idTransitions = Sets.newHashSet();
-            for (ITransition t : transitions) {
-                idTransitions.add(new Transition(t.from(), t.from()));
-            }
-            transitions.addAll(idTransitions);
-            return new TransitionFunction(transitions,
-                    Sets.newHashSet((other.equals(one()) ? stateChangeStatements : func.stateChangeStatements)));
+            TransitionFunction notOne = other.equals(one()) ? this : func;
+            return new TransitionFunction(notOne.value.withSelfLoops(), notOne.stateChangeStatements);
         }
-        Set<ITransition> transitions = new HashSet<>(func.value);
-        transitions.addAll(value);
-        HashSet<Statement> newStateChangeStmts = Sets.newHashSet(stateChangeStatements);
-        newStateChangeStmts.addAll(func.stateChangeStatements);
-        return new TransitionFunction(transitions, newStateChangeStmts);
+        return new TransitionFunction(value.combine(func.value),
+                union(stateChangeStatements, func.stateChangeStatements));
     };
 
+    /**
+     * The statement sets are never modified, so the union shares one of the operands whenever it already contains the
+     * other.
+     */
+    private static Set<Statement> union(Set<Statement> left, Set<Statement> right) {
+        if (left.containsAll(right))
+            return left;
+        if (right.containsAll(left))
+            return right;
+        Set<Statement> res = new HashSet<>(left);
+        res.addAll(right);
+        return res;
+    }
+
     public static TransitionFunction one() {
-        if (one == null)
-            one = new TransitionFunction("ONE");
         return one;
     }
 
     public static TransitionFunction zero() {
-        if (zero == null)
-            zero = new TransitionFunction("ZERO");
         return zero;
     }
 
@@ -142,7 +161,7 @@ public class TransitionFunction extends Weight {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((rep == null) ? 0 : rep.hashCode());
-        result = prime * result + ((value == null) ? 0 : value.hashCode());
+        result = prime * result + value.hashCode();
         return result;
     }
 
@@ -160,12 +179,7 @@ public class TransitionFunction extends Weight {
                 return false;
         } else if (!rep.equals(other.rep))
             return false;
-        if (value == null) {
-            if (other.value != null)
-                return false;
-        } else if (!value.equals(other.value))
-            return false;
-        return true;
+        return value == other.value;
     }
 
 }
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+
+import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.State;
+import typestate.finiteautomata.Transition;
+
+/**
+ * Hash-consed set of type state transitions, the value of a {@link TransitionFunction}. Every distinct transition
+ * gets an index in the {@link TransitionTable} of its state machine and a set is a bit set over these indices, as
+ * transitions with equal states can still differ, e.g. in the methods a matcher transition matches. There
+ * is exactly one instance per distinct set and table, so two sets are equal if and only if they are identical. The
+ * results of {@link #extend(TransitionSet)} and {@link #combine(TransitionSet)} are memoized per pair of sets in the
+ * same table.
+ */
+final class TransitionSet {
+
+    static final TransitionSet EMPTY = new TransitionSet(null, new BitSet(), new ITransition[0]);
+
+    private final TransitionTable table;
+    private final BitSet bits;
+    private final ITransition[] transitions;
+    /**
+     * The transitions other than the identity by their source state, for {@link #extend(TransitionSet)}.
+     */
+    private final ListMultimap<State, ITransition> bySource = ArrayListMultimap.create();
+    private final boolean containsIdentity;
+    private final int hashCode;
+
+    TransitionSet(TransitionTable table, BitSet bits, ITransition[] transitions) {
+        this.table = table;
+        this.bits = bits;
+        this.transitions = transitions;
+        this.hashCode = bits.hashCode();
+        boolean identity = false;
+        for (ITransition t : transitions) {
+            if (t.equals(Transition.identity())) {
+                identity = true;
+            } else {
+                bySource.put(t.from(), t);
+            }
+        }
+        this.containsIdentity = identity;
+    }
+
+    static TransitionSet of(TransitionTable table, Collection<? extends ITransition> trans) {
+        BitSet bits = new BitSet();
+        for (ITransition t : trans) {
+            bits.set(table.indexOf(t));
+        }
+        return table.setOf(bits);
+    }
+
+    List<ITransition> values() {
+        return Lists.newArrayList(transitions);
+    }
+
+    /**
+     * Composes every transition of this set with the transitions of the other set that start in its target state. The
+     * identity composes with every transition.
+     */
+    Extension extend(TransitionSet other) {
+        checkSameTable(other);
+        Pair key = new Pair(this, other);
+        Extension res = table.extendResults.get(key);
+        if (res != null)
+            return res;
+        BitSet bits = new BitSet();
+        boolean usesLeft = false;
+        boolean usesRight = false;
+        for (ITransition first : transitions) {
+            if (other.containsIdentity) {
+                bits.set(table.indexOf(first));
+                usesLeft = true;
+            }
+            if (first.equals(Transition.identity())) {
+                for (ITransition second : other.bySource.values()) {
+                    bits.set(table.indexOf(second));
+                    usesRight = true;
+                }
+            } else {
+                for (ITransition second : other.bySource.get(first.to())) {
+                    bits.set(table.indexOf(new Transition(first.from(), second.to())));
+                    usesRight = true;
+                }
+            }
+        }
+        res = new Extension(table.setOf(bits), usesLeft, usesRight);
+        table.extendResults.putIfAbsent(key, res);
+        return res;
+    }
+
+    TransitionSet combine(TransitionSet other) {
+        checkSameTable(other);
+        Pair key = new Pair(this, other);
+        TransitionSet res = table.combineResults.get(key);
+        if (res != null)
+            return res;
+        BitSet bits = (BitSet) this.bits.clone();
+        bits.or(other.bits);
+        res = table.setOf(bits);
+        table.combineResults.putIfAbsent(key, res);
+        return res;
+    }
+
+    /**
+     * Adds the transition from->from for every transition of this set, used when combining with the neutral element.
+     */
+    TransitionSet withSelfLoops() {
+        TransitionSet res = table.selfLoopResults.get(this);
+        if (res != null)
+            return res;
+        BitSet bits = (BitSet) this.bits.clone();
+        for (ITransition t : transitions) {
+            bits.set(table.indexOf(new Transition(t.from(), t.from())));
+        }
+        res = table.setOf(bits);
+        table.selfLoopResults.putIfAbsent(this, res);
+        return res;
+    }
+
+    private void checkSameTable(TransitionSet other) {
+        if (table != other.table)
+            throw new IllegalArgumentException("Transition sets of different state machines: " + this + ", " + other);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return Lists.newArrayList(transitions).toString();
+    }
+
+    /**
+     * Result of {@link TransitionSet#extend(TransitionSet)}. The flags tell whether the state change statements of the
+     * left or right operand carry over to the result.
+     */
+    static class Extension {
+        final TransitionSet set;
+        final boolean usesLeft;
+        final boolean usesRight;
+
+        private Extension(TransitionSet set, boolean usesLeft, boolean usesRight) {
+            this.set = set;
+            this.usesLeft = usesLeft;
+            this.usesRight = usesRight;
+        }
+    }
+
+    static class Pair {
+        private final TransitionSet left;
+        private final TransitionSet right;
+
+        private Pair(TransitionSet left, TransitionSet right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * left.hashCode + right.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Pair))
+                return false;
+            Pair other = (Pair) obj;
+            return left == other.left && right == other.right;
+        }
+    }
+}
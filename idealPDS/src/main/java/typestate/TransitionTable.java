@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import typestate.TransitionSet.Extension;
+import typestate.TransitionSet.Pair;
+import typestate.finiteautomata.ITransition;
+
+/**
+ * Indices, hash-consed {@link TransitionSet}s and memoized set operations of the transitions of one type state
+ * machine. The table is referenced by the {@link typestate.finiteautomata.TypeStateMachineWeightFunctions} and by the
+ * transition sets created with it, so it is released together with the analysis instead of pinning its transitions
+ * (and the methods they match) for the lifetime of the class loader.
+ */
+public final class TransitionTable {
+
+    private final Map<ITransition, Integer> transitionToIndex = Maps.newHashMap();
+    private final List<ITransition> indexToTransition = Lists.newArrayList();
+    private final ConcurrentMap<BitSet, TransitionSet> sets = Maps.newConcurrentMap();
+    final ConcurrentMap<Pair, Extension> extendResults = Maps.newConcurrentMap();
+    final ConcurrentMap<Pair, TransitionSet> combineResults = Maps.newConcurrentMap();
+    final ConcurrentMap<TransitionSet, TransitionSet> selfLoopResults = Maps.newConcurrentMap();
+
+    synchronized int indexOf(ITransition t) {
+        Integer index = transitionToIndex.get(t);
+        if (index == null) {
+            index = indexToTransition.size();
+            indexToTransition.add(t);
+            transitionToIndex.put(t, index);
+        }
+        return index;
+    }
+
+    TransitionSet setOf(BitSet bits) {
+        TransitionSet set = sets.get(bits);
+        if (set != null)
+            return set;
+        set = new TransitionSet(this, bits, transitionsOf(bits));
+        TransitionSet old = sets.putIfAbsent(bits, set);
+        return old == null ? set : old;
+    }
+
+    private synchronized ITransition[] transitionsOf(BitSet bits) {
+        ITransition[] res = new ITransition[bits.cardinality()];
+        int i = 0;
+        for (int index = bits.nextSetBit(0); index >= 0; index = bits.nextSetBit(index + 1)) {
+            res[i++] = indexToTransition.get(index);
+        }
+        return res;
+    }
+}
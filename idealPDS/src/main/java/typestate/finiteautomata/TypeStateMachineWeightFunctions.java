@@ -17,11 +17,13 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 
 import boomerang.WeightedForwardQuery;
@@ -42,6 +44,7 @@ import soot.jimple.Stmt;
 import sync.pds.solver.WeightFunctions;
 import sync.pds.solver.nodes.Node;
 import typestate.TransitionFunction;
+import typestate.TransitionTable;
 import typestate.finiteautomata.MatcherTransition.Parameter;
 import typestate.finiteautomata.MatcherTransition.Type;
 
@@ -49,6 +52,24 @@ public abstract class TypeStateMachineWeightFunctions
         implements WeightFunctions<Statement, Val, Statement, TransitionFunction> {
     public Set<MatcherTransition> transition = new HashSet<>();
 
+    /**
+     * All instances of a state machine class share one table while any of them or any of their weights is alive, as
+     * clients may create a new instance for every seed. Once the analysis is gone, the table is collected.
+     */
+    private static final ConcurrentMap<Class<?>, TransitionTable> tables = new MapMaker().weakKeys().weakValues()
+            .makeMap();
+
+    private final TransitionTable transitionTable = tableOf(getClass());
+
+    private static TransitionTable tableOf(Class<?> machine) {
+        TransitionTable table = tables.get(machine);
+        if (table != null)
+            return table;
+        table = new TransitionTable();
+        TransitionTable old = tables.putIfAbsent(machine, table);
+        return old == null ? table : old;
+    }
+
     public void addTransition(MatcherTransition trans) {
         transition.add(trans);
     }
@@ -109,7 +130,7 @@ public abstract class TypeStateMachineWeightFunctions
                 }
             }
         }
-        return (res.isEmpty() ? getOne() : new TransitionFunction(res, Collections.singleton(succ.stmt())));
+        return (res.isEmpty() ? getOne() : new TransitionFunction(transitionTable, res, Collections.singleton(succ.stmt())));
     }
 
     private TransitionFunction getMatchingTransitions(Statement statement, Val node, Statement transitionStmt,
@@ -131,7 +152,7 @@ public abstract class TypeStateMachineWeightFunctions
 
         if (res.isEmpty())
             return getOne();
-        return new TransitionFunction(res, Collections.singleton(transitionStmt));
+        return new TransitionFunction(transitionTable, res, Collections.singleton(transitionStmt));
     }
 
     private boolean isThisValue(SootMethod method, Val node) {
@@ -242,7 +263,8 @@ public abstract class TypeStateMachineWeightFunctions
     public abstract Collection<WeightedForwardQuery<TransitionFunction>> generateSeed(SootMethod method, Unit stmt);
 
     public TransitionFunction initialTransition() {
-        return new TransitionFunction(new Transition(initialState(), initialState()), Collections.emptySet());
+        return new TransitionFunction(transitionTable, new Transition(initialState(), initialState()),
+                Collections.emptySet());
     }
 
     protected abstract State initialState();
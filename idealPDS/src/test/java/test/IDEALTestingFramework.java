@@ -20,6 +20,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
 
 import boomerang.BoomerangOptions;
@@ -35,6 +36,8 @@ import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.preanalysis.BoomerangPretransformer;
 import boomerang.results.ForwardBoomerangResults;
+import boomerang.stats.AdvancedBoomerangStats;
+import boomerang.stats.IBoomerangStats;
 import ideal.IDEALAnalysis;
 import ideal.IDEALAnalysisDefinition;
 import ideal.IDEALResultHandler;
@@ -50,9 +53,12 @@ import soot.jimple.Stmt;
 import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
 import sync.pds.solver.WeightFunctions;
 import test.ExpectedResults.InternalState;
+import test.core.benchmark.CaseMetrics;
 import test.core.selfrunning.AbstractTestingFramework;
 import test.core.selfrunning.ImprecisionException;
+import typestate.ErrorStatePredicate;
 import typestate.TransitionFunction;
+import typestate.finiteautomata.ITransition;
 import typestate.finiteautomata.TypeStateMachineWeightFunctions;
 
 public abstract class IDEALTestingFramework extends AbstractTestingFramework {
@@ -95,6 +101,16 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
             	return staticIcfg;
             }
 
+            @Override
+            public int analysisThreads() {
+                return IDEALTestingFramework.this.analysisThreads();
+            }
+
+            @Override
+            public int seedThreads() {
+                return IDEALTestingFramework.this.seedThreads();
+            }
+
             @Override
             public BoomerangOptions boomerangOptions() {
                 return new DefaultBoomerangOptions() {
@@ -103,6 +119,12 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
                     public boolean onTheFlyCallGraph() {
                         return false;
                     }
+
+                    @Override
+                    public IBoomerangStats statsFactory() {
+                        return CaseMetrics.isRecording() ? new AdvancedBoomerangStats<TransitionFunction>()
+                                : super.statsFactory();
+                    }
                 };
             }
 
@@ -123,6 +145,13 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
                 for (Entry<WeightedForwardQuery<TransitionFunction>, ForwardBoomerangResults<TransitionFunction>> e : seedToSolvers
                         .entrySet()) {
                     testingResultReporter.onSeedFinished(e.getKey().asNode(), e.getValue());
+                    if (e.getValue().getStats() instanceof AdvancedBoomerangStats) {
+                        CaseMetrics.addAll(
+                                ((AdvancedBoomerangStats<TransitionFunction>) e.getValue().getStats()).getCounters());
+                    }
+                }
+                if (decideErrorStates()) {
+                    checkErrorStateDecisions(seedToSolvers);
                 }
                 List<Assertion> unsound = Lists.newLinkedList();
                 List<Assertion> imprecise = Lists.newLinkedList();
@@ -150,11 +179,54 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
         };
     }
 
+    protected int analysisThreads() {
+        return 1;
+    }
+
+    protected int seedThreads() {
+        return 1;
+    }
+
     protected Map<WeightedForwardQuery<TransitionFunction>, ForwardBoomerangResults<TransitionFunction>> executeAnalysis() {
         IDEALTestingFramework.this.createAnalysis().run();
         return resultHandler.getResults();
     }
 
+    /**
+     * Whether to decide for every seed if it reaches an error state with an {@link ErrorStatePredicate} and compare the
+     * answer to the weights of the full analysis.
+     */
+    protected boolean decideErrorStates() {
+        return false;
+    }
+
+    private void checkErrorStateDecisions(
+            Map<WeightedForwardQuery<TransitionFunction>, ForwardBoomerangResults<TransitionFunction>> seedToSolvers) {
+        for (Entry<WeightedForwardQuery<TransitionFunction>, ForwardBoomerangResults<TransitionFunction>> e : seedToSolvers
+                .entrySet()) {
+            if (e.getValue().isTimedout()) {
+                continue;
+            }
+            boolean reachesErrorState = reachesErrorState(e.getValue());
+            Optional<Boolean> decision = createAnalysis().decide(e.getKey(), new ErrorStatePredicate());
+            if (!decision.isPresent() || decision.get() != reachesErrorState) {
+                throw new RuntimeException("Error state of " + e.getKey() + " decided as " + decision
+                        + ", the analysis found " + reachesErrorState);
+            }
+        }
+    }
+
+    private static boolean reachesErrorState(ForwardBoomerangResults<TransitionFunction> results) {
+        for (TransitionFunction w : results.asStatementValWeightTable().values()) {
+            for (ITransition t : w.values()) {
+                if (t.to() != null && t.to().isErrorState()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private Set<Assertion> parseExpectedQueryResults(SootMethod sootTestMethod) {
         Set<Assertion> results = new HashSet<>();
         parseExpectedQueryResults(sootTestMethod, results, new HashSet<SootMethod>());
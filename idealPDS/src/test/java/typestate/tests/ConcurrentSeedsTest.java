@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate.tests;
+
+import org.junit.Test;
+
+import test.IDEALTestingFramework;
+import typestate.finiteautomata.TypeStateMachineWeightFunctions;
+import typestate.impl.statemachines.FileMustBeClosedStateMachine;
+import typestate.test.helper.File;
+import typestate.test.helper.ObjectWithField;
+
+public class ConcurrentSeedsTest extends IDEALTestingFramework {
+
+    @Test
+    public void independentSeeds() {
+        File a = new File();
+        File b = new File();
+        File c = new File();
+        a.open();
+        b.open();
+        c.open();
+        b.close();
+        mustBeInErrorState(a);
+        mustBeInAcceptingState(b);
+        mustBeInErrorState(c);
+        c.close();
+        mustBeInAcceptingState(c);
+    }
+
+    @Test
+    public void seedsWithAliases() {
+        File a = new File();
+        File b = new File();
+        File aliasA = a;
+        ObjectWithField container = new ObjectWithField();
+        container.field = b;
+        aliasA.open();
+        b.open();
+        mustBeInErrorState(a);
+        File aliasB = container.field;
+        aliasB.close();
+        mustBeInAcceptingState(b);
+    }
+
+    @Test
+    public void seedsInCallees() {
+        File a = new File();
+        File b = new File();
+        open(a);
+        open(b);
+        mustBeInErrorState(a);
+        close(b);
+        mustBeInAcceptingState(b);
+        mustBeInErrorState(a);
+    }
+
+    private static void open(File file) {
+        file.open();
+    }
+
+    private static void close(File file) {
+        file.close();
+    }
+
+    @Override
+    protected int analysisThreads() {
+        return 4;
+    }
+
+    @Override
+    protected TypeStateMachineWeightFunctions getStateMachine() {
+        return new FileMustBeClosedStateMachine();
+    }
+}
@@ -695,4 +695,9 @@ public class FileMustBeClosedTest extends IDEALTestingFramework {
     protected TypeStateMachineWeightFunctions getStateMachine() {
         return new FileMustBeClosedStateMachine();
     }
+
+    @Override
+    protected boolean decideErrorStates() {
+        return true;
+    }
 }
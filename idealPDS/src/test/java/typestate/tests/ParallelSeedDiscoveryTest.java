@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate.tests;
+
+import org.junit.Test;
+
+import test.IDEALTestingFramework;
+import typestate.finiteautomata.TypeStateMachineWeightFunctions;
+import typestate.impl.statemachines.FileMustBeClosedStateMachine;
+import typestate.test.helper.File;
+
+public class ParallelSeedDiscoveryTest extends IDEALTestingFramework {
+
+    @Test
+    public void seedsInManyMethods() {
+        File a = new File();
+        a.open();
+        File b = openedInCallee();
+        File c = closedInCallee();
+        File d = new Opener().open();
+        mustBeInErrorState(a);
+        mustBeInErrorState(b);
+        mustBeInAcceptingState(c);
+        mustBeInErrorState(d);
+        a.close();
+        mustBeInAcceptingState(a);
+    }
+
+    private static File openedInCallee() {
+        File file = new File();
+        file.open();
+        return file;
+    }
+
+    private static File closedInCallee() {
+        File file = openedInCallee();
+        file.close();
+        return file;
+    }
+
+    private static class Opener {
+        File open() {
+            File file = new File();
+            file.open();
+            return file;
+        }
+    }
+
+    @Override
+    protected int seedThreads() {
+        return 4;
+    }
+
+    @Override
+    protected TypeStateMachineWeightFunctions getStateMachine() {
+        return new FileMustBeClosedStateMachine();
+    }
+}
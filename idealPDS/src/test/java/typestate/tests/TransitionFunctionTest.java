@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import boomerang.jimple.Statement;
+import soot.jimple.Jimple;
+import typestate.TransitionFunction;
+import typestate.TransitionTable;
+import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.Transition;
+import typestate.impl.statemachines.FileMustBeClosedStateMachine.States;
+
+public class TransitionFunctionTest {
+
+    private final Statement open = new Statement(Jimple.v().newNopStmt(), null);
+    private final Statement close = new Statement(Jimple.v().newNopStmt(), null);
+
+    private final TransitionTable table = new TransitionTable();
+
+    private TransitionFunction function(Statement stmt, ITransition... trans) {
+        return new TransitionFunction(table, Sets.newHashSet(trans), Collections.singleton(stmt));
+    }
+
+    private Set<ITransition> values(TransitionFunction f) {
+        return Sets.newHashSet(f.values());
+    }
+
+    @Test
+    public void equalSetsAreEqualIndependentOfStatements() {
+        TransitionFunction f1 = function(open, new Transition(States.INIT, States.OPENED));
+        TransitionFunction f2 = function(close, new Transition(States.INIT, States.OPENED));
+        assertEquals(f1, f2);
+        assertEquals(f1.hashCode(), f2.hashCode());
+        assertNotEquals(f1, function(open, new Transition(States.INIT, States.CLOSED)));
+        assertNotEquals(TransitionFunction.one(), TransitionFunction.zero());
+        assertNotEquals(TransitionFunction.one(), new TransitionFunction(table, Collections.<ITransition> emptySet(),
+                Collections.<Statement> emptySet()));
+    }
+
+    @Test
+    public void extendComposesTransitions() {
+        TransitionFunction opened = function(open, new Transition(States.INIT, States.OPENED));
+        TransitionFunction closed = function(close, new Transition(States.OPENED, States.CLOSED),
+                new Transition(States.INIT, States.CLOSED));
+        TransitionFunction res = (TransitionFunction) opened.extendWith(closed);
+        assertEquals(Sets.newHashSet(new Transition(States.INIT, States.CLOSED)), values(res));
+        assertEquals(Collections.singleton(close), res.getLastStateChangeStatements());
+        assertEquals(res, opened.extendWith(closed));
+
+        TransitionFunction id = function(open, Transition.identity());
+        TransitionFunction keep = (TransitionFunction) closed.extendWith(id);
+        assertEquals(closed, keep);
+        assertEquals(Collections.singleton(close), keep.getLastStateChangeStatements());
+        assertSame(TransitionFunction.zero(), closed.extendWith(TransitionFunction.zero()));
+        assertSame(closed, closed.extendWith(TransitionFunction.one()));
+    }
+
+    @Test
+    public void combineUnitesTransitions() {
+        TransitionFunction opened = function(open, new Transition(States.INIT, States.OPENED));
+        TransitionFunction closed = function(close, new Transition(States.INIT, States.CLOSED));
+        TransitionFunction res = (TransitionFunction) opened.combineWith(closed);
+        assertEquals(Sets.newHashSet(new Transition(States.INIT, States.OPENED),
+                new Transition(States.INIT, States.CLOSED)), values(res));
+        assertEquals(Sets.newHashSet(open, close), res.getLastStateChangeStatements());
+        assertEquals(res, closed.combineWith(opened));
+
+        TransitionFunction withOne = (TransitionFunction) opened.combineWith(TransitionFunction.one());
+        assertEquals(Sets.newHashSet(new Transition(States.INIT, States.OPENED),
+                new Transition(States.INIT, States.INIT)), values(withOne));
+        assertEquals(withOne, TransitionFunction.one().combineWith(opened));
+        assertSame(opened, opened.combineWith(TransitionFunction.zero()));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedConstructorsShareOneTable() {
+        TransitionFunction opened = new TransitionFunction(new Transition(States.INIT, States.OPENED),
+                Collections.singleton(open));
+        TransitionFunction closed = new TransitionFunction(
+                Sets.newHashSet(new Transition(States.OPENED, States.CLOSED)), Collections.singleton(close));
+        assertEquals(opened, new TransitionFunction(new Transition(States.INIT, States.OPENED),
+                Collections.singleton(close)));
+        assertEquals(Sets.newHashSet(new Transition(States.INIT, States.CLOSED)),
+                values((TransitionFunction) opened.extendWith(closed)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void functionsOfDifferentTablesDoNotMix() {
+        TransitionFunction opened = function(open, new Transition(States.INIT, States.OPENED));
+        TransitionFunction other = new TransitionFunction(new TransitionTable(),
+                new Transition(States.INIT, States.OPENED), Collections.singleton(open));
+        assertNotEquals(opened, other);
+        opened.combineWith(other);
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.core.benchmark;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Collects the metrics of the test case that is currently executed by the {@link CorpusBenchmark}. The testing
+ * frameworks only add metrics while {@link #isRecording()} holds, so the normal test runs are not affected. Values
+ * added for the same metric within one case are summed up, e.g. over all queries of a test case.
+ */
+public class CaseMetrics {
+
+    private static volatile boolean recording;
+    private static final Map<String, Long> current = Maps.newLinkedHashMap();
+
+    private CaseMetrics() {
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    public static synchronized void add(String metric, long value) {
+        if (!recording)
+            return;
+        Long old = current.get(metric);
+        current.put(metric, old == null ? value : old + value);
+    }
+
+    public static void addAll(Map<String, ? extends Number> metrics) {
+        for (Map.Entry<String, ? extends Number> e : metrics.entrySet()) {
+            add(e.getKey(), e.getValue().longValue());
+        }
+    }
+
+    static synchronized void start() {
+        current.clear();
+        recording = true;
+    }
+
+    static synchronized Map<String, Long> stop() {
+        recording = false;
+        Map<String, Long> res = ImmutableMap.copyOf(current);
+        current.clear();
+        return res;
+    }
+}
@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.core.benchmark;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Runs the test cases of the Boomerang and IDEal test corpora as benchmarks. Every test method is one case; per case
+ * the wall time, the peak heap usage, the allocation and GC activity of the test thread and all metrics the testing
+ * frameworks add to {@link CaseMetrics} (analysis time, reached nodes, rule and transition counts) are recorded and
+ * written as JSON or CSV.
+ * 
+ * Usage: {@code CorpusBenchmark [-o out.json|out.csv] [-b baseline.json|baseline.csv] [-t percent] target...}. A
+ * target is a test class or a package that is scanned for test classes, including sub packages. Without targets, the
+ * scaling probes in test.cases.fields.complexity are run. Given a baseline, all metrics that differ by more than the
+ * threshold (default 10%) are printed and the process exits with status 1 if any of them grew.
+ */
+public class CorpusBenchmark {
+
+    private static final String[] DEFAULT_TARGETS = { "test.cases.fields.complexity" };
+    private static final String CSV_SEPARATOR = ";";
+    private static final String WALL_TIME = "wallMS";
+    private static final String PEAK_HEAP = "peakHeapMB";
+    private static final String ALLOCATED = "allocatedMB";
+    private static final String GC_COUNT = "gcCount";
+    private static final String GC_TIME = "gcMS";
+
+    private final Map<String, CaseResult> results = Maps.newLinkedHashMap();
+
+    public static void main(String... args) throws IOException, ClassNotFoundException {
+        File output = new File("benchmark.json");
+        File baseline = null;
+        double threshold = 10;
+        List<String> targets = Lists.newArrayList();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-o":
+                output = new File(args[++i]);
+                break;
+            case "-b":
+                baseline = new File(args[++i]);
+                break;
+            case "-t":
+                threshold = Double.parseDouble(args[++i]);
+                break;
+            default:
+                targets.add(args[i]);
+            }
+        }
+        if (targets.isEmpty()) {
+            Collections.addAll(targets, DEFAULT_TARGETS);
+        }
+        List<Class<?>> testClasses = Lists.newArrayList();
+        for (String target : targets) {
+            testClasses.addAll(findTestClasses(target));
+        }
+        CorpusBenchmark benchmark = new CorpusBenchmark();
+        benchmark.run(testClasses);
+        benchmark.write(output);
+        System.out.println("Wrote " + benchmark.results.size() + " cases to " + output);
+        if (baseline != null) {
+            int regressions = benchmark.diff(read(baseline), threshold);
+            System.exit(regressions > 0 ? 1 : 0);
+        }
+    }
+
+    public Map<String, CaseResult> run(List<Class<?>> testClasses) {
+        JUnitCore core = new JUnitCore();
+        core.addListener(new CaseListener());
+        core.run(testClasses.toArray(new Class<?>[testClasses.size()]));
+        return results;
+    }
+
+    /**
+     * Prints all metrics of cases present in both runs whose value changed by more than threshold percent and returns
+     * the number of metrics that grew by more than that.
+     */
+    public int diff(Map<String, CaseResult> baseline, double threshold) {
+        int regressions = 0;
+        for (CaseResult current : results.values()) {
+            CaseResult old = baseline.get(current.name);
+            if (old == null) {
+                System.out.println("New case: " + current.name);
+                continue;
+            }
+            if (old.passed != current.passed) {
+                System.out.println(current.name + ": " + old.status() + " -> " + current.status());
+            }
+            for (Map.Entry<String, Long> e : current.metrics.entrySet()) {
+                Long before = old.metrics.get(e.getKey());
+                if (before == null)
+                    continue;
+                long now = e.getValue();
+                double change = before == 0 ? (now == 0 ? 0 : Double.POSITIVE_INFINITY)
+                        : (now - before) * 100.0 / before;
+                if (Math.abs(change) <= threshold)
+                    continue;
+                if (change > 0)
+                    regressions++;
+                System.out.println(String.format("%s %s: %s -> %s (%+.1f%%)", current.name, e.getKey(), before, now,
+                        change));
+            }
+        }
+        for (String name : baseline.keySet()) {
+            if (!results.containsKey(name)) {
+                System.out.println("Missing case: " + name);
+            }
+        }
+        System.out.println(String.format("%s metrics grew by more than %s%% compared to the baseline.", regressions,
+                threshold));
+        return regressions;
+    }
+
+    public void write(File file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            if (isCsv(file)) {
+                writeCsv(writer);
+            } else {
+                writeJson(writer);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeJson(Writer writer) throws IOException {
+        JSONArray cases = new JSONArray();
+        for (CaseResult r : results.values()) {
+            JSONObject metrics = new JSONObject();
+            metrics.putAll(r.metrics);
+            JSONObject c = new JSONObject();
+            c.put("case", r.name);
+            c.put("status", r.status());
+            c.put("metrics", metrics);
+            cases.add(c);
+        }
+        JSONObject root = new JSONObject();
+        root.put("cases", cases);
+        root.writeJSONString(writer);
+    }
+
+    private void writeCsv(Writer writer) throws IOException {
+        Set<String> header = Sets.newLinkedHashSet();
+        for (CaseResult r : results.values()) {
+            header.addAll(r.metrics.keySet());
+        }
+        writer.write("Case" + CSV_SEPARATOR + "Status" + CSV_SEPARATOR + Joiner.on(CSV_SEPARATOR).join(header) + "\n");
+        for (CaseResult r : results.values()) {
+            List<Object> row = Lists.newArrayList(r.name, r.status());
+            for (String metric : header) {
+                Long value = r.metrics.get(metric);
+                row.add(value == null ? "" : value);
+            }
+            writer.write(Joiner.on(CSV_SEPARATOR).join(row) + "\n");
+        }
+    }
+
+    public static Map<String, CaseResult> read(File file) throws IOException {
+        return isCsv(file) ? readCsv(file) : readJson(file);
+    }
+
+    private static Map<String, CaseResult> readJson(File file) throws IOException {
+        Map<String, CaseResult> res = Maps.newLinkedHashMap();
+        try (Reader reader = new FileReader(file)) {
+            JSONObject root = (JSONObject) new JSONParser().parse(reader);
+            for (Object o : (JSONArray) root.get("cases")) {
+                JSONObject c = (JSONObject) o;
+                CaseResult r = new CaseResult((String) c.get("case"), "PASSED".equals(c.get("status")));
+                for (Object m : ((JSONObject) c.get("metrics")).entrySet()) {
+                    Map.Entry<?, ?> e = (Map.Entry<?, ?>) m;
+                    r.metrics.put((String) e.getKey(), ((Number) e.getValue()).longValue());
+                }
+                res.put(r.name, r);
+            }
+        } catch (ParseException e) {
+            throw new IOException("Malformed benchmark file " + file, e);
+        }
+        return res;
+    }
+
+    private static Map<String, CaseResult> readCsv(File file) throws IOException {
+        Map<String, CaseResult> res = Maps.newLinkedHashMap();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty())
+            return res;
+        String[] header = lines.get(0).split(CSV_SEPARATOR);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] row = line.split(CSV_SEPARATOR);
+            CaseResult r = new CaseResult(row[0], "PASSED".equals(row[1]));
+            for (int i = 2; i < row.length; i++) {
+                if (!row[i].isEmpty())
+                    r.metrics.put(header[i], Long.parseLong(row[i]));
+            }
+            res.put(r.name, r);
+        }
+        return res;
+    }
+
+    private static boolean isCsv(File file) {
+        return file.getName().endsWith(".csv");
+    }
+
+    static List<Class<?>> findTestClasses(String target) throws IOException, ClassNotFoundException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try {
+            return Collections.<Class<?>> singletonList(Class.forName(target, false, loader));
+        } catch (ClassNotFoundException e) {
+            // Not a class, scan it as package.
+        }
+        Set<String> classNames = Sets.newTreeSet();
+        Enumeration<URL> roots = loader.getResources(target.replace('.', '/'));
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if (!root.getProtocol().equals("file"))
+                continue;
+            Path dir;
+            try {
+                dir = Paths.get(root.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.collect(Collectors.toList())) {
+                    String name = dir.relativize(p).toString();
+                    if (name.endsWith(".class") && !name.contains("$")) {
+                        classNames.add(target + "." + name.substring(0, name.length() - ".class".length())
+                                .replace(File.separatorChar, '.'));
+                    }
+                }
+            }
+        }
+        if (classNames.isEmpty()) {
+            throw new ClassNotFoundException("No test class or package found for " + target);
+        }
+        List<Class<?>> res = Lists.newArrayList();
+        for (String name : classNames) {
+            Class<?> c = Class.forName(name, false, loader);
+            if (isTestClass(c)) {
+                res.add(c);
+            }
+        }
+        return res;
+    }
+
+    private static boolean isTestClass(Class<?> c) {
+        if (Modifier.isAbstract(c.getModifiers()))
+            return false;
+        for (Method m : c.getMethods()) {
+            if (m.isAnnotationPresent(Test.class))
+                return true;
+        }
+        return false;
+    }
+
+    private static long peakHeapMB() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        }
+        return peak / (1024 * 1024);
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+        }
+    }
+
+    /**
+     * @return The bytes allocated by the current thread so far, or -1 if the JVM does not report allocations.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long[] gcCountAndTime() {
+        long[] res = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            res[0] += Math.max(0, gc.getCollectionCount());
+            res[1] += Math.max(0, gc.getCollectionTime());
+        }
+        return res;
+    }
+
+    private class CaseListener extends RunListener {
+        private Stopwatch watch;
+        private boolean failed;
+        private long allocatedBefore;
+        private long[] gcBefore;
+
+        @Override
+        public void testStarted(Description description) {
+            resetPeakHeap();
+            failed = false;
+            CaseMetrics.start();
+            gcBefore = gcCountAndTime();
+            allocatedBefore = allocatedBytes();
+            watch = Stopwatch.createStarted();
+        }
+
+        @Override
+        public void testFailure(Failure failure) {
+            failed = true;
+        }
+
+        @Override
+        public void testFinished(Description description) {
+            long wallTime = watch.elapsed(TimeUnit.MILLISECONDS);
+            long allocated = allocatedBytes();
+            long[] gc = gcCountAndTime();
+            Map<String, Long> recorded = CaseMetrics.stop();
+            CaseResult r = new CaseResult(description.getClassName() + "#" + description.getMethodName(), !failed);
+            r.metrics.put(WALL_TIME, wallTime);
+            r.metrics.put(PEAK_HEAP, peakHeapMB());
+            if (allocated >= 0)
+                r.metrics.put(ALLOCATED, (allocated - allocatedBefore) / (1024 * 1024));
+            r.metrics.put(GC_COUNT, gc[0] - gcBefore[0]);
+            r.metrics.put(GC_TIME, gc[1] - gcBefore[1]);
+            r.metrics.putAll(recorded);
+            results.put(r.name, r);
+            System.out.println(r);
+        }
+    }
+
+    public static class CaseResult {
+        private final String name;
+        private final boolean passed;
+        private final Map<String, Long> metrics = Maps.newLinkedHashMap();
+
+        CaseResult(String name, boolean passed) {
+            this.name = name;
+            this.passed = passed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        public Map<String, Long> getMetrics() {
+            return metrics;
+        }
+
+        private String status() {
+            return passed ? "PASSED" : "FAILED";
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + status() + " " + metrics;
+        }
+    }
+}
@@ -16,10 +16,13 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.rules.TestName;
 
+import com.google.common.base.Stopwatch;
+
 import soot.*;
 import soot.jimple.Jimple;
 import soot.jimple.JimpleBody;
 import soot.options.Options;
+import test.core.benchmark.CaseMetrics;
 
 import java.io.File;
 import java.io.IOException;
@@ -27,6 +30,7 @@ import java.nio.file.Files;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractTestingFramework {
     @Rule
@@ -72,7 +76,9 @@ public abstract class AbstractTestingFramework {
         Transform transform = new Transform("wjtp.ifds", createAnalysisTransformer());
         PackManager.v().getPack("wjtp").add(transform); // whole programm, jimple, user-defined transformations
         PackManager.v().getPack("cg").apply(); // call graph package
+        Stopwatch watch = Stopwatch.createStarted();
         PackManager.v().getPack("wjtp").apply();
+        CaseMetrics.add("analysisMS", watch.elapsed(TimeUnit.MILLISECONDS));
     }
 
     protected abstract SceneTransformer createAnalysisTransformer();
@@ -112,9 +118,12 @@ public abstract class AbstractTestingFramework {
         // Options.v().set_main_class(this.getTargetClass());
         SootClass sootTestCaseClass = Scene.v().forceResolve(getTestCaseClassName(), SootClass.BODIES);
 
-        for (SootMethod m : sootTestCaseClass.getMethods()) {
-            if (m.getName().equals(testMethodName.getMethodName()))
-                sootTestMethod = m;
+        // Test cases may be inherited, e.g. to run them in a different configuration.
+        for (Class<?> c = getClass(); c != null && sootTestMethod == null; c = c.getSuperclass()) {
+            for (SootMethod m : Scene.v().forceResolve(c.getName(), SootClass.BODIES).getMethods()) {
+                if (m.getName().equals(testMethodName.getMethodName()))
+                    sootTestMethod = m;
+            }
         }
         if (sootTestMethod == null)
             throw new RuntimeException(
@@ -133,7 +142,8 @@ public abstract class AbstractTestingFramework {
                 ePoints.add(m);
         }
         for (SootClass inner : Scene.v().getClasses()) {
-            if (inner.getName().contains(sootTestCaseClass.getName())) {
+            if (inner.getName().contains(sootTestCaseClass.getName())
+                    || inner.getName().contains(sootTestMethod.getDeclaringClass().getName())) {
                 inner.setApplicationClass();
                 for (SootMethod m : inner.getMethods()) {
                     if (m.isStaticInitializer())